@@ -1,4 +1,4 @@
-package eu.gaiax.wizard.exception;
+package eu.gaiax.wizard.api.exception;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
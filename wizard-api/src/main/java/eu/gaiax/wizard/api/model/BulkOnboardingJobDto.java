@@ -0,0 +1,21 @@
+package eu.gaiax.wizard.api.model;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A bulk onboarding and the results of its rows.
+ *
+ * @param jobId      the job id
+ * @param state      the state of the job
+ * @param total      the number of rows
+ * @param registered the number of rows registered so far, including the ones onboarding
+ * @param failed     the number of rows failed so far
+ * @param createdAt  when the rows were submitted
+ * @param updatedAt  when the job changed last
+ * @param rows       the results of the rows
+ */
+public record BulkOnboardingJobDto(UUID jobId, BulkOnboardingJobState state, int total, int registered, int failed, Date createdAt,
+                                   Date updatedAt, List<BulkOnboardingRowDto> rows) {
+}
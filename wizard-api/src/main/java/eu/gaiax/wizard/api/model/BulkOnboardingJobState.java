@@ -0,0 +1,7 @@
+package eu.gaiax.wizard.api.model;
+
+public enum BulkOnboardingJobState {
+    PENDING,
+    RUNNING,
+    COMPLETED
+}
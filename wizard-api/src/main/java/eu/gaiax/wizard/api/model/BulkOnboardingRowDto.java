@@ -0,0 +1,15 @@
+package eu.gaiax.wizard.api.model;
+
+import java.util.UUID;
+
+/**
+ * Result of a row of a bulk onboarding.
+ *
+ * @param row           the row number, starting at 1 with the first data row
+ * @param email         the email of the participant, null if the row could not be read
+ * @param status        the outcome of the row
+ * @param participantId the id of the registered participant
+ * @param message       why the row failed
+ */
+public record BulkOnboardingRowDto(int row, String email, BulkOnboardingRowStatus status, UUID participantId, String message) {
+}
@@ -0,0 +1,12 @@
+package eu.gaiax.wizard.api.model;
+
+/**
+ * Outcome of a row of a bulk onboarding. A registered participant finishes the onboarding itself, e.g. because it has
+ * its own did solution; for an onboarding participant the onboarding workflow has been started.
+ */
+public enum BulkOnboardingRowStatus {
+    PENDING,
+    REGISTERED,
+    ONBOARDING,
+    FAILED
+}
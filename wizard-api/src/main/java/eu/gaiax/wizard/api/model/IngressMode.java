@@ -0,0 +1,22 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.api.model;
+
+/**
+ * The enum Ingress mode. Decides how the participant domains are exposed in kubernetes.
+ */
+public enum IngressMode {
+
+    /**
+     * Every participant domain gets its own ingress.
+     */
+    PER_PARTICIPANT,
+
+    /**
+     * The participant domains are added as hosts to a fixed number of shared ingresses, a domain always goes to the
+     * same shard.
+     */
+    CONSOLIDATED
+}
@@ -0,0 +1,7 @@
+package eu.gaiax.wizard.api.model;
+
+public enum LabelLevelFileStatus {
+    PENDING,
+    UPLOADED,
+    REJECTED
+}
@@ -0,0 +1,16 @@
+package eu.gaiax.wizard.api.model;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * An onboarding that failed for good and waits for a manual resume.
+ *
+ * @param participantId the participant id
+ * @param step          the step that failed
+ * @param attempts      how often the step was run
+ * @param lastError     the error of the last attempt
+ * @param failedAt      when the onboarding failed
+ */
+public record OnboardingDeadLetterDto(UUID participantId, OnboardingStep step, int attempts, String lastError, Date failedAt) {
+}
@@ -0,0 +1,19 @@
+package eu.gaiax.wizard.api.model;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * An onboarding step that is running or waiting to run.
+ *
+ * @param participantId the participant id
+ * @param step          the step
+ * @param state         the state of the step
+ * @param attempts      how often the step has failed so far
+ * @param waits         how often the step has waited so far
+ * @param nextRunAt     when the step runs next, null if it is not scheduled
+ * @param updatedAt     when the workflow changed last
+ */
+public record OnboardingJobDto(UUID participantId, OnboardingStep step, OnboardingWorkflowState state, int attempts, int waits,
+                               Date nextRunAt, Date updatedAt) {
+}
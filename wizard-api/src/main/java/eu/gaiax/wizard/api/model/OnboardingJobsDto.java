@@ -0,0 +1,15 @@
+package eu.gaiax.wizard.api.model;
+
+import java.util.List;
+
+/**
+ * The onboarding jobs of the cluster.
+ *
+ * @param inFlight          the steps being run, oldest first
+ * @param pending           the steps waiting to run, next first
+ * @param backlog           the Quartz triggers not fired yet per job type
+ * @param quartzThreadsBusy the Quartz threads of this node executing a job
+ */
+public record OnboardingJobsDto(List<OnboardingJobDto> inFlight, List<OnboardingJobDto> pending, List<QuartzBacklogDto> backlog,
+                                int quartzThreadsBusy) {
+}
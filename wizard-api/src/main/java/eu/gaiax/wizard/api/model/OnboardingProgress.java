@@ -0,0 +1,18 @@
+package eu.gaiax.wizard.api.model;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Where the onboarding of a participant stands, pushed to the participant whenever it changes.
+ *
+ * @param participantId       the participant id
+ * @param step                the current step, null if the onboarding has not started
+ * @param state               the state of the current step, null if the onboarding has not started
+ * @param status              the registration status of the participant
+ * @param legalParticipantUrl the url of the legal participant credential once it is created
+ * @param timestamp           when the progress was taken
+ */
+public record OnboardingProgress(UUID participantId, OnboardingStep step, OnboardingWorkflowState state, int status,
+                                 String legalParticipantUrl, Date timestamp) {
+}
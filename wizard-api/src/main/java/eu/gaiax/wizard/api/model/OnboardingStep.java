@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.api.model;
+
+import eu.gaiax.wizard.api.utils.StringPool;
+
+/**
+ * The steps of the onboarding of a participant without own did solution, in execution order. Each step maps onto the
+ * {@link RegistrationStatus} values it enters, completes and fails with.
+ */
+public enum OnboardingStep {
+
+    SUB_DOMAIN(StringPool.JOB_TYPE_CREATE_SUB_DOMAIN, RegistrationStatus.STARTED, RegistrationStatus.DOMAIN_CREATED, RegistrationStatus.DOMAIN_CREATION_FAILED),
+
+    CERTIFICATE(StringPool.JOB_TYPE_CREATE_CERTIFICATE, RegistrationStatus.CERTIFICATE_CREATION_IN_PROCESS, RegistrationStatus.CERTIFICATE_CREATED, RegistrationStatus.CERTIFICATE_CREATION_FAILED),
+
+    INGRESS(StringPool.JOB_TYPE_CREATE_INGRESS, RegistrationStatus.CERTIFICATE_CREATED, RegistrationStatus.INGRESS_CREATED, RegistrationStatus.INGRESS_CREATION_FAILED),
+
+    DID(StringPool.JOB_TYPE_CREATE_DID, RegistrationStatus.INGRESS_CREATED, RegistrationStatus.DID_JSON_CREATED, RegistrationStatus.DID_JSON_CREATION_FAILED),
+
+    PARTICIPANT_JSON(StringPool.JOB_TYPE_CREATE_PARTICIPANT, RegistrationStatus.DID_JSON_CREATED, RegistrationStatus.PARTICIPANT_JSON_CREATED, RegistrationStatus.PARTICIPANT_JSON_CREATION_FAILED);
+
+    private final String jobType;
+    private final RegistrationStatus entryStatus;
+    private final RegistrationStatus completedStatus;
+    private final RegistrationStatus failedStatus;
+
+    OnboardingStep(String jobType, RegistrationStatus entryStatus, RegistrationStatus completedStatus, RegistrationStatus failedStatus) {
+        this.jobType = jobType;
+        this.entryStatus = entryStatus;
+        this.completedStatus = completedStatus;
+        this.failedStatus = failedStatus;
+    }
+
+    public String getJobType() {
+        return this.jobType;
+    }
+
+    public RegistrationStatus getEntryStatus() {
+        return this.entryStatus;
+    }
+
+    public RegistrationStatus getCompletedStatus() {
+        return this.completedStatus;
+    }
+
+    public RegistrationStatus getFailedStatus() {
+        return this.failedStatus;
+    }
+
+    /**
+     * Gets the step that follows this one.
+     *
+     * @return the next step, null for the last step
+     */
+    public OnboardingStep next() {
+        OnboardingStep[] steps = values();
+        return this.ordinal() + 1 < steps.length ? steps[this.ordinal() + 1] : null;
+    }
+
+    /**
+     * Whether the participant status shows this step, or a later one, as completed.
+     *
+     * @param status the participant status
+     * @return true if this step is done
+     */
+    public boolean isCompletedBy(int status) {
+        for (OnboardingStep step : values()) {
+            if (step.completedStatus.getStatus() == status) {
+                return step.ordinal() >= this.ordinal();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the step executed by a job type.
+     *
+     * @param jobType the job type
+     * @return the step, null if the job type is not an onboarding step
+     */
+    public static OnboardingStep fromJobType(String jobType) {
+        for (OnboardingStep step : values()) {
+            if (step.jobType.equals(jobType)) {
+                return step;
+            }
+        }
+        return null;
+    }
+}
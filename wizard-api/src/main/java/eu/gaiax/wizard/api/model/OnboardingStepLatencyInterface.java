@@ -0,0 +1,21 @@
+package eu.gaiax.wizard.api.model;
+
+import java.util.Date;
+
+/**
+ * Duration percentiles of the completed runs of one onboarding step on one day, in milliseconds.
+ */
+public interface OnboardingStepLatencyInterface {
+
+    String getStep();
+
+    Date getDay();
+
+    Long getCount();
+
+    Double getP50();
+
+    Double getP95();
+
+    Double getP99();
+}
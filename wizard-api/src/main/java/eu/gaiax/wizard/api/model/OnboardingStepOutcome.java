@@ -0,0 +1,10 @@
+package eu.gaiax.wizard.api.model;
+
+/**
+ * How a run of an onboarding step ended.
+ */
+public enum OnboardingStepOutcome {
+    COMPLETED,
+    RETRIED,
+    FAILED
+}
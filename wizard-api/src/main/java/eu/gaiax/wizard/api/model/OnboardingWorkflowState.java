@@ -0,0 +1,9 @@
+package eu.gaiax.wizard.api.model;
+
+public enum OnboardingWorkflowState {
+    PENDING,
+    RUNNING,
+    WAITING,
+    COMPLETED,
+    FAILED
+}
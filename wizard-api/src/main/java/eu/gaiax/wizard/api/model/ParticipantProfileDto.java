@@ -6,6 +6,7 @@ import lombok.Getter;
 import lombok.Setter;
 
 import java.util.List;
+import java.util.Map;
 
 @Getter
 @Setter
@@ -29,6 +30,8 @@ public class ParticipantProfileDto {
 
     private String profileImage;
 
+    private Map<String, String> profileImages;
+
     private List<String> parentOrganization;
 
     private List<String> subOrganization;
@@ -0,0 +1,12 @@
+package eu.gaiax.wizard.api.model;
+
+/**
+ * Result of a profile image upload. The image is processed in the background, the url points to the processed image
+ * and works once the status is {@link ProfileImageStatus#READY}.
+ *
+ * @param status       the processing status of the image
+ * @param profileImage the object name of the processed profile image
+ * @param imageUrl     the url of the processed profile image
+ */
+public record ProfileImageUploadDto(ProfileImageStatus status, String profileImage, String imageUrl) {
+}
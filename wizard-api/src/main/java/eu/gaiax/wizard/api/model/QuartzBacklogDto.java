@@ -0,0 +1,12 @@
+package eu.gaiax.wizard.api.model;
+
+/**
+ * The Quartz triggers of a job type that have not fired yet.
+ *
+ * @param jobType   the job type
+ * @param scheduled the triggers waiting to fire
+ * @param due       the scheduled triggers that are past their fire time
+ * @param maxLagMs  how far the oldest due trigger is behind its fire time, 0 if none is due
+ */
+public record QuartzBacklogDto(String jobType, long scheduled, long due, long maxLagMs) {
+}
@@ -0,0 +1,13 @@
+package eu.gaiax.wizard.api.model.service_offer;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+
+public record LabelLevelUploadUrlRequest(@NotBlank(message = "FileName can not be blank") String fileName,
+                                         @NotBlank(message = "FileType can not be blank") String fileType,
+                                         @NotBlank(message = "ContentType can not be blank") String contentType,
+                                         @NotNull(message = "Size can not be blank") @Positive(message = "Size must be positive") Long size,
+                                         @NotBlank(message = "Sha256 can not be blank") @Pattern(regexp = "^[0-9a-fA-F]{64}$", message = "Sha256 must be a hex encoded SHA-256 digest") String sha256) {
+}
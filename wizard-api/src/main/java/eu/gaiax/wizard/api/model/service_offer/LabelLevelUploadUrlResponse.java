@@ -0,0 +1,17 @@
+package eu.gaiax.wizard.api.model.service_offer;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Presigned upload target. The client has to PUT the file to {@code uploadUrl} with exactly the given headers before
+ * {@code expiresAt}, then call the completion endpoint with {@code uploadId}. Known content is only recognised once
+ * the uploaded bytes have been verified.
+ */
+public record LabelLevelUploadUrlResponse(UUID uploadId,
+                                          String uploadUrl,
+                                          String method,
+                                          Map<String, String> headers,
+                                          Date expiresAt) {
+}
@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.api.model.setting;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Bulk onboarding of participants.
+ *
+ * @param maxRows               how many rows a bulk onboarding may have
+ * @param validationConcurrency how many rows of a node are validated at the same time, the validation calls the signer
+ * @param batchSize             how many rows are inserted and provisioned in Keycloak together
+ */
+@ConfigurationProperties(prefix = "wizard.bulk-onboarding")
+public record BulkOnboardingSettings(Integer maxRows, Integer validationConcurrency, Integer batchSize) {
+
+    public BulkOnboardingSettings {
+        maxRows = maxRows == null ? 1000 : maxRows;
+        validationConcurrency = validationConcurrency == null ? 8 : validationConcurrency;
+        batchSize = batchSize == null ? 50 : batchSize;
+    }
+}
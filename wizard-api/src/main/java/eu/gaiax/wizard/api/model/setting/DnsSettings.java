@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.api.model.setting;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * DNS changes of the onboarding, i.e. the A record of the sub domain and the TXT records of the ACME challenges.
+ *
+ * @param provider          route53, or in-memory to run without DNS, e.g. locally
+ * @param batchWindow       how long changes are collected before they are submitted together
+ * @param maxBatchSize      how many changes are submitted together at most; a full batch is submitted right away
+ * @param syncCheckInterval how often the submitted changes are checked for being in sync
+ */
+@ConfigurationProperties(prefix = "wizard.dns")
+public record DnsSettings(String provider, Duration batchWindow, Integer maxBatchSize, Duration syncCheckInterval) {
+
+    public DnsSettings {
+        provider = provider == null ? "route53" : provider;
+        batchWindow = batchWindow == null ? Duration.ofMillis(200) : batchWindow;
+        maxBatchSize = maxBatchSize == null ? 100 : maxBatchSize;
+        syncCheckInterval = syncCheckInterval == null ? Duration.ofSeconds(5) : syncCheckInterval;
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.api.model.setting;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+
+/**
+ * Executors the job types run on. Every job type gets its own executor, so a slow job type can not starve the others.
+ *
+ * @param virtualThreads whether jobs run on virtual threads, needs Java 21 or newer and falls back to platform threads otherwise
+ * @param concurrency    how many jobs of one type run at the same time, unless overridden in limits
+ * @param queueCapacity  how many jobs of one type may wait for a free slot; beyond that a job runs on the thread that submitted it
+ * @param limits         concurrency per job type, e.g. JOB_TYPE_CREATE_CERTIFICATE
+ */
+@ConfigurationProperties(prefix = "wizard.job-executor")
+public record JobExecutorSettings(Boolean virtualThreads, Integer concurrency, Integer queueCapacity, Map<String, Integer> limits) {
+
+    public JobExecutorSettings {
+        virtualThreads = virtualThreads != null && virtualThreads;
+        concurrency = concurrency == null ? 2 : concurrency;
+        queueCapacity = queueCapacity == null ? 100 : queueCapacity;
+        limits = limits == null ? Map.of() : limits;
+    }
+
+    /**
+     * Gets the concurrency of the given job type.
+     *
+     * @param jobType the job type
+     * @return the concurrency
+     */
+    public int concurrencyOf(String jobType) {
+        return this.limits.getOrDefault(jobType, this.concurrency);
+    }
+}
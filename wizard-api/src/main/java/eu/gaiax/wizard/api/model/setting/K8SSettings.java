@@ -4,16 +4,35 @@
 
 package eu.gaiax.wizard.api.model.setting;
 
+import eu.gaiax.wizard.api.model.IngressMode;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
  * The type K 8 s settings.
+ *
+ * @param hostingServiceName the service of the hosting module, participant domains are routed to it when set
+ * @param ingressMode        one ingress per participant, or participant hosts added to shared ingresses
+ * @param ingressShards      number of shared ingresses in the consolidated mode
+ * @param ingressPrefix      name prefix of the shared ingresses
+ * @param maxIdleConnections idle connections kept open to the api server
  */
 @ConfigurationProperties(prefix = "wizard.k8s")
 public record K8SSettings(
         String basePath,
         String token,
         String serviceName,
-        String issuer
+        String issuer,
+        String hostingServiceName,
+        IngressMode ingressMode,
+        Integer ingressShards,
+        String ingressPrefix,
+        Integer maxIdleConnections
 ) {
+
+    public K8SSettings {
+        ingressMode = ingressMode == null ? IngressMode.PER_PARTICIPANT : ingressMode;
+        ingressShards = ingressShards == null ? 16 : ingressShards;
+        ingressPrefix = ingressPrefix == null ? "wizard-participants" : ingressPrefix;
+        maxIdleConnections = maxIdleConnections == null ? 5 : maxIdleConnections;
+    }
 }
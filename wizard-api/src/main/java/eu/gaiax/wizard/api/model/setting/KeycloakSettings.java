@@ -2,6 +2,8 @@ package eu.gaiax.wizard.api.model.setting;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+
 /**
  * The type Keycloak settings.
  */
@@ -19,7 +21,21 @@ public record KeycloakSettings(
         Integer actionTokenLifespan,
 
         String requiredActionsEmailRedirectionUrl,
-        String publicClientId
+        String publicClientId,
+
+        Integer connectionPoolSize,
+
+        Duration connectTimeout,
+
+        Duration readTimeout,
+
+        Duration userCacheTtl
 ) {
-}
 
+    public KeycloakSettings {
+        connectionPoolSize = connectionPoolSize == null ? 20 : connectionPoolSize;
+        connectTimeout = connectTimeout == null ? Duration.ofSeconds(5) : connectTimeout;
+        readTimeout = readTimeout == null ? Duration.ofSeconds(30) : readTimeout;
+        userCacheTtl = userCacheTtl == null ? Duration.ofSeconds(30) : userCacheTtl;
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.api.model.setting;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * The type Label level upload settings.
+ *
+ * @param maxFileSize         the maximum size of an evidence file
+ * @param urlExpiry           how long a presigned upload url stays valid
+ * @param allowedContentTypes the content types accepted for evidence files, empty to accept any
+ */
+@ConfigurationProperties(prefix = "wizard.label-level-upload")
+public record LabelLevelUploadSettings(DataSize maxFileSize,
+                                       Duration urlExpiry,
+                                       List<String> allowedContentTypes) {
+
+    public LabelLevelUploadSettings {
+        maxFileSize = maxFileSize == null ? DataSize.ofMegabytes(10) : maxFileSize;
+        urlExpiry = urlExpiry == null ? Duration.ofMinutes(5) : urlExpiry;
+        allowedContentTypes = allowedContentTypes == null ? List.of() : allowedContentTypes;
+    }
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.api.model.setting;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Onboarding progress pushed to the participants.
+ *
+ * @param crossNode         whether progress is exchanged between the nodes through Postgres LISTEN/NOTIFY; if disabled, a participant only receives the progress of steps run on the node it is connected to
+ * @param emitterTimeout    how long a progress stream stays open, clients reconnect after that
+ * @param heartbeatInterval how often idle progress streams get a comment, so proxies do not close them
+ */
+@ConfigurationProperties(prefix = "wizard.onboarding.progress")
+public record OnboardingProgressSettings(Boolean crossNode, Duration emitterTimeout, Duration heartbeatInterval) {
+
+    public OnboardingProgressSettings {
+        crossNode = crossNode == null || crossNode;
+        emitterTimeout = emitterTimeout == null ? Duration.ofMinutes(30) : emitterTimeout;
+        heartbeatInterval = heartbeatInterval == null ? Duration.ofSeconds(30) : heartbeatInterval;
+    }
+}
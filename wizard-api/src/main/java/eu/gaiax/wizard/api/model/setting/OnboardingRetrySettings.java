@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.api.model.setting;
+
+import eu.gaiax.wizard.api.model.OnboardingStep;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Retry of failed onboarding steps.
+ *
+ * @param maxAttempts     how often a step is run before the workflow goes to the dead letters, unless overridden in stepMaxAttempts; 1 disables retries
+ * @param initialInterval delay before the first retry, doubled with every further retry
+ * @param maxInterval     upper bound of the delay between two retries
+ * @param jitter          share of the delay that is randomized, between 0 and 1, so that steps failed together are not retried together
+ * @param stepMaxAttempts max attempts per step
+ */
+@ConfigurationProperties(prefix = "wizard.onboarding.retry")
+public record OnboardingRetrySettings(Integer maxAttempts, Duration initialInterval, Duration maxInterval, Double jitter,
+                                      Map<OnboardingStep, Integer> stepMaxAttempts) {
+
+    public OnboardingRetrySettings {
+        maxAttempts = maxAttempts == null ? 3 : maxAttempts;
+        initialInterval = initialInterval == null ? Duration.ofSeconds(30) : initialInterval;
+        maxInterval = maxInterval == null ? Duration.ofMinutes(10) : maxInterval;
+        jitter = jitter == null ? 0.5 : Math.min(1, Math.max(0, jitter));
+        stepMaxAttempts = stepMaxAttempts == null ? Map.of() : stepMaxAttempts;
+    }
+
+    /**
+     * Gets the max attempts of the given step.
+     *
+     * @param step the step
+     * @return the max attempts
+     */
+    public int maxAttemptsOf(OnboardingStep step) {
+        return this.stepMaxAttempts.getOrDefault(step, this.maxAttempts);
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.api.model.setting;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Onboarding workflow execution.
+ *
+ * @param waitInterval          delay before a step that is waiting on an external system, e.g. DNS propagation, is checked again; doubled with every further check
+ * @param maxWaitInterval       upper bound of the delay between two checks
+ * @param maxWaits              how often a step may wait before it is failed
+ * @param staleAfter            how long a workflow may stay running or pending before it is picked up again, e.g. after a node died
+ * @param authoritativeDnsCheck whether DNS records count as propagated once the authoritative name servers of the hosted zone serve them, without waiting for Route53 to report the change as in sync
+ */
+@ConfigurationProperties(prefix = "wizard.onboarding")
+public record OnboardingSettings(Duration waitInterval, Duration maxWaitInterval, Integer maxWaits, Duration staleAfter,
+                                 Boolean authoritativeDnsCheck) {
+
+    public OnboardingSettings {
+        waitInterval = waitInterval == null ? Duration.ofSeconds(5) : waitInterval;
+        maxWaitInterval = maxWaitInterval == null ? Duration.ofMinutes(5) : maxWaitInterval;
+        maxWaits = maxWaits == null ? 20 : maxWaits;
+        staleAfter = staleAfter == null ? Duration.ofMinutes(15) : staleAfter;
+        authoritativeDnsCheck = authoritativeDnsCheck != null && authoritativeDnsCheck;
+    }
+
+    /**
+     * Gets the delay before the next check of a waiting step. The wait interval is doubled with every wait, capped at
+     * the max wait interval.
+     *
+     * @param waits how often the step has waited so far
+     * @return the delay
+     */
+    public Duration backoff(int waits) {
+        Duration delay = this.waitInterval.multipliedBy(1L << Math.min(waits, 20));
+        return delay.compareTo(this.maxWaitInterval) > 0 ? this.maxWaitInterval : delay;
+    }
+}
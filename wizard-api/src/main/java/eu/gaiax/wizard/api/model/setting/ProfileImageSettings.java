@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.api.model.setting;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+
+/**
+ * The type Profile image settings.
+ *
+ * @param maxDimension      the maximum width and height of the stored full-size image
+ * @param derivatives       the derivative names and their maximum width and height
+ * @param quality           the JPEG quality between 0 and 1
+ * @param profileDerivative the derivative returned as the participant's profile image
+ * @param maxSourcePixels   the maximum number of pixels of an uploaded image, larger images are not decoded
+ */
+@ConfigurationProperties(prefix = "wizard.profile-image")
+public record ProfileImageSettings(Integer maxDimension,
+                                   Map<String, Integer> derivatives,
+                                   Float quality,
+                                   String profileDerivative,
+                                   Long maxSourcePixels) {
+
+    public ProfileImageSettings {
+        maxDimension = maxDimension == null ? 1024 : maxDimension;
+        derivatives = derivatives == null || derivatives.isEmpty() ? Map.of("small", 64, "medium", 256, "large", 512) : derivatives;
+        quality = quality == null ? 0.85f : quality;
+        profileDerivative = profileDerivative == null ? "medium" : profileDerivative;
+        maxSourcePixels = maxSourcePixels == null ? 40_000_000L : maxSourcePixels;
+    }
+}
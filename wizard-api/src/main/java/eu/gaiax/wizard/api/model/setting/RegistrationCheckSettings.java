@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.api.model.setting;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Caching of the public registration check.
+ *
+ * @param configuredTtl    how long a participant with a configured login device is cached
+ * @param notConfiguredTtl how long a missing participant or a participant still enrolling a device is cached
+ * @param maxSize          the maximum number of cached emails
+ */
+@ConfigurationProperties(prefix = "wizard.registration-check")
+public record RegistrationCheckSettings(Duration configuredTtl, Duration notConfiguredTtl, Long maxSize) {
+
+    public RegistrationCheckSettings {
+        configuredTtl = configuredTtl == null ? Duration.ofMinutes(10) : configuredTtl;
+        notConfiguredTtl = notConfiguredTtl == null ? Duration.ofSeconds(5) : notConfiguredTtl;
+        maxSize = maxSize == null ? 10_000L : maxSize;
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.api.model.setting;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Renewal of the participant certificates. A certificate is renewed at a random time within the window that ends
+ * renew before its expiry, so that participants onboarded together are not renewed together.
+ *
+ * @param enabled      whether the certificates are renewed
+ * @param renewBefore  how long before its expiry a certificate is renewed at the latest
+ * @param window       how long before the latest renewal time a renewal may start
+ * @param scanInterval how often the stored certificates are scanned for upcoming renewals
+ * @param maxPerHour   how many renewals start per hour at most, across the cluster
+ */
+@ConfigurationProperties(prefix = "wizard.renewal")
+public record RenewalSettings(Boolean enabled, Duration renewBefore, Duration window, Duration scanInterval, Integer maxPerHour) {
+
+    public RenewalSettings {
+        enabled = enabled != null && enabled;
+        renewBefore = renewBefore == null ? Duration.ofDays(30) : renewBefore;
+        window = window == null ? Duration.ofDays(14) : window;
+        scanInterval = scanInterval == null ? Duration.ofHours(6) : scanInterval;
+        maxPerHour = maxPerHour == null ? 60 : maxPerHour;
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.api.model.setting;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Wildcard hosting of the participant sub domains. One {@code *.<wizard.domain>} record and one wildcard certificate
+ * serve all participants, so the onboarding does not create a record and a certificate per participant.
+ *
+ * @param enabled       whether the wildcard mode is on
+ * @param renewBefore   how long before its expiry the wildcard certificate is renewed
+ * @param checkInterval how often the wildcard record and certificate are checked
+ * @param secretName    name of the kubernetes TLS secret holding the wildcard certificate
+ * @param sharedKey     whether the participants also sign their credentials with the wildcard key instead of getting a
+ *                      certificate of their own; one leaked key then compromises the credentials of all participants
+ */
+@ConfigurationProperties(prefix = "wizard.wildcard")
+public record WildcardSettings(Boolean enabled, Duration renewBefore, Duration checkInterval, String secretName, Boolean sharedKey) {
+
+    public WildcardSettings {
+        enabled = enabled != null && enabled;
+        renewBefore = renewBefore == null ? Duration.ofDays(30) : renewBefore;
+        checkInterval = checkInterval == null ? Duration.ofHours(12) : checkInterval;
+        secretName = secretName == null ? "wildcard-tls" : secretName;
+        sharedKey = sharedKey != null && sharedKey;
+    }
+}
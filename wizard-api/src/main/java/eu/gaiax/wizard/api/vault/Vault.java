@@ -0,0 +1,42 @@
+package eu.gaiax.wizard.api.vault;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public interface Vault {
+
+    Map<String, Object> put(String secretName, Map<String, Object> kv);
+
+    Map<String, Object> get(String secretName);
+
+    boolean patch(String path, Map<String, Object> patch);
+
+    /**
+     * Reads several secrets. The default reads them one after another, implementations that can batch or parallelize
+     * reads override this.
+     *
+     * @param secretNames the secret names
+     * @return secret name to secret, missing secrets are left out
+     */
+    default Map<String, Map<String, Object>> getMany(Collection<String> secretNames) {
+        Map<String, Map<String, Object>> secrets = new LinkedHashMap<>();
+        for (String secretName : secretNames) {
+            Map<String, Object> secret = this.get(secretName);
+            if (secret != null) {
+                secrets.put(secretName, secret);
+            }
+        }
+        return secrets;
+    }
+
+    /**
+     * Writes several secrets. The default writes them one after another, implementations that can batch or
+     * parallelize writes override this.
+     *
+     * @param secrets secret name to secret
+     */
+    default void putMany(Map<String, Map<String, Object>> secrets) {
+        secrets.forEach(this::put);
+    }
+}
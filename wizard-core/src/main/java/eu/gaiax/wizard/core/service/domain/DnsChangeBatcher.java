@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.core.service.domain;
+
+import eu.gaiax.wizard.api.model.setting.DnsSettings;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Collects the DNS changes of concurrent onboarding jobs for a short window and submits them as one batch, DNS
+ * providers like Route53 rate-limit change requests per account. A full batch is submitted right away.
+ * <p>
+ * Every change of a batch shares the change id of the batch. The batcher checks each submitted change id for being in
+ * sync once per interval, however many jobs wait for it, and completes the futures handed out by
+ * {@link #awaitInSync(String)}. If the provider rejects a batch for its content, the changes are submitted one by one,
+ * so that only the invalid change fails. These single submissions run on their own thread, one per batch window, so
+ * they neither delay the sync checks and batches nor exceed the provider's rate limit.
+ */
+@Component
+@Slf4j
+public class DnsChangeBatcher implements DisposableBean {
+
+    private static final Duration TRACKING_TIMEOUT = Duration.ofHours(1);
+
+    private final DnsProvider dnsProvider;
+    private final DnsSettings dnsSettings;
+    private final ScheduledExecutorService executor;
+    private final ScheduledExecutorService fallbackExecutor;
+    private final List<PendingChange> pending = new ArrayList<>();
+    private final Map<String, TrackedChange> tracked = new ConcurrentHashMap<>();
+    private ScheduledFuture<?> scheduledFlush;
+    private long nextSingleSubmission;
+
+    public DnsChangeBatcher(DnsProvider dnsProvider, DnsSettings dnsSettings) {
+        this.dnsProvider = dnsProvider;
+        this.dnsSettings = dnsSettings;
+        this.executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("dns-change-batcher-"));
+        this.fallbackExecutor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("dns-change-fallback-"));
+        long interval = dnsSettings.syncCheckInterval().toMillis();
+        this.executor.scheduleWithFixedDelay(this::checkInSync, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues the change for the next batch.
+     *
+     * @param change the change
+     * @return the change id once the batch has been submitted
+     */
+    public CompletableFuture<String> submit(DnsRecordChange change) {
+        return this.submitAll(List.of(change)).get(0);
+    }
+
+    /**
+     * Queues the changes together, so that they go into the same batch, e.g. several values of one record set.
+     *
+     * @param changes the changes
+     * @return the change ids once the batch has been submitted, in the order of the changes
+     */
+    public List<CompletableFuture<String>> submitAll(List<DnsRecordChange> changes) {
+        List<CompletableFuture<String>> changeIds = new ArrayList<>(changes.size());
+        synchronized (this.pending) {
+            for (DnsRecordChange change : changes) {
+                CompletableFuture<String> changeId = new CompletableFuture<>();
+                this.pending.add(new PendingChange(change, changeId));
+                changeIds.add(changeId);
+            }
+            boolean full = this.pending.size() >= this.dnsSettings.maxBatchSize();
+            if (this.scheduledFlush == null) {
+                this.scheduleFlush();
+            } else if (full && this.scheduledFlush.getDelay(TimeUnit.MILLISECONDS) > 0 && this.scheduledFlush.cancel(false)) {
+                this.scheduleFlush();
+            }
+        }
+        return changeIds;
+    }
+
+    /**
+     * Gets a future that completes once the change is in sync.
+     *
+     * @param changeId the change id
+     * @return the future
+     */
+    public CompletableFuture<Void> awaitInSync(String changeId) {
+        return this.tracked.computeIfAbsent(changeId, id -> new TrackedChange(new CompletableFuture<>(), System.currentTimeMillis())).inSync();
+    }
+
+    /**
+     * Whether the change is in sync. Changes submitted by this node are answered from the last check, other changes,
+     * e.g. from before a restart, are asked from the provider.
+     *
+     * @param changeId the change id
+     * @return true if the change is in sync
+     */
+    public boolean isInSync(String changeId) {
+        TrackedChange trackedChange = this.tracked.get(changeId);
+        if (trackedChange != null) {
+            return trackedChange.inSync().isDone() && !trackedChange.inSync().isCompletedExceptionally();
+        }
+        return this.dnsProvider.isInSync(changeId);
+    }
+
+    @Override
+    public void destroy() {
+        this.executor.shutdown();
+        this.fallbackExecutor.shutdown();
+    }
+
+    void flush() {
+        List<PendingChange> batch;
+        synchronized (this.pending) {
+            this.scheduledFlush = null;
+            batch = new ArrayList<>(this.pending.subList(0, Math.min(this.pending.size(), this.dnsSettings.maxBatchSize())));
+            this.pending.subList(0, batch.size()).clear();
+            if (!this.pending.isEmpty()) {
+                this.scheduleFlush();
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            String changeId = this.dnsProvider.submit(batch.stream().map(PendingChange::change).toList());
+            log.info("DnsChangeBatcher(flush) -> {} DNS changes submitted with change {}", batch.size(), changeId);
+            this.track(changeId);
+            batch.forEach(p -> p.changeId().complete(changeId));
+        } catch (InvalidDnsChangeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).changeId().completeExceptionally(e);
+                return;
+            }
+            log.warn("DnsChangeBatcher(flush) -> Batch of {} DNS changes rejected, submitting them one by one.", batch.size(), e);
+            this.scheduleSingles(batch);
+        } catch (Exception e) {
+            log.error("DnsChangeBatcher(flush) -> Batch of {} DNS changes failed.", batch.size(), e);
+            batch.forEach(p -> p.changeId().completeExceptionally(e));
+        }
+    }
+
+    void checkInSync() {
+        long expiredBefore = System.currentTimeMillis() - TRACKING_TIMEOUT.toMillis();
+        this.tracked.forEach((changeId, trackedChange) -> {
+            if (trackedChange.inSync().isDone()) {
+                if (trackedChange.trackedSince() < expiredBefore) {
+                    this.tracked.remove(changeId);
+                }
+                return;
+            }
+            try {
+                if (this.dnsProvider.isInSync(changeId)) {
+                    log.debug("DnsChangeBatcher(checkInSync) -> Change {} is in sync", changeId);
+                    trackedChange.inSync().complete(null);
+                } else if (trackedChange.trackedSince() < expiredBefore) {
+                    trackedChange.inSync().completeExceptionally(new TimeoutException("Change " + changeId + " did not get in sync"));
+                }
+            } catch (Exception e) {
+                log.warn("DnsChangeBatcher(checkInSync) -> Not able to check change {}, checking again later.", changeId, e);
+            }
+        });
+    }
+
+    /**
+     * Schedules the flush of the pending changes after the batch window, or right away if they fill a batch. Only one
+     * flush is scheduled at a time, callers hold the lock on the pending changes.
+     */
+    private void scheduleFlush() {
+        long delay = this.pending.size() >= this.dnsSettings.maxBatchSize() ? 0 : this.dnsSettings.batchWindow().toMillis();
+        this.scheduledFlush = this.executor.schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Spreads the single submissions one batch window apart, after those of earlier rejected batches. Only called from
+     * the flush, which runs on the batcher thread.
+     */
+    private void scheduleSingles(List<PendingChange> batch) {
+        long window = this.dnsSettings.batchWindow().toMillis();
+        long now = System.currentTimeMillis();
+        long start = Math.max(now, this.nextSingleSubmission);
+        for (int i = 0; i < batch.size(); i++) {
+            PendingChange pendingChange = batch.get(i);
+            this.fallbackExecutor.schedule(() -> this.submitSingle(pendingChange), start - now + i * window, TimeUnit.MILLISECONDS);
+        }
+        this.nextSingleSubmission = start + batch.size() * window;
+    }
+
+    private void submitSingle(PendingChange pendingChange) {
+        try {
+            String changeId = this.dnsProvider.submit(List.of(pendingChange.change()));
+            this.track(changeId);
+            pendingChange.changeId().complete(changeId);
+        } catch (Exception e) {
+            log.error("DnsChangeBatcher(submitSingle) -> DNS change {} {} {} failed.", pendingChange.change().action(), pendingChange.change().type(), pendingChange.change().name(), e);
+            pendingChange.changeId().completeExceptionally(e);
+        }
+    }
+
+    private void track(String changeId) {
+        this.tracked.putIfAbsent(changeId, new TrackedChange(new CompletableFuture<>(), System.currentTimeMillis()));
+    }
+
+    private record PendingChange(DnsRecordChange change, CompletableFuture<String> changeId) {
+    }
+
+    private record TrackedChange(CompletableFuture<Void> inSync, long trackedSince) {
+    }
+}
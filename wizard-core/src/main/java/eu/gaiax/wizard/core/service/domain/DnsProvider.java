@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.core.service.domain;
+
+import java.util.List;
+
+/**
+ * The DNS service the records of the participants are managed in.
+ */
+public interface DnsProvider {
+
+    /**
+     * Submits the changes as one atomic batch.
+     *
+     * @param changes the changes
+     * @return the id to check the change status with
+     * @throws InvalidDnsChangeException if the provider rejected the batch, e.g. because a record to create exists
+     */
+    String submit(List<DnsRecordChange> changes);
+
+    /**
+     * Whether the change is applied on all name servers of the provider.
+     *
+     * @param changeId the change id
+     * @return true if the change is in sync
+     */
+    boolean isInSync(String changeId);
+
+    /**
+     * Gets the authoritative name servers of the zone.
+     *
+     * @return the name servers
+     */
+    List<String> getNameServers();
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.core.service.domain;
+
+import eu.gaiax.wizard.api.utils.StringPool;
+
+/**
+ * A change of a single DNS record value.
+ *
+ * @param action CREATE, DELETE or UPSERT; for TXT records CREATE and UPSERT add the value and DELETE removes it, the
+ *               other values of the record are kept
+ * @param type   the record type, A or TXT
+ * @param name   the record name
+ * @param value  the record value, TXT values without quotes
+ * @param ttl    the time to live in seconds
+ */
+public record DnsRecordChange(String action, String type, String name, String value, long ttl) {
+
+    public static final String TYPE_A = "A";
+    public static final String TYPE_TXT = "TXT";
+    private static final long DEFAULT_TTL = 900L;
+
+    public static DnsRecordChange a(String name, String ip) {
+        return new DnsRecordChange(StringPool.CREATE, TYPE_A, name, ip, DEFAULT_TTL);
+    }
+
+    /**
+     * Creates or replaces the A record, e.g. the wildcard record that is kept up to date on every check.
+     */
+    public static DnsRecordChange upsertA(String name, String ip) {
+        return new DnsRecordChange(StringPool.UPSERT, TYPE_A, name, ip, DEFAULT_TTL);
+    }
+
+    public static DnsRecordChange txt(String action, String name, String value) {
+        return new DnsRecordChange(action, TYPE_TXT, name, value, DEFAULT_TTL);
+    }
+}
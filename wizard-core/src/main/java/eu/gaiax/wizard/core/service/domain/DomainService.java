@@ -4,22 +4,28 @@
 
 package eu.gaiax.wizard.core.service.domain;
 
-import com.amazonaws.services.route53.AmazonRoute53;
-import com.amazonaws.services.route53.model.*;
 import eu.gaiax.wizard.api.exception.EntityNotFoundException;
 import eu.gaiax.wizard.api.model.RegistrationStatus;
 import eu.gaiax.wizard.api.model.setting.AWSSettings;
-import eu.gaiax.wizard.api.utils.StringPool;
-import eu.gaiax.wizard.core.service.job.ScheduleService;
 import eu.gaiax.wizard.dao.entity.participant.Participant;
 import eu.gaiax.wizard.dao.repository.participant.ParticipantRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.quartz.SchedulerException;
 import org.springframework.stereotype.Service;
 
+import javax.naming.Context;
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.InitialDirContext;
+import java.util.HashSet;
+import java.util.Hashtable;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 @RequiredArgsConstructor
@@ -27,54 +33,144 @@ import java.util.UUID;
 public class DomainService {
 
     private final AWSSettings awsSettings;
-    private final AmazonRoute53 amazonRoute53;
+    private final DnsChangeBatcher dnsChangeBatcher;
+    private final DnsProvider dnsProvider;
     private final ParticipantRepository participantRepository;
-    private final ScheduleService scheduleService;
 
-    public void updateTxtRecords(String domainName, String value, String action) {
-        log.info("DomainService(updateTxtRecords) -> Txt update process initiated for domain {} with value {} and action {} ", domainName, value, action);
-        ResourceRecord resourceRecord = new ResourceRecord();
-        resourceRecord.setValue("\"" + value + "\"");
-
-        ResourceRecordSet recordsSet = new ResourceRecordSet();
-        recordsSet.setResourceRecords(List.of(resourceRecord));
-        recordsSet.setType(RRType.TXT);
-        recordsSet.setTTL(900L);
-        recordsSet.setName(domainName);
+    private volatile List<String> authoritativeNameServers;
+
+    /**
+     * Submits a TXT record change with the next DNS change batch. The change is not awaited, use
+     * {@link #isChangeInSync(String)} to check whether it has propagated.
+     *
+     * @return the change id
+     */
+    public String updateTxtRecords(String domainName, String value, String action) {
+        String changeId = join(this.submitTxtRecord(domainName, value, action));
+        log.info("DomainService(updateTxtRecords) -> Txt record has been updated for {} with change {}", domainName, changeId);
+        return changeId;
+    }
 
-        Change change = new Change(ChangeAction.fromValue(action), recordsSet);
+    /**
+     * Queues a TXT record change for the next DNS change batch without waiting for the batch to be submitted, so that
+     * several records of one caller end up in the same batch.
+     *
+     * @return the change id once the batch has been submitted
+     */
+    public CompletableFuture<String> submitTxtRecord(String domainName, String value, String action) {
+        log.info("DomainService(submitTxtRecord) -> Txt update process initiated for domain {} with value {} and action {} ", domainName, value, action);
+        return this.dnsChangeBatcher.submit(DnsRecordChange.txt(action, domainName, value));
+    }
 
-        ChangeBatch batch = new ChangeBatch(List.of(change));
+    /**
+     * Changes all values of a TXT record in one batch and waits for the batch to be submitted. With
+     * {@code UPSERT} the values are added to the record, e.g. the two ACME challenges of a wildcard certificate that share
+     * one record name, and the values of other challenges on that name are kept.
+     *
+     * @return the change id
+     */
+    public String updateTxtRecords(String domainName, List<String> values, String action) {
+        log.info("DomainService(updateTxtRecords) -> Txt update process initiated for domain {} with {} values and action {} ", domainName, values.size(), action);
+        List<CompletableFuture<String>> changeIds = this.dnsChangeBatcher.submitAll(values.stream()
+                .map(value -> DnsRecordChange.txt(action, domainName, value))
+                .toList());
+        String changeId = null;
+        for (CompletableFuture<String> future : changeIds) {
+            changeId = join(future);
+        }
+        log.info("DomainService(updateTxtRecords) -> Txt record has been updated for {} with change {}", domainName, changeId);
+        return changeId;
+    }
 
-        ChangeResourceRecordSetsRequest request = new ChangeResourceRecordSetsRequest();
-        request.setChangeBatch(batch);
+    /**
+     * Points the wildcard record of the domain to the server, creating it if it does not exist yet.
+     *
+     * @param domain the parent domain of the participant sub domains
+     * @return the change id
+     */
+    public String upsertWildcardRecord(String domain) {
+        String changeId = join(this.dnsChangeBatcher.submit(DnsRecordChange.upsertA("*." + domain, this.awsSettings.serverIp())));
+        log.info("DomainService(upsertWildcardRecord) -> Wildcard record of {} is up to date with change {}", domain, changeId);
+        return changeId;
+    }
 
+    /**
+     * Whether the DNS provider reports the change as applied on all its name servers.
+     *
+     * @param changeId the change id
+     * @return true if the change is in sync
+     */
+    public boolean isChangeInSync(String changeId) {
+        boolean inSync = this.dnsChangeBatcher.isInSync(changeId);
+        log.debug("DomainService(isChangeInSync) -> Change {} is in sync: {}", changeId, inSync);
+        return inSync;
+    }
 
-        request.setHostedZoneId(this.awsSettings.hostedZoneId());
-        ChangeResourceRecordSetsResult result = this.amazonRoute53.changeResourceRecordSets(request);
+    /**
+     * Asks every authoritative name server of the hosted zone for the TXT record directly, bypassing resolver caches.
+     * This usually sees a record before Route53 reports the change as in sync.
+     *
+     * @param domainName the record name
+     * @param value      the expected value
+     * @return true if all authoritative name servers serve the value
+     */
+    public boolean isTxtRecordServed(String domainName, String value) {
+        List<String> nameServers = this.getAuthoritativeNameServers();
+        if (nameServers.isEmpty()) {
+            return false;
+        }
+        for (String nameServer : nameServers) {
+            if (!this.queryTxtRecords(nameServer, domainName).contains(value)) {
+                log.debug("DomainService(isTxtRecordServed) -> Txt record {} is not served by {} yet", domainName, nameServer);
+                return false;
+            }
+        }
+        return true;
+    }
 
-        if (action.equalsIgnoreCase(StringPool.CREATE)) {
-            String status = result.getChangeInfo().getStatus();
-            String changeId = result.getChangeInfo().getId();
-            int count = 0;
-            log.info("DomainService(updateTxtRecords) -> Status {} and count {}", status, ++count);
+    private List<String> getAuthoritativeNameServers() {
+        List<String> nameServers = this.authoritativeNameServers;
+        if (nameServers == null) {
+            try {
+                nameServers = this.dnsProvider.getNameServers();
+                this.authoritativeNameServers = nameServers;
+            } catch (Exception e) {
+                log.error("DomainService(getAuthoritativeNameServers) -> Not able to resolve name servers of hosted zone {}", this.awsSettings.hostedZoneId(), e);
+                return List.of();
+            }
+        }
+        return nameServers;
+    }
 
-            while (!status.equalsIgnoreCase(ChangeStatus.INSYNC.name()) && count <= 12) {
+    private Set<String> queryTxtRecords(String nameServer, String domainName) {
+        Hashtable<String, String> environment = new Hashtable<>();
+        environment.put(Context.INITIAL_CONTEXT_FACTORY, "com.sun.jndi.dns.DnsContextFactory");
+        environment.put(Context.PROVIDER_URL, "dns://" + nameServer);
+        environment.put("com.sun.jndi.dns.timeout.initial", "2000");
+        environment.put("com.sun.jndi.dns.timeout.retries", "1");
+        Set<String> values = new HashSet<>();
+        DirContext context = null;
+        try {
+            context = new InitialDirContext(environment);
+            Attribute txtRecords = context.getAttributes(domainName, new String[]{"TXT"}).get("TXT");
+            if (txtRecords != null) {
+                NamingEnumeration<?> records = txtRecords.getAll();
+                while (records.hasMore()) {
+                    values.add(records.next().toString().replace("\"", ""));
+                }
+            }
+        } catch (NamingException e) {
+            log.debug("DomainService(queryTxtRecords) -> Txt record {} not resolved by {}: {}", domainName, nameServer, e.getMessage());
+        } finally {
+            if (context != null) {
                 try {
-                    Thread.sleep(10000);
-                } catch (InterruptedException e) {
-                    log.error("DomainService(updateTxtRecords) -> Thread has been interrupted!", e);
-                    Thread.currentThread().interrupt();
+                    context.close();
+                } catch (NamingException e) {
+                    log.debug("DomainService(queryTxtRecords) -> Not able to close dns context", e);
                 }
-                GetChangeRequest getChangeRequest = new GetChangeRequest()
-                        .withId(changeId);
-                ChangeInfo changeInfo = this.amazonRoute53.getChange(getChangeRequest).getChangeInfo();
-                status = changeInfo.getStatus();
-                log.info("DomainService(updateTxtRecords) -> Status {} and count {}", status, ++count);
             }
         }
-
-        log.info("DomainService(updateTxtRecords) -> Txt record has been updated for {} with result {}", domainName, result);
+        return values;
     }
 
     public void createSubDomain(UUID participantId) {
@@ -84,29 +180,9 @@ public class DomainService {
         try {
             String domainName = participant.getDomain();
             log.info("DomainService(createSubDomain) -> Prepare domain {} for participant {}.", domainName, participantId);
-            ResourceRecord resourceRecord = new ResourceRecord();
-            resourceRecord.setValue(this.awsSettings.serverIp());
-
-            ResourceRecordSet recordsSet = new ResourceRecordSet();
-            recordsSet.setResourceRecords(List.of(resourceRecord));
-            recordsSet.setType(RRType.A);
-            recordsSet.setTTL(900L);
-            recordsSet.setName(domainName);
-
-            Change change = new Change(ChangeAction.CREATE, recordsSet);
-
-            ChangeBatch batch = new ChangeBatch(List.of(change));
-
-            ChangeResourceRecordSetsRequest request = new ChangeResourceRecordSetsRequest();
-            request.setChangeBatch(batch);
-
-            request.setHostedZoneId(this.awsSettings.hostedZoneId());
-            ChangeResourceRecordSetsResult result = this.amazonRoute53.changeResourceRecordSets(request);
-            log.info("DomainService(createSubDomain) -> Subdomain {} is created for participant {} and AWS Route result is {}", domainName, participantId, result);
+            String changeId = join(this.dnsChangeBatcher.submit(DnsRecordChange.a(domainName, this.awsSettings.serverIp())));
+            log.info("DomainService(createSubDomain) -> Subdomain {} is created for participant {} with change {}", domainName, participantId, changeId);
             participant.setStatus(RegistrationStatus.DOMAIN_CREATED.getStatus());
-
-            //create job to create certificate
-            this.createCertificateCreationJob(participant);
         } catch (Exception e) {
             log.error("DomainService(createSubDomain) -> Error occurred while creating the sub domain for participant {}", participant.getId(), e);
             participant.setStatus(RegistrationStatus.DOMAIN_CREATION_FAILED.getStatus());
@@ -116,13 +192,17 @@ public class DomainService {
         }
     }
 
-    private void createCertificateCreationJob(Participant participant) {
+    /**
+     * Waits for the batch of the change to be submitted, which takes the batch window at most.
+     */
+    private static String join(CompletableFuture<String> changeId) {
         try {
-            this.scheduleService.createJob(participant.getId().toString(), StringPool.JOB_TYPE_CREATE_CERTIFICATE, 0); //try for 3 time for certificate
-            log.info("DomainService(createCertificateCreationJob) -> Process has been scheduled for participant {} with status {}", participant.getId(), StringPool.JOB_TYPE_CREATE_CERTIFICATE);
-        } catch (SchedulerException e) {
-            log.error("DomainService(createCertificateCreationJob) -> Process has been failed while schedule certificate creation job for participant {}", participant.getId(), e);
-            participant.setStatus(RegistrationStatus.CERTIFICATE_CREATION_FAILED.getStatus());
+            return changeId.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.core.service.domain;
+
+import eu.gaiax.wizard.api.utils.StringPool;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the records in memory, for running the onboarding without a DNS service. Like Route53 it applies a batch
+ * atomically, rejects creating an existing or deleting a missing record value and lets an upsert replace an A record
+ * and add to a TXT record.
+ * Changes are in sync right away.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "wizard.dns.provider", havingValue = "in-memory")
+public class InMemoryDnsProvider implements DnsProvider {
+
+    private final Map<String, Set<String>> records = new HashMap<>();
+    private final Set<String> changes = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Override
+    public synchronized String submit(List<DnsRecordChange> batch) {
+        Map<String, Set<String>> updated = new HashMap<>();
+        Set<String> upserted = new HashSet<>();
+        for (DnsRecordChange change : batch) {
+            String key = change.type() + " " + change.name();
+            Set<String> values = updated.computeIfAbsent(key, k -> new HashSet<>(this.records.getOrDefault(k, Set.of())));
+            if (StringPool.UPSERT.equals(change.action()) && !DnsRecordChange.TYPE_TXT.equals(change.type()) && !upserted.contains(key)) {
+                // the values of an upsert replace an A record, several upserts of one record in a batch add up
+                values.clear();
+                upserted.add(key);
+            }
+            boolean applied = StringPool.DELETE.equals(change.action()) ? values.remove(change.value()) : values.add(change.value()) || StringPool.UPSERT.equals(change.action());
+            if (!applied) {
+                throw new InvalidDnsChangeException(change.action() + " of " + key + " " + change.value() + " is not possible", null);
+            }
+        }
+        updated.forEach((key, values) -> {
+            if (values.isEmpty()) {
+                this.records.remove(key);
+            } else {
+                this.records.put(key, values);
+            }
+        });
+        String changeId = "/change/" + this.sequence.incrementAndGet();
+        this.changes.add(changeId);
+        log.debug("InMemoryDnsProvider(submit) -> {} changes applied with change {}", batch.size(), changeId);
+        return changeId;
+    }
+
+    @Override
+    public boolean isInSync(String changeId) {
+        return this.changes.contains(changeId);
+    }
+
+    @Override
+    public List<String> getNameServers() {
+        return List.of();
+    }
+
+    public synchronized Set<String> getValues(String type, String name) {
+        return Set.copyOf(this.records.getOrDefault(type + " " + name, Set.of()));
+    }
+}
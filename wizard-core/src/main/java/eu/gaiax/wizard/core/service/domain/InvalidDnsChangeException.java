@@ -0,0 +1,15 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.core.service.domain;
+
+/**
+ * The DNS provider rejected a change batch because of its content. Retrying the same batch would fail again.
+ */
+public class InvalidDnsChangeException extends RuntimeException {
+
+    public InvalidDnsChangeException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.core.service.domain;
+
+import com.amazonaws.services.route53.AmazonRoute53;
+import com.amazonaws.services.route53.model.*;
+import eu.gaiax.wizard.api.model.setting.AWSSettings;
+import eu.gaiax.wizard.api.utils.StringPool;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Manages the records in the Route53 hosted zone of the wizard.
+ * <p>
+ * Route53 changes whole record sets, while the TXT changes are about single values, e.g. the ACME challenges of
+ * several certificates that share one record name. The current TXT record set is read and the values are merged into
+ * it, and the batch deletes exactly the record set that was read before creating the merged one. If the record set
+ * changed in between, Route53 rejects the batch and it is built again from the changed record set.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "wizard.dns.provider", havingValue = "route53", matchIfMissing = true)
+public class Route53DnsProvider implements DnsProvider {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final AWSSettings awsSettings;
+    private final AmazonRoute53 amazonRoute53;
+
+    /**
+     * Submits the changes as one batch. A TXT change adds its value to the record or, with {@code DELETE}, removes it;
+     * creating a present or deleting a missing value is rejected. Other changes of the same action, name and type are
+     * merged into one record set, Route53 rejects a batch that touches a record set twice.
+     */
+    @Override
+    public String submit(List<DnsRecordChange> changes) {
+        for (int attempt = 1; ; attempt++) {
+            Map<String, ResourceRecordSet> txtRecordSets = this.readTxtRecordSets(changes);
+            List<Change> batch = toBatch(changes, txtRecordSets);
+            ChangeResourceRecordSetsRequest request = new ChangeResourceRecordSetsRequest()
+                    .withHostedZoneId(this.awsSettings.hostedZoneId())
+                    .withChangeBatch(new ChangeBatch(batch));
+            try {
+                ChangeResourceRecordSetsResult result = this.amazonRoute53.changeResourceRecordSets(request);
+                log.info("Route53DnsProvider(submit) -> {} record set changes submitted with change {}", batch.size(), result.getChangeInfo().getId());
+                return result.getChangeInfo().getId();
+            } catch (InvalidChangeBatchException e) {
+                if (attempt < MAX_ATTEMPTS && !txtRecordSets.isEmpty() && !txtRecordSets.equals(this.readTxtRecordSets(changes))) {
+                    log.info("Route53DnsProvider(submit) -> TXT records changed while submitting, submitting again");
+                    continue;
+                }
+                throw new InvalidDnsChangeException(e.getErrorMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public boolean isInSync(String changeId) {
+        String status = this.amazonRoute53.getChange(new GetChangeRequest().withId(changeId)).getChangeInfo().getStatus();
+        log.debug("Route53DnsProvider(isInSync) -> Change {} has status {}", changeId, status);
+        return ChangeStatus.INSYNC.name().equalsIgnoreCase(status);
+    }
+
+    @Override
+    public List<String> getNameServers() {
+        return this.amazonRoute53.getHostedZone(new GetHostedZoneRequest(this.awsSettings.hostedZoneId())).getDelegationSet().getNameServers();
+    }
+
+    /**
+     * Reads the current TXT record sets of the changed TXT records.
+     *
+     * @return record name to record set, records that do not exist are left out
+     */
+    private Map<String, ResourceRecordSet> readTxtRecordSets(List<DnsRecordChange> changes) {
+        Map<String, ResourceRecordSet> recordSets = new HashMap<>();
+        changes.stream()
+                .filter(change -> DnsRecordChange.TYPE_TXT.equals(change.type()))
+                .map(change -> normalize(change.name()))
+                .distinct()
+                .forEach(name -> this.amazonRoute53.listResourceRecordSets(new ListResourceRecordSetsRequest(this.awsSettings.hostedZoneId())
+                                .withStartRecordName(name)
+                                .withStartRecordType(RRType.TXT)
+                                .withMaxItems("1"))
+                        .getResourceRecordSets().stream()
+                        .filter(recordSet -> RRType.TXT.toString().equals(recordSet.getType()) && normalize(recordSet.getName()).equals(name))
+                        .findFirst()
+                        .ifPresent(recordSet -> recordSets.put(name, recordSet)));
+        return recordSets;
+    }
+
+    private static List<Change> toBatch(List<DnsRecordChange> changes, Map<String, ResourceRecordSet> txtRecordSets) {
+        Map<List<String>, ResourceRecordSet> recordSets = new LinkedHashMap<>();
+        Map<List<String>, String> actions = new HashMap<>();
+        Map<String, Set<String>> txtValues = new LinkedHashMap<>();
+        Map<String, DnsRecordChange> txtChanges = new HashMap<>();
+        for (DnsRecordChange change : changes) {
+            if (DnsRecordChange.TYPE_TXT.equals(change.type())) {
+                String name = normalize(change.name());
+                Set<String> values = txtValues.computeIfAbsent(name, n -> currentValues(txtRecordSets.get(n)));
+                txtChanges.putIfAbsent(name, change);
+                String value = "\"" + change.value() + "\"";
+                boolean applied = StringPool.DELETE.equals(change.action()) ? values.remove(value) : values.add(value) || StringPool.UPSERT.equals(change.action());
+                if (!applied) {
+                    throw new InvalidDnsChangeException(change.action() + " of TXT " + change.name() + " " + change.value() + " is not possible", null);
+                }
+                continue;
+            }
+            List<String> key = List.of(change.action(), change.type(), change.name());
+            ResourceRecordSet recordSet = recordSets.computeIfAbsent(key, k -> new ResourceRecordSet()
+                    .withName(change.name())
+                    .withType(RRType.fromValue(change.type()))
+                    .withTTL(change.ttl())
+                    .withResourceRecords(new ArrayList<>()));
+            actions.put(key, change.action());
+            if (recordSet.getResourceRecords().stream().noneMatch(r -> r.getValue().equals(change.value()))) {
+                recordSet.getResourceRecords().add(new ResourceRecord(change.value()));
+            }
+        }
+
+        List<Change> batch = new ArrayList<>();
+        recordSets.forEach((key, recordSet) -> batch.add(new Change(ChangeAction.fromValue(actions.get(key)), recordSet)));
+        txtValues.forEach((name, values) -> {
+            ResourceRecordSet current = txtRecordSets.get(name);
+            if (current != null) {
+                // fails if the record set is no longer the one read
+                batch.add(new Change(ChangeAction.DELETE, current));
+            }
+            if (!values.isEmpty()) {
+                DnsRecordChange change = txtChanges.get(name);
+                batch.add(new Change(ChangeAction.CREATE, new ResourceRecordSet()
+                        .withName(change.name())
+                        .withType(RRType.TXT)
+                        .withTTL(current == null ? change.ttl() : current.getTTL())
+                        .withResourceRecords(values.stream().map(ResourceRecord::new).toList())));
+            }
+        });
+        return batch;
+    }
+
+    private static Set<String> currentValues(ResourceRecordSet recordSet) {
+        Set<String> values = new LinkedHashSet<>();
+        if (recordSet != null) {
+            recordSet.getResourceRecords().forEach(resourceRecord -> values.add(resourceRecord.getValue()));
+        }
+        return values;
+    }
+
+    /**
+     * Record names as Route53 returns them: lowercase, without the trailing dot.
+     */
+    private static String normalize(String name) {
+        String lowerCase = name.toLowerCase();
+        return lowerCase.endsWith(".") ? lowerCase.substring(0, lowerCase.length() - 1) : lowerCase;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.core.service.hosting;
+
+import eu.gaiax.wizard.api.model.setting.HostingSettings;
+import eu.gaiax.wizard.api.utils.S3Utils;
+import eu.gaiax.wizard.core.service.participant.VaultService;
+import eu.gaiax.wizard.dao.entity.participant.Participant;
+import eu.gaiax.wizard.dao.repository.participant.ParticipantRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static eu.gaiax.wizard.api.utils.StringPool.HOSTED_DOMAIN_PREFIX;
+import static eu.gaiax.wizard.api.utils.StringPool.X509_CERTIFICATE_CHAIN;
+
+/**
+ * Publishes everything the hosting module needs to the artifact store: the domain to participant alias and the
+ * public certificate chain. Hosted JSON documents are already written there by the signer and policy services.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class HostedArtifactService {
+
+    private static final int PUBLISH_BATCH_SIZE = 100;
+
+    private final S3Utils s3Utils;
+    private final VaultService vaultService;
+    private final ParticipantRepository participantRepository;
+    private final HostingSettings hostingSettings;
+
+    public void publishDomain(String domain, UUID participantId) {
+        this.s3Utils.uploadString(HOSTED_DOMAIN_PREFIX + domain, participantId.toString());
+        log.debug("HostedArtifactService(publishDomain) -> Domain {} published for participant {}", domain, participantId);
+    }
+
+    public void publishCertificateChain(UUID participantId, String certificateChain) throws IOException {
+        this.s3Utils.uploadHostedDocument(participantId + "/" + X509_CERTIFICATE_CHAIN, certificateChain.getBytes(StandardCharsets.UTF_8));
+        log.debug("HostedArtifactService(publishCertificateChain) -> Certificate chain published for participant {}", participantId);
+    }
+
+    /**
+     * Publishes the domain alias and certificate chain of participants onboarded before the hosting module existed.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void publishExistingParticipants() {
+        if (!this.hostingSettings.publishOnStartup()) {
+            return;
+        }
+        log.info("HostedArtifactService(publishExistingParticipants) -> Publishing hosted artifacts of existing participants.");
+        List<Participant> participants = this.participantRepository.findAllByDomainIsNotNull();
+        for (int from = 0; from < participants.size(); from += PUBLISH_BATCH_SIZE) {
+            List<Participant> batch = participants.subList(from, Math.min(from + PUBLISH_BATCH_SIZE, participants.size()));
+            Map<String, Map<String, Object>> secrets = this.vaultService.getParticipantsSecretData(batch.stream().map(participant -> participant.getId().toString()).toList());
+            for (Participant participant : batch) {
+                try {
+                    this.publishDomain(participant.getDomain(), participant.getId());
+                    Map<String, Object> secretData = secrets.get(participant.getId().toString());
+                    if (secretData != null && secretData.get(X509_CERTIFICATE_CHAIN) != null) {
+                        this.publishCertificateChain(participant.getId(), (String) secretData.get(X509_CERTIFICATE_CHAIN));
+                    }
+                } catch (Exception e) {
+                    log.error("HostedArtifactService(publishExistingParticipants) -> Not able to publish hosted artifacts for participant {}", participant.getId(), e);
+                }
+            }
+        }
+    }
+}
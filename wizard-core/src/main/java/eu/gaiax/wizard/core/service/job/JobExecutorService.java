@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.core.service.job;
+
+import eu.gaiax.wizard.api.model.setting.JobExecutorSettings;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Runs job bodies on one bounded executor per job type, so e.g. slow certificate issuance can not starve quick DID
+ * jobs. A job that finds the queue of its type full runs on the submitting thread, which slows the submitter down
+ * instead of dropping the job.
+ * <p>
+ * Per job type the queue depth, the active jobs, the saturation (active jobs / concurrency) and the number of jobs that
+ * ran on the submitting thread are published as metrics tagged with the job type.
+ */
+@Service
+@Slf4j
+public class JobExecutorService implements DisposableBean {
+
+    private static final String JOB_TYPE_TAG = "jobType";
+
+    private final JobExecutorSettings jobExecutorSettings;
+    private final MeterRegistry meterRegistry;
+    private final boolean virtualThreads;
+    private final Map<String, ThreadPoolExecutor> executors = new ConcurrentHashMap<>();
+
+    public JobExecutorService(JobExecutorSettings jobExecutorSettings, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.jobExecutorSettings = jobExecutorSettings;
+        this.meterRegistry = meterRegistry.getIfAvailable();
+        this.virtualThreads = jobExecutorSettings.virtualThreads() && virtualThreadFactory("probe-") != null;
+        if (jobExecutorSettings.virtualThreads() && !this.virtualThreads) {
+            log.warn("JobExecutorService(JobExecutorService) -> Virtual threads are not available on Java {}, jobs run on platform threads.", Runtime.version().feature());
+        }
+    }
+
+    /**
+     * Runs the task on the executor of the given job type.
+     *
+     * @param jobType the job type
+     * @param task    the task
+     */
+    public void execute(String jobType, Runnable task) {
+        this.executors.computeIfAbsent(jobType, this::createExecutor).execute(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("JobExecutorService(execute) -> Job of type {} failed.", jobType, e);
+            }
+        });
+    }
+
+    ThreadPoolExecutor getExecutor(String jobType) {
+        return this.executors.get(jobType);
+    }
+
+    @Override
+    public void destroy() {
+        this.executors.values().forEach(ExecutorService::shutdown);
+    }
+
+    private ThreadPoolExecutor createExecutor(String jobType) {
+        int concurrency = this.jobExecutorSettings.concurrencyOf(jobType);
+        String threadNamePrefix = "job-" + jobType.toLowerCase(Locale.ROOT).replace("job_type_", "").replace('_', '-') + "-";
+        ThreadFactory threadFactory = this.virtualThreads ? virtualThreadFactory(threadNamePrefix) : new CustomizableThreadFactory(threadNamePrefix);
+        Counter callerRuns = this.meterRegistry == null ? null : Counter.builder("wizard.job.caller.runs")
+                .description("Jobs that ran on the submitting thread because the queue was full")
+                .tag(JOB_TYPE_TAG, jobType)
+                .register(this.meterRegistry);
+
+        // a pool of virtual threads only serves as the concurrency limit, idle threads are not kept around
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(concurrency, concurrency, this.virtualThreads ? 1 : 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(this.jobExecutorSettings.queueCapacity()), threadFactory, (task, pool) -> {
+            log.warn("JobExecutorService(execute) -> Queue of job type {} is full, job runs on the submitting thread.", jobType);
+            if (callerRuns != null) {
+                callerRuns.increment();
+            }
+            if (!pool.isShutdown()) {
+                task.run();
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+
+        if (this.meterRegistry != null) {
+            Gauge.builder("wizard.job.queue.depth", executor, e -> e.getQueue().size())
+                    .description("Jobs waiting for a free slot")
+                    .tag(JOB_TYPE_TAG, jobType)
+                    .register(this.meterRegistry);
+            Gauge.builder("wizard.job.active", executor, ThreadPoolExecutor::getActiveCount)
+                    .description("Jobs running")
+                    .tag(JOB_TYPE_TAG, jobType)
+                    .register(this.meterRegistry);
+            Gauge.builder("wizard.job.saturation", executor, e -> (double) e.getActiveCount() / e.getMaximumPoolSize())
+                    .description("Running jobs relative to the concurrency of the job type")
+                    .tag(JOB_TYPE_TAG, jobType)
+                    .register(this.meterRegistry);
+        }
+        log.info("JobExecutorService(createExecutor) -> Executor for job type {} created with concurrency {} on {} threads.", jobType, concurrency, this.virtualThreads ? "virtual" : "platform");
+        return executor;
+    }
+
+    /**
+     * Virtual threads are looked up reflectively, the code base targets Java 17.
+     */
+    private static ThreadFactory virtualThreadFactory(String threadNamePrefix) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, threadNamePrefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.core.service.job;
+
+import eu.gaiax.wizard.api.utils.StringPool;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.*;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+
+/**
+ * Publishes metrics of the Quartz triggers and jobs per job type:
+ * <ul>
+ *     <li>{@code wizard.quartz.trigger.lag}: time between the scheduled and the actual fire time, how far the
+ *     clustered job store is behind</li>
+ *     <li>{@code wizard.quartz.trigger.misfires}: triggers that missed their fire time by more than the misfire
+ *     threshold</li>
+ *     <li>{@code wizard.quartz.job.duration}: time a job held a Quartz thread, tagged with the outcome</li>
+ *     <li>{@code wizard.quartz.job.failures}: jobs that threw</li>
+ * </ul>
+ * Onboarding jobs hand their work over to the {@link JobExecutorService}, so their duration covers the hand-over only;
+ * the duration of the steps themselves is recorded by the onboarding history.
+ */
+@Component
+@Slf4j
+public class QuartzMetricsListener implements JobListener, TriggerListener {
+
+    static final String NAME = "wizard-metrics";
+    private static final String JOB_TYPE_TAG = "jobType";
+
+    private final MeterRegistry meterRegistry;
+
+    public QuartzMetricsListener(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry.getIfAvailable();
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void triggerFired(Trigger trigger, JobExecutionContext context) {
+        if (this.meterRegistry == null || context.getScheduledFireTime() == null) {
+            return;
+        }
+        long lag = Math.max(context.getFireTime().getTime() - context.getScheduledFireTime().getTime(), 0);
+        Timer.builder("wizard.quartz.trigger.lag")
+                .description("Time between the scheduled and the actual fire time of triggers")
+                .tag(JOB_TYPE_TAG, jobType(context.getMergedJobDataMap(), trigger.getKey()))
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(this.meterRegistry)
+                .record(Duration.ofMillis(lag));
+    }
+
+    @Override
+    public boolean vetoJobExecution(Trigger trigger, JobExecutionContext context) {
+        return false;
+    }
+
+    @Override
+    public void triggerMisfired(Trigger trigger) {
+        String jobType = jobType(trigger.getJobDataMap(), trigger.getKey());
+        log.warn("QuartzMetricsListener(triggerMisfired) -> Trigger {} of job type {} misfired, scheduled for {}", trigger.getKey(), jobType, trigger.getNextFireTime());
+        if (this.meterRegistry != null) {
+            Counter.builder("wizard.quartz.trigger.misfires")
+                    .description("Triggers that missed their fire time")
+                    .tag(JOB_TYPE_TAG, jobType)
+                    .register(this.meterRegistry)
+                    .increment();
+        }
+    }
+
+    @Override
+    public void triggerComplete(Trigger trigger, JobExecutionContext context, Trigger.CompletedExecutionInstruction triggerInstructionCode) {
+        // recorded in jobWasExecuted
+    }
+
+    @Override
+    public void jobToBeExecuted(JobExecutionContext context) {
+        // the lag is recorded in triggerFired
+    }
+
+    @Override
+    public void jobExecutionVetoed(JobExecutionContext context) {
+        // no trigger vetoes jobs
+    }
+
+    @Override
+    public void jobWasExecuted(JobExecutionContext context, JobExecutionException jobException) {
+        if (this.meterRegistry == null) {
+            return;
+        }
+        String jobType = jobType(context.getMergedJobDataMap(), context.getTrigger().getKey());
+        Timer.builder("wizard.quartz.job.duration")
+                .description("Time jobs held a Quartz thread")
+                .tag(JOB_TYPE_TAG, jobType)
+                .tag("outcome", jobException == null ? "success" : "failure")
+                .register(this.meterRegistry)
+                .record(Duration.ofMillis(Math.max(context.getJobRunTime(), 0)));
+        if (jobException != null) {
+            Counter.builder("wizard.quartz.job.failures")
+                    .description("Jobs that failed")
+                    .tag(JOB_TYPE_TAG, jobType)
+                    .register(this.meterRegistry)
+                    .increment();
+        }
+    }
+
+    /**
+     * Jobs carry their type in the job data, the trigger group is the type as well.
+     */
+    private static String jobType(JobDataMap jobDataMap, TriggerKey triggerKey) {
+        String jobType = jobDataMap == null ? null : jobDataMap.getString(StringPool.JOB_TYPE);
+        return StringUtils.hasText(jobType) ? jobType : triggerKey.getGroup();
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.core.service.job;
+
+import eu.gaiax.wizard.api.model.OnboardingJobDto;
+import eu.gaiax.wizard.api.model.OnboardingJobsDto;
+import eu.gaiax.wizard.api.model.OnboardingWorkflowState;
+import eu.gaiax.wizard.api.model.QuartzBacklogDto;
+import eu.gaiax.wizard.dao.entity.participant.OnboardingWorkflow;
+import eu.gaiax.wizard.dao.repository.participant.OnboardingWorkflowRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Watches the backlog of the clustered Quartz job store and the onboarding jobs.
+ * <p>
+ * The triggers not fired yet are counted per job type from the job store at a fixed interval and published as
+ * {@code wizard.quartz.jobs.scheduled}, {@code wizard.quartz.jobs.due} (past their fire time, i.e. waiting for a free
+ * Quartz thread) and {@code wizard.quartz.jobs.max.lag} gauges. The Quartz thread pool of the node is published as
+ * {@code wizard.quartz.pool.size}, {@code wizard.quartz.pool.active} and {@code wizard.quartz.pool.utilisation}.
+ */
+@Service
+@Slf4j
+public class QuartzMonitorService {
+
+    private static final String JOB_TYPE_TAG = "jobType";
+    private static final String BACKLOG_QUERY = """
+            SELECT TRIGGER_GROUP, COUNT(*), COUNT(*) FILTER (WHERE NEXT_FIRE_TIME <= ?), MIN(NEXT_FIRE_TIME) FILTER (WHERE NEXT_FIRE_TIME <= ?)
+            FROM QRTZ_TRIGGERS WHERE SCHED_NAME = ? AND TRIGGER_STATE = 'WAITING' GROUP BY TRIGGER_GROUP""";
+
+    private final Scheduler scheduler;
+    private final JdbcTemplate jdbcTemplate;
+    private final OnboardingWorkflowRepository onboardingWorkflowRepository;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, QuartzBacklogDto> backlog = new ConcurrentHashMap<>();
+
+    public QuartzMonitorService(Scheduler scheduler, JdbcTemplate jdbcTemplate, OnboardingWorkflowRepository onboardingWorkflowRepository,
+                                ObjectProvider<MeterRegistry> meterRegistry) {
+        this.scheduler = scheduler;
+        this.jdbcTemplate = jdbcTemplate;
+        this.onboardingWorkflowRepository = onboardingWorkflowRepository;
+        this.meterRegistry = meterRegistry.getIfAvailable();
+        if (this.meterRegistry != null) {
+            Gauge.builder("wizard.quartz.pool.size", this, QuartzMonitorService::getThreadPoolSize)
+                    .description("Quartz threads of the node")
+                    .register(this.meterRegistry);
+            Gauge.builder("wizard.quartz.pool.active", this, QuartzMonitorService::getThreadsBusy)
+                    .description("Quartz threads of the node executing a job")
+                    .register(this.meterRegistry);
+            Gauge.builder("wizard.quartz.pool.utilisation", this, s -> s.getThreadPoolSize() == 0 ? 0 : (double) s.getThreadsBusy() / s.getThreadPoolSize())
+                    .description("Busy Quartz threads relative to the pool size")
+                    .register(this.meterRegistry);
+        }
+    }
+
+    /**
+     * Counts the triggers not fired yet per job type. Job types without triggers are reported with zero.
+     */
+    @Scheduled(fixedDelayString = "${wizard.quartz.monitor-interval:PT30S}")
+    public void refreshBacklog() {
+        long now = System.currentTimeMillis();
+        List<QuartzBacklogDto> current;
+        try {
+            current = this.jdbcTemplate.query(BACKLOG_QUERY, (rs, rowNum) -> {
+                long oldestDue = rs.getLong(4);
+                return new QuartzBacklogDto(rs.getString(1), rs.getLong(2), rs.getLong(3), rs.wasNull() ? 0 : Math.max(now - oldestDue, 0));
+            }, now, now, this.scheduler.getSchedulerName());
+        } catch (Exception e) {
+            log.error("QuartzMonitorService(refreshBacklog) -> Not able to read the Quartz backlog.", e);
+            return;
+        }
+        Set<String> reported = new HashSet<>();
+        for (QuartzBacklogDto jobTypeBacklog : current) {
+            reported.add(jobTypeBacklog.jobType());
+            if (this.backlog.put(jobTypeBacklog.jobType(), jobTypeBacklog) == null) {
+                this.registerGauges(jobTypeBacklog.jobType());
+            }
+        }
+        this.backlog.replaceAll((jobType, jobTypeBacklog) -> reported.contains(jobType) ? jobTypeBacklog : new QuartzBacklogDto(jobType, 0, 0, 0));
+    }
+
+    /**
+     * Gets the onboarding steps being run and waiting to run in the cluster together with the Quartz backlog.
+     *
+     * @param limit the max number of steps per list
+     * @return the onboarding jobs
+     */
+    public OnboardingJobsDto getOnboardingJobs(int limit) {
+        List<OnboardingJobDto> inFlight = this.onboardingWorkflowRepository.findAllByStateIn(EnumSet.of(OnboardingWorkflowState.RUNNING),
+                PageRequest.of(0, limit, Sort.by("updatedAt"))).map(QuartzMonitorService::toDto).getContent();
+        List<OnboardingJobDto> pending = this.onboardingWorkflowRepository.findAllByStateIn(EnumSet.of(OnboardingWorkflowState.PENDING, OnboardingWorkflowState.WAITING),
+                PageRequest.of(0, limit, Sort.by(Sort.Order.asc("nextRunAt").nullsFirst()))).map(QuartzMonitorService::toDto).getContent();
+        List<QuartzBacklogDto> quartzBacklog = this.backlog.values().stream().sorted(Comparator.comparing(QuartzBacklogDto::jobType)).toList();
+        return new OnboardingJobsDto(inFlight, pending, quartzBacklog, this.getThreadsBusy());
+    }
+
+    int getThreadPoolSize() {
+        try {
+            return this.scheduler.getMetaData().getThreadPoolSize();
+        } catch (SchedulerException e) {
+            return 0;
+        }
+    }
+
+    int getThreadsBusy() {
+        try {
+            return this.scheduler.getCurrentlyExecutingJobs().size();
+        } catch (SchedulerException e) {
+            return 0;
+        }
+    }
+
+    private void registerGauges(String jobType) {
+        if (this.meterRegistry == null) {
+            return;
+        }
+        Gauge.builder("wizard.quartz.jobs.scheduled", this.backlog, b -> b.get(jobType).scheduled())
+                .description("Triggers waiting to fire")
+                .tag(JOB_TYPE_TAG, jobType)
+                .register(this.meterRegistry);
+        Gauge.builder("wizard.quartz.jobs.due", this.backlog, b -> b.get(jobType).due())
+                .description("Triggers past their fire time waiting for a Quartz thread")
+                .tag(JOB_TYPE_TAG, jobType)
+                .register(this.meterRegistry);
+        Gauge.builder("wizard.quartz.jobs.max.lag", this.backlog, b -> b.get(jobType).maxLagMs())
+                .description("How far the oldest due trigger is behind its fire time in milliseconds")
+                .tag(JOB_TYPE_TAG, jobType)
+                .register(this.meterRegistry);
+    }
+
+    private static OnboardingJobDto toDto(OnboardingWorkflow workflow) {
+        return new OnboardingJobDto(workflow.getParticipantId(), workflow.getStep(), workflow.getState(), workflow.getAttempts(),
+                workflow.getWaits(), workflow.getNextRunAt(), workflow.getUpdatedAt());
+    }
+}
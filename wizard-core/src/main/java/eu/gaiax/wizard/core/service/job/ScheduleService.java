@@ -8,11 +8,18 @@ package eu.gaiax.wizard.core.service.job;
 import eu.gaiax.wizard.api.utils.StringPool;
 import lombok.RequiredArgsConstructor;
 import org.quartz.*;
+import org.quartz.impl.matchers.GroupMatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -23,6 +30,8 @@ import java.util.UUID;
 public class ScheduleService {
     private static final Logger LOGGER = LoggerFactory.getLogger(ScheduleService.class);
 
+    private static final JobKey WILDCARD_RENEWAL_JOB_KEY = JobKey.jobKey("continuation", StringPool.JOB_TYPE_RENEW_WILDCARD_CERTIFICATE);
+
     private final Scheduler scheduler;
 
     /**
@@ -40,29 +49,243 @@ public class ScheduleService {
     }
 
     /**
-     * Create job.
+     * Create job. Onboarding steps chain into each other directly, so a job is only created for a step that has to
+     * run later, e.g. to check again whether an external system is ready. The job is removed once it has fired.
      *
      * @param id    the participantId
      * @param type  the type
-     * @param count the count
+     * @param delay the delay before the job fires
      * @throws SchedulerException the scheduler exception
      */
-    public void createJob(String id, String type, int count) throws SchedulerException {
+    public void createJob(String id, String type, Duration delay) throws SchedulerException {
         JobDetail job = JobBuilder.newJob(ScheduledJobBean.class)
                 .withIdentity(UUID.randomUUID().toString(), type)
-                .storeDurably()
                 .requestRecovery()
                 .usingJobData(StringPool.ID, id)
                 .usingJobData(StringPool.JOB_TYPE, type)
                 .build();
 
-        SimpleTrigger activateEnterpriseUserTrigger = TriggerBuilder.newTrigger()
+        Trigger trigger = TriggerBuilder.newTrigger()
                 .forJob(job)
                 .withIdentity(UUID.randomUUID().toString(), type)
+                .startAt(new Date(System.currentTimeMillis() + delay.toMillis()))
+                .build();
+        this.scheduler.scheduleJob(job, trigger);
+        LOGGER.debug("{}: job created for participant with id->{}, fires in {}", type, id, delay);
+    }
+
+    /**
+     * Create the storage key migration job. The job identity is fixed so that only one migration is scheduled
+     * across the cluster.
+     *
+     * @throws SchedulerException the scheduler exception
+     */
+    public void createStorageMigrationJob() throws SchedulerException {
+        JobKey jobKey = JobKey.jobKey(StringPool.JOB_TYPE_MIGRATE_STORAGE_KEYS, StringPool.JOB_TYPE_MIGRATE_STORAGE_KEYS);
+        if (this.scheduler.checkExists(jobKey)) {
+            LOGGER.debug("{}: job already exists", StringPool.JOB_TYPE_MIGRATE_STORAGE_KEYS);
+            return;
+        }
+        JobDetail job = JobBuilder.newJob(ScheduledJobBean.class)
+                .withIdentity(jobKey)
+                .requestRecovery()
+                .usingJobData(StringPool.ID, UUID.randomUUID().toString())
+                .usingJobData(StringPool.JOB_TYPE, StringPool.JOB_TYPE_MIGRATE_STORAGE_KEYS)
+                .build();
+
+        Trigger trigger = TriggerBuilder.newTrigger()
+                .forJob(job)
+                .withIdentity(StringPool.JOB_TYPE_MIGRATE_STORAGE_KEYS, StringPool.JOB_TYPE_MIGRATE_STORAGE_KEYS)
+                .startAt(new Date(System.currentTimeMillis() + 10000)) //start after 10 sec
+                .build();
+        try {
+            this.scheduler.scheduleJob(job, trigger);
+            LOGGER.debug("{}: job created", StringPool.JOB_TYPE_MIGRATE_STORAGE_KEYS);
+        } catch (ObjectAlreadyExistsException e) {
+            LOGGER.debug("{}: job already scheduled by another node", StringPool.JOB_TYPE_MIGRATE_STORAGE_KEYS);
+        }
+    }
+
+    /**
+     * Create the job that keeps the wildcard record and certificate up to date. It runs right away and then repeats
+     * with the given interval. The job identity is fixed so that only one renewal runs across the cluster.
+     *
+     * @param interval the interval between two runs
+     * @throws SchedulerException the scheduler exception
+     */
+    public void createWildcardRenewalJob(Duration interval) throws SchedulerException {
+        this.createRepeatingJob(StringPool.JOB_TYPE_RENEW_WILDCARD_CERTIFICATE, interval);
+    }
+
+    /**
+     * Create the job that continues the wildcard certificate renewal after the given delay, while it waits for DNS
+     * propagation or the ACME server. The job identity is fixed, so one renewal is in progress at most.
+     *
+     * @param stepData how far the renewal got
+     * @param waits    how often the renewal has waited so far
+     * @param delay    the delay before the job fires
+     * @throws SchedulerException the scheduler exception
+     */
+    public void continueWildcardRenewalJob(Map<String, String> stepData, int waits, Duration delay) throws SchedulerException {
+        this.createContinuationJob(WILDCARD_RENEWAL_JOB_KEY, UUID.randomUUID().toString(), stepData, waits, delay);
+    }
+
+    /**
+     * Whether a wildcard certificate renewal waits to be continued.
+     *
+     * @return true if the renewal is in progress
+     * @throws SchedulerException the scheduler exception
+     */
+    public boolean isWildcardRenewalInProgress() throws SchedulerException {
+        return this.scheduler.checkExists(WILDCARD_RENEWAL_JOB_KEY);
+    }
+
+    /**
+     * Create the job that scans the participant certificates for upcoming renewals. The job identity is fixed so that
+     * only one scan runs across the cluster.
+     *
+     * @param interval the interval between two scans
+     * @throws SchedulerException the scheduler exception
+     */
+    public void createRenewalScanJob(Duration interval) throws SchedulerException {
+        this.createRepeatingJob(StringPool.JOB_TYPE_SCAN_CERTIFICATE_RENEWALS, interval);
+    }
+
+    /**
+     * Create the renewal job of a participant certificate. The job is named after the participant, so a participant
+     * has one renewal scheduled at most.
+     *
+     * @param participantId the participant id
+     * @param startAt       when the renewal starts
+     * @return false if a renewal of the participant is already scheduled
+     * @throws SchedulerException the scheduler exception
+     */
+    public boolean createRenewalJob(UUID participantId, Date startAt) throws SchedulerException {
+        JobKey jobKey = JobKey.jobKey(participantId.toString(), StringPool.JOB_TYPE_RENEW_CERTIFICATE);
+        if (this.scheduler.checkExists(jobKey)) {
+            return false;
+        }
+        JobDetail job = JobBuilder.newJob(ScheduledJobBean.class)
+                .withIdentity(jobKey)
+                .requestRecovery()
+                .usingJobData(StringPool.ID, participantId.toString())
+                .usingJobData(StringPool.JOB_TYPE, StringPool.JOB_TYPE_RENEW_CERTIFICATE)
+                .build();
+
+        Trigger trigger = TriggerBuilder.newTrigger()
+                .forJob(job)
+                .withIdentity(participantId.toString(), StringPool.JOB_TYPE_RENEW_CERTIFICATE)
+                .startAt(startAt)
+                .build();
+        try {
+            this.scheduler.scheduleJob(job, trigger);
+            LOGGER.debug("{}: job created for participant with id->{}, fires at {}", StringPool.JOB_TYPE_RENEW_CERTIFICATE, participantId, startAt);
+            return true;
+        } catch (ObjectAlreadyExistsException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Create the job that continues the renewal of a participant certificate after the given delay, while it waits for
+     * DNS propagation or the ACME server. The job takes over the identity of the renewal job, so the next scan does
+     * not schedule another renewal of the participant in the meantime.
+     *
+     * @param participantId the participant id
+     * @param stepData      how far the renewal got
+     * @param waits         how often the renewal has waited so far
+     * @param delay         the delay before the job fires
+     * @throws SchedulerException the scheduler exception
+     */
+    public void continueRenewalJob(UUID participantId, Map<String, String> stepData, int waits, Duration delay) throws SchedulerException {
+        this.createContinuationJob(JobKey.jobKey(participantId.toString(), StringPool.JOB_TYPE_RENEW_CERTIFICATE), participantId.toString(), stepData, waits, delay);
+    }
+
+    /**
+     * Counts the scheduled jobs of the given type.
+     *
+     * @param type the job type
+     * @return the number of jobs
+     * @throws SchedulerException the scheduler exception
+     */
+    public int countJobs(String type) throws SchedulerException {
+        return this.scheduler.getJobKeys(GroupMatcher.jobGroupEquals(type)).size();
+    }
+
+    /**
+     * Gets when the scheduled jobs of the given type fire next.
+     *
+     * @param type the job type
+     * @return the next fire times
+     * @throws SchedulerException the scheduler exception
+     */
+    public List<Date> getNextFireTimes(String type) throws SchedulerException {
+        List<Date> fireTimes = new ArrayList<>();
+        for (JobKey jobKey : this.scheduler.getJobKeys(GroupMatcher.jobGroupEquals(type))) {
+            for (Trigger trigger : this.scheduler.getTriggersOfJob(jobKey)) {
+                if (trigger.getNextFireTime() != null) {
+                    fireTimes.add(trigger.getNextFireTime());
+                }
+            }
+        }
+        return fireTimes;
+    }
+
+    /**
+     * Create a job that fires once after the given delay with the state of the waiting job. The job is replaced if it
+     * exists, i.e. while the job continues itself. Its fired trigger is removed once that run completes, the new
+     * trigger keeps the job.
+     */
+    private void createContinuationJob(JobKey jobKey, String id, Map<String, String> stepData, int waits, Duration delay) throws SchedulerException {
+        JobDetail job = JobBuilder.newJob(ScheduledJobBean.class)
+                .withIdentity(jobKey)
+                .requestRecovery()
+                .usingJobData(StringPool.ID, id)
+                .usingJobData(StringPool.JOB_TYPE, jobKey.getGroup())
+                .usingJobData(StringPool.WAITS, waits)
+                .build();
+        job.getJobDataMap().put(StringPool.STEP_DATA, new HashMap<>(stepData));
+
+        Trigger trigger = TriggerBuilder.newTrigger()
+                .forJob(job)
+                .withIdentity(UUID.randomUUID().toString(), jobKey.getGroup())
+                .startAt(new Date(System.currentTimeMillis() + delay.toMillis()))
+                .build();
+        this.scheduler.scheduleJob(job, Set.of(trigger), true);
+        LOGGER.debug("{}: job {} continues in {}", jobKey.getGroup(), jobKey.getName(), delay);
+    }
+
+    /**
+     * Create a job that runs after 10 sec and then repeats with the given interval. The job identity is fixed so that
+     * the job runs once per interval across the cluster.
+     */
+    private void createRepeatingJob(String type, Duration interval) throws SchedulerException {
+        JobKey jobKey = JobKey.jobKey(type, type);
+        if (this.scheduler.checkExists(jobKey)) {
+            LOGGER.debug("{}: job already exists", type);
+            return;
+        }
+        JobDetail job = JobBuilder.newJob(ScheduledJobBean.class)
+                .withIdentity(jobKey)
+                .requestRecovery()
+                .usingJobData(StringPool.ID, UUID.randomUUID().toString())
+                .usingJobData(StringPool.JOB_TYPE, type)
+                .build();
+
+        Trigger trigger = TriggerBuilder.newTrigger()
+                .forJob(job)
+                .withIdentity(type, type)
                 .startAt(new Date(System.currentTimeMillis() + 10000)) //start after 10 sec
-                .withSchedule(SimpleScheduleBuilder.simpleSchedule().withRepeatCount(count).withIntervalInSeconds(30))
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                        .withIntervalInMilliseconds(interval.toMillis())
+                        .repeatForever()
+                        .withMisfireHandlingInstructionNextWithRemainingCount())
                 .build();
-        this.scheduler.scheduleJob(job, activateEnterpriseUserTrigger);
-        LOGGER.debug("{}: job created for participant with id->{}", type, id);
+        try {
+            this.scheduler.scheduleJob(job, trigger);
+            LOGGER.debug("{}: job created, repeats every {}", type, interval);
+        } catch (ObjectAlreadyExistsException e) {
+            LOGGER.debug("{}: job already scheduled by another node", type);
+        }
     }
 }
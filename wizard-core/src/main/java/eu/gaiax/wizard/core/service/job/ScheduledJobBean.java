@@ -4,52 +4,101 @@
 
 package eu.gaiax.wizard.core.service.job;
 
+import eu.gaiax.wizard.api.model.OnboardingStep;
 import eu.gaiax.wizard.api.utils.StringPool;
-import eu.gaiax.wizard.core.service.domain.DomainService;
-import eu.gaiax.wizard.core.service.k8s.K8SService;
-import eu.gaiax.wizard.core.service.signer.SignerService;
-import eu.gaiax.wizard.core.service.ssl.CertificateService;
+import eu.gaiax.wizard.core.service.onboarding.OnboardingStepContext;
+import eu.gaiax.wizard.core.service.onboarding.OnboardingWorkflowService;
+import eu.gaiax.wizard.core.service.participant.BulkOnboardingService;
+import eu.gaiax.wizard.core.service.participant.ParticipantUserService;
+import eu.gaiax.wizard.core.service.ssl.CertificateRenewalService;
+import eu.gaiax.wizard.core.service.ssl.WildcardCertificateService;
+import eu.gaiax.wizard.core.service.storage.StorageMigrationService;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.quartz.DisallowConcurrentExecution;
+import org.quartz.JobDataMap;
 import org.quartz.JobDetail;
 import org.quartz.JobExecutionContext;
 import org.springframework.scheduling.quartz.QuartzJobBean;
 import org.springframework.stereotype.Component;
 
+import java.util.Map;
 import java.util.UUID;
 
 /**
  * The type Scheduled job bean.
+ * <p>
+ * The cluster-wide singleton jobs (storage key migration, wildcard certificate renewal, renewal scan) run on the Quartz
+ * thread, so {@link DisallowConcurrentExecution} keeps them from overlapping and a job interrupted by a crashed node is
+ * recovered by Quartz.
+ * <p>
+ * All other jobs are handed over to the executor of their job type, so the Quartz thread is free again right away and
+ * the job types do not compete for the Quartz thread pool. Quartz considers such a job done once it is handed over,
+ * so neither {@link DisallowConcurrentExecution} nor the requested recovery covers its body. A body lost with its node
+ * is picked up by the recovery of the owning service instead: the onboarding workflow and bulk onboarding recover stale
+ * work, user provisioning recovers unprovisioned participants and the renewal scan schedules missed renewals again.
  */
 @Component
 @Slf4j
 @DisallowConcurrentExecution
 @RequiredArgsConstructor
 public class ScheduledJobBean extends QuartzJobBean {
-    private final DomainService domainService;
-    private final CertificateService certificateService;
-    private final K8SService k8SService;
-    private final SignerService signerService;
+    private final OnboardingWorkflowService onboardingWorkflowService;
+    private final StorageMigrationService storageMigrationService;
+    private final WildcardCertificateService wildcardCertificateService;
+    private final CertificateRenewalService certificateRenewalService;
+    private final BulkOnboardingService bulkOnboardingService;
+    private final ParticipantUserService participantUserService;
+    private final JobExecutorService jobExecutorService;
 
     @SneakyThrows
     @Override
     protected void executeInternal(JobExecutionContext context) {
         JobDetail jobDetail = context.getJobDetail();
         String jobType = jobDetail.getJobDataMap().getString(StringPool.JOB_TYPE);
-        UUID participantId = UUID.fromString(jobDetail.getJobDataMap().getString(StringPool.ID));
-        switch (jobType) {
-            case StringPool.JOB_TYPE_CREATE_SUB_DOMAIN -> this.domainService.createSubDomain(participantId);
-            case StringPool.JOB_TYPE_CREATE_CERTIFICATE ->
-                    this.certificateService.createSSLCertificate(participantId, jobDetail.getKey());
-            case StringPool.JOB_TYPE_CREATE_INGRESS -> this.k8SService.createIngress(participantId);
-            case StringPool.JOB_TYPE_CREATE_DID -> this.signerService.createDid(participantId);
-            case StringPool.JOB_TYPE_CREATE_PARTICIPANT ->
-                    this.signerService.createSignedLegalParticipant(participantId);
-            default -> log.error("ScheduledJobBean(executeInternal) -> JobType {} is invalid.", jobType);
+        if (StringPool.JOB_TYPE_MIGRATE_STORAGE_KEYS.equals(jobType)) {
+            this.storageMigrationService.migrateKeyLayout();
+        } else if (StringPool.JOB_TYPE_RENEW_WILDCARD_CERTIFICATE.equals(jobType)) {
+            this.wildcardCertificateService.renew(stepContext(jobDetail.getJobDataMap()));
+        } else if (StringPool.JOB_TYPE_SCAN_CERTIFICATE_RENEWALS.equals(jobType)) {
+            this.certificateRenewalService.scan();
+        } else {
+            this.handOver(jobType, jobDetail);
         }
-        log.info("ScheduledJobBean(executeInternal) -> Job {} has been executed.", jobType);
+    }
+
+    private void handOver(String jobType, JobDetail jobDetail) {
+        if (StringPool.JOB_TYPE_RENEW_CERTIFICATE.equals(jobType)) {
+            UUID participantId = UUID.fromString(jobDetail.getJobDataMap().getString(StringPool.ID));
+            OnboardingStepContext stepContext = stepContext(jobDetail.getJobDataMap());
+            this.jobExecutorService.execute(jobType, () -> this.certificateRenewalService.renew(participantId, stepContext));
+        } else if (StringPool.JOB_TYPE_BULK_ONBOARDING.equals(jobType)) {
+            UUID jobId = UUID.fromString(jobDetail.getJobDataMap().getString(StringPool.ID));
+            this.jobExecutorService.execute(jobType, () -> this.bulkOnboardingService.process(jobId));
+        } else if (StringPool.JOB_TYPE_PROVISION_USER.equals(jobType)) {
+            UUID participantId = UUID.fromString(jobDetail.getJobDataMap().getString(StringPool.ID));
+            this.jobExecutorService.execute(jobType, () -> this.participantUserService.provision(participantId));
+        } else {
+            OnboardingStep step = OnboardingStep.fromJobType(jobType);
+            if (step == null) {
+                log.error("ScheduledJobBean(handOver) -> JobType {} is invalid.", jobType);
+                return;
+            }
+            UUID participantId = UUID.fromString(jobDetail.getJobDataMap().getString(StringPool.ID));
+            this.jobExecutorService.execute(jobType, () -> this.onboardingWorkflowService.runScheduledStep(participantId, step));
+        }
+        log.info("ScheduledJobBean(handOver) -> Job {} has been handed over to its executor.", jobType);
+    }
+
+    /**
+     * Gets the state a waiting job continues with, see {@link ScheduleService}. A job that does not continue another
+     * one starts with an empty state.
+     */
+    @SuppressWarnings("unchecked")
+    private static OnboardingStepContext stepContext(JobDataMap jobDataMap) {
+        return new OnboardingStepContext((Map<String, String>) jobDataMap.get(StringPool.STEP_DATA),
+                jobDataMap.containsKey(StringPool.WAITS) ? jobDataMap.getInt(StringPool.WAITS) : 0);
     }
 
 }
@@ -5,133 +5,84 @@
 package eu.gaiax.wizard.core.service.k8s;
 
 import eu.gaiax.wizard.api.exception.EntityNotFoundException;
+import eu.gaiax.wizard.api.model.IngressMode;
 import eu.gaiax.wizard.api.model.RegistrationStatus;
 import eu.gaiax.wizard.api.model.setting.K8SSettings;
-import eu.gaiax.wizard.api.utils.StringPool;
-import eu.gaiax.wizard.core.service.job.ScheduleService;
+import eu.gaiax.wizard.api.model.setting.WildcardSettings;
+import eu.gaiax.wizard.api.vault.Vault;
 import eu.gaiax.wizard.dao.entity.participant.Participant;
 import eu.gaiax.wizard.dao.repository.participant.ParticipantRepository;
-import eu.gaiax.wizard.vault.Vault;
+import io.kubernetes.client.custom.V1Patch;
 import io.kubernetes.client.openapi.ApiClient;
 import io.kubernetes.client.openapi.ApiException;
-import io.kubernetes.client.openapi.Configuration;
 import io.kubernetes.client.openapi.apis.CoreV1Api;
 import io.kubernetes.client.openapi.apis.NetworkingV1Api;
 import io.kubernetes.client.openapi.models.*;
 import io.kubernetes.client.util.Config;
+import io.kubernetes.client.util.PatchUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.quartz.SchedulerException;
+import okhttp3.ConnectionPool;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Exposes the participant domains through ingresses. Depending on the {@link IngressMode} every domain gets its own
+ * ingress, or it is added as host to one of a fixed number of shared ingresses, which keeps the number of objects and
+ * ingress controller reloads low.
+ * <p>
+ * All calls go through one api client, created on first use, that keeps its connections to the api server open.
+ */
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class K8SService {
 
     public static final String DEFAULT = "default";
+    private static final String TLS_SECRET_TYPE = "kubernetes.io/tls";
+    private static final String FIELD_MANAGER = "gaia-x-wizard";
+    private static final int KEEP_ALIVE_MINUTES = 5;
 
     private final ParticipantRepository participantRepository;
     private final Vault vault;
     private final K8SSettings k8SSettings;
+    private final WildcardSettings wildcardSettings;
 
-    private final ScheduleService scheduleService;
-
+    private volatile ApiClient apiClient;
 
     public void createIngress(UUID participantId) {
         log.info("K8sService(createIngress) -> Initiate the ingress creation process for participant {}", participantId);
         Participant participant = this.participantRepository.findById(participantId).orElseThrow(() -> new EntityNotFoundException("participant.not.found"));
 
         try {
-            Map<String, Object> certificates = this.vault.get(participant.getId().toString());
-            //Step 1: create secret using SSL certificate
-            log.info("K8sService(createIngress) -> Create secret using ssl certificates.");
-            ApiClient client = Config.fromToken(this.k8SSettings.basePath(), this.k8SSettings.token(), false);
-            Configuration.setDefaultApiClient(client);
-
-            CoreV1Api api = new CoreV1Api();
-
-            V1Secret secret = new V1Secret();
-            secret.setMetadata(new V1ObjectMeta().name(participant.getDomain()));
-            secret.setType("kubernetes.io/tls");
-
-            String certString = (String) certificates.get(participant.getId() + ".csr");
-            String keyString = (String) certificates.get(participant.getId() + ".key");
-
-            secret.putDataItem("tls.crt", certString.getBytes());
-            secret.putDataItem("tls.key", keyString.getBytes());
-
-            api.createNamespacedSecret(DEFAULT, secret, null, null, null, null);
-            log.debug("tls secret created for participant -{} domain ->{}", participant.getId(), participant.getDomain());
-
-            ///annotations
-            Map<String, String> annotations = new HashMap<>();
-            annotations.put("nginx.ingress.kubernetes.io/proxy-body-size", "35m");
-            annotations.put("nginx.ingress.kubernetes.io/client-body-buffer-size", "35m");
-            annotations.put("nginx.ingress.kubernetes.io/proxy-connect-timeout", "600");
-            annotations.put("nginx.ingress.kubernetes.io/proxy-send-timeout", "600");
-            annotations.put("nginx.ingress.kubernetes.io/proxy-read-timeout", "600");
-            annotations.put("cert-manager.io/cluster-issuer", this.k8SSettings.issuer());
+            //Step 1: create secret using SSL certificate, in wildcard mode the ingress uses the wildcard secret
+            String secretName = this.wildcardSettings.enabled() ? this.wildcardSettings.secretName() : participant.getDomain();
+            if (!this.wildcardSettings.enabled()) {
+                this.createSecret(participant);
+            }
 
             //Step 2: Create ingress
-            NetworkingV1Api networkingV1Api = new NetworkingV1Api();
-            V1ObjectMeta metadata = new V1ObjectMeta();
-            metadata.setName(participant.getDomain());
-            metadata.setNamespace(DEFAULT);
-            metadata.setAnnotations(annotations);
-
-            //tls item
-            V1IngressTLS ingressTLS = new V1IngressTLS();
-            ingressTLS.setSecretName(participant.getDomain());
-            ingressTLS.setHosts(List.of(participant.getDomain()));
-
-            //service backend
-            V1IngressServiceBackend backend = new V1IngressServiceBackend();
-            backend.setName(this.k8SSettings.serviceName());
-            V1ServiceBackendPort port = new V1ServiceBackendPort();
-            port.setNumber(8080);
-            backend.setPort(port);
-
-            V1IngressBackend v1IngressBackend = new V1IngressBackend();
-            v1IngressBackend.setService(backend);
-
-            //path
-            V1HTTPIngressPath path = new V1HTTPIngressPath();
-            path.backend(v1IngressBackend);
-            path.pathType("Prefix");
-            path.path("/");
-
-            //http rule
-            V1HTTPIngressRuleValue httpIngressRuleValue = new V1HTTPIngressRuleValue();
-            httpIngressRuleValue.addPathsItem(path);
-
-            //v1 rule
-            V1IngressRule rule = new V1IngressRule();
-            rule.host(participant.getDomain());
-            rule.http(httpIngressRuleValue);
-
-            V1IngressSpec spec = new V1IngressSpec();
-            spec.addTlsItem(ingressTLS);
-            spec.addRulesItem(rule);
-
-            //main ingress object
-            V1Ingress v1Ingress = new V1Ingress();
-            v1Ingress.metadata(metadata);
-            v1Ingress.setSpec(spec);
-
-            networkingV1Api.createNamespacedIngress(DEFAULT, v1Ingress, null, null, null, null);
+            if (this.k8SSettings.ingressMode() == IngressMode.CONSOLIDATED) {
+                this.addHostToSharedIngress(participant.getDomain(), secretName);
+            } else {
+                NetworkingV1Api networkingV1Api = new NetworkingV1Api(this.getApiClient());
+                networkingV1Api.createNamespacedIngress(DEFAULT, this.ingress(participant.getDomain(), participant.getDomain(), secretName), null, null, null, null);
+            }
 
             participant.setStatus(RegistrationStatus.INGRESS_CREATED.getStatus());
 
             log.debug("K8sService(createIngress) -> Ingress has been created for participant -> {} and domain ->{}", participant.getId(), participant.getDomain());
-            this.createDidCreationJob(participant);
         } catch (Exception e) {
-            log.error("K8sService(createIngress) -> Not able to create ingress for participant {}, with exception: {}", participant.getId(), ((ApiException) e).getResponseBody(), e);
+            log.error("K8sService(createIngress) -> Not able to create ingress for participant {}, with exception: {}", participant.getId(),
+                    e instanceof ApiException apiException ? apiException.getResponseBody() : e.getMessage(), e);
             participant.setStatus(RegistrationStatus.INGRESS_CREATION_FAILED.getStatus());
         } finally {
             this.participantRepository.save(participant);
@@ -139,14 +90,188 @@ public class K8SService {
         }
     }
 
-    private void createDidCreationJob(Participant participant) {
+    /**
+     * Creates the TLS secret or replaces its certificate and key, e.g. when the wildcard certificate is renewed.
+     *
+     * @param name        the secret name
+     * @param certificate the certificate chain
+     * @param key         the private key
+     */
+    public void upsertTlsSecret(String name, String certificate, String key) throws ApiException, IOException {
+        CoreV1Api api = new CoreV1Api(this.getApiClient());
+
+        V1Secret secret = new V1Secret();
+        secret.setMetadata(new V1ObjectMeta().name(name));
+        secret.setType(TLS_SECRET_TYPE);
+        secret.putDataItem("tls.crt", certificate.getBytes());
+        secret.putDataItem("tls.key", key.getBytes());
+        try {
+            api.replaceNamespacedSecret(name, DEFAULT, secret, null, null, null, null);
+            log.info("K8sService(upsertTlsSecret) -> Tls secret {} has been replaced.", name);
+        } catch (ApiException e) {
+            if (e.getCode() != HttpStatus.NOT_FOUND.value()) {
+                throw e;
+            }
+            api.createNamespacedSecret(DEFAULT, secret, null, null, null, null);
+            log.info("K8sService(upsertTlsSecret) -> Tls secret {} has been created.", name);
+        }
+    }
+
+    private void createSecret(Participant participant) throws ApiException, IOException {
+        log.info("K8sService(createIngress) -> Create secret using ssl certificates.");
+        Map<String, Object> certificates = this.vault.get(participant.getId().toString());
+        CoreV1Api api = new CoreV1Api(this.getApiClient());
+
+        V1Secret secret = new V1Secret();
+        secret.setMetadata(new V1ObjectMeta().name(participant.getDomain()));
+        secret.setType(TLS_SECRET_TYPE);
+
+        String certString = (String) certificates.get(participant.getId() + ".csr");
+        String keyString = (String) certificates.get(participant.getId() + ".key");
+
+        secret.putDataItem("tls.crt", certString.getBytes());
+        secret.putDataItem("tls.key", keyString.getBytes());
+
+        try {
+            api.createNamespacedSecret(DEFAULT, secret, null, null, null, null);
+            log.debug("tls secret created for participant -{} domain ->{}", participant.getId(), participant.getDomain());
+        } catch (ApiException e) {
+            // the secret is left from an earlier attempt of the step
+            if (e.getCode() != HttpStatus.CONFLICT.value()) {
+                throw e;
+            }
+            log.debug("tls secret already exists for participant -{} domain ->{}", participant.getId(), participant.getDomain());
+        }
+    }
+
+    /**
+     * Adds the host to its shared ingress, creating the ingress with the host if it does not exist yet. The host is
+     * appended with a JSON patch, which the api server applies to the latest version of the ingress, so concurrent
+     * onboardings do not overwrite each other's hosts.
+     */
+    private void addHostToSharedIngress(String host, String secretName) throws ApiException, IOException {
+        String name = this.sharedIngressName(host);
+        NetworkingV1Api networkingV1Api = new NetworkingV1Api(this.getApiClient());
+        V1Ingress ingress = null;
         try {
-            this.scheduleService.createJob(participant.getId().toString(), StringPool.JOB_TYPE_CREATE_DID, 0);
-            log.info("K8sService(createDidCreationJob) -> DID creation corn has been scheduled.");
-        } catch (SchedulerException e) {
-            log.info("K8sService(createDidCreationJob) -> DID creation failed for participant {}", participant.getId());
-            participant.setStatus(RegistrationStatus.DID_JSON_CREATION_FAILED.getStatus());
+            ingress = networkingV1Api.readNamespacedIngress(name, DEFAULT, null);
+        } catch (ApiException e) {
+            if (e.getCode() != HttpStatus.NOT_FOUND.value()) {
+                throw e;
+            }
+        }
+
+        if (ingress == null) {
+            try {
+                networkingV1Api.createNamespacedIngress(DEFAULT, this.ingress(name, host, secretName), null, null, FIELD_MANAGER, null);
+                log.info("K8sService(addHostToSharedIngress) -> Shared ingress {} has been created with host {}", name, host);
+                return;
+            } catch (ApiException e) {
+                if (e.getCode() != HttpStatus.CONFLICT.value()) {
+                    throw e;
+                }
+                log.debug("K8sService(addHostToSharedIngress) -> Shared ingress {} has been created by another node", name);
+            }
+        } else if (ingress.getSpec() != null && ingress.getSpec().getRules() != null
+                && ingress.getSpec().getRules().stream().anyMatch(rule -> host.equals(rule.getHost()))) {
+            log.info("K8sService(addHostToSharedIngress) -> Host {} is already routed by shared ingress {}", host, name);
+            return;
+        }
+
+        List<Map<String, Object>> operations = List.of(
+                Map.of("op", "add", "path", "/spec/rules/-", "value", this.ingressRule(host)),
+                Map.of("op", "add", "path", "/spec/tls/-", "value", new V1IngressTLS().secretName(secretName).hosts(List.of(host))));
+        V1Patch patch = new V1Patch(this.getApiClient().getJSON().serialize(operations));
+        PatchUtils.patch(V1Ingress.class,
+                () -> networkingV1Api.patchNamespacedIngressCall(name, DEFAULT, patch, null, null, FIELD_MANAGER, null, null, null),
+                V1Patch.PATCH_FORMAT_JSON_PATCH, this.getApiClient());
+        log.info("K8sService(addHostToSharedIngress) -> Host {} has been added to shared ingress {}", host, name);
+    }
+
+    String sharedIngressName(String host) {
+        return this.k8SSettings.ingressPrefix() + "-" + Math.floorMod(host.hashCode(), this.k8SSettings.ingressShards());
+    }
+
+    private V1Ingress ingress(String name, String host, String secretName) {
+        ///annotations
+        Map<String, String> annotations = new HashMap<>();
+        annotations.put("nginx.ingress.kubernetes.io/proxy-body-size", "35m");
+        annotations.put("nginx.ingress.kubernetes.io/client-body-buffer-size", "35m");
+        annotations.put("nginx.ingress.kubernetes.io/proxy-connect-timeout", "600");
+        annotations.put("nginx.ingress.kubernetes.io/proxy-send-timeout", "600");
+        annotations.put("nginx.ingress.kubernetes.io/proxy-read-timeout", "600");
+        if (!this.wildcardSettings.enabled()) {
+            //cert-manager must not replace the shared wildcard secret with a certificate of this host
+            annotations.put("cert-manager.io/cluster-issuer", this.k8SSettings.issuer());
         }
+
+        V1ObjectMeta metadata = new V1ObjectMeta();
+        metadata.setName(name);
+        metadata.setNamespace(DEFAULT);
+        metadata.setAnnotations(annotations);
+
+        //tls item
+        V1IngressTLS ingressTLS = new V1IngressTLS();
+        ingressTLS.setSecretName(secretName);
+        ingressTLS.setHosts(List.of(host));
+
+        V1IngressSpec spec = new V1IngressSpec();
+        spec.addTlsItem(ingressTLS);
+        spec.addRulesItem(this.ingressRule(host));
+
+        //main ingress object
+        V1Ingress v1Ingress = new V1Ingress();
+        v1Ingress.metadata(metadata);
+        v1Ingress.setSpec(spec);
+        return v1Ingress;
+    }
+
+    private V1IngressRule ingressRule(String host) {
+        //service backend
+        V1IngressServiceBackend backend = new V1IngressServiceBackend();
+        backend.setName(StringUtils.hasText(this.k8SSettings.hostingServiceName()) ? this.k8SSettings.hostingServiceName() : this.k8SSettings.serviceName());
+        V1ServiceBackendPort port = new V1ServiceBackendPort();
+        port.setNumber(8080);
+        backend.setPort(port);
+
+        V1IngressBackend v1IngressBackend = new V1IngressBackend();
+        v1IngressBackend.setService(backend);
+
+        //path
+        V1HTTPIngressPath path = new V1HTTPIngressPath();
+        path.backend(v1IngressBackend);
+        path.pathType("Prefix");
+        path.path("/");
+
+        //http rule
+        V1HTTPIngressRuleValue httpIngressRuleValue = new V1HTTPIngressRuleValue();
+        httpIngressRuleValue.addPathsItem(path);
+
+        //v1 rule
+        V1IngressRule rule = new V1IngressRule();
+        rule.host(host);
+        rule.http(httpIngressRuleValue);
+        return rule;
     }
 
+    /**
+     * Gets the api client shared by all calls. It is not set as the global default client.
+     */
+    private ApiClient getApiClient() throws IOException {
+        ApiClient client = this.apiClient;
+        if (client == null) {
+            synchronized (this) {
+                client = this.apiClient;
+                if (client == null) {
+                    client = Config.fromToken(this.k8SSettings.basePath(), this.k8SSettings.token(), false);
+                    client.setHttpClient(client.getHttpClient().newBuilder()
+                            .connectionPool(new ConnectionPool(this.k8SSettings.maxIdleConnections(), KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                            .build());
+                    this.apiClient = client;
+                    log.info("K8sService(getApiClient) -> Api client created for {}", this.k8SSettings.basePath());
+                }
+            }
+        }
+        return client;
+    }
 }
@@ -0,0 +1,38 @@
+package eu.gaiax.wizard.core.service.keycloak;
+
+import eu.gaiax.wizard.api.model.setting.KeycloakSettings;
+import jakarta.ws.rs.client.ClientBuilder;
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
+import org.keycloak.OAuth2Constants;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.KeycloakBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single admin client for the whole application. The client keeps its service account token and obtains a new one
+ * when it expires, and requests share a pooled HTTP transport.
+ */
+@Configuration
+public class KeycloakConfig {
+
+    @Bean(destroyMethod = "close")
+    public Keycloak keycloak(KeycloakSettings keycloakSettings) {
+        ResteasyClientBuilder clientBuilder = (ResteasyClientBuilder) ClientBuilder.newBuilder();
+        clientBuilder.connectionPoolSize(keycloakSettings.connectionPoolSize())
+                .maxPooledPerRoute(keycloakSettings.connectionPoolSize())
+                .connectTimeout(keycloakSettings.connectTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .readTimeout(keycloakSettings.readTimeout().toMillis(), TimeUnit.MILLISECONDS);
+
+        return KeycloakBuilder.builder()
+                .clientId(keycloakSettings.clientId())
+                .clientSecret(keycloakSettings.clientSecret())
+                .realm(keycloakSettings.realm())
+                .serverUrl(keycloakSettings.authServer())
+                .grantType(OAuth2Constants.CLIENT_CREDENTIALS)
+                .resteasyClient(clientBuilder.build())
+                .build();
+    }
+}
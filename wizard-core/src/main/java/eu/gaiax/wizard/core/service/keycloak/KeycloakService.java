@@ -1,50 +1,51 @@
 package eu.gaiax.wizard.core.service.keycloak;
 
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import eu.gaiax.wizard.api.exception.BadDataException;
 import eu.gaiax.wizard.api.model.KeycloakRequiredActionsEnum;
 import eu.gaiax.wizard.api.model.setting.KeycloakSettings;
 import eu.gaiax.wizard.api.utils.RoleConstant;
 import eu.gaiax.wizard.api.utils.StringPool;
 import eu.gaiax.wizard.api.utils.Validate;
+import eu.gaiax.wizard.dao.entity.participant.Participant;
 import jakarta.ws.rs.core.Response;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.keycloak.OAuth2Constants;
 import org.keycloak.admin.client.Keycloak;
-import org.keycloak.admin.client.KeycloakBuilder;
 import org.keycloak.admin.client.resource.*;
 import org.keycloak.representations.idm.ClientRepresentation;
+import org.keycloak.representations.idm.PartialImportRepresentation;
 import org.keycloak.representations.idm.UserRepresentation;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class KeycloakService {
 
     private final KeycloakSettings keycloakSettings;
+    private final Keycloak keycloak;
+    private final Cache<String, String> userIdsByEmail;
+
+    public KeycloakService(KeycloakSettings keycloakSettings, Keycloak keycloak) {
+        this.keycloakSettings = keycloakSettings;
+        this.keycloak = keycloak;
+        this.userIdsByEmail = Caffeine.newBuilder()
+                .expireAfterWrite(keycloakSettings.userCacheTtl())
+                .maximumSize(10_000)
+                .build();
+    }
 
     protected Keycloak getKeycloak() {
-        return KeycloakBuilder.builder()
-                .clientId(this.keycloakSettings.clientId())
-                .clientSecret(this.keycloakSettings.clientSecret())
-                .realm(this.keycloakSettings.realm())
-                .serverUrl(this.keycloakSettings.authServer())
-                .grantType(OAuth2Constants.CLIENT_CREDENTIALS)
-                .build();
+        return this.keycloak;
     }
 
     protected RealmResource getRealmResource() {
-        Keycloak keycloak = this.getKeycloak();
-        return keycloak.realm(this.keycloakSettings.realm());
+        return this.keycloak.realm(this.keycloakSettings.realm());
     }
 
     public void createParticipantUser(String id, String legalName, String email) {
@@ -54,23 +55,17 @@ public class KeycloakService {
     }
 
     public void addUser(String id, String legalName, String email) {
-        UserRepresentation existingUser = this.getKeycloakUserByEmail(email);
-        if (existingUser != null) {
-            this.deleteExistingUser(existingUser);
+        String existingUserId = this.getKeycloakUserIdByEmail(email);
+        if (existingUserId != null) {
+            this.deleteExistingUser(existingUserId, email);
         }
 
-        UserRepresentation userRepresentation = new UserRepresentation();
-        userRepresentation.setEnabled(true);
-        userRepresentation.setEmail(email);
-        userRepresentation.setFirstName(legalName);
-
-        Map<String, List<String>> userAttributes = new HashMap<>();
-        userAttributes.put(StringPool.ID, Collections.singletonList(id));
-        userRepresentation.setAttributes(userAttributes);
+        UserRepresentation userRepresentation = newUser(id, legalName, email);
 
         RealmResource realmResource = this.getRealmResource();
         UsersResource usersResource = realmResource.users();
 
+        this.userIdsByEmail.invalidate(email);
         try (Response response = usersResource.create(userRepresentation)) {
             log.info("Keycloak User Creation status: {}", response.getStatus());
             if (response.getStatus() != HttpStatus.CREATED.value()) {
@@ -81,18 +76,69 @@ public class KeycloakService {
         log.info("keycloak user created");
     }
 
-    private void deleteExistingUser(UserRepresentation userRepresentation) {
+    /**
+     * Creates the users of the given participants with the participant role in one partial import request and sends
+     * them the required actions email. Existing users with the same email are replaced, as by {@link #addUser}.
+     *
+     * @param participants the participants
+     * @return the emails the required actions email could not be sent to, the email can be sent again later
+     */
+    public Set<String> createParticipantUsers(List<Participant> participants) {
+        List<UserRepresentation> users = new ArrayList<>();
+        for (Participant participant : participants) {
+            UserRepresentation userRepresentation = newUser(participant.getId().toString(), participant.getLegalName(), participant.getEmail());
+            userRepresentation.setUsername(participant.getEmail());
+            userRepresentation.setClientRoles(Map.of(this.keycloakSettings.clientId(), List.of(RoleConstant.PARTICIPANT_ROLE)));
+            users.add(userRepresentation);
+            this.userIdsByEmail.invalidate(participant.getEmail());
+        }
+        PartialImportRepresentation partialImport = new PartialImportRepresentation();
+        partialImport.setIfResourceExists(PartialImportRepresentation.Policy.OVERWRITE.name());
+        partialImport.setUsers(users);
+        try (Response response = this.getRealmResource().partialImport(partialImport)) {
+            log.info("Keycloak partial import of {} users status: {}", users.size(), response.getStatus());
+            if (response.getStatus() != HttpStatus.OK.value()) {
+                throw new BadDataException("keycloak.create.user.failed");
+            }
+        }
+
+        Set<String> failedEmails = new HashSet<>();
+        for (Participant participant : participants) {
+            try {
+                this.sendRequiredActionsEmail(participant.getEmail());
+            } catch (Exception e) {
+                log.error("Required actions email not sent to the user {}", participant.getEmail(), e);
+                failedEmails.add(participant.getEmail());
+            }
+        }
+        return failedEmails;
+    }
+
+    private static UserRepresentation newUser(String id, String legalName, String email) {
+        UserRepresentation userRepresentation = new UserRepresentation();
+        userRepresentation.setEnabled(true);
+        userRepresentation.setEmail(email);
+        userRepresentation.setFirstName(legalName);
+
+        Map<String, List<String>> userAttributes = new HashMap<>();
+        userAttributes.put(StringPool.ID, Collections.singletonList(id));
+        userRepresentation.setAttributes(userAttributes);
+        return userRepresentation;
+    }
+
+    private void deleteExistingUser(String userId, String email) {
         UsersResource usersResource = this.getRealmResource().users();
-        try (Response ignored = usersResource.delete(userRepresentation.getId())) {
-            log.info("Deleting existing user with email: {}", userRepresentation.getEmail());
+        this.userIdsByEmail.invalidate(email);
+        try (Response ignored = usersResource.delete(userId)) {
+            log.info("Deleting existing user with email: {}", email);
         }
     }
 
     public void sendRequiredActionsEmail(String email) {
-        UserRepresentation userRepresentation = this.getKeycloakUserByEmail(email);
-        Validate.isNull(userRepresentation).launch(new BadDataException("User not found"));
+        String userId = this.getKeycloakUserIdByEmail(email);
+        Validate.isNull(userId).launch(new BadDataException("User not found"));
 
-        UserResource userResource = this.getRealmResource().users().get(userRepresentation.getId());
+        UserResource userResource = this.getRealmResource().users().get(userId);
         userResource.executeActionsEmail(
                 this.keycloakSettings.publicClientId(),
                 this.keycloakSettings.requiredActionsEmailRedirectionUrl(),
@@ -104,8 +150,8 @@ public class KeycloakService {
     }
 
     public void addClientRole(String email, String role) {
-        UserRepresentation userRepresentation = this.getKeycloakUserByEmail(email);
-        Validate.isNull(userRepresentation).launch(new BadDataException("User not found"));
+        String userId = this.getKeycloakUserIdByEmail(email);
+        Validate.isNull(userId).launch(new BadDataException("User not found"));
 
         List<ClientRepresentation> clientRepresentationList = this.getRealmResource().clients().findByClientId(this.keycloakSettings.clientId());
         Validate.isNull(clientRepresentationList).launch(new BadDataException("Keycloak client not found"));
@@ -114,29 +160,45 @@ public class KeycloakService {
         ClientResource clientResource = this.getRealmResource().clients().get(keycloakClient.getId());
         RoleResource participantRole = clientResource.roles().get(role);
 
-        UserResource userResource = this.getRealmResource().users().get(userRepresentation.getId());
+        UserResource userResource = this.getRealmResource().users().get(userId);
         userResource.roles().clientLevel(keycloakClient.getId()).add(Collections.singletonList(participantRole.toRepresentation()));
 
         log.info("client role added to keycloak user");
     }
 
+    /**
+     * Looks the user up by email, always asking Keycloak.
+     *
+     * @param email the email
+     * @return the user, null if there is none
+     */
     public UserRepresentation getKeycloakUserByEmail(String email) {
         log.debug("getKeycloakUserByEmail: email={}", email);
 
-        RealmResource realmResource = this.getRealmResource();
-        UsersResource usersResource = realmResource.users();
-        List<UserRepresentation> users = usersResource.searchByEmail(email, true);
+        List<UserRepresentation> users = this.getRealmResource().users().searchByEmail(email, true);
         if (CollectionUtils.isEmpty(users)) {
             return null;
-        } else {
-            this.getRealmResource().users().get(users.get(0).getId());
-            return users.get(0);
         }
+        return users.get(0);
+    }
+
+    /**
+     * Looks the user id up by email. Only the id is cached, for a short time, since registration looks the same user
+     * up several times; the mutable representation is never shared. Unknown emails are not cached.
+     *
+     * @param email the email
+     * @return the user id, null if there is none
+     */
+    public String getKeycloakUserIdByEmail(String email) {
+        return this.userIdsByEmail.get(email, key -> {
+            UserRepresentation userRepresentation = this.getKeycloakUserByEmail(key);
+            return userRepresentation == null ? null : userRepresentation.getId();
+        });
     }
 
     public Boolean isLoginDeviceConfigured(String email) {
         try {
-            UserResource userResource = this.getRealmResource().users().get(this.getKeycloakUserByEmail(email).getId());
+            UserResource userResource = this.getRealmResource().users().get(this.getKeycloakUserIdByEmail(email));
             return userResource.credentials().stream().anyMatch(credentialRepresentation -> credentialRepresentation.getType().equals(StringPool.WEBAUTHN_PASSWORDLESS));
         } catch (Exception e) {
             log.error("Error while fetching user credential list: ", e);
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.core.service.onboarding;
+
+import eu.gaiax.wizard.api.exception.BadDataException;
+import eu.gaiax.wizard.api.model.OnboardingStepLatencyInterface;
+import eu.gaiax.wizard.api.model.OnboardingStepOutcome;
+import eu.gaiax.wizard.api.utils.Validate;
+import eu.gaiax.wizard.dao.entity.participant.OnboardingStepHistory;
+import eu.gaiax.wizard.dao.entity.participant.OnboardingWorkflow;
+import eu.gaiax.wizard.dao.repository.participant.OnboardingStepHistoryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Keeps the history of the onboarding step runs. Every finished run, i.e. completed, retried or failed, is appended
+ * to the step history and recorded in the {@code wizard.onboarding.step.duration} timer tagged with step and outcome.
+ * A run lasts from the first execution of the step attempt until it ends, waits included.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class OnboardingHistoryService {
+
+    private final OnboardingStepHistoryRepository onboardingStepHistoryRepository;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Records the end of the current step run of the workflow.
+     *
+     * @param workflow  the workflow, still at the step that ended
+     * @param outcome   how the run ended
+     * @param status    the registration status the run ended with
+     * @param errorCode the error, null if the step completed
+     */
+    public void record(OnboardingWorkflow workflow, OnboardingStepOutcome outcome, int status, String errorCode) {
+        Date endedAt = new Date();
+        Date startedAt = workflow.getStepStartedAt() == null ? endedAt : workflow.getStepStartedAt();
+        Duration duration = Duration.ofMillis(endedAt.getTime() - startedAt.getTime());
+
+        Timer.builder("wizard.onboarding.step.duration")
+                .description("Duration of onboarding step runs")
+                .tag("step", workflow.getStep().name())
+                .tag("outcome", outcome.name())
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(this.meterRegistry)
+                .record(duration);
+
+        // the history is for analysis only, it must never fail the onboarding
+        try {
+            this.onboardingStepHistoryRepository.save(OnboardingStepHistory.builder()
+                    .participantId(workflow.getParticipantId())
+                    .step(workflow.getStep())
+                    .outcome(outcome)
+                    .status(status)
+                    .attempt(workflow.getAttempts() + (outcome == OnboardingStepOutcome.COMPLETED ? 1 : 0))
+                    .waits(workflow.getWaits())
+                    .startedAt(startedAt)
+                    .endedAt(endedAt)
+                    .durationMs(duration.toMillis())
+                    .errorCode(errorCode)
+                    .build());
+        } catch (Exception e) {
+            log.error("OnboardingHistoryService(record) -> Not able to record step {} of participant {}", workflow.getStep(), workflow.getParticipantId(), e);
+        }
+    }
+
+    /**
+     * Gets the duration percentiles of the completed step runs per step and day, both dates inclusive (UTC).
+     *
+     * @param from the first day
+     * @param to   the last day
+     * @return one entry per step and day
+     */
+    public List<OnboardingStepLatencyInterface> getStepLatency(LocalDate from, LocalDate to) {
+        Validate.isTrue(to.isBefore(from)).launch(new BadDataException("invalid.date.range"));
+        return this.onboardingStepHistoryRepository.getStepLatency(Date.from(from.atStartOfDay(ZoneOffset.UTC).toInstant()),
+                Date.from(to.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant()));
+    }
+}
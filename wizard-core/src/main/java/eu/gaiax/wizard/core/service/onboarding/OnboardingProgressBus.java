@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.core.service.onboarding;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.gaiax.wizard.api.model.OnboardingProgress;
+import eu.gaiax.wizard.api.model.setting.OnboardingProgressSettings;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers onboarding progress to the listeners of all nodes. A step may run on any node while the participant is
+ * connected to another one, so progress is sent through Postgres NOTIFY on the {@value #CHANNEL} channel and every
+ * node LISTENs on it with one connection of the pool. If cross node delivery is disabled or the notification can not
+ * be sent, the progress is delivered to the listeners of this node only.
+ */
+@Component
+@Slf4j
+public class OnboardingProgressBus implements SmartLifecycle {
+
+    static final String CHANNEL = "onboarding_progress";
+    private static final int POLL_TIMEOUT_MS = 1000;
+    private static final long RECONNECT_DELAY_MS = 5000;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final OnboardingProgressSettings onboardingProgressSettings;
+    private final ObjectMapper mapper;
+    private final List<Consumer<OnboardingProgress>> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    public OnboardingProgressBus(DataSource dataSource, OnboardingProgressSettings onboardingProgressSettings, ObjectMapper mapper) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.onboardingProgressSettings = onboardingProgressSettings;
+        this.mapper = mapper;
+    }
+
+    public void addListener(Consumer<OnboardingProgress> listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Publishes the progress to the listeners of all nodes.
+     *
+     * @param progress the progress
+     */
+    public void publish(OnboardingProgress progress) {
+        if (this.onboardingProgressSettings.crossNode() && this.running) {
+            try {
+                // the payload is limited to 8000 bytes, the progress is far smaller
+                this.jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, CHANNEL, this.mapper.writeValueAsString(progress));
+                return;
+            } catch (Exception e) {
+                log.warn("OnboardingProgressBus(publish) -> Not able to notify the other nodes about participant {}, delivered locally.", progress.participantId(), e);
+            }
+        }
+        this.deliver(progress);
+    }
+
+    @Override
+    public void start() {
+        this.running = true;
+        if (this.onboardingProgressSettings.crossNode()) {
+            this.listenerThread = new Thread(this::listen, "onboarding-progress-listener");
+            this.listenerThread.setDaemon(true);
+            this.listenerThread.start();
+        }
+    }
+
+    @Override
+    public void stop() {
+        this.running = false;
+        if (this.listenerThread != null) {
+            this.listenerThread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    private void listen() {
+        while (this.running) {
+            try (Connection connection = this.dataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                log.info("OnboardingProgressBus(listen) -> Listening for onboarding progress.");
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (this.running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            this.deliver(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                if (!this.running) {
+                    return;
+                }
+                log.error("OnboardingProgressBus(listen) -> Listening for onboarding progress failed, reconnecting.", e);
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void deliver(String payload) {
+        try {
+            this.deliver(this.mapper.readValue(payload, OnboardingProgress.class));
+        } catch (JsonProcessingException e) {
+            log.error("OnboardingProgressBus(deliver) -> Not able to read onboarding progress {}", payload, e);
+        }
+    }
+
+    private void deliver(OnboardingProgress progress) {
+        for (Consumer<OnboardingProgress> listener : this.listeners) {
+            try {
+                listener.accept(progress);
+            } catch (Exception e) {
+                log.error("OnboardingProgressBus(deliver) -> Listener failed for participant {}", progress.participantId(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.core.service.onboarding;
+
+import eu.gaiax.wizard.api.exception.EntityNotFoundException;
+import eu.gaiax.wizard.api.model.OnboardingProgress;
+import eu.gaiax.wizard.api.model.OnboardingWorkflowState;
+import eu.gaiax.wizard.api.model.RegistrationStatus;
+import eu.gaiax.wizard.api.model.setting.OnboardingProgressSettings;
+import eu.gaiax.wizard.core.service.credential.CredentialService;
+import eu.gaiax.wizard.dao.entity.Credential;
+import eu.gaiax.wizard.dao.entity.participant.OnboardingWorkflow;
+import eu.gaiax.wizard.dao.entity.participant.Participant;
+import eu.gaiax.wizard.dao.repository.participant.OnboardingWorkflowRepository;
+import eu.gaiax.wizard.dao.repository.participant.ParticipantRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes the onboarding progress of a participant over server-sent events, so that clients do not have to poll the
+ * participant config. Every status transition of the onboarding is published on the {@link OnboardingProgressBus}
+ * and sent to the streams of the participant, whichever node they are connected to. A stream gets the current
+ * progress right after subscribing and is completed once the onboarding is completed.
+ */
+@Service
+@Slf4j
+public class OnboardingProgressService {
+
+    static final String EVENT_NAME = "progress";
+
+    private final ParticipantRepository participantRepository;
+    private final OnboardingWorkflowRepository onboardingWorkflowRepository;
+    private final CredentialService credentialService;
+    private final OnboardingProgressBus onboardingProgressBus;
+    private final OnboardingProgressSettings onboardingProgressSettings;
+    private final Map<UUID, Set<SseEmitter>> emitters = new ConcurrentHashMap<>();
+
+    public OnboardingProgressService(ParticipantRepository participantRepository, OnboardingWorkflowRepository onboardingWorkflowRepository,
+                                     CredentialService credentialService, OnboardingProgressBus onboardingProgressBus,
+                                     OnboardingProgressSettings onboardingProgressSettings) {
+        this.participantRepository = participantRepository;
+        this.onboardingWorkflowRepository = onboardingWorkflowRepository;
+        this.credentialService = credentialService;
+        this.onboardingProgressBus = onboardingProgressBus;
+        this.onboardingProgressSettings = onboardingProgressSettings;
+        this.onboardingProgressBus.addListener(this::send);
+    }
+
+    /**
+     * Opens a progress stream for the participant.
+     *
+     * @param participantId the participant id
+     * @return the stream, starting with the current progress
+     */
+    public SseEmitter subscribe(UUID participantId) {
+        OnboardingProgress progress = this.getProgress(participantId);
+        SseEmitter emitter = new SseEmitter(this.onboardingProgressSettings.emitterTimeout().toMillis());
+        Set<SseEmitter> participantEmitters = this.emitters.computeIfAbsent(participantId, id -> ConcurrentHashMap.newKeySet());
+        participantEmitters.add(emitter);
+        emitter.onCompletion(() -> this.remove(participantId, emitter));
+        emitter.onTimeout(() -> this.remove(participantId, emitter));
+        emitter.onError(e -> this.remove(participantId, emitter));
+        this.send(emitter, progress);
+        return emitter;
+    }
+
+    /**
+     * Publishes the current progress of the participant. Progress is informational only, so this never fails the
+     * onboarding.
+     *
+     * @param participantId the participant id
+     */
+    public void publish(UUID participantId) {
+        try {
+            this.onboardingProgressBus.publish(this.getProgress(participantId));
+        } catch (Exception e) {
+            log.error("OnboardingProgressService(publish) -> Not able to publish the onboarding progress of participant {}", participantId, e);
+        }
+    }
+
+    /**
+     * Keeps idle streams open behind proxies that close silent connections.
+     */
+    @Scheduled(fixedDelayString = "${wizard.onboarding.progress.heartbeat-interval:PT30S}")
+    public void heartbeat() {
+        this.emitters.forEach((participantId, participantEmitters) -> participantEmitters.forEach(emitter -> {
+            try {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException e) {
+                this.remove(participantId, emitter);
+            }
+        }));
+    }
+
+    OnboardingProgress getProgress(UUID participantId) {
+        Participant participant = this.participantRepository.findById(participantId).orElseThrow(() -> new EntityNotFoundException("participant.not.found"));
+        OnboardingWorkflow workflow = this.onboardingWorkflowRepository.getByParticipantId(participantId);
+        String legalParticipantUrl = null;
+        if (participant.getStatus() == RegistrationStatus.PARTICIPANT_JSON_CREATED.getStatus()) {
+            Credential credential = this.credentialService.getLegalParticipantCredential(participantId);
+            legalParticipantUrl = credential == null ? null : credential.getVcUrl();
+        }
+        return new OnboardingProgress(participantId, workflow == null ? null : workflow.getStep(), workflow == null ? null : workflow.getState(),
+                participant.getStatus(), legalParticipantUrl, new Date());
+    }
+
+    private void send(OnboardingProgress progress) {
+        Set<SseEmitter> participantEmitters = this.emitters.get(progress.participantId());
+        if (participantEmitters != null) {
+            participantEmitters.forEach(emitter -> this.send(emitter, progress));
+        }
+    }
+
+    private void send(SseEmitter emitter, OnboardingProgress progress) {
+        try {
+            emitter.send(SseEmitter.event().name(EVENT_NAME).data(progress, MediaType.APPLICATION_JSON));
+            if (progress.state() == OnboardingWorkflowState.COMPLETED) {
+                emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("OnboardingProgressService(send) -> Progress stream of participant {} is gone.", progress.participantId());
+            this.remove(progress.participantId(), emitter);
+        }
+    }
+
+    private void remove(UUID participantId, SseEmitter emitter) {
+        this.emitters.computeIfPresent(participantId, (id, participantEmitters) -> {
+            participantEmitters.remove(emitter);
+            return participantEmitters.isEmpty() ? null : participantEmitters;
+        });
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.core.service.onboarding;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import eu.gaiax.wizard.api.exception.BadDataException;
+import eu.gaiax.wizard.api.exception.ConflictException;
+import eu.gaiax.wizard.api.exception.EntityNotFoundException;
+import eu.gaiax.wizard.api.model.OnboardingStep;
+import eu.gaiax.wizard.api.model.setting.OnboardingRetrySettings;
+import eu.gaiax.wizard.core.service.domain.InvalidDnsChangeException;
+import io.kubernetes.client.openapi.ApiException;
+import lombok.RequiredArgsConstructor;
+import org.shredzone.acme4j.exception.AcmeUnauthorizedException;
+import org.shredzone.acme4j.exception.AcmeUserActionRequiredException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether and when a failed onboarding step is run again.
+ * <p>
+ * Errors caused by the request itself, e.g. invalid data or a 4xx answer of a remote system, are not retried, they
+ * would fail again. Everything else, e.g. network errors, throttling or 5xx answers, is considered transient.
+ */
+@Component
+@RequiredArgsConstructor
+public class OnboardingRetryPolicy {
+
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int REQUEST_TIMEOUT = 408;
+
+    private final OnboardingRetrySettings onboardingRetrySettings;
+
+    /**
+     * Checks whether another attempt of the step is allowed.
+     *
+     * @param step     the failed step
+     * @param attempts how often the step has failed, including this failure
+     * @return true if the step may run again
+     */
+    public boolean canRetry(OnboardingStep step, int attempts) {
+        return attempts < this.onboardingRetrySettings.maxAttemptsOf(step);
+    }
+
+    /**
+     * Gets the delay before the given retry: the initial interval doubled with every retry, capped at the max interval,
+     * of which the jitter share is randomized.
+     *
+     * @param attempts how often the step has failed
+     * @return the delay
+     */
+    public Duration backoff(int attempts) {
+        Duration delay = this.onboardingRetrySettings.initialInterval().multipliedBy(1L << Math.min(Math.max(attempts - 1, 0), 20));
+        if (delay.compareTo(this.onboardingRetrySettings.maxInterval()) > 0) {
+            delay = this.onboardingRetrySettings.maxInterval();
+        }
+        double factor = 1 - this.onboardingRetrySettings.jitter() * ThreadLocalRandom.current().nextDouble();
+        return Duration.ofMillis((long) (delay.toMillis() * factor));
+    }
+
+    /**
+     * Classifies the cause of a failed step. A step that failed without reporting a cause is retried.
+     *
+     * @param cause the cause, may be null
+     * @return true if the error is transient
+     */
+    public boolean isRetryable(Throwable cause) {
+        for (Throwable t = cause; t != null; t = t.getCause()) {
+            if (t instanceof BadDataException || t instanceof EntityNotFoundException || t instanceof ConflictException
+                    || t instanceof IllegalArgumentException || t instanceof AcmeUnauthorizedException
+                    || t instanceof AcmeUserActionRequiredException || t instanceof InvalidDnsChangeException) {
+                return false;
+            }
+            if (t instanceof AmazonServiceException e) {
+                return isRetryableStatus(e.getStatusCode()) || "Throttling".equals(e.getErrorCode()) || "PriorRequestNotComplete".equals(e.getErrorCode());
+            }
+            if (t instanceof AmazonClientException e) {
+                return e.isRetryable();
+            }
+            if (t instanceof ApiException e) {
+                // code 0 means the request did not reach the api server
+                return e.getCode() == 0 || isRetryableStatus(e.getCode());
+            }
+            if (t instanceof WebClientResponseException e) {
+                return isRetryableStatus(e.getStatusCode().value());
+            }
+            if (t instanceof WebClientRequestException) {
+                return true;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isRetryableStatus(int status) {
+        return status >= 500 || status == TOO_MANY_REQUESTS || status == REQUEST_TIMEOUT;
+    }
+}
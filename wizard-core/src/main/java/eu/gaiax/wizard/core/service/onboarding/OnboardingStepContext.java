@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.core.service.onboarding;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * State a step keeps between its runs. A step that has to wait, e.g. for DNS propagation, stores how far it got and
+ * continues from there on its next run instead of holding a thread while waiting. The data is persisted with the
+ * workflow and dropped once the step completes or fails.
+ */
+public class OnboardingStepContext {
+
+    private final Map<String, String> data;
+    private final int waits;
+    private Duration retryAfter;
+    private Throwable failure;
+
+    public OnboardingStepContext(Map<String, String> data, int waits) {
+        this.data = data == null ? new HashMap<>() : new HashMap<>(data);
+        this.waits = waits;
+    }
+
+    public String get(String key) {
+        return this.data.get(key);
+    }
+
+    public void put(String key, String value) {
+        this.data.put(key, value);
+    }
+
+    public void remove(String key) {
+        this.data.remove(key);
+    }
+
+    public Map<String, String> getData() {
+        return this.data;
+    }
+
+    /**
+     * Gets how often the step has waited so far.
+     *
+     * @return the number of waits
+     */
+    public int getWaits() {
+        return this.waits;
+    }
+
+    public Duration getRetryAfter() {
+        return this.retryAfter;
+    }
+
+    /**
+     * Asks for the next run after the given delay instead of the default backoff, e.g. when a remote system sent a
+     * Retry-After.
+     *
+     * @param retryAfter the delay
+     */
+    public void setRetryAfter(Duration retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+
+    public Throwable getFailure() {
+        return this.failure;
+    }
+
+    /**
+     * Reports why the step failed, so that the retry policy can tell transient errors from permanent ones.
+     *
+     * @param failure the cause
+     */
+    public void setFailure(Throwable failure) {
+        this.failure = failure;
+    }
+}
@@ -0,0 +1,18 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.core.service.onboarding;
+
+import eu.gaiax.wizard.api.model.OnboardingStep;
+
+import java.util.UUID;
+
+/**
+ * Published when the onboarding workflow of a participant should run from the given step.
+ *
+ * @param participantId the participant id
+ * @param step          the step to run
+ */
+public record OnboardingStepRequestedEvent(UUID participantId, OnboardingStep step) {
+}
@@ -0,0 +1,356 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.core.service.onboarding;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.gaiax.wizard.api.exception.ConflictException;
+import eu.gaiax.wizard.api.model.OnboardingDeadLetterDto;
+import eu.gaiax.wizard.api.model.OnboardingStep;
+import eu.gaiax.wizard.api.model.OnboardingStepOutcome;
+import eu.gaiax.wizard.api.model.OnboardingWorkflowState;
+import eu.gaiax.wizard.api.model.PageResponse;
+import eu.gaiax.wizard.api.model.RegistrationStatus;
+import eu.gaiax.wizard.api.model.setting.OnboardingSettings;
+import eu.gaiax.wizard.api.utils.Validate;
+import eu.gaiax.wizard.core.service.domain.DomainService;
+import eu.gaiax.wizard.core.service.job.JobExecutorService;
+import eu.gaiax.wizard.core.service.job.ScheduleService;
+import eu.gaiax.wizard.core.service.k8s.K8SService;
+import eu.gaiax.wizard.core.service.signer.SignerService;
+import eu.gaiax.wizard.core.service.ssl.CertificateService;
+import eu.gaiax.wizard.core.service.ssl.WildcardCertificateService;
+import eu.gaiax.wizard.dao.entity.participant.OnboardingWorkflow;
+import eu.gaiax.wizard.dao.entity.participant.Participant;
+import eu.gaiax.wizard.dao.repository.participant.OnboardingWorkflowRepository;
+import eu.gaiax.wizard.dao.repository.participant.ParticipantRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Runs the onboarding of a participant without own did solution as a persistent state machine over
+ * {@link OnboardingStep}. A completed step is followed by the next one straight away on the executor of the next job
+ * type, see {@link JobExecutorService}; Quartz is only used when a step has to wait for an external system, e.g. the
+ * certificate being served on the new domain.
+ * <p>
+ * The current step and its state are stored in {@link OnboardingWorkflow}, so an interrupted workflow continues from
+ * the step it stopped at. A step that waits, e.g. for DNS propagation or an ACME order, keeps its progress in an
+ * {@link OnboardingStepContext} and is checked again with exponential backoff. A failed step is retried according to
+ * the {@link OnboardingRetryPolicy}, a workflow that runs out of attempts is kept as dead letter until resumed. Every
+ * transition is pushed to the participant through the {@link OnboardingProgressService}.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class OnboardingWorkflowService {
+
+    private static final Set<OnboardingWorkflowState> CLAIMABLE_STATES = EnumSet.of(OnboardingWorkflowState.PENDING, OnboardingWorkflowState.WAITING);
+
+    private final OnboardingWorkflowRepository onboardingWorkflowRepository;
+    private final ParticipantRepository participantRepository;
+    private final DomainService domainService;
+    private final CertificateService certificateService;
+    private final WildcardCertificateService wildcardCertificateService;
+    private final K8SService k8SService;
+    private final SignerService signerService;
+    private final ScheduleService scheduleService;
+    private final JobExecutorService jobExecutorService;
+    private final OnboardingRetryPolicy onboardingRetryPolicy;
+    private final OnboardingHistoryService onboardingHistoryService;
+    private final OnboardingProgressService onboardingProgressService;
+    private final OnboardingSettings onboardingSettings;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final ObjectMapper mapper;
+
+    /**
+     * Starts the onboarding from the first step.
+     *
+     * @param participantId the participant id
+     */
+    @Transactional
+    public void start(UUID participantId) {
+        this.resume(participantId, OnboardingStep.SUB_DOMAIN);
+    }
+
+    /**
+     * Runs the onboarding from the given step once the current transaction is committed.
+     *
+     * @param participantId the participant id
+     * @param step          the step to run
+     */
+    @Transactional
+    public void resume(UUID participantId, OnboardingStep step) {
+        OnboardingWorkflow workflow = this.onboardingWorkflowRepository.getByParticipantId(participantId);
+        if (workflow == null) {
+            workflow = OnboardingWorkflow.builder().participantId(participantId).build();
+        }
+        Validate.isTrue(workflow.getState() == OnboardingWorkflowState.RUNNING && !this.isStale(workflow)).launch(new ConflictException("onboarding.in.progress"));
+
+        workflow.setStep(step);
+        workflow.setState(OnboardingWorkflowState.PENDING);
+        workflow.setWaits(0);
+        workflow.setAttempts(0);
+        workflow.setNextRunAt(null);
+        workflow.setStepStartedAt(null);
+        workflow.setLastError(null);
+        workflow.setStepData(null);
+        this.onboardingWorkflowRepository.save(workflow);
+        log.info("OnboardingWorkflowService(resume) -> Onboarding of participant {} requested from step {}", participantId, step);
+        this.applicationEventPublisher.publishEvent(new OnboardingStepRequestedEvent(participantId, step));
+    }
+
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStepRequested(OnboardingStepRequestedEvent event) {
+        this.dispatch(event.participantId(), event.step());
+    }
+
+    /**
+     * Entry point for a step scheduled in Quartz. Jobs created before the workflow existed carry only the step, for
+     * those the workflow is created on the fly.
+     *
+     * @param participantId the participant id
+     * @param step          the scheduled step
+     */
+    public void runScheduledStep(UUID participantId, OnboardingStep step) {
+        if (this.onboardingWorkflowRepository.getByParticipantId(participantId) == null) {
+            this.onboardingWorkflowRepository.save(OnboardingWorkflow.builder()
+                    .participantId(participantId)
+                    .step(step)
+                    .state(OnboardingWorkflowState.PENDING)
+                    .build());
+        }
+        this.run(participantId, step);
+    }
+
+    /**
+     * Runs the given step. A completed step hands the next step over to the executor of its job type right away, a
+     * step that has to wait is scheduled again. Nothing is done if the workflow has moved on or is run by someone else.
+     *
+     * @param participantId the participant id
+     * @param step          the step expected to be next
+     */
+    public void run(UUID participantId, OnboardingStep step) {
+        Date now = new Date();
+        if (this.onboardingWorkflowRepository.claim(participantId, step, CLAIMABLE_STATES, now, this.staleBefore(now)) == 0) {
+            log.debug("OnboardingWorkflowService(run) -> Step {} of participant {} is not due or already running.", step, participantId);
+            return;
+        }
+        OnboardingWorkflow workflow = this.onboardingWorkflowRepository.getByParticipantId(participantId);
+        OnboardingStep current = workflow.getStep();
+        if (workflow.getStepStartedAt() == null) {
+            workflow.setStepStartedAt(new Date());
+        }
+        OnboardingStepContext context = new OnboardingStepContext(this.readStepData(workflow), workflow.getWaits());
+        int status;
+        try {
+            if (workflow.getWaits() == 0) {
+                this.participantRepository.updateStatus(participantId, current.getEntryStatus().getStatus());
+                this.onboardingProgressService.publish(participantId);
+            }
+            this.executeStep(current, participantId, context);
+            status = this.participantRepository.findById(participantId).map(Participant::getStatus).orElse(current.getFailedStatus().getStatus());
+        } catch (Exception e) {
+            log.error("OnboardingWorkflowService(run) -> Step {} of participant {} failed.", current, participantId, e);
+            context.setFailure(e);
+            this.participantRepository.updateStatus(participantId, current.getFailedStatus().getStatus());
+            status = current.getFailedStatus().getStatus();
+        }
+
+        if (current.isCompletedBy(status)) {
+            log.info("OnboardingWorkflowService(run) -> Step {} of participant {} completed.", current, participantId);
+            this.onboardingHistoryService.record(workflow, OnboardingStepOutcome.COMPLETED, status, null);
+            OnboardingStep next = current.next();
+            workflow.setStep(next == null ? current : next);
+            workflow.setState(next == null ? OnboardingWorkflowState.COMPLETED : OnboardingWorkflowState.PENDING);
+            workflow.setWaits(0);
+            workflow.setAttempts(0);
+            workflow.setNextRunAt(null);
+            workflow.setStepStartedAt(null);
+            workflow.setLastError(null);
+            workflow.setStepData(null);
+            this.onboardingWorkflowRepository.save(workflow);
+            if (next == null) {
+                log.info("OnboardingWorkflowService(run) -> Onboarding of participant {} completed.", participantId);
+            } else {
+                this.dispatch(participantId, next);
+            }
+        } else if (status == current.getFailedStatus().getStatus()) {
+            this.retryOrFail(workflow, context, current.getFailedStatus().name());
+        } else {
+            this.waitForStep(workflow, context);
+        }
+        this.onboardingProgressService.publish(participantId);
+    }
+
+    /**
+     * Gets the workflows that failed for good, most recent first. They stay there until resumed manually.
+     *
+     * @param page the page number
+     * @param size the page size
+     * @return the dead letters
+     */
+    public PageResponse<OnboardingDeadLetterDto> getDeadLetters(int page, int size) {
+        Page<OnboardingWorkflow> workflows = this.onboardingWorkflowRepository.findAllByState(OnboardingWorkflowState.FAILED,
+                PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "updatedAt")));
+        return PageResponse.of(workflows.map(workflow -> new OnboardingDeadLetterDto(workflow.getParticipantId(), workflow.getStep(),
+                workflow.getAttempts(), workflow.getLastError(), workflow.getUpdatedAt())));
+    }
+
+    /**
+     * Picks up workflows whose run got lost, e.g. because the node running them stopped.
+     */
+    @Scheduled(fixedDelayString = "${wizard.onboarding.recovery-interval:PT5M}")
+    public void recoverStalledWorkflows() {
+        Date staleBefore = this.staleBefore(new Date());
+        List<OnboardingWorkflow> stalledWorkflows = this.onboardingWorkflowRepository.findAllByStateInAndUpdatedAtBefore(
+                EnumSet.of(OnboardingWorkflowState.PENDING, OnboardingWorkflowState.RUNNING, OnboardingWorkflowState.WAITING), staleBefore);
+        for (OnboardingWorkflow workflow : stalledWorkflows) {
+            if (workflow.getState() == OnboardingWorkflowState.WAITING && workflow.getNextRunAt() != null && workflow.getNextRunAt().after(staleBefore)) {
+                continue;
+            }
+            log.info("OnboardingWorkflowService(recoverStalledWorkflows) -> Recover onboarding of participant {} at step {} in state {}", workflow.getParticipantId(), workflow.getStep(), workflow.getState());
+            this.applicationEventPublisher.publishEvent(new OnboardingStepRequestedEvent(workflow.getParticipantId(), workflow.getStep()));
+        }
+    }
+
+    private void dispatch(UUID participantId, OnboardingStep step) {
+        this.jobExecutorService.execute(step.getJobType(), () -> this.run(participantId, step));
+    }
+
+    /**
+     * In wildcard mode the sub domain is already served by the wildcard record. With the shared wildcard key the
+     * certificate step only hands over the wildcard certificate.
+     */
+    private void executeStep(OnboardingStep step, UUID participantId, OnboardingStepContext context) throws IOException {
+        switch (step) {
+            case SUB_DOMAIN -> {
+                if (this.wildcardCertificateService.isEnabled()) {
+                    this.participantRepository.updateStatus(participantId, RegistrationStatus.DOMAIN_CREATED.getStatus());
+                } else {
+                    this.domainService.createSubDomain(participantId);
+                }
+            }
+            case CERTIFICATE -> {
+                if (this.wildcardCertificateService.isSharedKey()) {
+                    this.wildcardCertificateService.assignCertificate(participantId);
+                } else {
+                    this.certificateService.createSSLCertificate(participantId, context);
+                }
+            }
+            case INGRESS -> this.k8SService.createIngress(participantId);
+            case DID -> this.signerService.createDid(participantId);
+            case PARTICIPANT_JSON -> this.signerService.createSignedLegalParticipant(participantId);
+        }
+    }
+
+    /**
+     * The step neither completed nor failed, it depends on something that is not ready yet. It is checked again after
+     * a backoff delay, without holding a thread in the meantime.
+     */
+    private void waitForStep(OnboardingWorkflow workflow, OnboardingStepContext context) {
+        OnboardingStep step = workflow.getStep();
+        if (workflow.getWaits() >= this.onboardingSettings.maxWaits()) {
+            log.error("OnboardingWorkflowService(waitForStep) -> Step {} of participant {} did not become ready after {} checks.", step, workflow.getParticipantId(), workflow.getWaits());
+            this.participantRepository.updateStatus(workflow.getParticipantId(), step.getFailedStatus().getStatus());
+            this.retryOrFail(workflow, context, "onboarding.step.timeout");
+            return;
+        }
+        Duration delay = context.getRetryAfter() != null ? context.getRetryAfter() : this.onboardingSettings.backoff(workflow.getWaits());
+        workflow.setWaits(workflow.getWaits() + 1);
+        workflow.setStepData(this.writeStepData(context.getData()));
+        this.schedule(workflow, delay);
+        log.info("OnboardingWorkflowService(waitForStep) -> Step {} of participant {} is waiting, check {} in {}.", step, workflow.getParticipantId(), workflow.getWaits(), delay);
+    }
+
+    /**
+     * The step failed. A transient error is retried from the start of the step with backoff and jitter until the
+     * attempts of the step are used up; after that, or for a permanent error, the workflow goes to the dead letters
+     * and waits for a manual resume.
+     */
+    private void retryOrFail(OnboardingWorkflow workflow, OnboardingStepContext context, String error) {
+        OnboardingStep step = workflow.getStep();
+        workflow.setAttempts(workflow.getAttempts() + 1);
+        boolean retry = this.onboardingRetryPolicy.isRetryable(context.getFailure()) && this.onboardingRetryPolicy.canRetry(step, workflow.getAttempts());
+        this.onboardingHistoryService.record(workflow, retry ? OnboardingStepOutcome.RETRIED : OnboardingStepOutcome.FAILED, step.getFailedStatus().getStatus(), error);
+        if (!retry) {
+            this.fail(workflow, error);
+            return;
+        }
+        Duration delay = this.onboardingRetryPolicy.backoff(workflow.getAttempts());
+        workflow.setWaits(0);
+        workflow.setStepStartedAt(null);
+        workflow.setLastError(error);
+        workflow.setStepData(null);
+        this.schedule(workflow, delay);
+        log.warn("OnboardingWorkflowService(retryOrFail) -> Step {} of participant {} failed with {}, attempt {} in {}.", step, workflow.getParticipantId(), error, workflow.getAttempts() + 1, delay);
+    }
+
+    private void schedule(OnboardingWorkflow workflow, Duration delay) {
+        workflow.setState(OnboardingWorkflowState.WAITING);
+        workflow.setNextRunAt(new Date(System.currentTimeMillis() + delay.toMillis()));
+        this.onboardingWorkflowRepository.save(workflow);
+        try {
+            this.scheduleService.createJob(workflow.getParticipantId().toString(), workflow.getStep().getJobType(), delay);
+        } catch (Exception e) {
+            log.error("OnboardingWorkflowService(schedule) -> Not able to schedule step {} of participant {}, it will be recovered.", workflow.getStep(), workflow.getParticipantId(), e);
+        }
+    }
+
+    private void fail(OnboardingWorkflow workflow, String error) {
+        log.error("OnboardingWorkflowService(fail) -> Onboarding of participant {} failed at step {} after {} attempts with {}", workflow.getParticipantId(), workflow.getStep(), workflow.getAttempts(), error);
+        workflow.setState(OnboardingWorkflowState.FAILED);
+        workflow.setNextRunAt(null);
+        workflow.setLastError(error);
+        workflow.setStepData(null);
+        this.onboardingWorkflowRepository.save(workflow);
+    }
+
+    private Map<String, String> readStepData(OnboardingWorkflow workflow) {
+        if (workflow.getStepData() == null) {
+            return Map.of();
+        }
+        try {
+            return this.mapper.readValue(workflow.getStepData(), new TypeReference<>() {
+            });
+        } catch (JsonProcessingException e) {
+            log.error("OnboardingWorkflowService(readStepData) -> Step data of participant {} is not readable, step starts over.", workflow.getParticipantId(), e);
+            return Map.of();
+        }
+    }
+
+    private String writeStepData(Map<String, String> data) {
+        if (data.isEmpty()) {
+            return null;
+        }
+        try {
+            return this.mapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private boolean isStale(OnboardingWorkflow workflow) {
+        return workflow.getUpdatedAt() != null && workflow.getUpdatedAt().before(this.staleBefore(new Date()));
+    }
+
+    private Date staleBefore(Date now) {
+        return new Date(now.getTime() - this.onboardingSettings.staleAfter().toMillis());
+    }
+}
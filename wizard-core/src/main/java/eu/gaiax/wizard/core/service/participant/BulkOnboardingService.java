@@ -0,0 +1,566 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.core.service.participant;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.gaiax.wizard.api.exception.BadDataException;
+import eu.gaiax.wizard.api.exception.EntityNotFoundException;
+import eu.gaiax.wizard.api.model.BulkOnboardingJobDto;
+import eu.gaiax.wizard.api.model.BulkOnboardingJobState;
+import eu.gaiax.wizard.api.model.BulkOnboardingRowDto;
+import eu.gaiax.wizard.api.model.BulkOnboardingRowStatus;
+import eu.gaiax.wizard.api.model.request.ParticipantOnboardRequest;
+import eu.gaiax.wizard.api.model.request.ParticipantRegisterRequest;
+import eu.gaiax.wizard.api.model.setting.BulkOnboardingSettings;
+import eu.gaiax.wizard.api.model.setting.OnboardingSettings;
+import eu.gaiax.wizard.api.utils.StringPool;
+import eu.gaiax.wizard.api.utils.Validate;
+import eu.gaiax.wizard.core.service.job.ScheduleService;
+import eu.gaiax.wizard.core.service.keycloak.KeycloakService;
+import eu.gaiax.wizard.core.service.onboarding.OnboardingWorkflowService;
+import eu.gaiax.wizard.dao.entity.data_master.EntityTypeMaster;
+import eu.gaiax.wizard.dao.entity.participant.BulkOnboardingJob;
+import eu.gaiax.wizard.dao.entity.participant.BulkOnboardingRow;
+import eu.gaiax.wizard.dao.entity.participant.Participant;
+import eu.gaiax.wizard.dao.repository.participant.BulkOnboardingJobRepository;
+import eu.gaiax.wizard.dao.repository.participant.BulkOnboardingRowRepository;
+import eu.gaiax.wizard.dao.repository.participant.ParticipantRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.MessageSource;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Registers many participants at once from newline delimited JSON or CSV.
+ * <p>
+ * The rows are read from the request body and stored with the job in one short transaction, the registration runs in
+ * a Quartz job on any node. The rows are registered in batches: the rows of a batch are validated concurrently, checked
+ * for uniqueness with one query, inserted together and provisioned in Keycloak with one partial import. A row is marked
+ * registered in the transaction inserting its participant, so a failing batch never counts a registered participant as
+ * failed. The onboarding workflow is started for every registered participant without an own did solution, the others
+ * finish the onboarding themselves as after a single registration. The outcome of every row is kept with the job.
+ */
+@Service
+@Slf4j
+public class BulkOnboardingService implements DisposableBean {
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    // columns of the CSV header, the credential column holds the credential as JSON
+    static final String EMAIL = "email";
+    static final String LEGAL_NAME = "legalName";
+    static final String SHORT_NAME = "shortName";
+    static final String ENTITY_TYPE = "entityType";
+    static final String OWN_DID = "ownDid";
+    static final String STORE = "store";
+    static final String ACCEPTED_TNC = "acceptedTnC";
+    static final String CREDENTIAL = "credential";
+
+    private final BulkOnboardingSettings bulkOnboardingSettings;
+    private final OnboardingSettings onboardingSettings;
+    private final ParticipantService participantService;
+    private final ParticipantRepository participantRepository;
+    private final BulkOnboardingJobRepository bulkOnboardingJobRepository;
+    private final BulkOnboardingRowRepository bulkOnboardingRowRepository;
+    private final KeycloakService keycloakService;
+    private final OnboardingWorkflowService onboardingWorkflowService;
+    private final RegistrationStatusCache registrationStatusCache;
+    private final ScheduleService scheduleService;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper mapper;
+    private final MessageSource messageSource;
+    private final ExecutorService validationExecutor;
+
+    public BulkOnboardingService(BulkOnboardingSettings bulkOnboardingSettings, OnboardingSettings onboardingSettings, ParticipantService participantService,
+                                 ParticipantRepository participantRepository, BulkOnboardingJobRepository bulkOnboardingJobRepository,
+                                 BulkOnboardingRowRepository bulkOnboardingRowRepository, KeycloakService keycloakService,
+                                 OnboardingWorkflowService onboardingWorkflowService, RegistrationStatusCache registrationStatusCache,
+                                 ScheduleService scheduleService, TransactionTemplate transactionTemplate, Validator validator, ObjectMapper mapper,
+                                 MessageSource messageSource) {
+        this.bulkOnboardingSettings = bulkOnboardingSettings;
+        this.onboardingSettings = onboardingSettings;
+        this.participantService = participantService;
+        this.participantRepository = participantRepository;
+        this.bulkOnboardingJobRepository = bulkOnboardingJobRepository;
+        this.bulkOnboardingRowRepository = bulkOnboardingRowRepository;
+        this.keycloakService = keycloakService;
+        this.onboardingWorkflowService = onboardingWorkflowService;
+        this.registrationStatusCache = registrationStatusCache;
+        this.scheduleService = scheduleService;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.mapper = mapper;
+        this.messageSource = messageSource;
+        this.validationExecutor = Executors.newFixedThreadPool(bulkOnboardingSettings.validationConcurrency(), new CustomizableThreadFactory("bulk-onboarding-validation-"));
+    }
+
+    @Override
+    public void destroy() {
+        this.validationExecutor.shutdown();
+    }
+
+    /**
+     * Stores the rows of a bulk onboarding and schedules their registration. Rows that can not be read are stored as
+     * failed right away.
+     *
+     * @param contentType the content type of the rows, newline delimited JSON or CSV with a header
+     * @param body        the rows
+     * @return the job with the rows read
+     */
+    public BulkOnboardingJobDto submit(String contentType, InputStream body) {
+        MediaType mediaType = StringUtils.hasText(contentType) ? MediaType.parseMediaType(contentType) : null;
+        boolean csv = mediaType != null && mediaType.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV_VALUE));
+        Validate.isFalse(csv || mediaType != null && mediaType.isCompatibleWith(MediaType.APPLICATION_NDJSON)).launch("bulk.onboarding.unsupported.content.type");
+        Charset charset = mediaType.getCharset() == null ? StandardCharsets.UTF_8 : mediaType.getCharset();
+
+        // the rows are read before the transaction, a slow upload must not hold a connection
+        List<BulkOnboardingRow> rows;
+        try (Reader reader = new BufferedReader(new InputStreamReader(body, charset))) {
+            rows = this.readRows(reader, csv);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int failed = (int) rows.stream().filter(row -> row.getStatus() == BulkOnboardingRowStatus.FAILED).count();
+        BulkOnboardingJob job = this.transactionTemplate.execute(status -> {
+            BulkOnboardingJob created = this.bulkOnboardingJobRepository.save(BulkOnboardingJob.builder()
+                    .state(BulkOnboardingJobState.PENDING)
+                    .total(rows.size())
+                    .failed(failed)
+                    .build());
+            rows.forEach(row -> row.setJobId(created.getId()));
+            this.bulkOnboardingRowRepository.saveAll(rows);
+            return created;
+        });
+        log.info("BulkOnboardingService(submit) -> Bulk onboarding {} with {} rows submitted, {} rows not readable", job.getId(), job.getTotal(), job.getFailed());
+        this.schedule(job.getId());
+        return this.getJob(job.getId());
+    }
+
+    /**
+     * Gets the job and the results of its rows.
+     *
+     * @param jobId the job id
+     * @return the job
+     */
+    public BulkOnboardingJobDto getJob(UUID jobId) {
+        BulkOnboardingJob job = this.bulkOnboardingJobRepository.findById(jobId).orElseThrow(() -> new EntityNotFoundException("bulk.onboarding.job.not.found"));
+        List<BulkOnboardingRowDto> rows = this.bulkOnboardingRowRepository.findAllByJobIdOrderByRowNumber(jobId).stream()
+                .map(row -> new BulkOnboardingRowDto(row.getRowNumber(), row.getEmail(), row.getStatus(), row.getParticipantId(), row.getMessage()))
+                .toList();
+        return new BulkOnboardingJobDto(job.getId(), job.getState(), job.getTotal(), job.getRegistered(), job.getFailed(), job.getCreatedAt(),
+                job.getUpdatedAt(), rows);
+    }
+
+    /**
+     * Registers the pending rows of the job batch by batch. Nothing is done if the job is run by someone else. The
+     * progress is stored after every batch, which also tells the recovery that the run is alive.
+     *
+     * @param jobId the job id
+     */
+    public void process(UUID jobId) {
+        Date now = new Date();
+        if (this.bulkOnboardingJobRepository.claim(jobId, now, this.staleBefore(now)) == 0) {
+            log.info("BulkOnboardingService(process) -> Bulk onboarding {} is not pending, skipping", jobId);
+            return;
+        }
+        PageRequest batch = PageRequest.of(0, this.bulkOnboardingSettings.batchSize(), Sort.by("rowNumber"));
+        List<BulkOnboardingRow> rows;
+        while (!(rows = this.bulkOnboardingRowRepository.findAllByJobIdAndStatus(jobId, BulkOnboardingRowStatus.PENDING, batch)).isEmpty()) {
+            try {
+                this.processBatch(rows);
+            } catch (Exception e) {
+                // rows past the insert keep their status, their participant exists
+                log.error("BulkOnboardingService(process) -> Batch of bulk onboarding {} failed", jobId, e);
+                rows.stream().filter(row -> row.getStatus() == BulkOnboardingRowStatus.PENDING).forEach(row -> this.fail(row, e));
+            }
+            this.bulkOnboardingRowRepository.saveAll(rows);
+            this.bulkOnboardingJobRepository.updateProgress(jobId,
+                    (int) this.bulkOnboardingRowRepository.countByJobIdAndStatusIn(jobId, EnumSet.of(BulkOnboardingRowStatus.REGISTERED, BulkOnboardingRowStatus.ONBOARDING)),
+                    (int) this.bulkOnboardingRowRepository.countByJobIdAndStatusIn(jobId, EnumSet.of(BulkOnboardingRowStatus.FAILED)),
+                    new Date());
+        }
+        BulkOnboardingJob job = this.bulkOnboardingJobRepository.findById(jobId).orElseThrow(() -> new EntityNotFoundException("bulk.onboarding.job.not.found"));
+        job.setState(BulkOnboardingJobState.COMPLETED);
+        this.bulkOnboardingJobRepository.save(job);
+        log.info("BulkOnboardingService(process) -> Bulk onboarding {} completed, {} registered, {} failed", jobId, job.getRegistered(), job.getFailed());
+    }
+
+    /**
+     * Picks up jobs whose run got lost, e.g. because the node running them stopped.
+     */
+    @Scheduled(fixedDelayString = "${wizard.onboarding.recovery-interval:PT5M}")
+    public void recoverStalledJobs() {
+        List<BulkOnboardingJob> stalledJobs = this.bulkOnboardingJobRepository.findAllByStateInAndUpdatedAtBefore(
+                EnumSet.of(BulkOnboardingJobState.PENDING, BulkOnboardingJobState.RUNNING), this.staleBefore(new Date()));
+        for (BulkOnboardingJob job : stalledJobs) {
+            log.info("BulkOnboardingService(recoverStalledJobs) -> Recover bulk onboarding {} in state {}", job.getId(), job.getState());
+            this.schedule(job.getId());
+        }
+    }
+
+    private void processBatch(List<BulkOnboardingRow> rows) {
+        // the validation calls the signer for every row
+        List<CompletableFuture<Registration>> validations = rows.stream()
+                .map(row -> CompletableFuture.supplyAsync(() -> this.validate(row), this.validationExecutor))
+                .toList();
+        List<Registration> registrations = validations.stream().map(CompletableFuture::join).filter(Objects::nonNull).toList();
+        registrations = this.checkUniqueness(registrations);
+        if (registrations.isEmpty()) {
+            return;
+        }
+        registrations = this.insert(registrations);
+        registrations = this.provision(registrations);
+        if (!registrations.isEmpty()) {
+            this.participantRepository.markUserProvisioned(registrations.stream().map(registration -> registration.participant().getId()).toList());
+        }
+
+        for (Registration registration : registrations) {
+            Participant participant = registration.participant();
+            BulkOnboardingRow row = registration.row();
+            this.registrationStatusCache.evict(participant.getEmail());
+            if (participant.isOwnDidSolution()) {
+                continue;
+            }
+            try {
+                this.onboardingWorkflowService.start(participant.getId());
+                row.setStatus(BulkOnboardingRowStatus.ONBOARDING);
+            } catch (Exception e) {
+                log.error("BulkOnboardingService(processBatch) -> Onboarding of participant {} not started", participant.getId(), e);
+                row.setMessage(this.message("bulk.onboarding.not.started"));
+            }
+        }
+    }
+
+    private Registration validate(BulkOnboardingRow row) {
+        try {
+            ParticipantRegisterRequest request = this.mapper.readValue(row.getPayload(), ParticipantRegisterRequest.class);
+            Set<ConstraintViolation<ParticipantRegisterRequest>> violations = this.validator.validate(request);
+            if (!violations.isEmpty()) {
+                throw new BadDataException(violations.iterator().next().getMessage());
+            }
+            EntityTypeMaster entityType = this.participantService.validateRegisterRequest(request);
+            return new Registration(row, request, entityType, null);
+        } catch (Exception e) {
+            this.fail(row, e);
+            return null;
+        }
+    }
+
+    /**
+     * Drops the registrations whose email, legal name or short name is taken, by a participant or an earlier row.
+     */
+    private List<Registration> checkUniqueness(List<Registration> registrations) {
+        if (registrations.isEmpty()) {
+            return registrations;
+        }
+        Set<String> emails = new HashSet<>();
+        Set<String> legalNames = new HashSet<>();
+        Set<String> shortNames = new HashSet<>();
+        for (Participant participant : this.participantRepository.findAllByEmailInOrLegalNameInOrShortNameIn(
+                registrations.stream().map(registration -> registration.request().email().toLowerCase()).toList(),
+                registrations.stream().map(registration -> registration.request().onboardRequest().legalName()).toList(),
+                registrations.stream().map(registration -> registration.request().onboardRequest().shortName().toLowerCase()).toList())) {
+            emails.add(participant.getEmail().toLowerCase());
+            legalNames.add(participant.getLegalName());
+            shortNames.add(participant.getShortName());
+        }
+
+        // a row only reserves its values once all of them are free, a rejected row does not block later rows
+        List<Registration> unique = new ArrayList<>();
+        for (Registration registration : registrations) {
+            String email = registration.request().email().toLowerCase();
+            String legalName = registration.request().onboardRequest().legalName();
+            String shortName = registration.request().onboardRequest().shortName().toLowerCase();
+            if (emails.contains(email)) {
+                this.fail(registration.row(), "participant.already.registered");
+            } else if (legalNames.contains(legalName)) {
+                this.fail(registration.row(), "legal.name.already.registered");
+            } else if (shortNames.contains(shortName)) {
+                this.fail(registration.row(), "short.name.already.registered");
+            } else {
+                emails.add(email);
+                legalNames.add(legalName);
+                shortNames.add(shortName);
+                unique.add(registration);
+            }
+        }
+        return unique;
+    }
+
+    /**
+     * Inserts the participants of the batch together and marks their rows registered in the same transaction. If that
+     * fails, e.g. because a participant registered on its own in the meantime, they are inserted one by one.
+     */
+    private List<Registration> insert(List<Registration> registrations) {
+        List<BulkOnboardingRow> rows = registrations.stream().map(Registration::row).toList();
+        try {
+            List<Participant> participants = registrations.stream()
+                    .map(registration -> this.participantService.newParticipant(registration.request(), registration.entityType()))
+                    .toList();
+            this.transactionTemplate.executeWithoutResult(status -> {
+                this.participantRepository.saveAll(participants);
+                for (int i = 0; i < rows.size(); i++) {
+                    registered(rows.get(i), participants.get(i));
+                }
+                this.bulkOnboardingRowRepository.saveAll(rows);
+            });
+            List<Registration> inserted = new ArrayList<>();
+            for (int i = 0; i < registrations.size(); i++) {
+                inserted.add(registrations.get(i).with(participants.get(i)));
+            }
+            return inserted;
+        } catch (DataIntegrityViolationException e) {
+            log.info("BulkOnboardingService(insert) -> Batch insert failed, inserting {} participants one by one", registrations.size());
+            rows.forEach(BulkOnboardingService::pending);
+        }
+        List<Registration> inserted = new ArrayList<>();
+        for (Registration registration : registrations) {
+            BulkOnboardingRow row = registration.row();
+            Participant participant = this.participantService.newParticipant(registration.request(), registration.entityType());
+            try {
+                this.transactionTemplate.executeWithoutResult(status -> {
+                    this.participantRepository.save(participant);
+                    registered(row, participant);
+                    this.bulkOnboardingRowRepository.save(row);
+                });
+                inserted.add(registration.with(participant));
+            } catch (DataIntegrityViolationException e) {
+                pending(row);
+                this.fail(row, ParticipantService.uniqueConstraintMessage(e));
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Creates the Keycloak users of the batch with one request. If that fails, they are created one by one and a
+     * participant without user is removed again, as a single registration is rolled back.
+     */
+    private List<Registration> provision(List<Registration> registrations) {
+        try {
+            Set<String> emailsNotSent = this.keycloakService.createParticipantUsers(registrations.stream().map(Registration::participant).toList());
+            for (Registration registration : registrations) {
+                if (emailsNotSent.contains(registration.participant().getEmail())) {
+                    registration.row().setMessage(this.message("required.actions.email.failed"));
+                }
+            }
+            return registrations;
+        } catch (Exception e) {
+            log.error("BulkOnboardingService(provision) -> Keycloak batch failed, creating {} users one by one", registrations.size(), e);
+        }
+        List<Registration> provisioned = new ArrayList<>();
+        for (Registration registration : registrations) {
+            Participant participant = registration.participant();
+            try {
+                this.keycloakService.createParticipantUser(participant.getId().toString(), participant.getLegalName(), participant.getEmail());
+                provisioned.add(registration);
+            } catch (Exception e) {
+                this.participantRepository.deleteById(participant.getId());
+                this.fail(registration.row(), e);
+                registration.row().setParticipantId(null);
+                this.bulkOnboardingRowRepository.save(registration.row());
+            }
+        }
+        return provisioned;
+    }
+
+    private List<BulkOnboardingRow> readRows(Reader reader, boolean csv) throws IOException {
+        List<BulkOnboardingRow> rows = new ArrayList<>();
+        Map<String, Integer> columns = null;
+        int rowNumber = 0;
+        while (true) {
+            ParticipantRegisterRequest request;
+            String error = null;
+            if (csv) {
+                List<String> fields = readCsvRecord(reader);
+                if (fields == null) {
+                    break;
+                }
+                if (fields.size() == 1 && !StringUtils.hasText(fields.get(0))) {
+                    continue;
+                }
+                if (columns == null) {
+                    columns = readCsvHeader(fields);
+                    continue;
+                }
+                try {
+                    request = this.toRequest(columns, fields);
+                } catch (JsonProcessingException e) {
+                    request = null;
+                    error = e.getOriginalMessage();
+                }
+            } else {
+                String line = ((BufferedReader) reader).readLine();
+                if (line == null) {
+                    break;
+                }
+                if (!StringUtils.hasText(line)) {
+                    continue;
+                }
+                try {
+                    request = this.mapper.readValue(line, ParticipantRegisterRequest.class);
+                } catch (JsonProcessingException e) {
+                    request = null;
+                    error = e.getOriginalMessage();
+                }
+            }
+            rowNumber++;
+            Validate.isTrue(rowNumber > this.bulkOnboardingSettings.maxRows()).launch("bulk.onboarding.too.many.rows");
+
+            BulkOnboardingRow row = BulkOnboardingRow.builder()
+                    .rowNumber(rowNumber)
+                    .status(BulkOnboardingRowStatus.PENDING)
+                    .build();
+            if (request == null) {
+                row.setStatus(BulkOnboardingRowStatus.FAILED);
+                row.setMessage(this.message("bulk.onboarding.invalid.row") + " " + error);
+            } else {
+                row.setEmail(request.email());
+                row.setPayload(this.mapper.writeValueAsString(request));
+            }
+            rows.add(row);
+        }
+        Validate.isTrue(csv && columns == null).launch("bulk.onboarding.invalid.csv.header");
+        return rows;
+    }
+
+    private ParticipantRegisterRequest toRequest(Map<String, Integer> columns, List<String> fields) throws JsonProcessingException {
+        String credential = field(columns, fields, CREDENTIAL);
+        Map<String, Object> credentialMap = StringUtils.hasText(credential) ? this.mapper.readValue(credential, new TypeReference<>() {
+        }) : null;
+        return new ParticipantRegisterRequest(field(columns, fields, EMAIL),
+                new ParticipantOnboardRequest(field(columns, fields, LEGAL_NAME), field(columns, fields, SHORT_NAME), field(columns, fields, ENTITY_TYPE),
+                        credentialMap, Boolean.parseBoolean(field(columns, fields, OWN_DID)), Boolean.parseBoolean(field(columns, fields, STORE)),
+                        Boolean.parseBoolean(field(columns, fields, ACCEPTED_TNC))));
+    }
+
+    private static Map<String, Integer> readCsvHeader(List<String> fields) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            columns.put(fields.get(i).trim(), i);
+        }
+        Validate.isFalse(columns.keySet().containsAll(List.of(EMAIL, LEGAL_NAME, SHORT_NAME, CREDENTIAL))).launch("bulk.onboarding.invalid.csv.header");
+        return columns;
+    }
+
+    private static String field(Map<String, Integer> columns, List<String> fields, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Reads one CSV record as of RFC 4180, quoted fields may contain separators, quotes and line breaks.
+     *
+     * @return the fields, null at the end of the input
+     */
+    static List<String> readCsvRecord(Reader reader) throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new BadDataException("bulk.onboarding.invalid.csv");
+                }
+                if (c == '"') {
+                    c = reader.read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                }
+                field.append((char) c);
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                if (!field.isEmpty() && field.charAt(field.length() - 1) == '\r') {
+                    field.setLength(field.length() - 1);
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+
+    private void schedule(UUID jobId) {
+        try {
+            this.scheduleService.createJob(jobId.toString(), StringPool.JOB_TYPE_BULK_ONBOARDING, Duration.ZERO);
+        } catch (Exception e) {
+            log.error("BulkOnboardingService(schedule) -> Not able to schedule bulk onboarding {}, it is picked up by the recovery", jobId, e);
+        }
+    }
+
+    private void fail(BulkOnboardingRow row, Exception e) {
+        log.debug("BulkOnboardingService(fail) -> Row {} of bulk onboarding {} failed", row.getRowNumber(), row.getJobId(), e);
+        this.fail(row, e.getMessage() == null ? "bulk.onboarding.row.failed" : e.getMessage());
+    }
+
+    private void fail(BulkOnboardingRow row, String message) {
+        row.setStatus(BulkOnboardingRowStatus.FAILED);
+        row.setMessage(this.message(message));
+    }
+
+    private static void registered(BulkOnboardingRow row, Participant participant) {
+        row.setParticipantId(participant.getId());
+        row.setStatus(BulkOnboardingRowStatus.REGISTERED);
+    }
+
+    private static void pending(BulkOnboardingRow row) {
+        row.setParticipantId(null);
+        row.setStatus(BulkOnboardingRowStatus.PENDING);
+    }
+
+    private String message(String key) {
+        return this.messageSource.getMessage(key, null, key, LocaleContextHolder.getLocale());
+    }
+
+    private Date staleBefore(Date now) {
+        return new Date(now.getTime() - this.onboardingSettings.staleAfter().toMillis());
+    }
+
+    private record Registration(BulkOnboardingRow row, ParticipantRegisterRequest request, EntityTypeMaster entityType, Participant participant) {
+
+        Registration with(Participant participant) {
+            return new Registration(this.row, this.request, this.entityType, participant);
+        }
+    }
+}
@@ -15,14 +15,14 @@ import eu.gaiax.wizard.api.model.request.ParticipantOnboardRequest;
 import eu.gaiax.wizard.api.model.request.ParticipantRegisterRequest;
 import eu.gaiax.wizard.api.model.request.ParticipantValidatorRequest;
 import eu.gaiax.wizard.api.model.service_offer.CredentialDto;
-import eu.gaiax.wizard.api.utils.CommonUtils;
+import eu.gaiax.wizard.api.model.setting.ProfileImageSettings;
 import eu.gaiax.wizard.api.utils.S3Utils;
 import eu.gaiax.wizard.api.utils.StringPool;
 import eu.gaiax.wizard.api.utils.Validate;
 import eu.gaiax.wizard.core.service.InvokeService;
 import eu.gaiax.wizard.core.service.credential.CredentialService;
-import eu.gaiax.wizard.core.service.domain.DomainService;
 import eu.gaiax.wizard.core.service.keycloak.KeycloakService;
+import eu.gaiax.wizard.core.service.onboarding.OnboardingWorkflowService;
 import eu.gaiax.wizard.core.service.signer.SignerService;
 import eu.gaiax.wizard.dao.entity.Credential;
 import eu.gaiax.wizard.dao.entity.data_master.EntityTypeMaster;
@@ -37,6 +37,8 @@ import org.apache.commons.io.FilenameUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
@@ -48,7 +50,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import static eu.gaiax.wizard.api.utils.StringPool.*;
@@ -60,37 +62,95 @@ public class ParticipantService extends BaseService<Participant, UUID> {
     private final ParticipantRepository participantRepository;
     private final EntityTypeMasterRepository entityTypeMasterRepository;
     private final SignerService signerService;
-    private final DomainService domainService;
+    private final OnboardingWorkflowService onboardingWorkflowService;
     private final VaultService vaultService;
     private final CredentialService credentialService;
     private final KeycloakService keycloakService;
     private final S3Utils s3Utils;
+    private final ProfileImageService profileImageService;
+    private final ProfileImageSettings profileImageSettings;
+    private final RegistrationStatusCache registrationStatusCache;
+    private final ParticipantUserService participantUserService;
     private final ObjectMapper mapper;
     private final MessageSource messageSource;
     private final SpecificationUtil<Participant> specificationUtil;
     @Value("${wizard.domain}")
     private String domain;
     
+    /**
+     * Registers a participant. The uniqueness is checked with one query and enforced by the unique constraints of the
+     * participant table, a registration racing another one is rejected with the same message. The Keycloak user is
+     * provisioned by a job scheduled in the same transaction, see {@link ParticipantUserService}.
+     *
+     * @param request the registration
+     * @return the participant
+     */
     @Transactional
-    @SneakyThrows
     public Participant registerParticipant(ParticipantRegisterRequest request) {
         log.debug("ParticipantService(registerParticipant) -> Participant registration with email {}", request.email());
+        EntityTypeMaster entityType = this.validateRegisterRequest(request);
+        
+        Participant candidate = this.newParticipant(request, entityType);
+        List<Participant> existing = this.participantRepository.findAllByEmailOrLegalNameOrShortName(candidate.getEmail(), candidate.getLegalName(), candidate.getShortName());
+        Validate.isTrue(existing.stream().anyMatch(p -> candidate.getEmail().equalsIgnoreCase(p.getEmail()))).launch("participant.already.registered");
+        Validate.isTrue(existing.stream().anyMatch(p -> candidate.getLegalName().equals(p.getLegalName()))).launch("legal.name.already.registered");
+        Validate.isFalse(existing.isEmpty()).launch("short.name.already.registered");
+        
+        Participant participant;
+        try {
+            participant = this.participantRepository.saveAndFlush(candidate);
+        } catch (DataIntegrityViolationException e) {
+            throw new BadDataException(uniqueConstraintMessage(e));
+        }
+        
+        this.participantUserService.scheduleProvisioning(participant.getId());
+        this.registrationStatusCache.evict(participant.getEmail());
+        
+        return participant;
+    }
+    
+    /**
+     * Maps the violated unique constraint of the participant table to the message of the uniqueness check.
+     */
+    static String uniqueConstraintMessage(DataIntegrityViolationException e) {
+        String cause = String.valueOf(NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+        if (cause.contains("legal_name_unique")) {
+            return "legal.name.already.registered";
+        }
+        if (cause.contains("short_name_unique")) {
+            return "short.name.already.registered";
+        }
+        return "participant.already.registered";
+    }
+    
+    /**
+     * Validates a registration without the uniqueness checks.
+     *
+     * @param request the registration
+     * @return the entity type of the participant, null if none is given
+     */
+    public EntityTypeMaster validateRegisterRequest(ParticipantRegisterRequest request) {
         Validate.isFalse(StringUtils.hasText(request.email())).launch("email.required");
         ParticipantOnboardRequest onboardRequest = request.onboardRequest();
         this.validateParticipantOnboardRequest(onboardRequest);
         
-        EntityTypeMaster entityType = null;
-        
         if (StringUtils.hasText(onboardRequest.entityType())) {
-            entityType = this.entityTypeMasterRepository.findById(UUID.fromString(onboardRequest.entityType())).orElseThrow(() -> new BadDataException("invalid.entity.type"));
+            return this.entityTypeMasterRepository.findById(UUID.fromString(onboardRequest.entityType())).orElseThrow(() -> new BadDataException("invalid.entity.type"));
         }
-        
-        Participant participant = this.participantRepository.getByEmail(request.email());
-        Validate.isNotNull(participant).launch("participant.already.registered");
-        Validate.isNotNull(this.participantRepository.getByLegalName(request.onboardRequest().legalName())).launch("legal.name.already.registered");
-        Validate.isNotNull(this.participantRepository.getByShortName(request.onboardRequest().shortName().toLowerCase())).launch("short.name.already.registered");
-        
-        participant = this.create(Participant.builder()
+        return null;
+    }
+    
+    /**
+     * Builds the participant of a validated registration, not saved yet. Its Keycloak user is not provisioned yet.
+     *
+     * @param request    the registration
+     * @param entityType the entity type of the participant
+     * @return the participant
+     */
+    @SneakyThrows
+    public Participant newParticipant(ParticipantRegisterRequest request, EntityTypeMaster entityType) {
+        ParticipantOnboardRequest onboardRequest = request.onboardRequest();
+        return Participant.builder()
                 .email(request.email().toLowerCase())
                 .legalName(onboardRequest.legalName())
                 .shortName(onboardRequest.shortName().toLowerCase())
@@ -99,11 +159,8 @@ public class ParticipantService extends BaseService<Participant, UUID> {
                 .participantType("REGISTERED")
                 .credentialRequest(this.mapper.writeValueAsString(onboardRequest.credential()))
                 .ownDidSolution(onboardRequest.ownDid())
-                .build());
-        
-        this.keycloakService.createParticipantUser(participant.getId().toString(), participant.getLegalName(), participant.getEmail());
-        
-        return participant;
+                .userProvisioned(false)
+                .build();
     }
     
     private void validateParticipantOnboardRequest(ParticipantOnboardRequest request) {
@@ -177,7 +234,7 @@ public class ParticipantService extends BaseService<Participant, UUID> {
     
     private void createLegalParticipantWithoutDidSolutions(Participant participant) {
         log.debug("ParticipantService(createLegalParticipantJson) -> Create Subdomain, Certificate, Ingress, Did and participant json.");
-        this.domainService.createSubDomain(participant.getId());
+        this.onboardingWorkflowService.start(participant.getId());
     }
     
     private void validateOnboardedCredentialSubject(Object credentialSubject) {
@@ -248,43 +305,36 @@ public class ParticipantService extends BaseService<Participant, UUID> {
     }
     
     
-    public String getWellKnownFiles(String host, String fileName) throws IOException {
+    public HostedDocument getWellKnownFiles(String host, String fileName, boolean gzipAccepted) throws IOException {
         log.info("ParticipantService(getWellKnownFiles) -> Fetch wellKnown file for host {} and filename {}", host, fileName);
         Validate.isTrue(fileName.endsWith("key") || fileName.endsWith("csr")).launch(new EntityNotFoundException("Cannot find file -> " + fileName));
         Participant participant = this.participantRepository.getByDomain(host);
         Validate.isNull(participant).launch(new EntityNotFoundException("subdomain.not.found"));
         if (fileName.equals(DID_JSON)) {
-            return this.getLegalParticipantOrDidJson(participant.getId().toString(), fileName);
+            return this.getLegalParticipantOrDidJson(participant.getId().toString(), fileName, gzipAccepted);
         }
         
         Map<String, Object> certificates = this.vaultService.getParticipantSecretData(participant.getId().toString());
         Object certificate = certificates.get(fileName);
         Validate.isNull(certificate).launch(new EntityNotFoundException("certificate.not.found"));
-        return (String) certificate;
+        return HostedDocument.of(fileName, ((String) certificate).getBytes(StandardCharsets.UTF_8));
     }
     
-    public String getLegalParticipantOrDidJson(String participantId, String filename) throws IOException {
-        String fetchedFileName = UUID.randomUUID().toString() + "." + FilenameUtils.getExtension(filename);
-        File file = new File(fetchedFileName);
+    public HostedDocument getLegalParticipantOrDidJson(String participantId, String filename, boolean gzipAccepted) throws IOException {
         this.findParticipantById(UUID.fromString(participantId));
-        
-        try {
-            log.info("ParticipantService(getParticipantFile) -> Fetch files from s3 bucket with Id {} and filename {}", participantId, filename);
-            file = this.s3Utils.getObject(participantId + "/" + filename, fetchedFileName);
-            return FileUtils.readFileToString(file, Charset.defaultCharset());
-        } finally {
-            CommonUtils.deleteFile(file);
-        }
+        log.info("ParticipantService(getParticipantFile) -> Fetch files from s3 bucket with Id {} and filename {}", participantId, filename);
+        return this.s3Utils.getHostedDocument(participantId + "/" + filename, gzipAccepted);
     }
     
     @Transactional(isolation = Isolation.READ_UNCOMMITTED)
     public CheckParticipantRegisteredResponse checkIfParticipantRegistered(String email) {
-        boolean participantExists = this.participantRepository.existsByEmail(email);
-        
-        return new CheckParticipantRegisteredResponse(
-                participantExists,
-                participantExists ? this.keycloakService.isLoginDeviceConfigured(email) : null
-        );
+        return this.registrationStatusCache.get(email, key -> {
+            boolean participantExists = this.participantRepository.existsByEmail(key);
+            return new CheckParticipantRegisteredResponse(
+                    participantExists,
+                    participantExists ? this.keycloakService.isLoginDeviceConfigured(key) : null
+            );
+        });
     }
     
     public Participant changeStatus(UUID participantId, int status) {
@@ -328,7 +378,8 @@ public class ParticipantService extends BaseService<Participant, UUID> {
         Validate.isNull(legalParticipantCredential).launch(new BadDataException("participant.credential.not.found"));
         participantAndKeyResponse.setParticipantJson(legalParticipantCredential.getVcUrl());
         
-        if (participant.isOwnDidSolution()) {
+        // the wildcard key is shared by all participants of the wildcard mode, it is never handed out
+        if (participant.isOwnDidSolution() || this.vaultService.isSharedKey(participant.getId().toString())) {
             return participantAndKeyResponse;
         }
         
@@ -341,7 +392,15 @@ public class ParticipantService extends BaseService<Participant, UUID> {
     }
     
     public void sendRegistrationLink(String email) {
+        Participant participant = this.participantRepository.getByEmail(email.toLowerCase());
+        if (participant != null && !participant.isUserProvisioned()) {
+            // the provisioning is still pending, running it now sends the email
+            Validate.isFalse(this.participantUserService.provision(participant.getId())).launch("keycloak.create.user.failed");
+            log.info("registration email sent to email: {}", email);
+            return;
+        }
         this.keycloakService.sendRequiredActionsEmail(email);
+        this.registrationStatusCache.evict(email);
         log.info("registration email sent to email: {}", email);
     }
     
@@ -364,7 +423,9 @@ public class ParticipantService extends BaseService<Participant, UUID> {
         participantProfileDto.setLegalAddress(credentialSubject.get(LEGAL_ADDRESS).get(SUBDIVISION_CODE).asText());
         
         if (StringUtils.hasText(participant.getProfileImage())) {
-            participantProfileDto.setProfileImage(this.s3Utils.getPreSignedUrl(participant.getProfileImage()));
+            Map<String, String> profileImages = this.profileImageService.getProfileImageUrls(participant);
+            participantProfileDto.setProfileImages(profileImages);
+            participantProfileDto.setProfileImage(profileImages.getOrDefault(this.profileImageSettings.profileDerivative(), profileImages.get("original")));
         }
         
         List<String> organizationList;
@@ -387,29 +448,40 @@ public class ParticipantService extends BaseService<Participant, UUID> {
         return organizationlist.stream().map(org -> org.get(ID)).sorted().toList();
     }
     
-    public String updateParticipantProfileImage(String participantId, MultipartFile multipartFile) {
+    /**
+     * Stores the uploaded profile image and processes it in the background. The raw upload is removed once processed,
+     * so the returned url points to the processed image.
+     *
+     * @param participantId the participant id
+     * @param multipartFile the image
+     * @return the processing status and the processed profile image
+     */
+    public ProfileImageUploadDto updateParticipantProfileImage(String participantId, MultipartFile multipartFile) {
         Participant participant = this.findParticipantById(UUID.fromString(participantId));
         
-        if (StringUtils.hasText(participant.getProfileImage())) {
-            this.s3Utils.deleteFile(participant.getProfileImage());
-        }
-        
-        String fileName = "participant/" + participantId + "_" + System.currentTimeMillis() + "." + FilenameUtils.getExtension(multipartFile.getOriginalFilename());
-        File profileImage = new File(TEMP_FOLDER + fileName);
+        String fileName = "participant/" + participantId + "/" + System.currentTimeMillis() + "/source." + FilenameUtils.getExtension(multipartFile.getOriginalFilename());
+        File profileImage = new File(TEMP_FOLDER + UUID.randomUUID() + "_" + FilenameUtils.getName(fileName));
         try {
             FileUtils.copyToFile(multipartFile.getInputStream(), profileImage);
+            Validate.isFalse(ProfileImageService.isImage(profileImage)).launch(new BadDataException("invalid.file"));
             this.s3Utils.uploadFile(fileName, profileImage);
+        } catch (BadDataException e) {
+            FileUtils.deleteQuietly(profileImage);
+            throw e;
         } catch (Exception e) {
+            FileUtils.deleteQuietly(profileImage);
             log.error("Error while saving profile picture for participantId: {}", participant.getId(), e);
             throw new BadDataException("invalid.file");
-        } finally {
-            FileUtils.deleteQuietly(profileImage);
         }
         
+        this.profileImageService.deleteProfileImage(participant);
         participant.setProfileImage(fileName);
+        participant.setProfileImageStatus(ProfileImageStatus.PROCESSING);
         this.participantRepository.save(participant);
+        this.profileImageService.processProfileImage(participant.getId(), fileName, profileImage);
         
-        return this.s3Utils.getPreSignedUrl(fileName);
+        String profileImageKey = this.profileImageService.getProfileImageKey(fileName);
+        return new ProfileImageUploadDto(ProfileImageStatus.PROCESSING, profileImageKey, this.s3Utils.getPreSignedUrl(profileImageKey));
     }
     
     public void deleteParticipantProfileImage(String participantId) {
@@ -419,7 +491,9 @@ public class ParticipantService extends BaseService<Participant, UUID> {
             throw new BadDataException("file.not.found");
         }
         
+        this.profileImageService.deleteProfileImage(participant);
         participant.setProfileImage(null);
+        participant.setProfileImageStatus(null);
         this.participantRepository.save(participant);
     }
     
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.core.service.participant;
+
+import eu.gaiax.wizard.api.model.setting.OnboardingSettings;
+import eu.gaiax.wizard.api.utils.StringPool;
+import eu.gaiax.wizard.core.service.job.ScheduleService;
+import eu.gaiax.wizard.core.service.keycloak.KeycloakService;
+import eu.gaiax.wizard.dao.entity.participant.Participant;
+import eu.gaiax.wizard.dao.repository.participant.ParticipantRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.SchedulerException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Provisions the Keycloak user of a registered participant outside the registration request.
+ * <p>
+ * The provisioning job is created in the transaction of the registration, the Quartz job store shares the datasource,
+ * so the job exists exactly if the participant does. A participant keeps the user provisioned flag unset until the
+ * user is created and the actions email is sent. A provisioning that failed or got lost, e.g. because the node running
+ * it stopped, is picked up again once the participant has not been touched for the stale period.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ParticipantUserService {
+
+    private final ParticipantRepository participantRepository;
+    private final KeycloakService keycloakService;
+    private final ScheduleService scheduleService;
+    private final RegistrationStatusCache registrationStatusCache;
+    private final OnboardingSettings onboardingSettings;
+
+    /**
+     * Schedules the user provisioning of a participant. Called in the registration transaction, the job is only
+     * created if the registration commits. If the job can not be created the recovery picks the participant up.
+     *
+     * @param participantId the participant id
+     */
+    public void scheduleProvisioning(UUID participantId) {
+        try {
+            this.scheduleService.createJob(participantId.toString(), StringPool.JOB_TYPE_PROVISION_USER, Duration.ZERO);
+        } catch (SchedulerException e) {
+            log.error("ParticipantUserService(scheduleProvisioning) -> Provisioning of participant {} not scheduled, left to the recovery", participantId, e);
+        }
+    }
+
+    /**
+     * Creates the Keycloak user of a participant, assigns the participant role and sends the actions email.
+     *
+     * @param participantId the participant id
+     * @return false if the provisioning failed and is left to the recovery
+     */
+    public boolean provision(UUID participantId) {
+        Participant participant = this.participantRepository.findById(participantId).orElse(null);
+        if (participant == null || participant.isUserProvisioned()) {
+            log.debug("ParticipantUserService(provision) -> Nothing to provision for participant {}", participantId);
+            return true;
+        }
+        try {
+            this.keycloakService.createParticipantUser(participant.getId().toString(), participant.getLegalName(), participant.getEmail());
+        } catch (Exception e) {
+            log.error("ParticipantUserService(provision) -> User of participant {} not provisioned, retried after {}", participantId, this.onboardingSettings.staleAfter(), e);
+            return false;
+        }
+        this.participantRepository.markUserProvisioned(List.of(participantId));
+        this.registrationStatusCache.evict(participant.getEmail());
+        log.info("ParticipantUserService(provision) -> User of participant {} provisioned", participantId);
+        return true;
+    }
+
+    /**
+     * Picks up provisionings that failed or got lost. Each participant is claimed first, so only one node schedules
+     * it and it is not scheduled again before the next stale period.
+     */
+    @Scheduled(fixedDelayString = "${wizard.onboarding.recovery-interval:PT5M}")
+    public void recoverUnprovisionedUsers() {
+        Date now = new Date();
+        Date staleBefore = new Date(now.getTime() - this.onboardingSettings.staleAfter().toMillis());
+        for (Participant participant : this.participantRepository.findAllByUserProvisionedFalseAndUpdatedAtBefore(staleBefore)) {
+            if (this.participantRepository.claimUserProvisioning(participant.getId(), now, staleBefore) == 1) {
+                log.info("ParticipantUserService(recoverUnprovisionedUsers) -> Recover user provisioning of participant {}", participant.getId());
+                this.scheduleProvisioning(participant.getId());
+            }
+        }
+    }
+}
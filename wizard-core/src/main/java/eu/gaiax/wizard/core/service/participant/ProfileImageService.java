@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.core.service.participant;
+
+import eu.gaiax.wizard.api.model.ProfileImageStatus;
+import eu.gaiax.wizard.api.model.setting.ProfileImageSettings;
+import eu.gaiax.wizard.api.utils.S3Utils;
+import eu.gaiax.wizard.dao.entity.participant.Participant;
+import eu.gaiax.wizard.dao.repository.participant.ParticipantRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Turns uploaded profile images into re-encoded JPEGs. Decoding and encoding again drops every metadata segment
+ * (EXIF, GPS, XMP, embedded thumbnails) of the upload. Next to the full-size image a fixed set of derivatives is
+ * stored, so listings never have to load the full-size image:
+ * <pre>
+ * participant/{participantId}/{version}/source.{ext}   raw upload, removed once processed
+ * participant/{participantId}/{version}/original.jpg
+ * participant/{participantId}/{version}/{derivative}.jpg
+ * </pre>
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ProfileImageService {
+
+    private static final String ORIGINAL = "original";
+    private static final String JPEG_EXTENSION = ".jpg";
+
+    private final S3Utils s3Utils;
+    private final ParticipantRepository participantRepository;
+    private final ProfileImageSettings profileImageSettings;
+
+    /**
+     * Whether the file can be decoded as an image. Only the header is read.
+     *
+     * @param file the file
+     * @return true if an image reader understands the file
+     */
+    public static boolean isImage(File file) {
+        try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(file)) {
+            return imageInputStream != null && ImageIO.getImageReaders(imageInputStream).hasNext();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Processes the uploaded image in the background. The source file is owned by this method and deleted when done.
+     *
+     * @param participantId the participant id
+     * @param sourceKey     the object name of the raw upload, which is the participant's profile image until processing is done
+     * @param source        the uploaded file
+     */
+    @Async
+    public void processProfileImage(UUID participantId, String sourceKey, File source) {
+        String directory = sourceKey.substring(0, sourceKey.lastIndexOf('/') + 1);
+        List<String> storedKeys = new ArrayList<>();
+        try {
+            BufferedImage image = this.readImage(source, sourceKey);
+            this.storeJpeg(directory + ORIGINAL + JPEG_EXTENSION, image, this.profileImageSettings.maxDimension(), storedKeys);
+            for (Map.Entry<String, Integer> derivative : this.profileImageSettings.derivatives().entrySet()) {
+                this.storeJpeg(directory + derivative.getKey() + JPEG_EXTENSION, image, derivative.getValue(), storedKeys);
+            }
+
+            if (this.participantRepository.updateProfileImage(participantId, sourceKey, directory + ORIGINAL + JPEG_EXTENSION, ProfileImageStatus.READY) == 0) {
+                log.info("ProfileImageService(processProfileImage) -> Profile image of participant {} has been replaced meanwhile, discarding {}", participantId, directory);
+                storedKeys.forEach(this.s3Utils::deleteFile);
+            }
+            log.info("ProfileImageService(processProfileImage) -> Profile image {} of participant {} processed.", sourceKey, participantId);
+        } catch (Exception e) {
+            log.error("ProfileImageService(processProfileImage) -> Not able to process profile image {} of participant {}", sourceKey, participantId, e);
+            storedKeys.forEach(this.s3Utils::deleteFile);
+            this.participantRepository.updateProfileImage(participantId, sourceKey, null, ProfileImageStatus.FAILED);
+        } finally {
+            this.s3Utils.deleteFile(sourceKey);
+            FileUtils.deleteQuietly(source);
+        }
+    }
+
+    /**
+     * Object name of the image shown as the participant's profile image once the upload is processed.
+     *
+     * @param sourceKey the object name of the raw upload
+     * @return the object name of the profile derivative, of the full-size image if that derivative is not configured
+     */
+    public String getProfileImageKey(String sourceKey) {
+        String directory = sourceKey.substring(0, sourceKey.lastIndexOf('/') + 1);
+        String derivative = this.profileImageSettings.derivatives().containsKey(this.profileImageSettings.profileDerivative())
+                ? this.profileImageSettings.profileDerivative() : ORIGINAL;
+        return directory + derivative + JPEG_EXTENSION;
+    }
+
+    /**
+     * Urls of the full-size image and its derivatives. While the upload is still processing or for images uploaded
+     * before derivatives existed, only the stored image itself is available.
+     *
+     * @param participant the participant
+     * @return derivative name to url, empty if the participant has no profile image
+     */
+    public Map<String, String> getProfileImageUrls(Participant participant) {
+        if (!StringUtils.hasText(participant.getProfileImage())) {
+            return Map.of();
+        }
+        Map<String, String> urls = new LinkedHashMap<>();
+        if (participant.getProfileImageStatus() == ProfileImageStatus.READY) {
+            String directory = participant.getProfileImage().substring(0, participant.getProfileImage().lastIndexOf('/') + 1);
+            this.profileImageSettings.derivatives().keySet().stream().sorted()
+                    .forEach(derivative -> urls.put(derivative, this.s3Utils.getPreSignedUrl(directory + derivative + JPEG_EXTENSION)));
+        }
+        urls.put(ORIGINAL, this.s3Utils.getPreSignedUrl(participant.getProfileImage()));
+        return urls;
+    }
+
+    /**
+     * Removes the stored image and its derivatives.
+     *
+     * @param participant the participant
+     */
+    public void deleteProfileImage(Participant participant) {
+        if (!StringUtils.hasText(participant.getProfileImage())) {
+            return;
+        }
+        if (participant.getProfileImageStatus() == ProfileImageStatus.READY) {
+            String directory = participant.getProfileImage().substring(0, participant.getProfileImage().lastIndexOf('/') + 1);
+            this.profileImageSettings.derivatives().keySet().forEach(derivative -> this.s3Utils.deleteFile(directory + derivative + JPEG_EXTENSION));
+        }
+        this.s3Utils.deleteFile(participant.getProfileImage());
+    }
+
+    /**
+     * Decodes the image once its dimensions, read from the header, are within the configured pixel limit, so a small
+     * file declaring huge dimensions is never decoded into memory.
+     */
+    private BufferedImage readImage(File source, String sourceKey) throws IOException {
+        try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(source)) {
+            Iterator<ImageReader> readers = imageInputStream == null ? Collections.emptyIterator() : ImageIO.getImageReaders(imageInputStream);
+            if (!readers.hasNext()) {
+                throw new IOException("No image reader for " + sourceKey);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInputStream, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > this.profileImageSettings.maxSourcePixels()) {
+                    throw new IOException("Image " + sourceKey + " has " + pixels + " pixels, more than the allowed " + this.profileImageSettings.maxSourcePixels());
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private void storeJpeg(String objectName, BufferedImage image, int maxDimension, List<String> storedKeys) throws IOException {
+        this.s3Utils.uploadBytes(objectName, this.toJpeg(resize(image, maxDimension)), MediaType.IMAGE_JPEG_VALUE);
+        storedKeys.add(objectName);
+    }
+
+    private byte[] toJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(this.profileImageSettings.quality());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(outputStream)) {
+            writer.setOutput(imageOutputStream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Scales the image down to fit into a square of {@code maxDimension}, halving the size step by step to keep
+     * bilinear scaling sharp. Transparent areas are flattened onto white since JPEG has no alpha channel.
+     */
+    private static BufferedImage resize(BufferedImage image, int maxDimension) {
+        double scale = Math.min(1d, (double) maxDimension / Math.max(image.getWidth(), image.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+        BufferedImage current = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, Color.WHITE, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+}
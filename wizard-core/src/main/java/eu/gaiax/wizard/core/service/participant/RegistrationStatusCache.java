@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.core.service.participant;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import eu.gaiax.wizard.api.model.CheckParticipantRegisteredResponse;
+import eu.gaiax.wizard.api.model.setting.RegistrationCheckSettings;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+/**
+ * Registration status per email for the public registration check, which the UI polls while a user enrols the login
+ * device. A configured device is a final state and is kept for long; everything else expires quickly so the poll
+ * notices the enrolment. Registering a participant or resending the enrolment email evicts the entry. Emails are
+ * stored lowercased, as the participant's email is, so the loader gets the lowercased email.
+ */
+@Component
+public class RegistrationStatusCache {
+
+    private final Cache<String, CheckParticipantRegisteredResponse> cache;
+
+    public RegistrationStatusCache(RegistrationCheckSettings settings) {
+        long configuredTtl = settings.configuredTtl().toNanos();
+        long notConfiguredTtl = settings.notConfiguredTtl().toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(settings.maxSize())
+                .expireAfter(new Expiry<String, CheckParticipantRegisteredResponse>() {
+                    @Override
+                    public long expireAfterCreate(String email, CheckParticipantRegisteredResponse status, long currentTime) {
+                        return Boolean.TRUE.equals(status.deviceConfigured()) ? configuredTtl : notConfiguredTtl;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String email, CheckParticipantRegisteredResponse status, long currentTime, long currentDuration) {
+                        return this.expireAfterCreate(email, status, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String email, CheckParticipantRegisteredResponse status, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    public CheckParticipantRegisteredResponse get(String email, Function<String, CheckParticipantRegisteredResponse> loader) {
+        return this.cache.get(email.toLowerCase(), loader);
+    }
+
+    public void evict(String email) {
+        if (email != null) {
+            this.cache.invalidate(email.toLowerCase());
+        }
+    }
+}
@@ -1,11 +1,12 @@
 package eu.gaiax.wizard.core.service.participant;
 
-import eu.gaiax.wizard.vault.Vault;
+import eu.gaiax.wizard.api.vault.Vault;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -15,12 +16,22 @@ import java.util.Objects;
 @RequiredArgsConstructor
 public class VaultService {
 
+    public static final String ACME_ACCOUNT_SECRET = "acme-account";
+    public static final String ACME_ACCOUNT_KEY = "account.key";
+    public static final String ACME_ACCOUNT_PROVIDER = "account.provider";
+    public static final String ACME_ACCOUNT_URL = "account.url";
+    public static final String WILDCARD_CERTIFICATE_SECRET = "wildcard-certificate";
+    public static final String CERTIFICATE_CHAIN = "x509CertificateChain.pem";
+    public static final String DOMAIN_KEY = "domain.key";
+    public static final String PKCS8_KEY = "pkcs8.key";
+    public static final String SHARED_KEY = "shared.key";
+
     private final Vault vault;
 
     public void uploadCertificatesToVault(String participantId, String domainChain, String csr, String key, String pkcs8Key) {
         Map<String, Object> data = new HashMap<>();
         if (StringUtils.hasText(domainChain)) {
-            data.put("x509CertificateChain.pem", domainChain);
+            data.put(CERTIFICATE_CHAIN, domainChain);
         }
         if (StringUtils.hasText(csr)) {
             data.put(participantId + ".csr", csr);
@@ -29,7 +40,7 @@ public class VaultService {
             data.put(participantId + ".key", key);
         }
         if (StringUtils.hasText(pkcs8Key)) {
-            data.put("pkcs8.key", pkcs8Key);
+            data.put(PKCS8_KEY, pkcs8Key);
         }
         if (Objects.isNull(this.vault.get(participantId))) {
             this.vault.put(participantId, data);
@@ -40,16 +51,125 @@ public class VaultService {
     }
 
     public String getParticipantPrivateKeySecret(String participantId) {
-        if (this.vault.get(participantId) != null && this.vault.get(participantId).containsKey("pkcs8.key")) {
-            return this.vault.get(participantId).get("pkcs8.key").toString();
+        Map<String, Object> secret = this.vault.get(participantId);
+        if (secret != null && secret.containsKey(PKCS8_KEY)) {
+            return secret.get(PKCS8_KEY).toString();
         }
         return null;
     }
 
     public Map<String, Object> getParticipantSecretData(String participantId) {
-        if (this.vault.get(participantId) != null) {
-            return this.vault.get(participantId);
+        return this.vault.get(participantId);
+    }
+
+    public Map<String, Map<String, Object>> getParticipantsSecretData(Collection<String> participantIds) {
+        return this.vault.getMany(participantIds);
+    }
+
+    /**
+     * Gets the ACME account shared by all nodes.
+     *
+     * @return the account key pair (PEM), the ACME provider and the account url, null if no account is stored yet
+     */
+    public Map<String, Object> getAcmeAccount() {
+        return this.vault.get(ACME_ACCOUNT_SECRET);
+    }
+
+    /**
+     * Stores the ACME account shared by all nodes.
+     *
+     * @param keyPair    the account key pair (PEM)
+     * @param provider   the ACME provider the account is registered at
+     * @param accountUrl the account url
+     */
+    public void storeAcmeAccount(String keyPair, String provider, String accountUrl) {
+        Map<String, Object> data = new HashMap<>();
+        data.put(ACME_ACCOUNT_KEY, keyPair);
+        data.put(ACME_ACCOUNT_PROVIDER, provider);
+        data.put(ACME_ACCOUNT_URL, accountUrl);
+        if (Objects.isNull(this.vault.get(ACME_ACCOUNT_SECRET))) {
+            this.vault.put(ACME_ACCOUNT_SECRET, data);
+        } else {
+            this.vault.patch(ACME_ACCOUNT_SECRET, data);
         }
-        return null;
+        log.info("VaultService(storeAcmeAccount) -> ACME account {} has been stored on vault.", accountUrl);
+    }
+
+    /**
+     * Gets the wildcard certificate of the participant sub domains.
+     *
+     * @return the certificate chain, the key pair (PEM) and the pkcs8 key, null if no wildcard certificate is stored yet
+     */
+    public Map<String, Object> getWildcardCertificate() {
+        return this.vault.get(WILDCARD_CERTIFICATE_SECRET);
+    }
+
+    /**
+     * Stores the wildcard certificate of the participant sub domains.
+     *
+     * @param domainChain the certificate chain
+     * @param key         the key pair (PEM)
+     * @param pkcs8Key    the private key in pkcs8 format
+     */
+    public void storeWildcardCertificate(String domainChain, String key, String pkcs8Key) {
+        Map<String, Object> data = new HashMap<>();
+        data.put(CERTIFICATE_CHAIN, domainChain);
+        data.put(DOMAIN_KEY, key);
+        data.put(PKCS8_KEY, pkcs8Key);
+        if (Objects.isNull(this.vault.get(WILDCARD_CERTIFICATE_SECRET))) {
+            this.vault.put(WILDCARD_CERTIFICATE_SECRET, data);
+        } else {
+            this.vault.patch(WILDCARD_CERTIFICATE_SECRET, data);
+        }
+        log.info("VaultService(storeWildcardCertificate) -> Wildcard certificate has been stored on vault.");
+    }
+
+    /**
+     * Stores the key pair of the first wildcard certificate when it is ordered, so that the order can be finalized on
+     * any node.
+     *
+     * @param key the key pair (PEM)
+     */
+    public void storeWildcardKey(String key) {
+        Map<String, Object> data = new HashMap<>();
+        data.put(DOMAIN_KEY, key);
+        if (Objects.isNull(this.vault.get(WILDCARD_CERTIFICATE_SECRET))) {
+            this.vault.put(WILDCARD_CERTIFICATE_SECRET, data);
+        } else {
+            this.vault.patch(WILDCARD_CERTIFICATE_SECRET, data);
+        }
+        log.info("VaultService(storeWildcardKey) -> Wildcard key has been stored on vault.");
+    }
+
+    /**
+     * Stores the wildcard certificate as certificate of a participant. The participant signs with the wildcard key, it
+     * is marked as shared so that it is never handed out.
+     *
+     * @param participantId the participant id
+     * @param domainChain   the wildcard certificate chain
+     * @param pkcs8Key      the wildcard private key in pkcs8 format
+     */
+    public void storeSharedCertificate(String participantId, String domainChain, String pkcs8Key) {
+        Map<String, Object> data = new HashMap<>();
+        data.put(CERTIFICATE_CHAIN, domainChain);
+        data.put(PKCS8_KEY, pkcs8Key);
+        data.put(SHARED_KEY, Boolean.TRUE.toString());
+        if (Objects.isNull(this.vault.get(participantId))) {
+            this.vault.put(participantId, data);
+        } else {
+            this.vault.patch(participantId, data);
+        }
+        log.info("VaultService(storeSharedCertificate) -> Wildcard certificate has been stored for participant {}.", participantId);
+    }
+
+    /**
+     * Whether the participant signs with the shared wildcard key.
+     *
+     * @param participantId the participant id
+     * @return true if the key of the participant is shared
+     */
+    public boolean isSharedKey(String participantId) {
+        Map<String, Object> secret = this.vault.get(participantId);
+        return secret != null && Boolean.parseBoolean(String.valueOf(secret.get(SHARED_KEY)));
     }
 }
@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.core.service.service_offer;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import eu.gaiax.wizard.api.exception.BadDataException;
+import eu.gaiax.wizard.api.exception.EntityNotFoundException;
+import eu.gaiax.wizard.api.model.LabelLevelFileStatus;
+import eu.gaiax.wizard.api.model.LabelLevelFileTypeEnum;
+import eu.gaiax.wizard.api.model.service_offer.LabelLevelFileUpload;
+import eu.gaiax.wizard.api.model.service_offer.LabelLevelUploadUrlRequest;
+import eu.gaiax.wizard.api.model.service_offer.LabelLevelUploadUrlResponse;
+import eu.gaiax.wizard.api.model.setting.LabelLevelUploadSettings;
+import eu.gaiax.wizard.api.utils.CommonUtils;
+import eu.gaiax.wizard.api.utils.S3Utils;
+import eu.gaiax.wizard.api.utils.Validate;
+import eu.gaiax.wizard.dao.entity.service_offer.LabelLevelFiles;
+import eu.gaiax.wizard.dao.repository.service_offer.LabelLevelFilesRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.*;
+
+import static eu.gaiax.wizard.api.utils.StringPool.TEMP_FOLDER;
+
+/**
+ * Label level evidence files are uploaded by the client straight to the object store with a presigned url, so the
+ * file never passes through the application. A direct upload lands under its own key
+ * ({@code label-level-uploads/{uploadId}}) and is tracked as {@link LabelLevelFileStatus#PENDING} until the client
+ * confirms it and the stored bytes have been checked against what was declared.
+ * <p>
+ * Files are stored once under their SHA-256 ({@code public/label-level/{sha256}}); every upload is a
+ * {@link LabelLevelFiles} row referencing that object. Known content is only recognised from a hash the server
+ * computed itself, so a client can neither probe for stored hashes nor claim a file it does not have. Stored files
+ * are never removed, so no upload can lose the object it refers to.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class LabelLevelFileService {
+
+    private static final String LABEL_LEVEL_FILE_PREFIX = "public/label-level/";
+    private static final String LABEL_LEVEL_UPLOAD_PREFIX = "label-level-uploads/";
+
+    private final S3Utils s3Utils;
+    private final LabelLevelFilesRepository labelLevelFilesRepository;
+    private final LabelLevelUploadSettings labelLevelUploadSettings;
+
+    @Transactional
+    public LabelLevelUploadUrlResponse createUploadUrl(LabelLevelUploadUrlRequest request) {
+        this.validateFileType(request.fileType());
+        Validate.isTrue(request.size() > this.labelLevelUploadSettings.maxFileSize().toBytes()).launch(new BadDataException("file.size.exceeds.limit"));
+        Validate.isFalse(this.isAllowedContentType(request.contentType())).launch(new BadDataException("invalid.label.level.file.content.type"));
+
+        String contentHash = request.sha256().toLowerCase();
+        String checksum = Base64.getEncoder().encodeToString(HexFormat.of().parseHex(contentHash));
+        LabelLevelFiles labelLevelFile = this.saveFile(request.fileName(), request.contentType(), request.size(), contentHash, LabelLevelFileStatus.PENDING);
+
+        Date expiresAt = new Date(System.currentTimeMillis() + this.labelLevelUploadSettings.urlExpiry().toMillis());
+        String uploadUrl = this.s3Utils.generatePresignedPutUrl(uploadKey(labelLevelFile), request.contentType(), request.size(), checksum, expiresAt);
+        log.info("LabelLevelFileService(createUploadUrl) -> Upload url issued for label level file {} with upload id {}", labelLevelFile.getFilePath(), labelLevelFile.getId());
+
+        return new LabelLevelUploadUrlResponse(labelLevelFile.getId(), uploadUrl, "PUT",
+                Map.of(HttpHeaders.CONTENT_TYPE, request.contentType(),
+                        HttpHeaders.CONTENT_LENGTH, String.valueOf(request.size()),
+                        S3Utils.CHECKSUM_SHA256_HEADER, checksum),
+                expiresAt);
+    }
+
+    /**
+     * Upload through the application. The file is hashed while it is streamed to a temporary file and only stored
+     * when no file with the same content exists yet.
+     *
+     * @param labelLevelFileUpload the upload
+     * @return the public url of the file
+     */
+    @Transactional
+    public String uploadFile(LabelLevelFileUpload labelLevelFileUpload) throws IOException {
+        this.validateFileType(labelLevelFileUpload.fileType());
+        MultipartFile multipartFile = labelLevelFileUpload.file();
+        Validate.isTrue(multipartFile.getSize() > this.labelLevelUploadSettings.maxFileSize().toBytes()).launch(new BadDataException("file.size.exceeds.limit"));
+        String contentType = Optional.ofNullable(multipartFile.getContentType()).orElse(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+
+        File file = new File(TEMP_FOLDER + UUID.randomUUID());
+        try {
+            MessageDigest digest = CommonUtils.sha256Digest();
+            long size;
+            try (InputStream inputStream = new DigestInputStream(multipartFile.getInputStream(), digest);
+                 OutputStream outputStream = new FileOutputStream(file)) {
+                size = inputStream.transferTo(outputStream);
+            }
+            String contentHash = HexFormat.of().formatHex(digest.digest());
+            String filePath = LABEL_LEVEL_FILE_PREFIX + contentHash;
+
+            if (this.labelLevelFilesRepository.existsByContentHashAndStatus(contentHash, LabelLevelFileStatus.UPLOADED)) {
+                log.info("LabelLevelFileService(uploadFile) -> Label level file {} is already stored, upload skipped.", filePath);
+            } else {
+                this.s3Utils.uploadFile(filePath, file, contentType);
+            }
+            this.saveFile(multipartFile.getOriginalFilename(), contentType, size, contentHash, LabelLevelFileStatus.UPLOADED);
+            return this.s3Utils.getObject(filePath);
+        } finally {
+            CommonUtils.deleteFile(file);
+        }
+    }
+
+    /**
+     * Confirms a direct upload. The uploaded object is checked against the declared size and content type and its
+     * bytes are hashed; a mismatch removes the object. Matching content is moved to its content key unless that file
+     * is stored already. The rejection is kept when the call fails.
+     *
+     * @param uploadId the upload id returned with the upload url
+     * @return the public url of the file
+     */
+    @Transactional(noRollbackFor = BadDataException.class)
+    public String completeUpload(UUID uploadId) throws IOException {
+        LabelLevelFiles labelLevelFile = this.labelLevelFilesRepository.findById(uploadId).orElseThrow(() -> new EntityNotFoundException("label.level.file.not.found"));
+        if (labelLevelFile.getStatus() == LabelLevelFileStatus.UPLOADED) {
+            return this.s3Utils.getObject(labelLevelFile.getFilePath());
+        }
+        Validate.isFalse(labelLevelFile.getStatus() == LabelLevelFileStatus.PENDING).launch(new BadDataException("label.level.file.upload.rejected"));
+
+        String uploadKey = uploadKey(labelLevelFile);
+        ObjectMetadata metadata = this.s3Utils.getObjectMetadata(uploadKey);
+        Validate.isNull(metadata).launch(new BadDataException("label.level.file.not.uploaded"));
+
+        if (metadata.getContentLength() != labelLevelFile.getSize() || !labelLevelFile.getContentType().equalsIgnoreCase(metadata.getContentType())) {
+            log.warn("LabelLevelFileService(completeUpload) -> Uploaded object {} does not match the declared file, size {} content type {}", uploadKey, metadata.getContentLength(), metadata.getContentType());
+            this.reject(labelLevelFile, uploadKey);
+        }
+        String contentHash = this.s3Utils.getContentHash(uploadKey);
+        if (!contentHash.equals(labelLevelFile.getContentHash())) {
+            log.warn("LabelLevelFileService(completeUpload) -> Uploaded object {} does not match the declared hash", uploadKey);
+            this.reject(labelLevelFile, uploadKey);
+        }
+
+        if (this.labelLevelFilesRepository.existsByContentHashAndStatus(contentHash, LabelLevelFileStatus.UPLOADED)) {
+            log.info("LabelLevelFileService(completeUpload) -> Label level file {} is already stored.", labelLevelFile.getFilePath());
+        } else {
+            // concurrent uploads of the same content copy the same bytes, so the last copy wins harmlessly
+            this.s3Utils.copyFile(uploadKey, labelLevelFile.getFilePath());
+        }
+        this.s3Utils.deleteFile(uploadKey);
+
+        labelLevelFile.setStatus(LabelLevelFileStatus.UPLOADED);
+        this.labelLevelFilesRepository.save(labelLevelFile);
+        log.info("LabelLevelFileService(completeUpload) -> Label level file {} has been uploaded.", labelLevelFile.getFilePath());
+        return this.s3Utils.getObject(labelLevelFile.getFilePath());
+    }
+
+    /**
+     * Removes uploads that were never confirmed, together with the object the client may have uploaded. Every node runs
+     * the purge, so each row is claimed by deleting it while it is still pending and only the node whose delete
+     * succeeded removes the object.
+     */
+    @Scheduled(fixedDelayString = "${wizard.label-level-upload.purge-interval:PT1H}")
+    public void purgeStaleUploads() {
+        Date threshold = new Date(System.currentTimeMillis() - this.labelLevelUploadSettings.urlExpiry().multipliedBy(2).toMillis());
+        int purged = 0;
+        for (LabelLevelFiles staleUpload : this.labelLevelFilesRepository.findAllByStatusAndCreatedAtBefore(LabelLevelFileStatus.PENDING, threshold)) {
+            if (this.labelLevelFilesRepository.deleteByIdAndStatus(staleUpload.getId(), LabelLevelFileStatus.PENDING) != 1) {
+                continue;
+            }
+            purged++;
+            try {
+                this.s3Utils.deleteFile(uploadKey(staleUpload));
+            } catch (Exception e) {
+                log.error("LabelLevelFileService(purgeStaleUploads) -> Not able to delete object {}", uploadKey(staleUpload), e);
+            }
+        }
+        if (purged > 0) {
+            log.info("LabelLevelFileService(purgeStaleUploads) -> {} stale label level uploads removed.", purged);
+        }
+    }
+
+    private LabelLevelFiles saveFile(String fileName, String contentType, long size, String contentHash, LabelLevelFileStatus status) {
+        return this.labelLevelFilesRepository.save(LabelLevelFiles.builder()
+                .filePath(LABEL_LEVEL_FILE_PREFIX + contentHash)
+                .fileName(fileName)
+                .contentType(contentType)
+                .size(size)
+                .contentHash(contentHash)
+                .status(status)
+                .build());
+    }
+
+    private void reject(LabelLevelFiles labelLevelFile, String uploadKey) {
+        this.s3Utils.deleteFile(uploadKey);
+        labelLevelFile.setStatus(LabelLevelFileStatus.REJECTED);
+        this.labelLevelFilesRepository.save(labelLevelFile);
+        throw new BadDataException("label.level.file.upload.rejected");
+    }
+
+    private static String uploadKey(LabelLevelFiles labelLevelFile) {
+        return LABEL_LEVEL_UPLOAD_PREFIX + labelLevelFile.getId();
+    }
+
+    private void validateFileType(String fileType) {
+        try {
+            LabelLevelFileTypeEnum.valueOf(fileType);
+        } catch (Exception e) {
+            throw new BadDataException("invalid.label.level.file");
+        }
+    }
+
+    private boolean isAllowedContentType(String contentType) {
+        List<String> allowedContentTypes = this.labelLevelUploadSettings.allowedContentTypes();
+        return allowedContentTypes.isEmpty() || allowedContentTypes.stream().anyMatch(contentType::equalsIgnoreCase);
+    }
+
+}
@@ -78,7 +78,7 @@ public class PolicyService {
         File file = new File(TEMP_FOLDER + hostedPath);
         try {
             FileUtils.writeStringToFile(file, hostPolicyJson, Charset.defaultCharset());
-            this.s3Utils.uploadFile(hostedPath, file);
+            this.s3Utils.uploadHostedFile(hostedPath, file);
         } catch (Exception e) {
             log.error("Error while hosting policy json on path " + hostedPath, e);
         } finally {
@@ -6,11 +6,8 @@ import com.smartsensesolutions.java.commons.specification.SpecificationUtil;
 import eu.gaiax.wizard.api.exception.BadDataException;
 import eu.gaiax.wizard.api.model.CredentialTypeEnum;
 import eu.gaiax.wizard.api.model.did.ServiceEndpointConfig;
-import eu.gaiax.wizard.api.model.service_offer.LabelLevelFileUpload;
 import eu.gaiax.wizard.api.model.service_offer.LabelLevelRequest;
 import eu.gaiax.wizard.api.model.setting.ContextConfig;
-import eu.gaiax.wizard.api.utils.CommonUtils;
-import eu.gaiax.wizard.api.utils.S3Utils;
 import eu.gaiax.wizard.api.utils.Validate;
 import eu.gaiax.wizard.core.service.credential.CredentialService;
 import eu.gaiax.wizard.core.service.hashing.HashingService;
@@ -25,23 +22,16 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.rmi.RemoteException;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 
-import static eu.gaiax.wizard.api.utils.StringPool.TEMP_FOLDER;
-
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class ServiceLabelLevelService extends BaseService<ServiceLabelLevel, UUID> {
 
-    private final S3Utils s3Utils;
     private final ContextConfig contextConfig;
     private final SignerService signerService;
     private final CredentialService credentialService;
@@ -76,26 +66,6 @@ public class ServiceLabelLevelService extends BaseService<ServiceLabelLevel, UUI
         );
     }
 
-    public String uploadLabelLevelFile(LabelLevelFileUpload labelLevelFileUpload) throws IOException {
-        File file = new File(TEMP_FOLDER + labelLevelFileUpload.file().getOriginalFilename());
-        String originalFileName = Optional.ofNullable(labelLevelFileUpload.file().getOriginalFilename())
-                .map(originalName -> originalName.replace(" ", "_"))
-                .orElse(UUID.randomUUID().toString());
-        
-        String fileName = "public/label-level/" + labelLevelFileUpload.fileType() + "/" + originalFileName;
-        try (FileOutputStream fos = new FileOutputStream(file)) {
-            fos.write(labelLevelFileUpload.file().getBytes());
-
-            this.s3Utils.uploadFile(fileName, file);
-            return this.s3Utils.getObject(fileName);
-        } catch (Exception e) {
-            throw new RemoteException("File not Upload " + e.getMessage());
-        } finally {
-            CommonUtils.deleteFile(file);
-        }
-
-    }
-
     private String signLabelLevelVc(LabelLevelRequest request, Participant participant, String name, String assignerTo) {
         String id = this.wizardHost + participant.getId() + "/" + name + ".json";
         String issuanceDate = LocalDateTime.now().atZone(ZoneOffset.UTC).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
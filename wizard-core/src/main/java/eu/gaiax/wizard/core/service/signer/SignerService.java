@@ -31,7 +31,6 @@ import eu.gaiax.wizard.api.utils.Validate;
 import eu.gaiax.wizard.core.service.InvokeService;
 import eu.gaiax.wizard.core.service.credential.CredentialService;
 import eu.gaiax.wizard.core.service.hashing.HashingService;
-import eu.gaiax.wizard.core.service.job.ScheduleService;
 import eu.gaiax.wizard.dao.entity.participant.Participant;
 import eu.gaiax.wizard.dao.repository.participant.ParticipantRepository;
 import lombok.SneakyThrows;
@@ -40,7 +39,6 @@ import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.io.FileUtils;
 import org.json.JSONArray;
 import org.json.JSONObject;
-import org.quartz.SchedulerException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
@@ -76,7 +74,6 @@ public class SignerService {
     private final SignerClient signerClient;
     private final S3Utils s3Utils;
     private final ObjectMapper mapper;
-    private final ScheduleService scheduleService;
     private final ServiceEndpointConfig serviceEndpointConfig;
     private final MessageSource messageSource;
     private final List<String> policies;
@@ -85,7 +82,7 @@ public class SignerService {
 
     public SignerService(ContextConfig contextConfig, CredentialService credentialService,
                          ParticipantRepository participantRepository, SignerClient signerClient,
-                         S3Utils s3Utils, ObjectMapper mapper, ScheduleService scheduleService,
+                         S3Utils s3Utils, ObjectMapper mapper,
                          ServiceEndpointConfig serviceEndpointConfig, MessageSource messageSource,
                          @Value("${wizard.signer-policies}") List<String> policies, @Value("${wizard.host.wizard}") String wizardHost, @Value("${wizard.gaiax.tnc}") String tnc) {
         this.contextConfig = contextConfig;
@@ -94,7 +91,6 @@ public class SignerService {
         this.signerClient = signerClient;
         this.s3Utils = s3Utils;
         this.mapper = mapper;
-        this.scheduleService = scheduleService;
         this.serviceEndpointConfig = serviceEndpointConfig;
         this.messageSource = messageSource;
         this.policies = policies;
@@ -193,7 +189,7 @@ public class SignerService {
             String participantString = this.mapper.writeValueAsString(((Map<String, Object>) Objects.requireNonNull(responseEntity.getBody()).get(DATA)).get(COMPLETE_SD));
             FileUtils.writeStringToFile(file, participantString, Charset.defaultCharset());
             String hostedPath = participant.getId() + "/" + PARTICIPANT_JSON;
-            this.s3Utils.uploadFile(hostedPath, file);
+            this.s3Utils.uploadHostedFile(hostedPath, file);
 
             String participantJsonUrl = this.formParticipantJsonUrl(participant.getDomain(), participant.getId()) + "#0";
             this.credentialService.createCredential(participantString, participantJsonUrl, CredentialTypeEnum.LEGAL_PARTICIPANT.getCredentialType(), null, participant);
@@ -222,7 +218,7 @@ public class SignerService {
         }
 
         if (!this.fetchX509Certificate(participant.getDomain())) {
-            this.createDidCreationJob(participant);
+            log.info("SignerService(createDid) -> Certificate of domain {} is not served yet, did creation has to wait.", participant.getDomain());
             return;
         }
 
@@ -236,11 +232,10 @@ public class SignerService {
             log.info("SignerService(createDid): -> Response has been received from signerClient for domain {}", domain);
             String didString = this.mapper.writeValueAsString(((Map<String, Object>) responseEntity.getBody().get(DATA)).get("did"));
             FileUtils.writeStringToFile(file, didString, Charset.defaultCharset());
-            this.s3Utils.uploadFile(participant.getId() + "/" + DID_JSON, file);
+            this.s3Utils.uploadHostedFile(participant.getId() + "/" + DID_JSON, file);
             participant.setStatus(RegistrationStatus.DID_JSON_CREATED.getStatus());
             participant.setDid("did:web:" + domain);
             log.info("SignerService(createDid) -> DID Document has been created for participant {} with did {}", participant.getId(), participant.getDid());
-            this.createParticipantCreationJob(participant);
         } catch (Exception e) {
             log.error("SignerService(createDid) -> Error while creating did json for participantID -{}", participant.getId(), e);
             participant.setStatus(RegistrationStatus.DID_JSON_CREATION_FAILED.getStatus());
@@ -262,16 +257,6 @@ public class SignerService {
         }
     }
 
-    private void createParticipantCreationJob(Participant participant) {
-        try {
-            this.scheduleService.createJob(participant.getId().toString(), StringPool.JOB_TYPE_CREATE_PARTICIPANT, 0);
-            log.info("SignerService(createParticipantCreationJob) -> Create legal participant corn has been scheduled.");
-        } catch (Exception e) {
-            participant.setStatus(RegistrationStatus.PARTICIPANT_JSON_CREATION_FAILED.getStatus());
-            log.error("SignerService(createParticipantCreationJob) -> Not able to create legal participant corn for participant {}", participant.getId(), e);
-        }
-    }
-
     public Map<String, String> signService(Participant participant, CreateServiceOfferingRequest request, String name) {
         Map<String, String> response = new HashMap<>();
         String id = this.wizardHost + participant.getId() + "/" + name + JSON_EXTENSION;
@@ -338,7 +323,7 @@ public class SignerService {
         try {
             FileUtils.writeStringToFile(file, hostServiceOfferJson, Charset.defaultCharset());
             String hostedPath = id + "/" + name + JSON_EXTENSION;
-            this.s3Utils.uploadFile(hostedPath, file);
+            this.s3Utils.uploadHostedFile(hostedPath, file);
         } catch (Exception e) {
             log.error("Error while hosting service offer json for participant: {}", id, e.getMessage());
             throw new BadDataException(e.getMessage());
@@ -418,7 +403,7 @@ public class SignerService {
                 services.put(map);
             }
             FileUtils.writeStringToFile(updatedFile, jsonObject.toString(), Charset.defaultCharset());
-            this.s3Utils.uploadFile(participantId + "/" + DID_JSON, updatedFile);
+            this.s3Utils.uploadHostedFile(participantId + "/" + DID_JSON, updatedFile);
         } catch (Exception ex) {
             log.error("Issue occurred while add service endpoint into the DID document for participant {}", participantId);
             throw new BadDataException("not.able.to.add.service.endpoint");
@@ -455,14 +440,4 @@ public class SignerService {
             return false;
         }
     }
-
-    private void createDidCreationJob(Participant participant) {
-        try {
-            this.scheduleService.createJob(participant.getId().toString(), StringPool.JOB_TYPE_CREATE_DID, 0);
-            log.info("K8sService(createDidCreationJob) -> DID creation cron has been scheduled.");
-        } catch (SchedulerException e) {
-            log.info("K8sService(createDidCreationJob) -> DID creation failed for participant {}", participant.getId());
-            participant.setStatus(RegistrationStatus.DID_JSON_CREATION_FAILED.getStatus());
-        }
-    }
 }
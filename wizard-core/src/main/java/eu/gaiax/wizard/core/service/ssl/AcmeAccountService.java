@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.core.service.ssl;
+
+import eu.gaiax.wizard.core.service.participant.VaultService;
+import lombok.extern.slf4j.Slf4j;
+import org.shredzone.acme4j.AccountBuilder;
+import org.shredzone.acme4j.Login;
+import org.shredzone.acme4j.Session;
+import org.shredzone.acme4j.exception.AcmeException;
+import org.shredzone.acme4j.util.KeyPairUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URL;
+import java.security.KeyPair;
+import java.util.Map;
+
+import static eu.gaiax.wizard.core.service.participant.VaultService.*;
+
+/**
+ * Provides the login to the ACME account all certificates are ordered with.
+ * <p>
+ * The account key pair and url are stored once in the vault and shared by all nodes, so the account is registered
+ * only once instead of for every certificate. The session, which caches the ACME directory, and the login are kept for
+ * the lifetime of the node and shared by all jobs; acme4j retries requests rejected for a bad nonce, so concurrent use
+ * is safe.
+ */
+@Service
+@Slf4j
+public class AcmeAccountService {
+
+    // RSA key size of the account key pair
+    private static final int KEY_SIZE = 2048;
+
+    private final VaultService vaultService;
+    private final String sslProvider;
+    private volatile Login login;
+
+    public AcmeAccountService(VaultService vaultService, @Value("${wizard.sslProvider}") String sslProvider) {
+        this.vaultService = vaultService;
+        this.sslProvider = sslProvider;
+    }
+
+    /**
+     * Gets the login to the shared account, registering the account on first use.
+     *
+     * @return the login
+     * @throws AcmeException if the account can not be registered
+     * @throws IOException   if the stored account can not be read
+     */
+    public Login getLogin() throws AcmeException, IOException {
+        Login current = this.login;
+        if (current == null) {
+            synchronized (this) {
+                current = this.login;
+                if (current == null) {
+                    current = this.loadOrRegister(new Session(this.sslProvider));
+                    this.login = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Drops the cached login, e.g. after the ACME server rejected it. The next call of {@link #getLogin()} reads the
+     * account from the vault again.
+     */
+    public void reset() {
+        this.login = null;
+    }
+
+    private Login loadOrRegister(Session session) throws AcmeException, IOException {
+        Map<String, Object> account = this.vaultService.getAcmeAccount();
+        KeyPair keyPair;
+        if (account != null && account.get(ACME_ACCOUNT_KEY) != null) {
+            keyPair = KeyPairUtils.readKeyPair(new StringReader(account.get(ACME_ACCOUNT_KEY).toString()));
+            if (this.sslProvider.equals(account.get(ACME_ACCOUNT_PROVIDER)) && account.get(ACME_ACCOUNT_URL) != null) {
+                log.info("AcmeAccountService(loadOrRegister) -> Using ACME account {}", account.get(ACME_ACCOUNT_URL));
+                return session.login(new URL(account.get(ACME_ACCOUNT_URL).toString()), keyPair);
+            }
+        } else {
+            log.info("AcmeAccountService(loadOrRegister) -> No ACME account stored, creating a new account key pair.");
+            keyPair = KeyPairUtils.createKeyPair(KEY_SIZE);
+        }
+
+        // an account that exists for the key is returned as is, so nodes racing here end up with the same account
+        Login registered = new AccountBuilder()
+                .agreeToTermsOfService()
+                .useKeyPair(keyPair)
+                .createLogin(session);
+        StringWriter pem = new StringWriter();
+        KeyPairUtils.writeKeyPair(keyPair, pem);
+        this.vaultService.storeAcmeAccount(pem.toString(), this.sslProvider, registered.getAccountLocation().toString());
+
+        // another node may have stored its account in the meantime, all nodes continue with the stored one
+        Map<String, Object> stored = this.vaultService.getAcmeAccount();
+        if (stored != null && !pem.toString().equals(stored.get(ACME_ACCOUNT_KEY))) {
+            log.info("AcmeAccountService(loadOrRegister) -> Another node registered the ACME account first, using {}", stored.get(ACME_ACCOUNT_URL));
+            return session.login(new URL(stored.get(ACME_ACCOUNT_URL).toString()),
+                    KeyPairUtils.readKeyPair(new StringReader(stored.get(ACME_ACCOUNT_KEY).toString())));
+        }
+        log.info("AcmeAccountService(loadOrRegister) -> Registered ACME account {}", registered.getAccountLocation());
+        return registered;
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.core.service.ssl;
+
+import eu.gaiax.wizard.api.model.setting.OnboardingSettings;
+import eu.gaiax.wizard.api.model.setting.RenewalSettings;
+import eu.gaiax.wizard.api.utils.StringPool;
+import eu.gaiax.wizard.core.service.job.ScheduleService;
+import eu.gaiax.wizard.core.service.onboarding.OnboardingStepContext;
+import eu.gaiax.wizard.core.service.participant.VaultService;
+import eu.gaiax.wizard.dao.entity.participant.Participant;
+import eu.gaiax.wizard.dao.repository.participant.ParticipantRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.SchedulerException;
+import org.shredzone.acme4j.exception.AcmeException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.security.cert.CertificateException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static eu.gaiax.wizard.core.service.participant.VaultService.CERTIFICATE_CHAIN;
+import static eu.gaiax.wizard.core.service.participant.VaultService.SHARED_KEY;
+
+/**
+ * Renews the participant certificates before they expire.
+ * <p>
+ * A cluster wide job scans the certificate chains stored in the vault and schedules one renewal job per certificate
+ * at a random time within the renewal window, i.e. between renew before plus window and renew before ahead of the
+ * expiry. Participants onboarded together are renewed spread over the window instead of all at once. The renewal
+ * jobs keep at least an hour divided by the max renewals per hour apart, including the ones scheduled by an earlier
+ * scan, so the ACME rate limits and the DNS zone are not flooded. A renewal that waits for DNS propagation or the ACME
+ * server schedules a job that continues it later, see {@link ScheduleService#continueRenewalJob}. A failed renewal is
+ * scheduled again by the next scan.
+ * <p>
+ * The upcoming renewal load is published as {@code wizard.certificate.renewals.upcoming} gauges (renewals due within
+ * one, seven and thirty days), {@code wizard.certificate.renewals.scheduled} and
+ * {@code wizard.certificate.earliest.expiry} (seconds until the earliest expiry). They are read from the certificate
+ * expiry stored with the participant and from the scheduled jobs, so every node reports the same values. The renewals
+ * are counted as {@code wizard.certificate.renewals} by outcome.
+ * <p>
+ * Participants sharing the wildcard certificate are renewed with it by {@link WildcardCertificateService}.
+ */
+@Service
+@Slf4j
+public class CertificateRenewalService {
+
+    private static final int SCAN_BATCH_SIZE = 100;
+    private static final String WITHIN_TAG = "within";
+    private static final Duration GAUGE_REFRESH = Duration.ofMinutes(1);
+    private static final String SCHEDULED = "scheduled";
+    private static final String EARLIEST_EXPIRY = "earliest.expiry";
+    private static final Map<String, Duration> UPCOMING = new LinkedHashMap<>();
+
+    static {
+        UPCOMING.put("1d", Duration.ofDays(1));
+        UPCOMING.put("7d", Duration.ofDays(7));
+        UPCOMING.put("30d", Duration.ofDays(30));
+    }
+
+    private final RenewalSettings renewalSettings;
+    private final OnboardingSettings onboardingSettings;
+    private final CertificateService certificateService;
+    private final VaultService vaultService;
+    private final ParticipantRepository participantRepository;
+    private final ScheduleService scheduleService;
+    private final MeterRegistry meterRegistry;
+    // the gauges are read on every scrape, the persisted data at most once per refresh
+    private final LoadingCache<String, Long> gaugeValues;
+
+    public CertificateRenewalService(RenewalSettings renewalSettings, OnboardingSettings onboardingSettings, CertificateService certificateService,
+                                     VaultService vaultService, ParticipantRepository participantRepository, ScheduleService scheduleService,
+                                     ObjectProvider<MeterRegistry> meterRegistry) {
+        this.renewalSettings = renewalSettings;
+        this.onboardingSettings = onboardingSettings;
+        this.certificateService = certificateService;
+        this.vaultService = vaultService;
+        this.participantRepository = participantRepository;
+        this.scheduleService = scheduleService;
+        this.meterRegistry = meterRegistry.getIfAvailable();
+        this.gaugeValues = Caffeine.newBuilder().expireAfterWrite(GAUGE_REFRESH).build(this::readGaugeValue);
+        if (this.meterRegistry != null) {
+            UPCOMING.keySet().forEach(within -> Gauge.builder("wizard.certificate.renewals.upcoming", this.gaugeValues, values -> values.get(within))
+                    .description("Certificates to be renewed within the given period")
+                    .tag(WITHIN_TAG, within)
+                    .register(this.meterRegistry));
+            Gauge.builder("wizard.certificate.renewals.scheduled", this.gaugeValues, values -> values.get(SCHEDULED))
+                    .description("Certificate renewals waiting to start or to continue")
+                    .register(this.meterRegistry);
+            Gauge.builder("wizard.certificate.earliest.expiry", this.gaugeValues, values -> values.get(EARLIEST_EXPIRY))
+                    .description("Seconds until the earliest participant certificate expires")
+                    .register(this.meterRegistry);
+        }
+    }
+
+    @SneakyThrows
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleScan() {
+        if (this.renewalSettings.enabled()) {
+            log.info("CertificateRenewalService(scheduleScan) -> Scanning certificates for renewal every {}", this.renewalSettings.scanInterval());
+            this.scheduleService.createRenewalScanJob(this.renewalSettings.scanInterval());
+        }
+    }
+
+    /**
+     * Reads the expiry of the stored certificates, stores it with the participant and schedules the renewals due
+     * within the renewal window.
+     */
+    public void scan() {
+        if (!this.renewalSettings.enabled()) {
+            return;
+        }
+        Instant now = Instant.now();
+        List<Candidate> candidates = new ArrayList<>();
+
+        List<Participant> participants = this.participantRepository.findAllByDomainIsNotNull();
+        for (int from = 0; from < participants.size(); from += SCAN_BATCH_SIZE) {
+            List<Participant> batch = participants.subList(from, Math.min(from + SCAN_BATCH_SIZE, participants.size()));
+            Map<String, Map<String, Object>> secrets = this.vaultService.getParticipantsSecretData(batch.stream().map(participant -> participant.getId().toString()).toList());
+            for (Participant participant : batch) {
+                Map<String, Object> secret = secrets.get(participant.getId().toString());
+                // without the domain key in the vault the certificate can not be renewed with the same key
+                if (secret == null || secret.get(CERTIFICATE_CHAIN) == null || secret.get(participant.getId() + ".key") == null
+                        || Boolean.parseBoolean(String.valueOf(secret.get(SHARED_KEY)))) {
+                    continue;
+                }
+                Instant expiry;
+                try {
+                    expiry = CertificateService.getExpiry((String) secret.get(CERTIFICATE_CHAIN));
+                } catch (CertificateException e) {
+                    log.error("CertificateRenewalService(scan) -> Not able to read certificate chain of participant {}", participant.getId(), e);
+                    continue;
+                }
+                if (participant.getCertificateExpiry() == null || !participant.getCertificateExpiry().toInstant().equals(expiry)) {
+                    this.participantRepository.updateCertificateExpiry(participant.getId(), Date.from(expiry));
+                }
+                Instant deadline = expiry.minus(this.renewalSettings.renewBefore());
+                if (!deadline.isAfter(now.plus(this.renewalSettings.window()))) {
+                    Instant start = deadline.minus(this.renewalSettings.window());
+                    candidates.add(new Candidate(participant.getId(), start.isAfter(now) ? start : now, deadline.isAfter(now) ? deadline : now));
+                }
+            }
+        }
+
+        int created = this.schedule(candidates);
+        log.info("CertificateRenewalService(scan) -> Scanned {} participants, {} certificates are due for renewal, {} renewals scheduled",
+                participants.size(), candidates.size(), created);
+    }
+
+    /**
+     * Runs the next phase of the renewal of the participant certificate. If the renewal has to wait for DNS
+     * propagation or the ACME server, a job continues it later with backoff. It is given up after the max waits of the
+     * onboarding and scheduled again by the next scan.
+     *
+     * @param participantId the participant id
+     * @param context       the state of the renewal, empty for its first run
+     */
+    public void renew(UUID participantId, OnboardingStepContext context) {
+        if (!this.renewalSettings.enabled()) {
+            return;
+        }
+        try {
+            if (this.certificateService.renewSSLCertificate(participantId, context)) {
+                this.count("renewed");
+                log.info("CertificateRenewalService(renew) -> Certificate of participant {} has been renewed", participantId);
+                return;
+            }
+            if (context.getWaits() >= this.onboardingSettings.maxWaits()) {
+                throw new AcmeException("renewal not done after " + context.getWaits() + " waits");
+            }
+            Duration delay = context.getRetryAfter() != null ? context.getRetryAfter() : this.onboardingSettings.backoff(context.getWaits());
+            this.scheduleService.continueRenewalJob(participantId, context.getData(), context.getWaits() + 1, delay);
+        } catch (Exception e) {
+            this.count("failed");
+            log.error("CertificateRenewalService(renew) -> Can not renew certificate of participant {}, it is tried again after the next scan", participantId, e);
+        }
+    }
+
+    /**
+     * Picks a random start within the renewal window of every candidate and moves it to the next free slot. The most
+     * urgent renewals pick first. A slot may end up after the deadline if the rate limit does not leave room within
+     * the window, the certificate is still renewed before it expires as long as renew before covers the backlog.
+     */
+    private int schedule(List<Candidate> candidates) {
+        List<Instant> taken;
+        try {
+            taken = new ArrayList<>(this.scheduleService.getNextFireTimes(StringPool.JOB_TYPE_RENEW_CERTIFICATE).stream().map(Date::toInstant).toList());
+        } catch (Exception e) {
+            log.error("CertificateRenewalService(schedule) -> Not able to read the scheduled renewals", e);
+            return 0;
+        }
+        Collections.sort(taken);
+        Duration spacing = Duration.ofHours(1).dividedBy(Math.max(this.renewalSettings.maxPerHour(), 1));
+        candidates.sort(Comparator.comparing(Candidate::deadline));
+
+        int created = 0;
+        for (Candidate candidate : candidates) {
+            long range = Duration.between(candidate.start(), candidate.deadline()).toMillis();
+            Instant slot = nextFreeSlot(taken, candidate.start().plusMillis(range > 0 ? ThreadLocalRandom.current().nextLong(range + 1) : 0), spacing);
+            try {
+                if (this.scheduleService.createRenewalJob(candidate.participantId(), Date.from(slot))) {
+                    int index = Collections.binarySearch(taken, slot);
+                    taken.add(index < 0 ? -index - 1 : index, slot);
+                    created++;
+                }
+            } catch (Exception e) {
+                log.error("CertificateRenewalService(schedule) -> Not able to schedule renewal of participant {}", candidate.participantId(), e);
+            }
+        }
+        return created;
+    }
+
+    /**
+     * Gets the earliest time at or after the given one that keeps the spacing to all taken slots, which are sorted.
+     */
+    static Instant nextFreeSlot(List<Instant> taken, Instant slot, Duration spacing) {
+        for (Instant other : taken) {
+            if (!other.plus(spacing).isAfter(slot)) {
+                continue;
+            }
+            if (!slot.plus(spacing).isAfter(other)) {
+                break;
+            }
+            slot = other.plus(spacing);
+        }
+        return slot;
+    }
+
+    private long readGaugeValue(String key) throws SchedulerException {
+        Instant now = Instant.now();
+        if (SCHEDULED.equals(key)) {
+            return this.scheduleService.countJobs(StringPool.JOB_TYPE_RENEW_CERTIFICATE);
+        }
+        if (EARLIEST_EXPIRY.equals(key)) {
+            Date earliest = this.participantRepository.findEarliestCertificateExpiry();
+            return earliest == null ? 0 : Duration.between(now, earliest.toInstant()).toSeconds();
+        }
+        // the renewal of a certificate is due renew before ahead of its expiry
+        return this.participantRepository.countByCertificateExpiryBefore(Date.from(now.plus(UPCOMING.get(key)).plus(this.renewalSettings.renewBefore())));
+    }
+
+    private void count(String outcome) {
+        if (this.meterRegistry != null) {
+            Counter.builder("wizard.certificate.renewals")
+                    .description("Participant certificate renewals")
+                    .tag("outcome", outcome)
+                    .register(this.meterRegistry)
+                    .increment();
+        }
+    }
+
+    private record Candidate(UUID participantId, Instant start, Instant deadline) {
+    }
+}
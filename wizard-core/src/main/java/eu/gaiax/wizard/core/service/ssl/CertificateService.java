@@ -2,380 +2,509 @@ package eu.gaiax.wizard.core.service.ssl;
 
 import eu.gaiax.wizard.api.exception.EntityNotFoundException;
 import eu.gaiax.wizard.api.model.RegistrationStatus;
-import eu.gaiax.wizard.api.utils.CommonUtils;
+import eu.gaiax.wizard.api.model.setting.OnboardingSettings;
 import eu.gaiax.wizard.api.utils.StringPool;
 import eu.gaiax.wizard.core.service.domain.DomainService;
-import eu.gaiax.wizard.core.service.job.ScheduleService;
+import eu.gaiax.wizard.core.service.hosting.HostedArtifactService;
+import eu.gaiax.wizard.core.service.onboarding.OnboardingStepContext;
 import eu.gaiax.wizard.core.service.participant.VaultService;
 import eu.gaiax.wizard.dao.entity.participant.Participant;
 import eu.gaiax.wizard.dao.repository.participant.ParticipantRepository;
 import lombok.extern.slf4j.Slf4j;
-import org.quartz.JobKey;
+import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
+import org.bouncycastle.openssl.jcajce.JcaPKCS8Generator;
 import org.shredzone.acme4j.*;
-import org.shredzone.acme4j.challenge.Challenge;
 import org.shredzone.acme4j.challenge.Dns01Challenge;
 import org.shredzone.acme4j.exception.AcmeException;
+import org.shredzone.acme4j.exception.AcmeRetryAfterException;
+import org.shredzone.acme4j.exception.AcmeUnauthorizedException;
 import org.shredzone.acme4j.toolbox.AcmeUtils;
 import org.shredzone.acme4j.util.CSRBuilder;
 import org.shredzone.acme4j.util.KeyPairUtils;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
 import java.io.*;
-import java.nio.file.Files;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
-import java.util.List;
-import java.util.UUID;
-
-import static eu.gaiax.wizard.api.utils.StringPool.TEMP_FOLDER;
-
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Issues the SSL certificate of a participant domain with the ACME DNS challenge. The issuance is split into phases
+ * that never block: a phase either moves on or returns so that the onboarding workflow checks again later. How far
+ * the issuance got is kept in the {@link OnboardingStepContext}.
+ * <p>
+ * All orders are placed with the account of the {@link AcmeAccountService}. The authorizations of an order are
+ * processed concurrently, and their TXT records go into one DNS change batch.
+ */
 @Service
 @Slf4j
-public class CertificateService {
-
-    private static final File USER_KEY_FILE = new File("/tmp/user.key");
-
-    //Challenge type to be used
-    private static final ChallengeType CHALLENGE_TYPE = ChallengeType.DNS;
+public class CertificateService implements DisposableBean {
 
     // RSA key size of generated key pairs
     private static final int KEY_SIZE = 2048;
-    private final String sslProvider;
 
-    private enum ChallengeType {
-        DNS
+    // threads processing the authorizations of an order, shared by all orders
+    private static final int AUTHORIZATION_THREADS = 8;
+
+    // root certificate of Let's Encrypt, appended to the chain of every certificate
+    static final String ISRG_ROOT_X1 = """
+            -----BEGIN CERTIFICATE-----
+            MIIFazCCA1OgAwIBAgIRAIIQz7DSQONZRGPgu2OCiwAwDQYJKoZIhvcNAQELBQAw
+            TzELMAkGA1UEBhMCVVMxKTAnBgNVBAoTIEludGVybmV0IFNlY3VyaXR5IFJlc2Vh
+            cmNoIEdyb3VwMRUwEwYDVQQDEwxJU1JHIFJvb3QgWDEwHhcNMTUwNjA0MTEwNDM4
+            WhcNMzUwNjA0MTEwNDM4WjBPMQswCQYDVQQGEwJVUzEpMCcGA1UEChMgSW50ZXJu
+            ZXQgU2VjdXJpdHkgUmVzZWFyY2ggR3JvdXAxFTATBgNVBAMTDElTUkcgUm9vdCBY
+            MTCCAiIwDQYJKoZIhvcNAQEBBQADggIPADCCAgoCggIBAK3oJHP0FDfzm54rVygc
+            h77ct984kIxuPOZXoHj3dcKi/vVqbvYATyjb3miGbESTtrFj/RQSa78f0uoxmyF+
+            0TM8ukj13Xnfs7j/EvEhmkvBioZxaUpmZmyPfjxwv60pIgbz5MDmgK7iS4+3mX6U
+            A5/TR5d8mUgjU+g4rk8Kb4Mu0UlXjIB0ttov0DiNewNwIRt18jA8+o+u3dpjq+sW
+            T8KOEUt+zwvo/7V3LvSye0rgTBIlDHCNAymg4VMk7BPZ7hm/ELNKjD+Jo2FR3qyH
+            B5T0Y3HsLuJvW5iB4YlcNHlsdu87kGJ55tukmi8mxdAQ4Q7e2RCOFvu396j3x+UC
+            B5iPNgiV5+I3lg02dZ77DnKxHZu8A/lJBdiB3QW0KtZB6awBdpUKD9jf1b0SHzUv
+            KBds0pjBqAlkd25HN7rOrFleaJ1/ctaJxQZBKT5ZPt0m9STJEadao0xAH0ahmbWn
+            OlFuhjuefXKnEgV4We0+UXgVCwOPjdAvBbI+e0ocS3MFEvzG6uBQE3xDk3SzynTn
+            jh8BCNAw1FtxNrQHusEwMFxIt4I7mKZ9YIqioymCzLq9gwQbooMDQaHWBfEbwrbw
+            qHyGO0aoSCqI3Haadr8faqU9GY/rOPNk3sgrDQoo//fb4hVC1CLQJ13hef4Y53CI
+            rU7m2Ys6xt0nUW7/vGT1M0NPAgMBAAGjQjBAMA4GA1UdDwEB/wQEAwIBBjAPBgNV
+            HRMBAf8EBTADAQH/MB0GA1UdDgQWBBR5tFnme7bl5AFzgAiIyBpY9umbbjANBgkq
+            hkiG9w0BAQsFAAOCAgEAVR9YqbyyqFDQDLHYGmkgJykIrGF1XIpu+ILlaS/V9lZL
+            ubhzEFnTIZd+50xx+7LSYK05qAvqFyFWhfFQDlnrzuBZ6brJFe+GnY+EgPbk6ZGQ
+            3BebYhtF8GaV0nxvwuo77x/Py9auJ/GpsMiu/X1+mvoiBOv/2X/qkSsisRcOj/KK
+            NFtY2PwByVS5uCbMiogziUwthDyC3+6WVwW6LLv3xLfHTjuCvjHIInNzktHCgKQ5
+            ORAzI4JMPJ+GslWYHb4phowim57iaztXOoJwTdwJx4nLCgdNbOhdjsnvzqvHu7Ur
+            TkXWStAmzOVyyghqpZXjFaH3pO3JLF+l+/+sKAIuvtd7u+Nxe5AW0wdeRlN8NwdC
+            jNPElpzVmbUq4JUagEiuTDkHzsxHpFKVK7q4+63SM1N95R1NbdWhscdCb+ZAJzVc
+            oyi3B43njTOQ5yOf+1CceWxG1bQVs5ZufpsMljq4Ui0/1lvh+wjChP4kqKOJ2qxq
+            4RgqsahDYVvTH9w7jXbyLeiNdd8XM2w9U/t7y0Ff/9yi0GE44Za4rF2LN9d11TPA
+            mRGunUHBcnWEvgJBQl9nJEiU0Zsnvgc/ubhPgXRR4Xq37Z0j4r7g1SgEEzwxA57d
+            emyPxgcYxn/eR44/KJ4EBs+lVDR3veyJm+kXQ99b21/+jh5Xos1AnX5iItreGCc=
+            -----END CERTIFICATE-----
+            """;
+
+    //keys of the step data
+    private static final String PHASE = "phase";
+    private static final String ACCOUNT = "account";
+    private static final String ORDER = "order";
+    private static final String AUTHORIZATIONS = "authorizations";
+    private static final String TXT_NAMES = "txtNames";
+    private static final String TXT_VALUES = "txtValues";
+    private static final String TXT_CHANGES = "txtChanges";
+    private static final String CSR = "csr";
+    private static final String RENEWAL = "renewal";
+    private static final String RENEWED = "renewed";
+    private static final String SEPARATOR = ",";
+
+    private enum Phase {
+        ORDER, DNS_PROPAGATION, CHALLENGE, FINALIZE
     }
 
     private final DomainService domainService;
     private final ParticipantRepository participantRepository;
-    private final ScheduleService scheduleService;
     private final VaultService vaultService;
-
-    public CertificateService(VaultService vaultService, DomainService domainService, ParticipantRepository participantRepository, ScheduleService scheduleService, @Value("${wizard.sslProvider}") String sslProvider) {
+    private final HostedArtifactService hostedArtifactService;
+    private final OnboardingSettings onboardingSettings;
+    private final AcmeAccountService acmeAccountService;
+    private final ExecutorService authorizationExecutor;
+
+    public CertificateService(VaultService vaultService, DomainService domainService, ParticipantRepository participantRepository,
+                              HostedArtifactService hostedArtifactService, OnboardingSettings onboardingSettings,
+                              AcmeAccountService acmeAccountService) {
         this.vaultService = vaultService;
+        this.hostedArtifactService = hostedArtifactService;
         this.domainService = domainService;
         this.participantRepository = participantRepository;
-        this.scheduleService = scheduleService;
-        this.sslProvider = sslProvider;
+        this.onboardingSettings = onboardingSettings;
+        this.acmeAccountService = acmeAccountService;
+        this.authorizationExecutor = Executors.newFixedThreadPool(AUTHORIZATION_THREADS, new CustomizableThreadFactory("acme-authorization-"));
     }
 
-    private static void checkOrderStatus(Order order) throws AcmeException {
-        try {
-            int attempts = 10;
-            while (order.getStatus() != Status.VALID && attempts-- > 0) {
-                log.debug("CertificateService(checkOrderStatus) -> Waiting for order confirmation attempts->{}", attempts);
-                // Did the order fail?
-                if (order.getStatus() == Status.INVALID) {
-                    log.error("CertificateService(checkOrderStatus) -> Order has failed, reason: {}", order.getError());
-                    throw new AcmeException("order.failed");
-                }
-
-                // Wait for a few seconds
-                Thread.sleep(6000L);
+    @Override
+    public void destroy() {
+        this.authorizationExecutor.shutdown();
+    }
 
-                // Then update the status
-                order.update();
-            }
-        } catch (InterruptedException ex) {
-            log.error("interrupted", ex);
-            Thread.currentThread().interrupt();
+    /**
+     * Runs the next phase of the certificate issuance. The participant status is set to certificate created once the
+     * certificate is stored and to certificate creation failed on any error; otherwise the issuance waits for DNS
+     * propagation or the ACME server and continues on the next run.
+     *
+     * @param participantId the participant id
+     * @param context       the step context of the onboarding workflow
+     */
+    public void createSSLCertificate(UUID participantId, OnboardingStepContext context) {
+        Participant participant = this.participantRepository.findById(participantId).orElseThrow(() -> new EntityNotFoundException("participant.not.found"));
+        try {
+            this.runPhase(participant, context);
+        } catch (Exception e) {
+            log.error("CertificateService(createSSLCertificate) -> Can not create certificate for participant id ->{}, domain ->{}", participant.getId(), participant.getDomain(), e);
+            context.setFailure(e);
+            participant.setStatus(RegistrationStatus.CERTIFICATE_CREATION_FAILED.getStatus());
+            this.participantRepository.save(participant);
         }
     }
 
-    public void createSSLCertificate(UUID participantId, JobKey jobKey) {
-        log.info("CertificateService(createSSLCertificate) -> Initiate process to create a SSL certificate for participant {}", participantId);
+    /**
+     * Runs the next phase of the renewal of the participant certificate. The renewal keeps the domain key, which the
+     * did.json and the credentials of the participant refer to, and leaves the participant status untouched. Once
+     * renewed, the chain is replaced in the vault and on the hosted domain.
+     *
+     * @param participantId the participant id
+     * @param context       the state of the renewal between its runs
+     * @return true once the renewed certificate is stored, false if the renewal has to wait, see
+     * {@link OnboardingStepContext#getRetryAfter()}
+     */
+    public boolean renewSSLCertificate(UUID participantId, OnboardingStepContext context) throws AcmeException, IOException {
         Participant participant = this.participantRepository.findById(participantId).orElseThrow(() -> new EntityNotFoundException("participant.not.found"));
+        context.put(RENEWAL, Boolean.TRUE.toString());
+        this.runPhase(participant, context);
+        return Boolean.parseBoolean(context.get(RENEWED));
+    }
 
-        File domainChainFile = new File(TEMP_FOLDER + participant.getDomain() + "_chain.crt");
-        File csrFile = new File(TEMP_FOLDER + participant.getDomain() + ".csr");
-        File keyfile = new File(TEMP_FOLDER + participant.getDomain() + ".key");
-        File pkcs8File = new File(TEMP_FOLDER + "pkcs8_" + participant.getDomain() + ".key");
+    private void runPhase(Participant participant, OnboardingStepContext context) throws AcmeException, IOException {
+        Phase phase = context.get(PHASE) == null ? Phase.ORDER : Phase.valueOf(context.get(PHASE));
+        log.info("CertificateService(runPhase) -> Continue SSL certificate creation for participant {} in phase {}", participant.getId(), phase);
 
         try {
-
-            // Load the user key file. If there is no key file, create a new one.
-            KeyPair userKeyPair = this.loadOrCreateUserKeyPair();
-
-            // Create a session for Let's Encrypt.
-            // Use "acme://letsencrypt.org" for production server
-            Session session = new Session(this.sslProvider);
-
-            // Get the Account.
-            // If there is no account yet, create a new one.
-            Account acct = this.findOrRegisterAccount(session, userKeyPair);
-
-            // Load or create a key pair for the domains. This should not be the userKeyPair!
-            KeyPair domainKeyPair = this.loadOrCreateDomainKeyPair(keyfile);
-
-            // Order the certificate
-            Order order = acct.newOrder().domain(participant.getDomain()).create();
-
-            // Perform all required authorizations
-            for (Authorization auth : order.getAuthorizations()) {
-                this.authorize(auth);
+            if (phase != Phase.ORDER && !this.isCurrentAccount(context)) {
+                // the order was placed with an account of before the shared one, it can not be continued
+                log.info("CertificateService(runPhase) -> Order of participant {} belongs to account {}, placing a new order", participant.getId(), context.get(ACCOUNT));
+                this.deleteTxtRecords(context);
+                List.of(PHASE, ACCOUNT, ORDER, AUTHORIZATIONS, CSR).forEach(context::remove);
+                phase = Phase.ORDER;
             }
-
-            // Generate a CSR for all of the domains, and sign it with the domain key pair.
-            CSRBuilder csrb = new CSRBuilder();
-            csrb.addDomain(participant.getDomain());
-            csrb.sign(domainKeyPair);
-
-
-            // Write the CSR to a file, for later use.
-            try (Writer out = new FileWriter(csrFile)) {
-                csrb.write(out);
+            switch (phase) {
+                case ORDER -> this.placeOrder(participant, context);
+                case DNS_PROPAGATION -> this.checkDnsPropagation(participant, context);
+                case CHALLENGE -> this.checkChallenges(participant, context);
+                case FINALIZE -> this.checkOrder(participant, context);
             }
+        } catch (AcmeRetryAfterException e) {
+            log.info("CertificateService(runPhase) -> ACME server asks to retry after {} for participant {}", e.getRetryAfter(), participant.getId());
+            Duration retryAfter = Duration.between(Instant.now(), e.getRetryAfter());
+            context.setRetryAfter(retryAfter.isNegative() ? Duration.ZERO : retryAfter);
+        } catch (AcmeException | IOException | RuntimeException e) {
+            if (e instanceof AcmeUnauthorizedException) {
+                this.acmeAccountService.reset();
+            }
+            this.deleteTxtRecords(context);
+            throw e;
+        }
+    }
 
-            // Order the certificate
-            order.execute(csrb.getEncoded());
+    private void placeOrder(Participant participant, OnboardingStepContext context) throws AcmeException, IOException {
+        Login login = this.acmeAccountService.getLogin();
+        Account account = login.getAccount();
 
-            // Wait for the order to complete
-            checkOrderStatus(order);
+        // The domain key pair is kept in the vault right away, so that the order can be finalized on any later run.
+        // A renewal keeps the stored key pair.
+        if (!isRenewal(context)) {
+            KeyPair domainKeyPair = KeyPairUtils.createKeyPair(KEY_SIZE);
+            StringWriter domainKey = new StringWriter();
+            KeyPairUtils.writeKeyPair(domainKeyPair, domainKey);
+            this.vaultService.uploadCertificatesToVault(participant.getId().toString(), null, null, domainKey.toString(), null);
+        }
 
-            // Get the certificate
-            Certificate certificate = order.getCertificate();
+        Order order = account.newOrder().domain(participant.getDomain()).create();
+        context.put(ACCOUNT, account.getLocation().toString());
+        context.put(ORDER, order.getLocation().toString());
 
-            List<X509Certificate> certificateChain1 = certificate.getCertificateChain();
-            X509Certificate cert1 = certificateChain1.get(0);
-            X509Certificate cert2 = certificateChain1.get(1);
-            List<X509Certificate> fileCertificates = List.of(cert1, cert2);
-            try (FileWriter fw = new FileWriter(domainChainFile)) {
-                for (X509Certificate cert : fileCertificates) {
-                    AcmeUtils.writeToPem(cert.getEncoded(), AcmeUtils.PemLabel.CERTIFICATE, fw);
+        // every submitted record is kept in the context, even if another authorization fails, so the failure handling
+        // of runPhase deletes it
+        Queue<PendingChallenge> challenges = new ConcurrentLinkedQueue<>();
+        try {
+            this.forAll(order.getAuthorizations(), auth -> {
+                // The authorization is already valid. No need to process a challenge.
+                if (auth.getStatus() == Status.VALID) {
+                    return null;
+                }
+                Dns01Challenge challenge = auth.findChallenge(Dns01Challenge.TYPE);
+                if (challenge == null) {
+                    log.error("CertificateService(placeOrder) -> Challenge {} is not found for domain {}", Dns01Challenge.TYPE, auth.getIdentifier().getDomain());
+                    throw new AcmeException("challenge.not.found");
                 }
-                //TODO this flow can be improved
-                //write root certificate
-                fw.append("""
-                        -----BEGIN CERTIFICATE-----
-                        MIIFazCCA1OgAwIBAgIRAIIQz7DSQONZRGPgu2OCiwAwDQYJKoZIhvcNAQELBQAw
-                        TzELMAkGA1UEBhMCVVMxKTAnBgNVBAoTIEludGVybmV0IFNlY3VyaXR5IFJlc2Vh
-                        cmNoIEdyb3VwMRUwEwYDVQQDEwxJU1JHIFJvb3QgWDEwHhcNMTUwNjA0MTEwNDM4
-                        WhcNMzUwNjA0MTEwNDM4WjBPMQswCQYDVQQGEwJVUzEpMCcGA1UEChMgSW50ZXJu
-                        ZXQgU2VjdXJpdHkgUmVzZWFyY2ggR3JvdXAxFTATBgNVBAMTDElTUkcgUm9vdCBY
-                        MTCCAiIwDQYJKoZIhvcNAQEBBQADggIPADCCAgoCggIBAK3oJHP0FDfzm54rVygc
-                        h77ct984kIxuPOZXoHj3dcKi/vVqbvYATyjb3miGbESTtrFj/RQSa78f0uoxmyF+
-                        0TM8ukj13Xnfs7j/EvEhmkvBioZxaUpmZmyPfjxwv60pIgbz5MDmgK7iS4+3mX6U
-                        A5/TR5d8mUgjU+g4rk8Kb4Mu0UlXjIB0ttov0DiNewNwIRt18jA8+o+u3dpjq+sW
-                        T8KOEUt+zwvo/7V3LvSye0rgTBIlDHCNAymg4VMk7BPZ7hm/ELNKjD+Jo2FR3qyH
-                        B5T0Y3HsLuJvW5iB4YlcNHlsdu87kGJ55tukmi8mxdAQ4Q7e2RCOFvu396j3x+UC
-                        B5iPNgiV5+I3lg02dZ77DnKxHZu8A/lJBdiB3QW0KtZB6awBdpUKD9jf1b0SHzUv
-                        KBds0pjBqAlkd25HN7rOrFleaJ1/ctaJxQZBKT5ZPt0m9STJEadao0xAH0ahmbWn
-                        OlFuhjuefXKnEgV4We0+UXgVCwOPjdAvBbI+e0ocS3MFEvzG6uBQE3xDk3SzynTn
-                        jh8BCNAw1FtxNrQHusEwMFxIt4I7mKZ9YIqioymCzLq9gwQbooMDQaHWBfEbwrbw
-                        qHyGO0aoSCqI3Haadr8faqU9GY/rOPNk3sgrDQoo//fb4hVC1CLQJ13hef4Y53CI
-                        rU7m2Ys6xt0nUW7/vGT1M0NPAgMBAAGjQjBAMA4GA1UdDwEB/wQEAwIBBjAPBgNV
-                        HRMBAf8EBTADAQH/MB0GA1UdDgQWBBR5tFnme7bl5AFzgAiIyBpY9umbbjANBgkq
-                        hkiG9w0BAQsFAAOCAgEAVR9YqbyyqFDQDLHYGmkgJykIrGF1XIpu+ILlaS/V9lZL
-                        ubhzEFnTIZd+50xx+7LSYK05qAvqFyFWhfFQDlnrzuBZ6brJFe+GnY+EgPbk6ZGQ
-                        3BebYhtF8GaV0nxvwuo77x/Py9auJ/GpsMiu/X1+mvoiBOv/2X/qkSsisRcOj/KK
-                        NFtY2PwByVS5uCbMiogziUwthDyC3+6WVwW6LLv3xLfHTjuCvjHIInNzktHCgKQ5
-                        ORAzI4JMPJ+GslWYHb4phowim57iaztXOoJwTdwJx4nLCgdNbOhdjsnvzqvHu7Ur
-                        TkXWStAmzOVyyghqpZXjFaH3pO3JLF+l+/+sKAIuvtd7u+Nxe5AW0wdeRlN8NwdC
-                        jNPElpzVmbUq4JUagEiuTDkHzsxHpFKVK7q4+63SM1N95R1NbdWhscdCb+ZAJzVc
-                        oyi3B43njTOQ5yOf+1CceWxG1bQVs5ZufpsMljq4Ui0/1lvh+wjChP4kqKOJ2qxq
-                        4RgqsahDYVvTH9w7jXbyLeiNdd8XM2w9U/t7y0Ff/9yi0GE44Za4rF2LN9d11TPA
-                        mRGunUHBcnWEvgJBQl9nJEiU0Zsnvgc/ubhPgXRR4Xq37Z0j4r7g1SgEEzwxA57d
-                        emyPxgcYxn/eR44/KJ4EBs+lVDR3veyJm+kXQ99b21/+jh5Xos1AnX5iItreGCc=
-                        -----END CERTIFICATE-----
-                        """);
+                String name = Dns01Challenge.toRRName(auth.getIdentifier());
+                PendingChallenge pendingChallenge = new PendingChallenge(auth.getLocation().toString(), name, challenge.getDigest(),
+                        this.domainService.submitTxtRecord(name, challenge.getDigest(), StringPool.CREATE));
+                challenges.add(pendingChallenge);
+                return pendingChallenge;
+            });
+        } finally {
+            for (PendingChallenge challenge : challenges) {
+                append(context, AUTHORIZATIONS, challenge.authorization());
+                append(context, TXT_NAMES, challenge.txtName());
+                append(context, TXT_VALUES, challenge.txtValue());
             }
+        }
+        for (PendingChallenge challenge : challenges) {
+            append(context, TXT_CHANGES, await(challenge.txtChange()));
+            log.info("CertificateService(placeOrder) -> Txt record has been created for {}", challenge.txtName());
+        }
 
+        if (!StringUtils.hasText(context.get(AUTHORIZATIONS))) {
+            this.finalizeOrder(participant, context, login);
+            return;
+        }
+        context.put(PHASE, Phase.DNS_PROPAGATION.name());
+        log.info("CertificateService(placeOrder) -> Order has been placed for domain {}, waiting for DNS propagation", participant.getDomain());
+    }
 
-            log.info("Success! The certificate for domains {} has been generated!", participant.getDomain());
-            log.info("Certificate URL: {}", certificate.getLocation());
+    private void checkDnsPropagation(Participant participant, OnboardingStepContext context) throws AcmeException, IOException {
+        List<String> names = split(context.get(TXT_NAMES));
+        List<String> values = split(context.get(TXT_VALUES));
+        List<String> changes = split(context.get(TXT_CHANGES));
+        for (int i = 0; i < names.size(); i++) {
+            if (!this.isPropagated(changes.get(i), names.get(i), values.get(i))) {
+                log.info("CertificateService(checkDnsPropagation) -> Txt record {} is not propagated yet", names.get(i));
+                return;
+            }
+        }
 
-            //convert private key in pkcs8 format
-            this.convertKeyFileInPKCS8(keyfile.getAbsolutePath(), pkcs8File.getAbsolutePath(), participant.getDid());
+        Login login = this.login(context);
+        this.forAll(split(context.get(AUTHORIZATIONS)), location -> {
+            Dns01Challenge challenge = login.bindAuthorization(new URL(location)).findChallenge(Dns01Challenge.TYPE);
+            // If the challenge is already verified, there's no need to execute it again.
+            if (challenge.getStatus() != Status.VALID) {
+                challenge.trigger();
+            }
+            return location;
+        });
+        context.put(PHASE, Phase.CHALLENGE.name());
+        context.setRetryAfter(this.onboardingSettings.waitInterval());
+        log.info("CertificateService(checkDnsPropagation) -> Challenges have been triggered for domain {}", participant.getDomain());
+    }
 
-            //save files in vault
-            this.uploadCertificatesToVault(participant.getId().toString(), domainChainFile, csrFile, keyfile, pkcs8File);
-            participant.setKeyStored(true);
+    private boolean isPropagated(String changeId, String name, String value) {
+        return this.domainService.isChangeInSync(changeId)
+                || (this.onboardingSettings.authoritativeDnsCheck() && this.domainService.isTxtRecordServed(name, value));
+    }
 
-            //create Job tp create ingress and tls secret
-            this.scheduleService.createJob(participant.getId().toString(), StringPool.JOB_TYPE_CREATE_INGRESS, 0);
-            log.info("CertificateService(createSSLCertificate) -> Ingress creation corn job has been scheduled.");
-            if (jobKey != null) {
-                //delete job
-                this.scheduleService.deleteJob(jobKey);
+    private void checkChallenges(Participant participant, OnboardingStepContext context) throws AcmeException, IOException {
+        Login login = this.login(context);
+        boolean valid = true;
+        for (Dns01Challenge challenge : this.forAll(split(context.get(AUTHORIZATIONS)),
+                location -> login.bindAuthorization(new URL(location)).findChallenge(Dns01Challenge.TYPE))) {
+            if (challenge.getStatus() == Status.INVALID) {
+                log.error("CertificateService(checkChallenges) -> Challenge is not valid and the reason: {}", challenge.getError());
+                throw new AcmeException("invalid.challenge");
             }
-            log.info("CertificateService(createSSLCertificate) -> Certificate has been created for participant {}", participantId);
-        } catch (Exception e) {
-            log.error("CertificateService(createSSLCertificate) -> Can not create certificate for participant id ->{}, domain ->{}", participant.getId(), participant.getDomain(), e);
-            participant.setStatus(RegistrationStatus.CERTIFICATE_CREATION_FAILED.getStatus());
-        } finally {
-            this.participantRepository.save(participant);
-            //delete files
-            CommonUtils.deleteFile(domainChainFile, csrFile, keyfile, pkcs8File);
-            log.info("CertificateService(createSSLCertificate) -> Participant details has been updated.");
+            valid &= challenge.getStatus() == Status.VALID;
+        }
+        if (!valid) {
+            log.info("CertificateService(checkChallenges) -> Challenges of domain {} are not validated yet", participant.getDomain());
+            return;
         }
+
+        log.info("CertificateService(checkChallenges) -> Challenges have been completed for domain {}", participant.getDomain());
+        this.deleteTxtRecords(context);
+        this.finalizeOrder(participant, context, login);
     }
 
-    private KeyPair loadOrCreateUserKeyPair() throws IOException {
-        if (USER_KEY_FILE.exists()) {
-            log.info("CertificateService(loadOrCreateUserKeyPair) -> User keypair is already exists.");
-            // If there is a key file, read it
-            try (FileReader fr = new FileReader(USER_KEY_FILE)) {
-                return KeyPairUtils.readKeyPair(fr);
-            }
+    private void finalizeOrder(Participant participant, OnboardingStepContext context, Login login) throws AcmeException, IOException {
+        // Generate a CSR for all of the domains, and sign it with the domain key pair.
+        CSRBuilder csrb = new CSRBuilder();
+        csrb.addDomain(participant.getDomain());
+        csrb.sign(this.readDomainKeyPair(participant));
+        StringWriter csr = new StringWriter();
+        csrb.write(csr);
+
+        // Order the certificate
+        login.bindOrder(new URL(context.get(ORDER))).execute(csrb.getEncoded());
+        context.put(CSR, csr.toString());
+        context.put(PHASE, Phase.FINALIZE.name());
+        context.setRetryAfter(this.onboardingSettings.waitInterval());
+        log.info("CertificateService(finalizeOrder) -> Order has been finalized for domain {}, waiting for the certificate", participant.getDomain());
+    }
 
-        } else {
-            log.info("CertificateService(loadOrCreateUserKeyPair) -> Process for creating user key pair.");
-            KeyPair userKeyPair = KeyPairUtils.createKeyPair(KEY_SIZE);
-            try (FileWriter fw = new FileWriter(USER_KEY_FILE)) {
-                KeyPairUtils.writeKeyPair(userKeyPair, fw);
-            }
-            return userKeyPair;
+    private void checkOrder(Participant participant, OnboardingStepContext context) throws AcmeException, IOException {
+        Order order = this.login(context).bindOrder(new URL(context.get(ORDER)));
+        if (order.getStatus() == Status.INVALID) {
+            log.error("CertificateService(checkOrder) -> Order has failed, reason: {}", order.getError());
+            throw new AcmeException("order.failed");
+        }
+        if (order.getStatus() != Status.VALID) {
+            log.info("CertificateService(checkOrder) -> Certificate of domain {} is not issued yet", participant.getDomain());
+            return;
         }
+        this.storeCertificate(participant, order.getCertificate(), context.get(CSR), context);
     }
 
-    private KeyPair loadOrCreateDomainKeyPair(File domainChainFile) throws IOException {
-        if (domainChainFile.exists()) {
-            log.info("CertificateService(loadOrCreateDomainKeyPair) -> Keypair is already exists.");
-            try (FileReader fr = new FileReader(domainChainFile)) {
-                return KeyPairUtils.readKeyPair(fr);
-            }
-        } else {
-            log.info("CertificateService(loadOrCreateDomainKeyPair) -> Create new domain key pair.");
-            KeyPair domainKeyPair = KeyPairUtils.createKeyPair(KEY_SIZE);
-            try (FileWriter fw = new FileWriter(domainChainFile)) {
-                KeyPairUtils.writeKeyPair(domainKeyPair, fw);
-            }
-            return domainKeyPair;
+    private void storeCertificate(Participant participant, Certificate certificate, String csr, OnboardingStepContext context) throws IOException {
+        String domainChain = toPemChain(certificate.getCertificateChain());
+        log.info("Success! The certificate for domains {} has been generated!", participant.getDomain());
+        log.info("Certificate URL: {}", certificate.getLocation());
+
+        if (isRenewal(context)) {
+            this.vaultService.uploadCertificatesToVault(participant.getId().toString(), domainChain, csr, null, null);
+            this.hostedArtifactService.publishCertificateChain(participant.getId(), domainChain);
+            this.participantRepository.updateCertificateExpiry(participant.getId(), certificate.getCertificate().getNotAfter());
+            context.put(RENEWED, Boolean.TRUE.toString());
+            log.info("CertificateService(storeCertificate) -> Certificate has been renewed for participant {}", participant.getId());
+            return;
         }
-    }
 
-    private Account findOrRegisterAccount(Session session, KeyPair accountKey) throws AcmeException {
+        //convert private key in pkcs8 format
+        String domainKey = this.readDomainKey(participant);
+        String pkcs8Key = toPkcs8Pem(KeyPairUtils.readKeyPair(new StringReader(domainKey)).getPrivate());
 
-        Account account = new AccountBuilder()
-                .agreeToTermsOfService()
-                .useKeyPair(accountKey)
-                .create(session);
-        log.info("CertificateService(findOrRegisterAccount) -> Registered a new user, URL: {}", account.getLocation());
+        //save keys and chain in vault
+        this.vaultService.uploadCertificatesToVault(participant.getId().toString(), domainChain, csr, domainKey, pkcs8Key);
+        participant.setKeyStored(true);
 
-        return account;
-    }
+        //publish the public chain and domain alias for the hosting module
+        this.hostedArtifactService.publishCertificateChain(participant.getId(), domainChain);
+        this.hostedArtifactService.publishDomain(participant.getDomain(), participant.getId());
 
-    private void authorize(Authorization auth) throws AcmeException {
-        log.info("CertificateService(authorize) -> Process for authorization for domain {}", auth.getIdentifier().getDomain());
-        Dns01Challenge dnsChallenge = auth.findChallenge(Dns01Challenge.TYPE);
-        String valuesToBeAdded = dnsChallenge.getDigest();
-        String domain = Dns01Challenge.toRRName(auth.getIdentifier());
+        participant.setCertificateExpiry(certificate.getCertificate().getNotAfter());
+        participant.setStatus(RegistrationStatus.CERTIFICATE_CREATED.getStatus());
+        this.participantRepository.save(participant);
+        log.info("CertificateService(storeCertificate) -> Certificate has been created for participant {}", participant.getId());
+    }
 
+    /**
+     * Writes the leaf and intermediate certificate followed by the ISRG root, the chain that is hosted as
+     * x509CertificateChain.pem.
+     */
+    static String toPemChain(List<X509Certificate> certificateChain) throws IOException {
+        StringWriter chain = new StringWriter();
         try {
-            // The authorization is already valid. No need to process a challenge.
-            if (auth.getStatus() == Status.VALID) {
-                return;
+            for (X509Certificate cert : certificateChain.subList(0, 2)) {
+                AcmeUtils.writeToPem(cert.getEncoded(), AcmeUtils.PemLabel.CERTIFICATE, chain);
             }
+        } catch (CertificateEncodingException e) {
+            throw new IOException(e);
+        }
+        //write root certificate
+        chain.append(ISRG_ROOT_X1);
+        return chain.toString();
+    }
 
-            // Find the desired challenge and prepare it.
-            Challenge challenge = null;
-            if (CHALLENGE_TYPE == ChallengeType.DNS) {
-                challenge = this.dnsChallenge(auth);
-            }
+    /**
+     * Encodes the private key as unencrypted PKCS#8 PEM, the format the signer tool reads from the vault.
+     */
+    static String toPkcs8Pem(PrivateKey privateKey) throws IOException {
+        StringWriter pkcs8Key = new StringWriter();
+        try (JcaPEMWriter writer = new JcaPEMWriter(pkcs8Key)) {
+            writer.writeObject(new JcaPKCS8Generator(privateKey, null));
+        }
+        return pkcs8Key.toString();
+    }
 
-            if (challenge == null) {
-                log.error("CertificateService(authorize) -> Challenge is not found for domain {}", auth.getIdentifier().getDomain());
-                throw new AcmeException("challenge.not.found");
+    private void deleteTxtRecords(OnboardingStepContext context) {
+        List<String> names = split(context.get(TXT_NAMES));
+        List<String> values = split(context.get(TXT_VALUES));
+        for (int i = 0; i < names.size(); i++) {
+            try {
+                this.domainService.updateTxtRecords(names.get(i), values.get(i), StringPool.DELETE);
+                log.info("CertificateService(deleteTxtRecords) -> Txt record has been deleted for {}", names.get(i));
+            } catch (Exception e) {
+                log.error("CertificateService(deleteTxtRecords) -> Txt record has not been deleted for {}", names.get(i), e);
             }
+        }
+        context.remove(TXT_NAMES);
+        context.remove(TXT_VALUES);
+        context.remove(TXT_CHANGES);
+    }
 
-            // If the challenge is already verified, there's no need to execute it again.
-            if (challenge.getStatus() == Status.VALID) {
-                log.info("CertificateService(authorize) -> Challenge is already verified.");
-                return;
-            }
+    private Login login(OnboardingStepContext context) throws AcmeException, IOException {
+        Login login = this.acmeAccountService.getLogin();
+        log.debug("CertificateService(login) -> Continue order of account {}", context.get(ACCOUNT));
+        return login;
+    }
 
-            // Now trigger the challenge.
-            challenge.trigger();
+    private boolean isCurrentAccount(OnboardingStepContext context) throws AcmeException, IOException {
+        return this.acmeAccountService.getLogin().getAccountLocation().toString().equals(context.get(ACCOUNT));
+    }
 
-            // Poll for the challenge to complete.
-            //TODO known issue, sometime certificate issuing not working
+    /**
+     * Runs the function for all items on the authorization executor and waits for all results, in the order of the
+     * items. Nothing is left running when this returns or throws.
+     */
+    private <S, T> List<T> forAll(Collection<S> items, AcmeFunction<S, T> function) throws AcmeException, IOException {
+        List<CompletableFuture<T>> futures = items.stream().map(item -> CompletableFuture.supplyAsync(() -> {
             try {
-                int attempts = 3;
-                while (challenge.getStatus() != Status.VALID && attempts-- > 0) {
-                    log.debug("CertificateService(authorize) -> Waiting for 30 sec before check of DNS record attempts -> {}", attempts);
-                    // Wait for a few seconds
-                    Thread.sleep(30000L);
-
-                    // Then update the status
-                    challenge.update();
-                }
-                // Did the authorization fail?
-                if (challenge.getStatus() == Status.INVALID) {
-                    log.error("CertificateService(authorize) -> Challenge is not valid and the reason: {}", challenge.getError());
-                    throw new AcmeException("invalid.challenge");
-                }
-            } catch (InterruptedException ex) {
-                log.error("CertificateService(authorize) -> Thread has been interrupted.", ex);
-                Thread.currentThread().interrupt();
+                return function.apply(item);
+            } catch (AcmeException | IOException e) {
+                throw new CompletionException(e);
             }
+        }, this.authorizationExecutor)).toList();
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            results.add(await(future));
+        }
+        return results;
+    }
 
-            // All reattempts are used up and there is still no valid authorization?
-            if (challenge.getStatus() != Status.VALID) {
-                log.error("CertificateService(authorize) -> Failed to pass challenge for domain {}", auth.getIdentifier().getDomain());
-                throw new AcmeException("Failed to pass the challenge for domain "
-                        + auth.getIdentifier().getDomain() + ", ... Giving up.");
+    private static <T> T await(CompletableFuture<T> future) throws AcmeException, IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof AcmeException acmeException) {
+                throw acmeException;
             }
-
-            log.info("CertificateService(authorize) -> Challenge has been completed for domain {}, Remember to remove the validation resource.", auth.getIdentifier().getDomain());
-
-        } finally {
-            try {
-                this.domainService.updateTxtRecords(domain, valuesToBeAdded, StringPool.DELETE);
-                log.info("DomainService(createSubDomain) -> Txt record has been deleted for {}", domain);
-            } catch (Exception e) {
-                log.error("DomainService(createSubDomain) -> Txt record has not been deleted for {}", domain, e);
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
             }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
         }
     }
 
-    private Challenge dnsChallenge(Authorization auth) throws AcmeException {
-        // Find a single dns-01 challenge
-        Dns01Challenge challenge = auth.findChallenge(Dns01Challenge.TYPE);
-        if (challenge == null) {
-            log.error("CertificateService(dnsChallenge) -> Not able to found {} challenge, What to do now?", Dns01Challenge.TYPE);
-            throw new AcmeException("Found no " + Dns01Challenge.TYPE + " challenge, don't know what to do...");
+    private String readDomainKey(Participant participant) {
+        Map<String, Object> secret = this.vaultService.getParticipantSecretData(participant.getId().toString());
+        Object domainKey = secret == null ? null : secret.get(participant.getId() + ".key");
+        if (domainKey == null) {
+            throw new IllegalStateException("Domain key of participant " + participant.getId() + " is not stored");
         }
-        log.error("CertificateService(dnsChallenge) -> Challenge {} is found", Dns01Challenge.TYPE);
-        String valuesToBeAdded = challenge.getDigest();
-        String domain = Dns01Challenge.toRRName(auth.getIdentifier());
+        return domainKey.toString();
+    }
 
-        //Create TXT records
-        try {
-            this.domainService.updateTxtRecords(domain, valuesToBeAdded, StringPool.CREATE);
-            log.info("DomainService(createSubDomain) -> Txt record has been created for {}", domain);
-        } catch (Exception e) {
-            log.error("DomainService(createSubDomain) -> Txt record has not been created for {}", domain, e);
-        }
+    private KeyPair readDomainKeyPair(Participant participant) throws IOException {
+        return KeyPairUtils.readKeyPair(new StringReader(this.readDomainKey(participant)));
+    }
 
+    private static boolean isRenewal(OnboardingStepContext context) {
+        return Boolean.parseBoolean(context.get(RENEWAL));
+    }
 
-        return challenge;
+    /**
+     * Gets the expiry of the leaf certificate, the first one of the PEM chain.
+     */
+    static Instant getExpiry(String pemChain) throws CertificateException {
+        X509Certificate leaf = (X509Certificate) CertificateFactory.getInstance("X.509")
+                .generateCertificate(new ByteArrayInputStream(pemChain.getBytes(StandardCharsets.UTF_8)));
+        return leaf.getNotAfter().toInstant();
     }
 
-    private void convertKeyFileInPKCS8(String file, String outputFile, String did) {
-        try {
-            log.info("CertificateService(uploadCertificatesToVault) -> Convert key file to pkcs8 format.");
-            ProcessBuilder pb = new ProcessBuilder("openssl", "pkcs8", "-topk8", "-in", file, "-nocrypt", "-out", outputFile);
-            Process p = pb.start();
-            int exitCode = p.waitFor();
-            if (exitCode == 0) {
-                log.debug("CertificateService(uploadCertificatesToVault) -> Convert key file to pkcs8 format successfully for did {}", did);
-            } else {
-                log.error("CertificateService(uploadCertificatesToVault) -> Can not convert key file to pkcs8 for did {}, receive exitcode {}", did, exitCode);
-            }
-        } catch (InterruptedException e) {
-            log.error("CertificateService(uploadCertificatesToVault) -> Can not convert key file to pkcs8 for did {}", did, e);
-            Thread.currentThread().interrupt();
-        } catch (IOException e) {
-            log.error("CertificateService(uploadCertificatesToVault) -> Can not convert key file to pkcs8 for did {}", did, e);
-        }
+    private static void append(OnboardingStepContext context, String key, String value) {
+        String current = context.get(key);
+        context.put(key, StringUtils.hasText(current) ? current + SEPARATOR + value : value);
+    }
+
+    private static List<String> split(String value) {
+        return StringUtils.hasText(value) ? Arrays.asList(value.split(SEPARATOR)) : Collections.emptyList();
+    }
 
+    @FunctionalInterface
+    private interface AcmeFunction<S, T> {
+        T apply(S item) throws AcmeException, IOException;
     }
 
-    private void uploadCertificatesToVault(String participantId, File domainChain, File csrFile, File keyFile, File pkcs8Key) throws IOException {
-        this.vaultService.uploadCertificatesToVault(participantId,
-                new String(Files.readAllBytes(domainChain.toPath())), new String(Files.readAllBytes(csrFile.toPath())),
-                new String(Files.readAllBytes(keyFile.toPath())), new String(Files.readAllBytes(pkcs8Key.toPath())));
+    private record PendingChallenge(String authorization, String txtName, String txtValue, CompletableFuture<String> txtChange) {
     }
 
     /*public void uploadCertificatesToVault(String participantId, String domainChain, String csr, String key, String pkcs8Key) {
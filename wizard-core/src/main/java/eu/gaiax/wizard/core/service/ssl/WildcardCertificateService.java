@@ -0,0 +1,424 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.core.service.ssl;
+
+import eu.gaiax.wizard.api.exception.EntityNotFoundException;
+import eu.gaiax.wizard.api.model.RegistrationStatus;
+import eu.gaiax.wizard.api.model.setting.OnboardingSettings;
+import eu.gaiax.wizard.api.model.setting.WildcardSettings;
+import eu.gaiax.wizard.api.utils.StringPool;
+import eu.gaiax.wizard.core.service.domain.DomainService;
+import eu.gaiax.wizard.core.service.hosting.HostedArtifactService;
+import eu.gaiax.wizard.core.service.job.ScheduleService;
+import eu.gaiax.wizard.core.service.k8s.K8SService;
+import eu.gaiax.wizard.core.service.onboarding.OnboardingStepContext;
+import eu.gaiax.wizard.core.service.participant.VaultService;
+import eu.gaiax.wizard.dao.entity.participant.Participant;
+import eu.gaiax.wizard.dao.repository.participant.ParticipantRepository;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.shredzone.acme4j.*;
+import org.shredzone.acme4j.challenge.Dns01Challenge;
+import org.shredzone.acme4j.exception.AcmeException;
+import org.shredzone.acme4j.exception.AcmeRetryAfterException;
+import org.shredzone.acme4j.exception.AcmeUnauthorizedException;
+import org.shredzone.acme4j.util.CSRBuilder;
+import org.shredzone.acme4j.util.KeyPairUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URL;
+import java.security.KeyPair;
+import java.security.cert.CertificateException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+import static eu.gaiax.wizard.core.service.participant.VaultService.*;
+
+/**
+ * Serves all participant sub domains with one {@code *.<wizard.domain>} record and one wildcard certificate when the
+ * wildcard mode is on. Both are kept up to date by a cluster wide job. The renewal does not block the job thread while
+ * it waits for DNS propagation or the ACME server: like the certificate issuance of a participant it is split into
+ * phases, and a phase that has to wait schedules a job that continues the renewal later, see
+ * {@link ScheduleService#continueWildcardRenewalJob}.
+ * <p>
+ * The participants sign their credentials with the key of the certificate their did.json points to. By default every
+ * participant still gets a certificate and key of its own for that, the wildcard certificate only serves TLS. With
+ * {@code wizard.wildcard.shared-key} the onboarding hands the wildcard certificate to the participant instead, so it
+ * does not wait for an ACME order, and all participants sign with the shared wildcard key. The key pair is therefore
+ * kept on renewal, and it is never exported to a participant.
+ */
+@Service
+@Slf4j
+public class WildcardCertificateService {
+
+    // RSA key size of the wildcard key pair
+    private static final int KEY_SIZE = 2048;
+
+    private static final int DISTRIBUTE_BATCH_SIZE = 100;
+
+    //keys of the step data
+    private static final String PHASE = "phase";
+    private static final String ACCOUNT = "account";
+    private static final String ORDER = "order";
+    private static final String AUTHORIZATIONS = "authorizations";
+    private static final String TXT_NAME = "txtName";
+    private static final String TXT_VALUES = "txtValues";
+    private static final String TXT_CHANGE = "txtChange";
+    private static final String SEPARATOR = ",";
+
+    private enum Phase {
+        ORDER, DNS_PROPAGATION, CHALLENGE, FINALIZE
+    }
+
+    private final WildcardSettings wildcardSettings;
+    private final OnboardingSettings onboardingSettings;
+    private final DomainService domainService;
+    private final VaultService vaultService;
+    private final AcmeAccountService acmeAccountService;
+    private final K8SService k8SService;
+    private final HostedArtifactService hostedArtifactService;
+    private final ParticipantRepository participantRepository;
+    private final ScheduleService scheduleService;
+    private final String domain;
+
+    public WildcardCertificateService(WildcardSettings wildcardSettings, OnboardingSettings onboardingSettings, DomainService domainService,
+                                      VaultService vaultService, AcmeAccountService acmeAccountService, K8SService k8SService,
+                                      HostedArtifactService hostedArtifactService, ParticipantRepository participantRepository,
+                                      ScheduleService scheduleService, @Value("${wizard.domain}") String domain) {
+        this.wildcardSettings = wildcardSettings;
+        this.onboardingSettings = onboardingSettings;
+        this.domainService = domainService;
+        this.vaultService = vaultService;
+        this.acmeAccountService = acmeAccountService;
+        this.k8SService = k8SService;
+        this.hostedArtifactService = hostedArtifactService;
+        this.participantRepository = participantRepository;
+        this.scheduleService = scheduleService;
+        this.domain = domain;
+    }
+
+    public boolean isEnabled() {
+        return this.wildcardSettings.enabled();
+    }
+
+    /**
+     * Whether the participants sign with the shared wildcard key instead of a certificate of their own.
+     *
+     * @return true if the wildcard mode and the shared key are on
+     */
+    public boolean isSharedKey() {
+        return this.wildcardSettings.enabled() && this.wildcardSettings.sharedKey();
+    }
+
+    @SneakyThrows
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleRenewal() {
+        if (this.wildcardSettings.sharedKey()) {
+            if (this.isEnabled()) {
+                log.warn("WildcardCertificateService(scheduleRenewal) -> All participants sign their credentials with the wildcard key of {}, a leaked key compromises the credentials of every participant", this.domain);
+            } else {
+                log.warn("WildcardCertificateService(scheduleRenewal) -> Shared wildcard key is ignored, the wildcard mode is off");
+            }
+        }
+        if (this.isEnabled()) {
+            log.info("WildcardCertificateService(scheduleRenewal) -> Scheduling wildcard certificate check every {}", this.wildcardSettings.checkInterval());
+            this.scheduleService.createWildcardRenewalJob(this.wildcardSettings.checkInterval());
+        }
+    }
+
+    /**
+     * Hands the wildcard certificate to the participant and sets the status to certificate created. If the wildcard
+     * certificate is not issued yet, the status is left as is and the onboarding checks again later.
+     *
+     * @param participantId the participant id
+     */
+    public void assignCertificate(UUID participantId) throws IOException {
+        Participant participant = this.participantRepository.findById(participantId).orElseThrow(() -> new EntityNotFoundException("participant.not.found"));
+        Map<String, Object> certificate = this.vaultService.getWildcardCertificate();
+        if (certificate == null || certificate.get(CERTIFICATE_CHAIN) == null) {
+            log.info("WildcardCertificateService(assignCertificate) -> Wildcard certificate is not issued yet, participant {} waits for it", participantId);
+            return;
+        }
+        String domainChain = (String) certificate.get(CERTIFICATE_CHAIN);
+        this.vaultService.storeSharedCertificate(participantId.toString(), domainChain, (String) certificate.get(PKCS8_KEY));
+        this.hostedArtifactService.publishCertificateChain(participantId, domainChain);
+        this.hostedArtifactService.publishDomain(participant.getDomain(), participantId);
+
+        participant.setKeyStored(true);
+        participant.setStatus(RegistrationStatus.CERTIFICATE_CREATED.getStatus());
+        this.participantRepository.save(participant);
+        log.info("WildcardCertificateService(assignCertificate) -> Wildcard certificate has been assigned to participant {}", participantId);
+    }
+
+    /**
+     * Keeps the wildcard record pointing to the server and starts the renewal of the wildcard certificate once it is
+     * due, or continues the renewal in progress. A failed renewal is tried again on the next check.
+     *
+     * @param context the state of the renewal in progress, empty for the check
+     */
+    public void renew(OnboardingStepContext context) {
+        if (!this.isEnabled()) {
+            return;
+        }
+        try {
+            if (context.get(PHASE) == null) {
+                this.domainService.upsertWildcardRecord(this.domain);
+                if (this.scheduleService.isWildcardRenewalInProgress()) {
+                    log.info("WildcardCertificateService(renew) -> Wildcard certificate renewal of {} is already in progress", this.domain);
+                    return;
+                }
+                if (!this.isDue(this.vaultService.getWildcardCertificate())) {
+                    log.info("WildcardCertificateService(renew) -> Wildcard certificate of {} is not due for renewal", this.domain);
+                    return;
+                }
+            }
+            if (this.runPhase(context)) {
+                return;
+            }
+            if (context.getWaits() >= this.onboardingSettings.maxWaits()) {
+                throw new AcmeException("wildcard renewal not done after " + context.getWaits() + " waits");
+            }
+            Duration delay = context.getRetryAfter() != null ? context.getRetryAfter() : this.onboardingSettings.backoff(context.getWaits());
+            this.scheduleService.continueWildcardRenewalJob(context.getData(), context.getWaits() + 1, delay);
+        } catch (Exception e) {
+            if (e instanceof AcmeUnauthorizedException) {
+                this.acmeAccountService.reset();
+            }
+            this.deleteTxtRecords(context);
+            log.error("WildcardCertificateService(renew) -> Can not renew wildcard certificate of {}", this.domain, e);
+        }
+    }
+
+    /**
+     * Whether there is no wildcard certificate yet or it expires within the renew before period.
+     */
+    boolean isDue(Map<String, Object> certificate) throws CertificateException {
+        if (certificate == null || certificate.get(CERTIFICATE_CHAIN) == null || certificate.get(DOMAIN_KEY) == null) {
+            return true;
+        }
+        return CertificateService.getExpiry((String) certificate.get(CERTIFICATE_CHAIN)).minus(this.wildcardSettings.renewBefore()).isBefore(Instant.now());
+    }
+
+    /**
+     * Runs the next phase of the renewal.
+     *
+     * @return true once the renewed certificate is stored
+     */
+    private boolean runPhase(OnboardingStepContext context) throws Exception {
+        Phase phase = context.get(PHASE) == null ? Phase.ORDER : Phase.valueOf(context.get(PHASE));
+        log.info("WildcardCertificateService(runPhase) -> Continue wildcard certificate renewal of {} in phase {}", this.domain, phase);
+        try {
+            if (phase != Phase.ORDER && !this.acmeAccountService.getLogin().getAccountLocation().toString().equals(context.get(ACCOUNT))) {
+                // the order was placed with an account of before the shared one, it can not be continued
+                log.info("WildcardCertificateService(runPhase) -> Order belongs to account {}, placing a new order", context.get(ACCOUNT));
+                this.deleteTxtRecords(context);
+                List.of(PHASE, ACCOUNT, ORDER, AUTHORIZATIONS).forEach(context::remove);
+                phase = Phase.ORDER;
+            }
+            return switch (phase) {
+                case ORDER -> this.placeOrder(context);
+                case DNS_PROPAGATION -> this.checkDnsPropagation(context);
+                case CHALLENGE -> this.checkChallenges(context);
+                case FINALIZE -> this.checkOrder(context);
+            };
+        } catch (AcmeRetryAfterException e) {
+            log.info("WildcardCertificateService(runPhase) -> ACME server asks to retry after {}", e.getRetryAfter());
+            Duration retryAfter = Duration.between(Instant.now(), e.getRetryAfter());
+            context.setRetryAfter(retryAfter.isNegative() ? Duration.ZERO : retryAfter);
+            return false;
+        }
+    }
+
+    private boolean placeOrder(OnboardingStepContext context) throws Exception {
+        // the key pair is kept, the participants' did.json and credentials refer to its public key; the first one is
+        // stored right away, so that the order can be finalized on any later run
+        Map<String, Object> current = this.vaultService.getWildcardCertificate();
+        if (current == null || current.get(DOMAIN_KEY) == null) {
+            StringWriter key = new StringWriter();
+            KeyPairUtils.writeKeyPair(KeyPairUtils.createKeyPair(KEY_SIZE), key);
+            this.vaultService.storeWildcardKey(key.toString());
+        }
+        String wildcard = "*." + this.domain;
+        log.info("WildcardCertificateService(placeOrder) -> Ordering wildcard certificate for {}", wildcard);
+
+        Login login = this.acmeAccountService.getLogin();
+        Order order = login.getAccount().newOrder().domains(wildcard, this.domain).create();
+        context.put(ACCOUNT, login.getAccountLocation().toString());
+        context.put(ORDER, order.getLocation().toString());
+        String txtName = null;
+        List<String> txtValues = new ArrayList<>();
+        List<String> authorizations = new ArrayList<>();
+        for (Authorization auth : order.getAuthorizations()) {
+            if (auth.getStatus() == Status.VALID) {
+                continue;
+            }
+            Dns01Challenge challenge = auth.findChallenge(Dns01Challenge.TYPE);
+            if (challenge == null) {
+                log.error("WildcardCertificateService(placeOrder) -> Challenge {} is not found for domain {}", Dns01Challenge.TYPE, auth.getIdentifier().getDomain());
+                throw new AcmeException("challenge.not.found");
+            }
+            // the challenges of the wildcard and the domain itself share the record name
+            txtName = Dns01Challenge.toRRName(auth.getIdentifier());
+            txtValues.add(challenge.getDigest());
+            authorizations.add(auth.getLocation().toString());
+        }
+        if (authorizations.isEmpty()) {
+            return this.finalizeOrder(context, login);
+        }
+
+        context.put(AUTHORIZATIONS, String.join(SEPARATOR, authorizations));
+        context.put(TXT_NAME, txtName);
+        context.put(TXT_VALUES, String.join(SEPARATOR, txtValues));
+        context.put(TXT_CHANGE, this.domainService.updateTxtRecords(txtName, txtValues, StringPool.UPSERT));
+        context.put(PHASE, Phase.DNS_PROPAGATION.name());
+        log.info("WildcardCertificateService(placeOrder) -> Order has been placed for {}, waiting for DNS propagation", wildcard);
+        return false;
+    }
+
+    private boolean checkDnsPropagation(OnboardingStepContext context) throws Exception {
+        if (!this.isPropagated(context)) {
+            log.info("WildcardCertificateService(checkDnsPropagation) -> Txt record {} is not propagated yet", context.get(TXT_NAME));
+            return false;
+        }
+        Login login = this.acmeAccountService.getLogin();
+        for (String location : split(context.get(AUTHORIZATIONS))) {
+            Dns01Challenge challenge = login.bindAuthorization(new URL(location)).findChallenge(Dns01Challenge.TYPE);
+            if (challenge.getStatus() != Status.VALID) {
+                challenge.trigger();
+            }
+        }
+        context.put(PHASE, Phase.CHALLENGE.name());
+        context.setRetryAfter(this.onboardingSettings.waitInterval());
+        log.info("WildcardCertificateService(checkDnsPropagation) -> Challenges have been triggered for {}", this.domain);
+        return false;
+    }
+
+    private boolean isPropagated(OnboardingStepContext context) {
+        if (this.domainService.isChangeInSync(context.get(TXT_CHANGE))) {
+            return true;
+        }
+        return this.onboardingSettings.authoritativeDnsCheck()
+                && split(context.get(TXT_VALUES)).stream().allMatch(value -> this.domainService.isTxtRecordServed(context.get(TXT_NAME), value));
+    }
+
+    private boolean checkChallenges(OnboardingStepContext context) throws Exception {
+        Login login = this.acmeAccountService.getLogin();
+        boolean valid = true;
+        for (String location : split(context.get(AUTHORIZATIONS))) {
+            Dns01Challenge challenge = login.bindAuthorization(new URL(location)).findChallenge(Dns01Challenge.TYPE);
+            if (challenge.getStatus() == Status.INVALID) {
+                log.error("WildcardCertificateService(checkChallenges) -> Challenge is not valid and the reason: {}", challenge.getError());
+                throw new AcmeException("invalid.challenge");
+            }
+            valid &= challenge.getStatus() == Status.VALID;
+        }
+        if (!valid) {
+            log.info("WildcardCertificateService(checkChallenges) -> Challenges of {} are not validated yet", this.domain);
+            return false;
+        }
+        this.deleteTxtRecords(context);
+        return this.finalizeOrder(context, login);
+    }
+
+    private boolean finalizeOrder(OnboardingStepContext context, Login login) throws Exception {
+        CSRBuilder csrb = new CSRBuilder();
+        csrb.addDomains("*." + this.domain, this.domain);
+        csrb.sign(this.readKeyPair());
+        login.bindOrder(new URL(context.get(ORDER))).execute(csrb.getEncoded());
+        context.put(PHASE, Phase.FINALIZE.name());
+        context.setRetryAfter(this.onboardingSettings.waitInterval());
+        log.info("WildcardCertificateService(finalizeOrder) -> Order has been finalized for {}, waiting for the certificate", this.domain);
+        return false;
+    }
+
+    private boolean checkOrder(OnboardingStepContext context) throws Exception {
+        Order order = this.acmeAccountService.getLogin().bindOrder(new URL(context.get(ORDER)));
+        if (order.getStatus() == Status.INVALID) {
+            log.error("WildcardCertificateService(checkOrder) -> Order has failed, reason: {}", order.getError());
+            throw new AcmeException("order.failed");
+        }
+        if (order.getStatus() != Status.VALID) {
+            log.info("WildcardCertificateService(checkOrder) -> Wildcard certificate of {} is not issued yet", this.domain);
+            return false;
+        }
+        this.store(order.getCertificate(), this.readKeyPair());
+        return true;
+    }
+
+    private KeyPair readKeyPair() throws IOException {
+        Map<String, Object> current = this.vaultService.getWildcardCertificate();
+        if (current == null || current.get(DOMAIN_KEY) == null) {
+            throw new IllegalStateException("Wildcard key of " + this.domain + " is not stored");
+        }
+        return KeyPairUtils.readKeyPair(new StringReader((String) current.get(DOMAIN_KEY)));
+    }
+
+    private void store(Certificate certificate, KeyPair keyPair) throws Exception {
+        String domainChain = CertificateService.toPemChain(certificate.getCertificateChain());
+        StringWriter key = new StringWriter();
+        KeyPairUtils.writeKeyPair(keyPair, key);
+        String pkcs8Key = CertificateService.toPkcs8Pem(keyPair.getPrivate());
+
+        this.vaultService.storeWildcardCertificate(domainChain, key.toString(), pkcs8Key);
+        this.k8SService.upsertTlsSecret(this.wildcardSettings.secretName(), domainChain, pkcs8Key);
+        log.info("WildcardCertificateService(store) -> Wildcard certificate of {} has been renewed, certificate URL: {}", this.domain, certificate.getLocation());
+        this.distribute(domainChain, pkcs8Key);
+    }
+
+    /**
+     * Replaces the certificate chain of the participants sharing the wildcard certificate. A participant that fails
+     * keeps the previous chain, which still matches its key, and is updated on the next renewal.
+     */
+    private void distribute(String domainChain, String pkcs8Key) {
+        List<Participant> participants = this.participantRepository.findAllByDomainIsNotNull();
+        int updated = 0;
+        for (int from = 0; from < participants.size(); from += DISTRIBUTE_BATCH_SIZE) {
+            List<Participant> batch = participants.subList(from, Math.min(from + DISTRIBUTE_BATCH_SIZE, participants.size()));
+            Map<String, Map<String, Object>> secrets = this.vaultService.getParticipantsSecretData(batch.stream().map(participant -> participant.getId().toString()).toList());
+            for (Participant participant : batch) {
+                Map<String, Object> secret = secrets.get(participant.getId().toString());
+                if (secret == null || !Boolean.parseBoolean(String.valueOf(secret.get(SHARED_KEY)))) {
+                    continue;
+                }
+                try {
+                    this.vaultService.storeSharedCertificate(participant.getId().toString(), domainChain, pkcs8Key);
+                    this.hostedArtifactService.publishCertificateChain(participant.getId(), domainChain);
+                    updated++;
+                } catch (Exception e) {
+                    log.error("WildcardCertificateService(distribute) -> Not able to update certificate of participant {}", participant.getId(), e);
+                }
+            }
+        }
+        log.info("WildcardCertificateService(distribute) -> Renewed wildcard certificate distributed to {} participants", updated);
+    }
+
+    private void deleteTxtRecords(OnboardingStepContext context) {
+        String txtName = context.get(TXT_NAME);
+        if (txtName == null) {
+            return;
+        }
+        try {
+            this.domainService.updateTxtRecords(txtName, split(context.get(TXT_VALUES)), StringPool.DELETE);
+            log.info("WildcardCertificateService(deleteTxtRecords) -> Txt record has been deleted for {}", txtName);
+        } catch (Exception e) {
+            log.error("WildcardCertificateService(deleteTxtRecords) -> Txt record has not been deleted for {}", txtName, e);
+        }
+        context.remove(TXT_NAME);
+        context.remove(TXT_VALUES);
+        context.remove(TXT_CHANGE);
+    }
+
+    private static List<String> split(String value) {
+        return StringUtils.hasText(value) ? Arrays.asList(value.split(SEPARATOR)) : Collections.emptyList();
+    }
+}
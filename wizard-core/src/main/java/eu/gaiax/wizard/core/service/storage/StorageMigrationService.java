@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.core.service.storage;
+
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import eu.gaiax.wizard.api.model.StorageKeyLayout;
+import eu.gaiax.wizard.api.model.setting.StorageSettings;
+import eu.gaiax.wizard.api.utils.S3Utils;
+import eu.gaiax.wizard.core.service.job.ScheduleService;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Moves objects stored under the flat key layout to the configured layout. Reads keep falling back to the flat key
+ * while the migration runs, and public hosted URLs are resolved from logical keys, so they do not change.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class StorageMigrationService {
+
+    private final S3Utils s3Utils;
+    private final StorageSettings storageSettings;
+    private final ScheduleService scheduleService;
+
+    @SneakyThrows
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleMigration() {
+        if (this.storageSettings.migrateOnStartup() && this.storageSettings.keyLayout() != StorageKeyLayout.FLAT) {
+            log.info("StorageMigrationService(scheduleMigration) -> Scheduling migration of stored keys to layout {}", this.storageSettings.keyLayout());
+            this.scheduleService.createStorageMigrationJob();
+        }
+    }
+
+    public void migrateKeyLayout() {
+        if (this.storageSettings.keyLayout() == StorageKeyLayout.FLAT) {
+            log.info("StorageMigrationService(migrateKeyLayout) -> Flat key layout is configured, nothing to migrate.");
+            return;
+        }
+
+        log.info("StorageMigrationService(migrateKeyLayout) -> Migration to key layout {} started.", this.storageSettings.keyLayout());
+        AtomicInteger migrated = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(this.storageSettings.migrationParallelism());
+        try {
+            String continuationToken = null;
+            do {
+                ListObjectsV2Result batch = this.s3Utils.listObjects(continuationToken, this.storageSettings.migrationBatchSize());
+                List<CompletableFuture<Void>> futures = batch.getObjectSummaries().stream()
+                        .map(S3ObjectSummary::getKey)
+                        .filter(this.s3Utils::requiresMigration)
+                        .map(key -> CompletableFuture.runAsync(() -> this.migrateKey(key, migrated, failed), executor))
+                        .toList();
+                CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+                continuationToken = batch.getNextContinuationToken();
+                log.debug("StorageMigrationService(migrateKeyLayout) -> Batch done, migrated {} failed {} so far.", migrated.get(), failed.get());
+            } while (continuationToken != null);
+        } finally {
+            executor.shutdown();
+        }
+        log.info("StorageMigrationService(migrateKeyLayout) -> Migration finished, migrated {} objects, {} failed.", migrated.get(), failed.get());
+    }
+
+    private void migrateKey(String key, AtomicInteger migrated, AtomicInteger failed) {
+        try {
+            this.s3Utils.migrateKey(key);
+            migrated.incrementAndGet();
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            log.error("StorageMigrationService(migrateKey) -> Not able to migrate object {}", key, e);
+        }
+    }
+}
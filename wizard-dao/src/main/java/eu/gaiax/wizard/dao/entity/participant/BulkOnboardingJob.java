@@ -0,0 +1,28 @@
+package eu.gaiax.wizard.dao.entity.participant;
+
+import eu.gaiax.wizard.api.model.BulkOnboardingJobState;
+import eu.gaiax.wizard.dao.entity.SuperEntity;
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Table(name = "bulk_onboarding_job")
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class BulkOnboardingJob extends SuperEntity {
+    @Enumerated(EnumType.STRING)
+    @Column(name = "state")
+    private BulkOnboardingJobState state;
+
+    @Column(name = "total")
+    private int total;
+
+    @Column(name = "registered")
+    private int registered;
+
+    @Column(name = "failed")
+    private int failed;
+}
@@ -0,0 +1,39 @@
+package eu.gaiax.wizard.dao.entity.participant;
+
+import eu.gaiax.wizard.api.model.BulkOnboardingRowStatus;
+import eu.gaiax.wizard.dao.entity.SuperEntity;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.UUID;
+
+@Entity
+@Table(name = "bulk_onboarding_row")
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class BulkOnboardingRow extends SuperEntity {
+    @Column(name = "job_id", nullable = false)
+    private UUID jobId;
+
+    @Column(name = "row_number")
+    private int rowNumber;
+
+    @Column(name = "email")
+    private String email;
+
+    @Column(name = "payload")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private BulkOnboardingRowStatus status;
+
+    @Column(name = "participant_id")
+    private UUID participantId;
+
+    @Column(name = "message")
+    private String message;
+}
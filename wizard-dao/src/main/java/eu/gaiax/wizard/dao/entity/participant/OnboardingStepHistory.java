@@ -0,0 +1,56 @@
+package eu.gaiax.wizard.dao.entity.participant;
+
+import eu.gaiax.wizard.api.model.OnboardingStep;
+import eu.gaiax.wizard.api.model.OnboardingStepOutcome;
+import eu.gaiax.wizard.dao.entity.SuperEntity;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * One finished run of an onboarding step. Rows are only ever inserted.
+ */
+@Entity
+@Table(name = "onboarding_step_history")
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class OnboardingStepHistory extends SuperEntity {
+    @Column(name = "participant_id", nullable = false)
+    private UUID participantId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "step")
+    private OnboardingStep step;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "outcome")
+    private OnboardingStepOutcome outcome;
+
+    @Column(name = "status")
+    private int status;
+
+    @Column(name = "attempt")
+    private int attempt;
+
+    @Column(name = "waits")
+    private int waits;
+
+    @Temporal(value = TemporalType.TIMESTAMP)
+    @Column(name = "started_at")
+    private Date startedAt;
+
+    @Temporal(value = TemporalType.TIMESTAMP)
+    @Column(name = "ended_at")
+    private Date endedAt;
+
+    @Column(name = "duration_ms")
+    private long durationMs;
+
+    @Column(name = "error_code")
+    private String errorCode;
+}
@@ -0,0 +1,50 @@
+package eu.gaiax.wizard.dao.entity.participant;
+
+import eu.gaiax.wizard.api.model.OnboardingStep;
+import eu.gaiax.wizard.api.model.OnboardingWorkflowState;
+import eu.gaiax.wizard.dao.entity.SuperEntity;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Date;
+import java.util.UUID;
+
+@Entity
+@Table(name = "onboarding_workflow")
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class OnboardingWorkflow extends SuperEntity {
+    @Column(name = "participant_id", nullable = false, unique = true)
+    private UUID participantId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "step")
+    private OnboardingStep step;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "state")
+    private OnboardingWorkflowState state;
+
+    @Column(name = "waits")
+    private int waits;
+
+    @Column(name = "attempts")
+    private int attempts;
+
+    @Temporal(value = TemporalType.TIMESTAMP)
+    @Column(name = "next_run_at")
+    private Date nextRunAt;
+
+    @Temporal(value = TemporalType.TIMESTAMP)
+    @Column(name = "step_started_at")
+    private Date stepStartedAt;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    @Column(name = "step_data")
+    private String stepData;
+}
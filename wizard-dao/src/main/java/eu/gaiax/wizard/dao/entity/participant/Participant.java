@@ -1,10 +1,13 @@
 package eu.gaiax.wizard.dao.entity.participant;
 
+import eu.gaiax.wizard.api.model.ProfileImageStatus;
 import eu.gaiax.wizard.dao.entity.SuperEntity;
 import eu.gaiax.wizard.dao.entity.data_master.EntityTypeMaster;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.util.Date;
+
 @Entity
 @Table(name = "participant")
 @NoArgsConstructor
@@ -53,6 +56,19 @@ public class Participant extends SuperEntity {
     @Column(name = "key_stored")
     private boolean keyStored;
 
+    // only a registration provisions the Keycloak user after the insert
+    @Column(name = "user_provisioned")
+    @Builder.Default
+    private boolean userProvisioned = true;
+
+    @Column(name = "certificate_expiry")
+    @Temporal(value = TemporalType.TIMESTAMP)
+    private Date certificateExpiry;
+
     @Column(name = "profile_image")
     private String profileImage;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "profile_image_status")
+    private ProfileImageStatus profileImageStatus;
 }
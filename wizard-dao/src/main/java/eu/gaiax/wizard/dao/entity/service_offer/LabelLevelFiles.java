@@ -1,5 +1,6 @@
 package eu.gaiax.wizard.dao.entity.service_offer;
 
+import eu.gaiax.wizard.api.model.LabelLevelFileStatus;
 import eu.gaiax.wizard.dao.entity.SuperEntity;
 import eu.gaiax.wizard.dao.entity.participant.Participant;
 import jakarta.persistence.*;
@@ -19,14 +20,14 @@ public class LabelLevelFiles extends SuperEntity {
     private UUID participantId;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "participant_id", referencedColumnName = "id", nullable = false)
+    @JoinColumn(name = "participant_id", referencedColumnName = "id")
     private Participant participant;
 
     @Column(name = "service_offer_id", insertable = false, updatable = false)
     private UUID serviceOfferId;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "service_offer_id", referencedColumnName = "id", nullable = false)
+    @JoinColumn(name = "service_offer_id", referencedColumnName = "id")
     private ServiceOffer serviceOffer;
 
     @Column(name = "file_path")
@@ -34,4 +35,20 @@ public class LabelLevelFiles extends SuperEntity {
 
     @Column(name = "description")
     private String description;
+
+    @Column(name = "file_name")
+    private String fileName;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "size")
+    private Long size;
+
+    @Column(name = "content_hash")
+    private String contentHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private LabelLevelFileStatus status;
 }
@@ -0,0 +1,41 @@
+package eu.gaiax.wizard.dao.repository.participant;
+
+import com.smartsensesolutions.java.commons.base.repository.BaseRepository;
+import eu.gaiax.wizard.api.model.BulkOnboardingJobState;
+import eu.gaiax.wizard.dao.entity.participant.BulkOnboardingJob;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface BulkOnboardingJobRepository extends BaseRepository<BulkOnboardingJob, UUID> {
+
+    List<BulkOnboardingJob> findAllByStateInAndUpdatedAtBefore(Collection<BulkOnboardingJobState> states, Date updatedAt);
+
+    /**
+     * Marks the job as running if it is pending, so a job is processed by one node at a time. A run that has not
+     * reported back since {@code staleBefore} is considered dead and may be taken over.
+     *
+     * @return the number of updated rows, 1 if the job was claimed
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE BulkOnboardingJob j SET j.state = eu.gaiax.wizard.api.model.BulkOnboardingJobState.RUNNING, j.updatedAt = :now " +
+            "WHERE j.id = :id AND (j.state = eu.gaiax.wizard.api.model.BulkOnboardingJobState.PENDING " +
+            "OR (j.state = eu.gaiax.wizard.api.model.BulkOnboardingJobState.RUNNING AND j.updatedAt < :staleBefore))")
+    int claim(UUID id, Date now, Date staleBefore);
+
+    /**
+     * Stores the progress of a running job. The update of {@code updatedAt} keeps the run from being taken over.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE BulkOnboardingJob j SET j.registered = :registered, j.failed = :failed, j.updatedAt = :now WHERE j.id = :id")
+    int updateProgress(UUID id, int registered, int failed, Date now);
+}
@@ -0,0 +1,21 @@
+package eu.gaiax.wizard.dao.repository.participant;
+
+import com.smartsensesolutions.java.commons.base.repository.BaseRepository;
+import eu.gaiax.wizard.api.model.BulkOnboardingRowStatus;
+import eu.gaiax.wizard.dao.entity.participant.BulkOnboardingRow;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface BulkOnboardingRowRepository extends BaseRepository<BulkOnboardingRow, UUID> {
+
+    List<BulkOnboardingRow> findAllByJobIdOrderByRowNumber(UUID jobId);
+
+    List<BulkOnboardingRow> findAllByJobIdAndStatus(UUID jobId, BulkOnboardingRowStatus status, Pageable pageable);
+
+    long countByJobIdAndStatusIn(UUID jobId, Collection<BulkOnboardingRowStatus> statuses);
+}
@@ -0,0 +1,30 @@
+package eu.gaiax.wizard.dao.repository.participant;
+
+import com.smartsensesolutions.java.commons.base.repository.BaseRepository;
+import eu.gaiax.wizard.api.model.OnboardingStepLatencyInterface;
+import eu.gaiax.wizard.dao.entity.participant.OnboardingStepHistory;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface OnboardingStepHistoryRepository extends BaseRepository<OnboardingStepHistory, UUID> {
+
+    /**
+     * Calculates the duration percentiles of the completed step runs per step and UTC day.
+     *
+     * @param from start of the period, inclusive
+     * @param to   end of the period, exclusive
+     * @return one row per step and day
+     */
+    @Query(value = "SELECT h.step AS step, CAST(date_trunc('day', h.ended_at AT TIME ZONE 'UTC') AS date) AS day, count(*) AS count, " +
+            "percentile_cont(0.5) WITHIN GROUP (ORDER BY h.duration_ms) AS p50, " +
+            "percentile_cont(0.95) WITHIN GROUP (ORDER BY h.duration_ms) AS p95, " +
+            "percentile_cont(0.99) WITHIN GROUP (ORDER BY h.duration_ms) AS p99 " +
+            "FROM onboarding_step_history h WHERE h.outcome = 'COMPLETED' AND h.ended_at >= :from AND h.ended_at < :to " +
+            "GROUP BY h.step, CAST(date_trunc('day', h.ended_at AT TIME ZONE 'UTC') AS date) ORDER BY day, step", nativeQuery = true)
+    List<OnboardingStepLatencyInterface> getStepLatency(Date from, Date to);
+}
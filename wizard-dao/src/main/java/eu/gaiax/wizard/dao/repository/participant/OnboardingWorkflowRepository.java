@@ -0,0 +1,43 @@
+package eu.gaiax.wizard.dao.repository.participant;
+
+import com.smartsensesolutions.java.commons.base.repository.BaseRepository;
+import eu.gaiax.wizard.api.model.OnboardingStep;
+import eu.gaiax.wizard.api.model.OnboardingWorkflowState;
+import eu.gaiax.wizard.dao.entity.participant.OnboardingWorkflow;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface OnboardingWorkflowRepository extends BaseRepository<OnboardingWorkflow, UUID> {
+
+    OnboardingWorkflow getByParticipantId(UUID participantId);
+
+    List<OnboardingWorkflow> findAllByStateInAndUpdatedAtBefore(Collection<OnboardingWorkflowState> states, Date updatedAt);
+
+    Page<OnboardingWorkflow> findAllByState(OnboardingWorkflowState state, Pageable pageable);
+
+    Page<OnboardingWorkflow> findAllByStateIn(Collection<OnboardingWorkflowState> states, Pageable pageable);
+
+    /**
+     * Marks the workflow as running if it is still at the given step in one of the given states, so a step is never
+     * run twice at the same time by different threads or nodes. A run that has not reported back since
+     * {@code staleBefore} is considered dead and may be taken over.
+     *
+     * @return the number of updated rows, 1 if the workflow was claimed
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE OnboardingWorkflow w SET w.state = eu.gaiax.wizard.api.model.OnboardingWorkflowState.RUNNING, w.updatedAt = :now " +
+            "WHERE w.participantId = :participantId AND w.step = :step " +
+            "AND (w.state IN :states OR (w.state = eu.gaiax.wizard.api.model.OnboardingWorkflowState.RUNNING AND w.updatedAt < :staleBefore))")
+    int claim(UUID participantId, OnboardingStep step, Collection<OnboardingWorkflowState> states, Date now, Date staleBefore);
+}
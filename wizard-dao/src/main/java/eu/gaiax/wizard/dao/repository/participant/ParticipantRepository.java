@@ -1,9 +1,16 @@
 package eu.gaiax.wizard.dao.repository.participant;
 
 import com.smartsensesolutions.java.commons.base.repository.BaseRepository;
+import eu.gaiax.wizard.api.model.ProfileImageStatus;
 import eu.gaiax.wizard.dao.entity.participant.Participant;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
@@ -19,4 +26,62 @@ public interface ParticipantRepository extends BaseRepository<Participant, UUID>
     Participant getByShortName(String shortName);
 
     boolean existsByEmail(String email);
+
+    List<Participant> findAllByDomainIsNotNull();
+
+    /**
+     * Finds the participants that have one of the given emails, legal names or short names, so that the uniqueness of
+     * a batch of registrations is checked with one query.
+     */
+    List<Participant> findAllByEmailInOrLegalNameInOrShortNameIn(Collection<String> emails, Collection<String> legalNames, Collection<String> shortNames);
+
+    /**
+     * Finds the participants that already use the email, legal name or short name of a registration, so that the
+     * uniqueness of a registration is checked with one query.
+     */
+    List<Participant> findAllByEmailOrLegalNameOrShortName(String email, String legalName, String shortName);
+
+    List<Participant> findAllByUserProvisionedFalseAndUpdatedAtBefore(Date updatedAt);
+
+    long countByCertificateExpiryBefore(Date certificateExpiry);
+
+    @Query("SELECT MIN(p.certificateExpiry) FROM Participant p")
+    Date findEarliestCertificateExpiry();
+
+    /**
+     * Claims the user provisioning of a participant whose provisioning did not finish in time, so that only one node
+     * picks it up again.
+     *
+     * @return the number of claimed rows
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Participant p SET p.updatedAt = :now WHERE p.id = :id AND p.userProvisioned = false AND p.updatedAt < :staleBefore")
+    int claimUserProvisioning(UUID id, Date now, Date staleBefore);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Participant p SET p.userProvisioned = true WHERE p.id IN :ids")
+    int markUserProvisioned(Collection<UUID> ids);
+
+    /**
+     * Replaces the profile image only if it is still the expected one, so a finished processing run never overwrites
+     * an image uploaded in the meantime.
+     *
+     * @return the number of updated rows
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Participant p SET p.profileImage = :profileImage, p.profileImageStatus = :status WHERE p.id = :id AND p.profileImage = :expectedProfileImage")
+    int updateProfileImage(UUID id, String expectedProfileImage, String profileImage, ProfileImageStatus status);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Participant p SET p.status = :status WHERE p.id = :id")
+    int updateStatus(UUID id, int status);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Participant p SET p.certificateExpiry = :certificateExpiry WHERE p.id = :id")
+    int updateCertificateExpiry(UUID id, Date certificateExpiry);
 }
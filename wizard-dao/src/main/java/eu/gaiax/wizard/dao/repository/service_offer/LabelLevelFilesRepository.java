@@ -1,11 +1,32 @@
 package eu.gaiax.wizard.dao.repository.service_offer;
 
 import com.smartsensesolutions.java.commons.base.repository.BaseRepository;
+import eu.gaiax.wizard.api.model.LabelLevelFileStatus;
 import eu.gaiax.wizard.dao.entity.service_offer.LabelLevelFiles;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Date;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface LabelLevelFilesRepository extends BaseRepository<LabelLevelFiles, UUID> {
+
+    List<LabelLevelFiles> findAllByStatusAndCreatedAtBefore(LabelLevelFileStatus status, Date createdAt);
+
+    boolean existsByContentHashAndStatus(String contentHash, LabelLevelFileStatus status);
+
+    /**
+     * Deletes an upload only while it still has the given status, so that a concurrent purge or confirmation wins
+     * exactly once.
+     *
+     * @return the number of deleted rows
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM LabelLevelFiles f WHERE f.id = :id AND f.status = :status")
+    int deleteByIdAndStatus(UUID id, LabelLevelFileStatus status);
 }
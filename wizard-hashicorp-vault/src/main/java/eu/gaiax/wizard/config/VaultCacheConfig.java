@@ -0,0 +1,39 @@
+package eu.gaiax.wizard.config;
+
+import eu.gaiax.wizard.api.vault.Vault;
+import eu.gaiax.wizard.model.VaultCacheSettings;
+import eu.gaiax.wizard.vault.CachingVault;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Wraps whichever {@link Vault} implementation is active into a {@link CachingVault}, so callers keep injecting
+ * {@link Vault} and do not depend on the cache.
+ */
+@Slf4j
+@Configuration
+public class VaultCacheConfig {
+
+    @Bean
+    public static BeanPostProcessor cachingVaultPostProcessor(ObjectProvider<VaultCacheSettings> vaultCacheSettings,
+                                                              ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof Vault vault) || bean instanceof CachingVault) {
+                    return bean;
+                }
+                VaultCacheSettings settings = vaultCacheSettings.getIfAvailable(() -> new VaultCacheSettings(null, null, null));
+                if (!settings.enabled()) {
+                    return bean;
+                }
+                log.info("VaultCacheConfig(cachingVaultPostProcessor) -> Caching secrets of {} for {}", beanName, settings.ttl());
+                return new CachingVault(vault, settings, meterRegistry.getIfAvailable());
+            }
+        };
+    }
+}
@@ -1,22 +1,43 @@
 package eu.gaiax.wizard.implementation;
 
-import eu.gaiax.wizard.exception.VaultException;
+import eu.gaiax.wizard.api.exception.VaultException;
+import eu.gaiax.wizard.api.vault.Vault;
 import eu.gaiax.wizard.model.VaultPathConfiguration;
-import eu.gaiax.wizard.vault.Vault;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.vault.core.VaultKeyValueOperationsSupport;
 import org.springframework.vault.core.VaultTemplate;
 import org.springframework.vault.support.VaultResponse;
 
-import java.util.Map;
-import java.util.Objects;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * {@link Vault} on a Hashicorp KV v2 engine. The KV API has no multi-secret read or write, so bulk operations issue
+ * the single calls in parallel, bounded by {@code wizard.vault.batch-concurrency}.
+ */
 @Service
-@RequiredArgsConstructor
-public class HashicorpVaultService implements Vault {
+@ConditionalOnProperty(prefix = "wizard.vault", name = "type", havingValue = "hashicorp", matchIfMissing = true)
+public class HashicorpVaultService implements Vault, DisposableBean {
     private final VaultPathConfiguration vaultPathConfiguration;
     private final VaultTemplate template;
+    private final ExecutorService batchExecutor;
+
+    public HashicorpVaultService(VaultPathConfiguration vaultPathConfiguration, VaultTemplate template) {
+        this.vaultPathConfiguration = vaultPathConfiguration;
+        this.template = template;
+        this.batchExecutor = Executors.newFixedThreadPool(vaultPathConfiguration.batchConcurrency(), new CustomizableThreadFactory("vault-batch-"));
+    }
+
+    @Override
+    public void destroy() {
+        this.batchExecutor.shutdown();
+    }
 
     @Override
     public Map<String, Object> put(String secretName, Map<String, Object> kv) {
@@ -49,4 +70,39 @@ public class HashicorpVaultService implements Vault {
             throw new VaultException("HashicorpVaultService(patch): Issue occur while read the secrets from hashicorp vault.", ex);
         }
     }
+
+    @Override
+    public Map<String, Map<String, Object>> getMany(Collection<String> secretNames) {
+        Map<String, CompletableFuture<Map<String, Object>>> reads = new LinkedHashMap<>();
+        for (String secretName : secretNames) {
+            reads.put(secretName, CompletableFuture.supplyAsync(() -> this.get(secretName), this.batchExecutor));
+        }
+        Map<String, Map<String, Object>> secrets = new LinkedHashMap<>();
+        reads.forEach((secretName, read) -> {
+            Map<String, Object> secret = join(read);
+            if (secret != null) {
+                secrets.put(secretName, secret);
+            }
+        });
+        return secrets;
+    }
+
+    @Override
+    public void putMany(Map<String, Map<String, Object>> secrets) {
+        List<CompletableFuture<Map<String, Object>>> writes = secrets.entrySet().stream()
+                .map(secret -> CompletableFuture.supplyAsync(() -> this.put(secret.getKey(), secret.getValue()), this.batchExecutor))
+                .toList();
+        writes.forEach(HashicorpVaultService::join);
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof VaultException vaultException) {
+                throw vaultException;
+            }
+            throw new VaultException("HashicorpVaultService(join): Issue occur while batch access of the hashicorp vault.", ex.getCause());
+        }
+    }
 }
@@ -0,0 +1,22 @@
+package eu.gaiax.wizard.model;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the in-memory secret cache in front of the vault.
+ *
+ * @param enabled whether secrets are cached
+ * @param ttl     how long a secret is served from memory before the vault is asked again
+ * @param maxSize the maximum number of cached secrets
+ */
+@ConfigurationProperties("wizard.vault.cache")
+public record VaultCacheSettings(Boolean enabled, Duration ttl, Long maxSize) {
+
+    public VaultCacheSettings {
+        enabled = enabled == null || enabled;
+        ttl = ttl == null ? Duration.ofMinutes(5) : ttl;
+        maxSize = maxSize == null ? 10_000L : maxSize;
+    }
+}
@@ -2,6 +2,16 @@ package eu.gaiax.wizard.model;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+/**
+ * The type Vault path configuration.
+ *
+ * @param secretPath       the path of the KV v2 secret engine
+ * @param batchConcurrency the maximum number of concurrent vault calls of a bulk read or write
+ */
 @ConfigurationProperties("wizard.vault")
-public record VaultPathConfiguration(String secretPath) {
+public record VaultPathConfiguration(String secretPath, Integer batchConcurrency) {
+
+    public VaultPathConfiguration {
+        batchConcurrency = batchConcurrency == null ? 8 : batchConcurrency;
+    }
 }
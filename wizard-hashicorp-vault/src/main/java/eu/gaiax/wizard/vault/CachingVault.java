@@ -0,0 +1,162 @@
+package eu.gaiax.wizard.vault;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import eu.gaiax.wizard.api.exception.VaultException;
+import eu.gaiax.wizard.api.vault.Vault;
+import eu.gaiax.wizard.model.VaultCacheSettings;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caching decorator of a {@link Vault}. Secrets are kept sealed with AES-GCM under a key that only lives in this
+ * process, so a heap dump does not expose them in plain text. Entries expire after the configured TTL and are
+ * invalidated on every write through this instance; writes made by other instances become visible after the TTL.
+ * Missing secrets are not cached. A secret is loaded under the lock of its cache entry, so a write invalidating it
+ * while it is loaded waits for the load and then drops the loaded secret; the bulk load only stores what was not
+ * written while it ran.
+ */
+@Slf4j
+public class CachingVault implements Vault {
+
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH = 128;
+    private static final TypeReference<Map<String, Object>> SECRET_TYPE = new TypeReference<>() {
+    };
+
+    private final Vault delegate;
+    private final Cache<String, SealedSecret> cache;
+    private final SecretKey key;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final ObjectMapper mapper = new ObjectMapper();
+    // counts the writes, counted before the write starts
+    private final AtomicLong writes = new AtomicLong();
+
+    public CachingVault(Vault delegate, VaultCacheSettings settings, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(settings.ttl())
+                .maximumSize(settings.maxSize())
+                .recordStats()
+                .build();
+        try {
+            KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+            keyGenerator.init(256, this.secureRandom);
+            this.key = keyGenerator.generateKey();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES is not available", e);
+        }
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, this.cache, "vault.secrets");
+        }
+    }
+
+    @Override
+    public Map<String, Object> put(String secretName, Map<String, Object> kv) {
+        this.writes.incrementAndGet();
+        try {
+            return this.delegate.put(secretName, kv);
+        } finally {
+            this.cache.invalidate(secretName);
+        }
+    }
+
+    @Override
+    public Map<String, Object> get(String secretName) {
+        SealedSecret sealedSecret = this.cache.get(secretName, name -> {
+            Map<String, Object> secret = this.delegate.get(name);
+            return secret == null ? null : this.seal(secret);
+        });
+        return sealedSecret == null ? null : this.unseal(sealedSecret);
+    }
+
+    @Override
+    public boolean patch(String path, Map<String, Object> patch) {
+        this.writes.incrementAndGet();
+        try {
+            return this.delegate.patch(path, patch);
+        } finally {
+            this.cache.invalidate(path);
+        }
+    }
+
+    @Override
+    public Map<String, Map<String, Object>> getMany(Collection<String> secretNames) {
+        Map<String, Map<String, Object>> secrets = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String secretName : secretNames) {
+            SealedSecret sealedSecret = this.cache.getIfPresent(secretName);
+            if (sealedSecret != null) {
+                secrets.put(secretName, this.unseal(sealedSecret));
+            } else {
+                missing.add(secretName);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long writesBefore = this.writes.get();
+            Map<String, Map<String, Object>> loaded = this.delegate.getMany(missing);
+            // stored under the entry lock, a write invalidating the entry afterwards has been counted before
+            loaded.forEach((secretName, secret) -> this.cache.asMap().compute(secretName,
+                    (name, cached) -> this.writes.get() == writesBefore ? this.seal(secret) : cached));
+            secrets.putAll(loaded);
+        }
+        return secrets;
+    }
+
+    @Override
+    public void putMany(Map<String, Map<String, Object>> secrets) {
+        this.writes.incrementAndGet();
+        try {
+            this.delegate.putMany(secrets);
+        } finally {
+            this.cache.invalidateAll(secrets.keySet());
+        }
+    }
+
+    public void invalidate(String secretName) {
+        this.cache.invalidate(secretName);
+    }
+
+    public void invalidateAll() {
+        this.cache.invalidateAll();
+    }
+
+    private SealedSecret seal(Map<String, Object> secret) {
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            this.secureRandom.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.ENCRYPT_MODE, this.key, new GCMParameterSpec(TAG_LENGTH, iv));
+            return new SealedSecret(iv, cipher.doFinal(this.mapper.writeValueAsString(secret).getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new VaultException("CachingVault(seal): Issue occur while sealing the secret.", e);
+        }
+    }
+
+    private Map<String, Object> unseal(SealedSecret sealedSecret) {
+        try {
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.DECRYPT_MODE, this.key, new GCMParameterSpec(TAG_LENGTH, sealedSecret.iv()));
+            return this.mapper.readValue(cipher.doFinal(sealedSecret.cipherText()), SECRET_TYPE);
+        } catch (Exception e) {
+            throw new VaultException("CachingVault(unseal): Issue occur while unsealing the secret.", e);
+        }
+    }
+
+    private record SealedSecret(byte[] iv, byte[] cipherText) {
+    }
+}
@@ -0,0 +1,31 @@
+package eu.gaiax.wizard.hosting;
+
+import eu.gaiax.wizard.api.model.setting.AWSSettings;
+import eu.gaiax.wizard.api.model.setting.HostingSettings;
+import eu.gaiax.wizard.api.model.setting.StorageSettings;
+import eu.gaiax.wizard.api.utils.S3Utils;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Read-only application serving hosted participant documents (participant.json, did.json, service and resource VCs,
+ * /.well-known files) straight from the artifact store. It has no database, vault or security chain, so it can be
+ * scaled independently of the onboarding API.
+ */
+@SpringBootApplication
+@EnableConfigurationProperties({AWSSettings.class, StorageSettings.class, HostingSettings.class})
+@Import(S3Utils.class)
+public class GaiaXHostingApplication {
+
+    /**
+     * The entry point of hosting application.
+     *
+     * @param args the input arguments
+     */
+    public static void main(String[] args) {
+        SpringApplication.run(GaiaXHostingApplication.class, args);
+    }
+
+}
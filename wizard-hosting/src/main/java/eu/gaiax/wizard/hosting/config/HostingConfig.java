@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.hosting.config;
+
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.client.builder.AwsClientBuilder;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import eu.gaiax.wizard.api.model.setting.AWSSettings;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+/**
+ * The type Hosting config.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class HostingConfig {
+
+    private final AWSSettings awsSettings;
+
+    @Bean
+    public AmazonS3 amazonS3() {
+        AmazonS3ClientBuilder builder = AmazonS3ClientBuilder.standard()
+                .withCredentials(new AWSStaticCredentialsProvider(new BasicAWSCredentials(this.awsSettings.accessKey(), this.awsSettings.secretKey())));
+        if (StringUtils.hasText(this.awsSettings.s3Endpoint())) {
+            builder.withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(this.awsSettings.s3Endpoint(), this.awsSettings.region()));
+        } else {
+            builder.withRegion(this.awsSettings.region());
+        }
+        return builder.build();
+    }
+}
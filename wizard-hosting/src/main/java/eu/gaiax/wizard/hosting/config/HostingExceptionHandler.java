@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.hosting.config;
+
+import eu.gaiax.wizard.api.exception.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Hosted documents are public and fetched by resolvers, so errors are returned as bare status codes.
+ */
+@RestControllerAdvice
+@Slf4j
+public class HostingExceptionHandler {
+
+    @ExceptionHandler(EntityNotFoundException.class)
+    public ResponseEntity<Void> handleNotFound(EntityNotFoundException e) {
+        log.debug("HostingExceptionHandler(handleNotFound) -> {}", e.getMessage());
+        return ResponseEntity.notFound().build();
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Void> handleException(Exception e) {
+        log.error("HostingExceptionHandler(handleException) -> Not able to serve hosted document", e);
+        return ResponseEntity.internalServerError().build();
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.hosting.controller;
+
+import eu.gaiax.wizard.api.model.setting.HostingSettings;
+import eu.gaiax.wizard.api.utils.HostedDocumentUtils;
+import eu.gaiax.wizard.hosting.service.HostedDocumentService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Serves the same public paths as the onboarding API. Store reads are blocking, so they run on the bounded elastic
+ * scheduler and never on the event loop.
+ */
+@RestController
+@RequiredArgsConstructor
+public class HostedDocumentController {
+
+    public static final String WELL_KNOWN = "/.well-known/{fileName}";
+    public static final String PARTICIPANT_JSON = "/{participantId}/{fileName}";
+
+    private final HostedDocumentService hostedDocumentService;
+    private final HostingSettings hostingSettings;
+
+    @GetMapping(path = WELL_KNOWN)
+    public Mono<ResponseEntity<byte[]>> getWellKnownFile(@PathVariable(name = "fileName") String fileName, @RequestHeader(name = HttpHeaders.HOST) String host,
+                                                         @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        String domain = host.split(":")[0];
+        return Mono.fromCallable(() -> this.hostedDocumentService.getWellKnownFile(domain, fileName, HostedDocumentUtils.isGzipAccepted(acceptEncoding)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(hostedDocument -> HostedDocumentUtils.toResponseEntity(hostedDocument, this.hostingSettings.cacheControlFor(fileName)));
+    }
+
+    @GetMapping(path = PARTICIPANT_JSON)
+    public Mono<ResponseEntity<byte[]>> getParticipantFile(@PathVariable(name = "participantId") String participantId, @PathVariable(name = "fileName") String fileName,
+                                                           @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return Mono.fromCallable(() -> this.hostedDocumentService.getParticipantFile(participantId, fileName, HostedDocumentUtils.isGzipAccepted(acceptEncoding)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(hostedDocument -> HostedDocumentUtils.toResponseEntity(hostedDocument, this.hostingSettings.cacheControlFor(fileName)));
+    }
+}
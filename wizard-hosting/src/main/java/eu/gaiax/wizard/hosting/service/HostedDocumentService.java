@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.hosting.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import eu.gaiax.wizard.api.exception.EntityNotFoundException;
+import eu.gaiax.wizard.api.model.HostedDocument;
+import eu.gaiax.wizard.api.model.setting.HostingSettings;
+import eu.gaiax.wizard.api.utils.S3Utils;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+import static eu.gaiax.wizard.api.utils.StringPool.HOSTED_DOMAIN_PREFIX;
+import static eu.gaiax.wizard.api.utils.StringPool.JSON_EXTENSION;
+import static eu.gaiax.wizard.api.utils.StringPool.X509_CERTIFICATE_CHAIN;
+
+/**
+ * Resolves hosted documents from the artifact store with a short-lived in-memory cache in front of it. Only the
+ * documents the onboarding API hosts for a participant are served: the JSON documents (did.json, participant.json,
+ * service, resource and policy VCs) and the certificate chain, stored under the participant id.
+ */
+@Service
+@Slf4j
+public class HostedDocumentService {
+
+    private final S3Utils s3Utils;
+    private final Cache<String, HostedDocument> documentCache;
+    // unknown domains are not cached, a domain published during the onboarding is found right away
+    private final Cache<String, String> domainCache;
+
+    public HostedDocumentService(S3Utils s3Utils, HostingSettings hostingSettings) {
+        this.s3Utils = s3Utils;
+        this.documentCache = Caffeine.newBuilder()
+                .expireAfterWrite(hostingSettings.cacheTtl())
+                .maximumSize(hostingSettings.cacheMaxSize())
+                .build();
+        this.domainCache = Caffeine.newBuilder()
+                .expireAfterWrite(hostingSettings.cacheTtl())
+                .maximumSize(hostingSettings.cacheMaxSize())
+                .build();
+    }
+
+    public HostedDocument getWellKnownFile(String host, String fileName, boolean gzipAccepted) {
+        log.debug("HostedDocumentService(getWellKnownFile) -> Fetch wellKnown file for host {} and filename {}", host, fileName);
+        if (fileName.endsWith("key") || fileName.endsWith("csr")) {
+            throw new EntityNotFoundException("Cannot find file -> " + fileName);
+        }
+        String participantId = this.domainCache.get(host, domain -> this.s3Utils.getString(HOSTED_DOMAIN_PREFIX + domain));
+        if (participantId == null) {
+            throw new EntityNotFoundException("subdomain.not.found");
+        }
+        return this.getParticipantFile(participantId.trim(), fileName, gzipAccepted);
+    }
+
+    public HostedDocument getParticipantFile(String participantId, String fileName, boolean gzipAccepted) {
+        if (!isHostedFile(participantId, fileName)) {
+            throw new EntityNotFoundException("Cannot find file -> " + participantId + "/" + fileName);
+        }
+        String key = participantId + "/" + fileName;
+        return this.documentCache.get(key + (gzipAccepted ? "|gzip" : ""), cacheKey -> this.load(key, gzipAccepted));
+    }
+
+    /**
+     * Whether the path names a hosted participant document, so other objects of the store, e.g. the domain aliases,
+     * are never served.
+     */
+    static boolean isHostedFile(String participantId, String fileName) {
+        try {
+            UUID.fromString(participantId);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return fileName.equals(X509_CERTIFICATE_CHAIN) || (fileName.endsWith(JSON_EXTENSION) && fileName.length() > JSON_EXTENSION.length());
+    }
+
+    @SneakyThrows
+    private HostedDocument load(String key, boolean gzipAccepted) {
+        log.debug("HostedDocumentService(load) -> Fetch file {} from store", key);
+        return this.s3Utils.getHostedDocument(key, gzipAccepted);
+    }
+}
@@ -0,0 +1,129 @@
+package eu.gaiax.wizard.hosting.controller;
+
+import eu.gaiax.wizard.api.exception.EntityNotFoundException;
+import eu.gaiax.wizard.api.model.HostedDocument;
+import eu.gaiax.wizard.api.utils.S3Utils;
+import eu.gaiax.wizard.hosting.service.HostedDocumentService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@WebFluxTest(controllers = HostedDocumentController.class)
+@Import(HostedDocumentService.class)
+class HostedDocumentControllerTest {
+
+    private static final byte[] DID_JSON = "{\"id\":\"did:web:acme\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DID_JSON_GZIP = {31, -117, 8, 0};
+
+    @Autowired
+    private WebTestClient webTestClient;
+    @MockBean
+    private S3Utils s3Utils;
+
+    @Test
+    void testGetParticipantFile_eTagAndNotModified() throws Exception {
+        String participantId = UUID.randomUUID().toString();
+        doReturn(new HostedDocument(DID_JSON, "abc", new Date(), null, "application/json")).when(this.s3Utils).getHostedDocument(participantId + "/did.json", false);
+
+        this.webTestClient.get().uri("/{participantId}/did.json", participantId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"abc\"")
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL, "public, max-age=3600")
+                .expectBody(byte[].class).isEqualTo(DID_JSON);
+
+        this.webTestClient.get().uri("/{participantId}/did.json", participantId)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"abc\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    void testGetParticipantFile_gzip() throws Exception {
+        String participantId = UUID.randomUUID().toString();
+        doReturn(new HostedDocument(DID_JSON_GZIP, "abc-gzip", null, S3Utils.GZIP, "application/json")).when(this.s3Utils).getHostedDocument(participantId + "/did.json", true);
+
+        this.webTestClient.get().uri("/{participantId}/did.json", participantId)
+                .header(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, S3Utils.GZIP)
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"abc-gzip\"")
+                .expectBody(byte[].class).isEqualTo(DID_JSON_GZIP);
+    }
+
+    @Test
+    void testGetParticipantFile_notFound() throws Exception {
+        String participantId = UUID.randomUUID().toString();
+        doThrow(new EntityNotFoundException("file.not.found")).when(this.s3Utils).getHostedDocument(participantId + "/participant.json", false);
+
+        this.webTestClient.get().uri("/{participantId}/participant.json", participantId)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testGetParticipantFile_notHostedPathNotServed() throws Exception {
+        this.webTestClient.get().uri("/domains/acme.wizard.example.eu")
+                .exchange()
+                .expectStatus().isNotFound();
+        this.webTestClient.get().uri("/{participantId}/{fileName}", UUID.randomUUID(), "acme.key")
+                .exchange()
+                .expectStatus().isNotFound();
+
+        verify(this.s3Utils, never()).getHostedDocument(anyString(), anyBoolean());
+    }
+
+    @Test
+    void testGetWellKnownFile() throws Exception {
+        String participantId = UUID.randomUUID().toString();
+        doReturn(participantId).when(this.s3Utils).getString("domains/acme.wizard.example.eu");
+        doReturn(new HostedDocument(DID_JSON, "abc", null, null, "application/json")).when(this.s3Utils).getHostedDocument(participantId + "/did.json", false);
+
+        this.webTestClient.get().uri("/.well-known/did.json")
+                .header(HttpHeaders.HOST, "acme.wizard.example.eu")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(byte[].class).isEqualTo(DID_JSON);
+    }
+
+    @Test
+    void testGetWellKnownFile_unknownDomain() {
+        this.webTestClient.get().uri("/.well-known/did.json")
+                .header(HttpHeaders.HOST, "unknown.wizard.example.eu")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testGetWellKnownFile_domainPublishedAfterMiss() throws Exception {
+        String participantId = UUID.randomUUID().toString();
+        this.webTestClient.get().uri("/.well-known/did.json")
+                .header(HttpHeaders.HOST, "new.wizard.example.eu")
+                .exchange()
+                .expectStatus().isNotFound();
+
+        doReturn(participantId).when(this.s3Utils).getString("domains/new.wizard.example.eu");
+        doReturn(new HostedDocument(DID_JSON, "abc", null, null, "application/json")).when(this.s3Utils).getHostedDocument(participantId + "/did.json", false);
+
+        this.webTestClient.get().uri("/.well-known/did.json")
+                .header(HttpHeaders.HOST, "new.wizard.example.eu")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(byte[].class).isEqualTo(DID_JSON);
+    }
+}
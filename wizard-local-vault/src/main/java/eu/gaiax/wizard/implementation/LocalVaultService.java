@@ -0,0 +1,163 @@
+package eu.gaiax.wizard.implementation;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.gaiax.wizard.api.exception.VaultException;
+import eu.gaiax.wizard.api.vault.Vault;
+import eu.gaiax.wizard.model.LocalVaultSettings;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link Vault} on top of a local directory, meant for on-prem and benchmark deployments without a Hashicorp Vault.
+ * Every secret is one file sealed with AES-GCM under the configured master key, with the secret name bound as
+ * associated data so files cannot be swapped. Files are written to a temporary file and moved in place atomically.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "wizard.vault", name = "type", havingValue = "local")
+public class LocalVaultService implements Vault {
+
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final String FILE_EXTENSION = ".secret";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH = 128;
+    // writes of a secret are serialised by one of a fixed number of locks, a power of two
+    private static final int LOCK_STRIPES = 64;
+    private static final TypeReference<Map<String, Object>> SECRET_TYPE = new TypeReference<>() {
+    };
+
+    private final Path directory;
+    private final SecretKey key;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    public LocalVaultService(LocalVaultSettings settings) {
+        if (settings.directory() == null || settings.masterKey() == null) {
+            throw new IllegalStateException("wizard.vault.local.directory and wizard.vault.local.master-key are required for the local vault");
+        }
+        byte[] masterKey = Base64.getDecoder().decode(settings.masterKey());
+        if (masterKey.length != 32) {
+            throw new IllegalStateException("wizard.vault.local.master-key must be a base64 encoded 256 bit key");
+        }
+        this.key = new SecretKeySpec(masterKey, "AES");
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            this.locks[i] = new ReentrantLock();
+        }
+        this.directory = Paths.get(settings.directory());
+        try {
+            Files.createDirectories(this.directory);
+        } catch (IOException e) {
+            throw new IllegalStateException("Not able to create vault directory " + this.directory, e);
+        }
+        log.info("LocalVaultService -> Secrets are stored in {}", this.directory.toAbsolutePath());
+    }
+
+    @Override
+    public Map<String, Object> put(String secretName, Map<String, Object> kv) {
+        ReentrantLock lock = this.lockFor(secretName);
+        lock.lock();
+        try {
+            this.write(secretName, kv);
+            return kv;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Map<String, Object> get(String secretName) {
+        return this.read(secretName);
+    }
+
+    @Override
+    public boolean patch(String path, Map<String, Object> patch) {
+        ReentrantLock lock = this.lockFor(path);
+        lock.lock();
+        try {
+            Map<String, Object> secret = this.read(path);
+            if (secret == null) {
+                return false;
+            }
+            Map<String, Object> patched = new LinkedHashMap<>(secret);
+            patched.putAll(patch);
+            this.write(path, patched);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Map<String, Object> read(String secretName) {
+        Path file = this.fileOf(secretName);
+        try {
+            byte[] sealed = Files.readAllBytes(file);
+            ByteBuffer buffer = ByteBuffer.wrap(sealed);
+            byte[] iv = new byte[IV_LENGTH];
+            buffer.get(iv);
+            byte[] cipherText = new byte[buffer.remaining()];
+            buffer.get(cipherText);
+
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.DECRYPT_MODE, this.key, new GCMParameterSpec(TAG_LENGTH, iv));
+            cipher.updateAAD(secretName.getBytes(StandardCharsets.UTF_8));
+            return this.mapper.readValue(cipher.doFinal(cipherText), SECRET_TYPE);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (Exception e) {
+            throw new VaultException("LocalVaultService(get): Issue occur while read the secrets from local vault.", e);
+        }
+    }
+
+    private void write(String secretName, Map<String, Object> kv) {
+        Path file = this.fileOf(secretName);
+        Path tempFile = null;
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            this.secureRandom.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.ENCRYPT_MODE, this.key, new GCMParameterSpec(TAG_LENGTH, iv));
+            cipher.updateAAD(secretName.getBytes(StandardCharsets.UTF_8));
+            byte[] cipherText = cipher.doFinal(this.mapper.writeValueAsBytes(kv));
+
+            tempFile = Files.createTempFile(this.directory, ".", ".tmp");
+            Files.write(tempFile, ByteBuffer.allocate(iv.length + cipherText.length).put(iv).put(cipherText).array());
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (Exception e) {
+            throw new VaultException("LocalVaultService(put): Issue occur while put the secrets on local vault.", e);
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException e) {
+                    log.warn("LocalVaultService(put) -> Not able to delete temporary file {}", tempFile);
+                }
+            }
+        }
+    }
+
+    private Path fileOf(String secretName) {
+        return this.directory.resolve(Base64.getUrlEncoder().withoutPadding().encodeToString(secretName.getBytes(StandardCharsets.UTF_8)) + FILE_EXTENSION);
+    }
+
+    private ReentrantLock lockFor(String secretName) {
+        int hash = secretName.hashCode();
+        return this.locks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+}
@@ -0,0 +1,13 @@
+package eu.gaiax.wizard.model;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the local file keystore.
+ *
+ * @param directory the directory holding one sealed file per secret
+ * @param masterKey base64 encoded 256 bit AES key sealing the secrets
+ */
+@ConfigurationProperties("wizard.vault.local")
+public record LocalVaultSettings(String directory, String masterKey) {
+}
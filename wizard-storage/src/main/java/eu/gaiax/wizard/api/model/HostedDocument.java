@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.api.model;
+
+import eu.gaiax.wizard.api.utils.CommonUtils;
+
+import java.util.Date;
+
+import static eu.gaiax.wizard.api.utils.StringPool.JSON_EXTENSION;
+
+/**
+ * A publicly hosted document (did.json, participant.json, VCs, certificate chain) together with the
+ * validators needed to answer conditional requests.
+ *
+ * @param content         the stored bytes, already encoded with {@code contentEncoding} if present
+ * @param eTag            strong entity tag derived from the SHA-256 of the identity content
+ * @param lastModified    the last modified time, null when the source does not track it
+ * @param contentEncoding the content encoding of {@code content}, null for identity
+ * @param contentType     the media type of the identity content
+ */
+public record HostedDocument(byte[] content,
+                             String eTag,
+                             Date lastModified,
+                             String contentEncoding,
+                             String contentType) {
+
+    /**
+     * Identity document built from in-memory content, e.g. certificates resolved from the vault.
+     *
+     * @param fileName the file name used to resolve the content type
+     * @param content  the content
+     * @return the hosted document
+     */
+    public static HostedDocument of(String fileName, byte[] content) {
+        return new HostedDocument(content, CommonUtils.sha256Hex(content), null, null, contentTypeOf(fileName));
+    }
+
+    public static String contentTypeOf(String fileName) {
+        if (fileName.endsWith(JSON_EXTENSION)) {
+            return "application/json";
+        }
+        if (fileName.endsWith(".pem")) {
+            return "application/x-pem-file";
+        }
+        return "application/octet-stream";
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.api.model;
+
+import eu.gaiax.wizard.api.utils.CommonUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The enum Storage key layout. Maps the logical object key used throughout the application to the key stored in the bucket.
+ */
+public enum StorageKeyLayout {
+
+    /**
+     * Objects are stored under their logical key, e.g. {@code participantId/did.json}.
+     */
+    FLAT {
+        @Override
+        public String toPhysicalKey(String logicalKey, int shardLength) {
+            return logicalKey;
+        }
+    },
+
+    /**
+     * Objects are stored under a short hash shard of their logical key, e.g. {@code 3fa8/participantId/did.json},
+     * so that requests are spread across bucket prefixes.
+     */
+    HASH_SHARDED {
+        @Override
+        public String toPhysicalKey(String logicalKey, int shardLength) {
+            return CommonUtils.sha256Hex(logicalKey.getBytes(StandardCharsets.UTF_8)).substring(0, shardLength) + "/" + logicalKey;
+        }
+    };
+
+    public abstract String toPhysicalKey(String logicalKey, int shardLength);
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.api.model.setting;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Settings of publicly hosted documents.
+ *
+ * @param defaultCacheControl cache control used when the file name has no explicit entry
+ * @param cacheControl        cache control per file name (did.json, participant.json, x509CertificateChain.pem)
+ * @param publishOnStartup    whether domain aliases and certificate chains of existing participants are published to the store on startup
+ * @param cacheTtl            how long the hosting module keeps documents in memory
+ * @param cacheMaxSize        the maximum number of documents the hosting module keeps in memory
+ */
+@ConfigurationProperties(prefix = "wizard.hosting")
+public record HostingSettings(String defaultCacheControl,
+                              Map<String, String> cacheControl,
+                              boolean publishOnStartup,
+                              Duration cacheTtl,
+                              Long cacheMaxSize) {
+
+    public HostingSettings {
+        cacheTtl = cacheTtl == null ? Duration.ofSeconds(60) : cacheTtl;
+        cacheMaxSize = cacheMaxSize == null ? 10_000L : cacheMaxSize;
+    }
+
+    public String cacheControlFor(String fileName) {
+        if (this.cacheControl != null && this.cacheControl.containsKey(fileName)) {
+            return this.cacheControl.get(fileName);
+        }
+        return StringUtils.hasText(this.defaultCacheControl) ? this.defaultCacheControl : "no-cache";
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.api.model.setting;
+
+import eu.gaiax.wizard.api.model.StorageKeyLayout;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+
+/**
+ * The type Storage settings.
+ *
+ * @param keyLayout            the key layout used for new objects
+ * @param shardLength          the number of hex characters of the shard prefix
+ * @param unshardedPrefixes    logical prefixes kept flat because their bucket URL is handed out directly
+ * @param legacyFallback       whether reads fall back to the flat key for objects not migrated yet
+ * @param migrateOnStartup     whether the key migration job is scheduled when the application starts
+ * @param migrationBatchSize   the number of keys listed and migrated per batch
+ * @param migrationParallelism the number of keys migrated concurrently within a batch
+ */
+@ConfigurationProperties(prefix = "wizard.storage")
+public record StorageSettings(StorageKeyLayout keyLayout,
+                              Integer shardLength,
+                              List<String> unshardedPrefixes,
+                              Boolean legacyFallback,
+                              boolean migrateOnStartup,
+                              Integer migrationBatchSize,
+                              Integer migrationParallelism) {
+
+    public StorageSettings {
+        keyLayout = keyLayout == null ? StorageKeyLayout.FLAT : keyLayout;
+        shardLength = shardLength == null ? 4 : shardLength;
+        unshardedPrefixes = unshardedPrefixes == null ? List.of("public/") : unshardedPrefixes;
+        legacyFallback = legacyFallback == null || legacyFallback;
+        migrationBatchSize = migrationBatchSize == null ? 500 : migrationBatchSize;
+        migrationParallelism = migrationParallelism == null ? 16 : migrationParallelism;
+    }
+}
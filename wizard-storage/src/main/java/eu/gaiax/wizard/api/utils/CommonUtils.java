@@ -10,6 +10,9 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 
 
 /**
@@ -39,4 +42,27 @@ public class CommonUtils {
         }
 
     }
+
+    /**
+     * Hex encoded SHA-256 of the content.
+     *
+     * @param content the content
+     * @return the hash
+     */
+    public static String sha256Hex(byte[] content) {
+        return HexFormat.of().formatHex(sha256Digest().digest(content));
+    }
+
+    /**
+     * New SHA-256 digest, e.g. to hash content while it is streamed.
+     *
+     * @return the message digest
+     */
+    public static MessageDigest sha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
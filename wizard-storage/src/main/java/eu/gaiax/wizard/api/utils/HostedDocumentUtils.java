@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.api.utils;
+
+import eu.gaiax.wizard.api.model.HostedDocument;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * Response helpers shared by every endpoint serving hosted documents.
+ */
+public class HostedDocumentUtils {
+
+    private HostedDocumentUtils() {
+    }
+
+    /**
+     * Wraps a hosted document with its validators. Conditional GET/HEAD requests are answered with 304 by the
+     * ResponseEntity result handling of both Spring MVC and WebFlux, which compares the ETag and Last-Modified set here.
+     *
+     * @param hostedDocument the hosted document
+     * @param cacheControl   the cache control header value
+     * @return the response entity
+     */
+    public static ResponseEntity<byte[]> toResponseEntity(HostedDocument hostedDocument, String cacheControl) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(hostedDocument.eTag())
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header(HttpHeaders.CONTENT_TYPE, hostedDocument.contentType());
+        if (hostedDocument.lastModified() != null) {
+            builder.lastModified(hostedDocument.lastModified().toInstant());
+        }
+        if (hasText(hostedDocument.contentEncoding())) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, hostedDocument.contentEncoding());
+        }
+        return builder.body(hostedDocument.content());
+    }
+
+    /**
+     * Whether a gzip encoded response is acceptable according to the Accept-Encoding header, see RFC 9110 section
+     * 12.5.3. An explicit gzip (or x-gzip) entry takes precedence over the wildcard, whatever their order, and a
+     * coding with a qvalue of 0 is refused. Entries with a malformed qvalue are ignored.
+     *
+     * @param acceptEncoding the Accept-Encoding header value
+     * @return true if gzip is acceptable
+     */
+    public static boolean isGzipAccepted(String acceptEncoding) {
+        if (!hasText(acceptEncoding)) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double wildcardQuality = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            boolean gzip = name.equalsIgnoreCase(S3Utils.GZIP) || name.equalsIgnoreCase("x-gzip");
+            if (!gzip && !name.equals("*")) {
+                continue;
+            }
+            Double quality = quality(parts);
+            if (quality == null) {
+                continue;
+            }
+            if (gzip) {
+                gzipQuality = gzipQuality == null ? quality : Math.max(gzipQuality, quality);
+            } else {
+                wildcardQuality = wildcardQuality == null ? quality : Math.max(wildcardQuality, quality);
+            }
+        }
+        Double quality = gzipQuality != null ? gzipQuality : wildcardQuality;
+        return quality != null && quality > 0;
+    }
+
+    /**
+     * Reads the qvalue of an Accept-Encoding entry, 1 if there is none.
+     *
+     * @return the qvalue, null if it is malformed
+     */
+    private static Double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String[] parameter = parts[i].split("=", 2);
+            if (parameter.length != 2 || !parameter[0].trim().equalsIgnoreCase("q")) {
+                continue;
+            }
+            String value = parameter[1].trim();
+            // qvalue = ( "0" [ "." 0*3DIGIT ] ) / ( "1" [ "." 0*3("0") ] )
+            if (!value.matches("0(\\.\\d{0,3})?|1(\\.0{0,3})?")) {
+                return null;
+            }
+            return Double.parseDouble(value);
+        }
+        return 1.0;
+    }
+}
@@ -0,0 +1,440 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.api.utils;
+
+import com.amazonaws.HttpMethod;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.*;
+import eu.gaiax.wizard.api.exception.BadDataException;
+import eu.gaiax.wizard.api.exception.EntityNotFoundException;
+import eu.gaiax.wizard.api.model.HostedDocument;
+import eu.gaiax.wizard.api.model.StorageKeyLayout;
+import eu.gaiax.wizard.api.model.setting.AWSSettings;
+import eu.gaiax.wizard.api.model.setting.StorageSettings;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static eu.gaiax.wizard.api.utils.StringPool.TEMP_FOLDER;
+
+/**
+ * The type S 3 utils. Callers always pass logical keys ({@code participantId/did.json}); the configured
+ * {@link StorageKeyLayout} decides where the object is stored in the bucket.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class S3Utils {
+    public static final String GZIP = "gzip";
+    private static final String GZIP_SUFFIX = ".gz";
+    public static final String CHECKSUM_SHA256_HEADER = "x-amz-checksum-sha256";
+    private static final String CONTENT_HASH_METADATA = "sha256";
+    private static final int MIGRATED_KEYS_CACHE_SIZE = 10_000;
+
+    private final AmazonS3 s3Client;
+    private final AWSSettings awsSettings;
+    private final StorageSettings storageSettings;
+    // physical keys known to exist in the configured layout, an object never moves back to its flat key
+    private final Map<String, Boolean> migratedKeys = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return this.size() > MIGRATED_KEYS_CACHE_SIZE;
+        }
+    });
+
+    /**
+     * Upload file.
+     *
+     * @param objectName the object name
+     * @param file       the file
+     */
+    public void uploadFile(String objectName, File file) {
+        this.s3Client.listBuckets();
+        this.s3Client.putObject(this.awsSettings.bucket(), this.physicalKey(objectName), file);
+        this.removeLegacyKey(objectName);
+    }
+
+    public void uploadFile(String objectName, File file, String contentType) {
+        PutObjectRequest request = new PutObjectRequest(this.awsSettings.bucket(), this.physicalKey(objectName), file);
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(contentType);
+        request.setMetadata(metadata);
+        this.s3Client.putObject(request);
+        this.removeLegacyKey(objectName);
+    }
+
+    public void deleteFile(String objectName) {
+        String physicalKey = this.physicalKey(objectName);
+        this.s3Client.deleteObject(this.awsSettings.bucket(), physicalKey);
+        this.migratedKeys.remove(physicalKey);
+        if (this.isLegacyFallbackEnabled(objectName, physicalKey)) {
+            this.s3Client.deleteObject(this.awsSettings.bucket(), objectName);
+        }
+    }
+
+    public void uploadFileWithPublicAcl(String objectName, File file) {
+        PutObjectRequest request = new PutObjectRequest(this.awsSettings.bucket(), this.physicalKey(objectName), file);
+        request.setCannedAcl(CannedAccessControlList.PublicRead);
+        this.s3Client.putObject(request);
+        this.removeLegacyKey(objectName);
+    }
+
+    /**
+     * Gets pre signed url.
+     *
+     * @param objectName the object name
+     * @return the pre signed url
+     */
+    public String getPreSignedUrl(String objectName) {
+        Date expiration = new Date();
+        long expTimeMillis = expiration.getTime();
+        expTimeMillis += 20_000; // 20 seconds
+        expiration.setTime(expTimeMillis);
+
+        String physicalKey = this.physicalKey(objectName);
+        if (this.isLegacyFallbackEnabled(objectName, physicalKey) && !this.isMigrated(physicalKey)) {
+            physicalKey = objectName;
+        }
+        return this.s3Client.generatePresignedUrl(this.awsSettings.bucket(), physicalKey, expiration).toString();
+    }
+
+    /**
+     * Presigned PUT url for a direct upload. Content type and length are part of the signature, so the storage
+     * rejects uploads that do not match what was declared when the url was issued.
+     *
+     * @param objectName     the object name
+     * @param contentType    the declared content type
+     * @param contentLength  the declared content length
+     * @param checksumSha256 the base64 encoded SHA-256 of the content, verified by the storage on upload, may be null
+     * @param expiration     the expiration of the url
+     * @return the presigned url
+     */
+    public String generatePresignedPutUrl(String objectName, String contentType, long contentLength, String checksumSha256, Date expiration) {
+        GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(this.awsSettings.bucket(), this.physicalKey(objectName), HttpMethod.PUT)
+                .withExpiration(expiration)
+                .withContentType(contentType);
+        request.putCustomRequestHeader(Headers.CONTENT_LENGTH, String.valueOf(contentLength));
+        if (checksumSha256 != null) {
+            request.putCustomRequestHeader(CHECKSUM_SHA256_HEADER, checksumSha256);
+        }
+        return this.s3Client.generatePresignedUrl(request).toString();
+    }
+
+    /**
+     * Gets object metadata without downloading the object.
+     *
+     * @param objectName the object name
+     * @return the metadata, null if the object does not exist
+     */
+    public ObjectMetadata getObjectMetadata(String objectName) {
+        try {
+            return this.s3Client.getObjectMetadata(this.awsSettings.bucket(), this.physicalKey(objectName));
+        } catch (AmazonS3Exception e) {
+            if (isNotFound(e)) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Copies an object within the bucket.
+     *
+     * @param sourceObjectName the object to copy
+     * @param targetObjectName the copy
+     */
+    public void copyFile(String sourceObjectName, String targetObjectName) {
+        this.s3Client.copyObject(this.awsSettings.bucket(), this.physicalKey(sourceObjectName), this.awsSettings.bucket(), this.physicalKey(targetObjectName));
+        this.removeLegacyKey(targetObjectName);
+    }
+
+    /**
+     * Hashes the stored bytes of an object while streaming it, without keeping a local copy.
+     *
+     * @param objectName the object name
+     * @return the hex encoded SHA-256 of the content
+     */
+    public String getContentHash(String objectName) throws IOException {
+        MessageDigest digest = CommonUtils.sha256Digest();
+        try (S3Object s3Object = this.s3Client.getObject(this.awsSettings.bucket(), this.physicalKey(objectName));
+             InputStream inputStream = new DigestInputStream(s3Object.getObjectContent(), digest)) {
+            inputStream.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Gets object.
+     *
+     * @param key      the key
+     * @param fileName the file name
+     * @return the object
+     */
+    public File getObject(String key, String fileName) {
+        File localFile = new File(TEMP_FOLDER + fileName);
+        CommonUtils.deleteFile(localFile);
+        String physicalKey = this.physicalKey(key);
+        try {
+            this.s3Client.getObject(new GetObjectRequest(this.awsSettings.bucket(), physicalKey), localFile);
+        } catch (AmazonS3Exception e) {
+            if (!isNotFound(e) || !this.isLegacyFallbackEnabled(key, physicalKey)) {
+                throw e;
+            }
+            this.s3Client.getObject(new GetObjectRequest(this.awsSettings.bucket(), key), localFile);
+        }
+        return localFile;
+    }
+
+    public String getObject(String fileName) {
+        try {
+            return this.s3Client.getUrl(this.awsSettings.bucket(), this.physicalKey(fileName)).toString();
+        } catch (Exception e) {
+            throw new BadDataException("not.able.to.get.file");
+        }
+    }
+
+    /**
+     * Upload a publicly hosted document. The identity content and a gzip variant are stored once here,
+     * both tagged with the SHA-256 of the identity content so reads never have to hash or compress.
+     *
+     * @param objectName the object name
+     * @param file       the file
+     */
+    @SneakyThrows
+    public void uploadHostedFile(String objectName, File file) {
+        this.uploadHostedDocument(objectName, Files.readAllBytes(file.toPath()));
+    }
+
+    public void uploadHostedDocument(String objectName, byte[] content) throws IOException {
+        String contentHash = CommonUtils.sha256Hex(content);
+        String contentType = HostedDocument.contentTypeOf(objectName);
+        this.s3Client.putObject(this.awsSettings.bucket(), this.physicalKey(objectName), new ByteArrayInputStream(content), this.hostedMetadata(content.length, contentType, contentHash, null));
+
+        byte[] gzipContent = gzip(content);
+        this.s3Client.putObject(this.awsSettings.bucket(), this.physicalKey(objectName + GZIP_SUFFIX), new ByteArrayInputStream(gzipContent), this.hostedMetadata(gzipContent.length, contentType, contentHash, GZIP));
+        this.removeLegacyKey(objectName);
+        this.removeLegacyKey(objectName + GZIP_SUFFIX);
+    }
+
+    /**
+     * Gets hosted document, preferring the precompressed variant when the client accepts gzip. Documents uploaded
+     * before variants existed have neither the gzip object nor the hash metadata and are served as identity.
+     *
+     * @param objectName   the object name
+     * @param gzipAccepted whether the client accepts gzip
+     * @return the hosted document
+     */
+    public HostedDocument getHostedDocument(String objectName, boolean gzipAccepted) throws IOException {
+        HostedDocument hostedDocument = gzipAccepted ? this.readHostedDocument(objectName + GZIP_SUFFIX, objectName) : null;
+        if (hostedDocument == null) {
+            hostedDocument = this.readHostedDocument(objectName, objectName);
+        }
+        if (hostedDocument == null) {
+            throw new EntityNotFoundException("file.not.found");
+        }
+        return hostedDocument;
+    }
+
+    private HostedDocument readHostedDocument(String key, String objectName) throws IOException {
+        String physicalKey = this.physicalKey(key);
+        HostedDocument hostedDocument = this.readHostedDocumentObject(physicalKey, objectName);
+        if (hostedDocument == null && this.isLegacyFallbackEnabled(key, physicalKey)) {
+            hostedDocument = this.readHostedDocumentObject(key, objectName);
+        }
+        return hostedDocument;
+    }
+
+    private HostedDocument readHostedDocumentObject(String physicalKey, String objectName) throws IOException {
+        try (S3Object s3Object = this.s3Client.getObject(this.awsSettings.bucket(), physicalKey)) {
+            byte[] content = s3Object.getObjectContent().readAllBytes();
+            ObjectMetadata metadata = s3Object.getObjectMetadata();
+            String contentEncoding = metadata.getContentEncoding();
+            String contentHash = metadata.getUserMetaDataOf(CONTENT_HASH_METADATA);
+            if (!StringUtils.hasText(contentHash)) {
+                contentHash = CommonUtils.sha256Hex(content);
+            }
+            String eTag = GZIP.equals(contentEncoding) ? contentHash + "-" + GZIP : contentHash;
+            return new HostedDocument(content, eTag, metadata.getLastModified(), contentEncoding, HostedDocument.contentTypeOf(objectName));
+        } catch (AmazonS3Exception e) {
+            if (isNotFound(e)) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    private ObjectMetadata hostedMetadata(long contentLength, String contentType, String contentHash, String contentEncoding) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(contentLength);
+        metadata.setContentType(contentType);
+        metadata.addUserMetadata(CONTENT_HASH_METADATA, contentHash);
+        if (contentEncoding != null) {
+            metadata.setContentEncoding(contentEncoding);
+        }
+        return metadata;
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(content.length);
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(content);
+        }
+        return outputStream.toByteArray();
+    }
+
+    public void uploadBytes(String objectName, byte[] content, String contentType) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(content.length);
+        metadata.setContentType(contentType);
+        this.s3Client.putObject(this.awsSettings.bucket(), this.physicalKey(objectName), new ByteArrayInputStream(content), metadata);
+        this.removeLegacyKey(objectName);
+    }
+
+    public void uploadString(String objectName, String content) {
+        this.s3Client.putObject(this.awsSettings.bucket(), this.physicalKey(objectName), content);
+        this.removeLegacyKey(objectName);
+    }
+
+    /**
+     * Gets a small text object, e.g. a domain alias.
+     *
+     * @param objectName the object name
+     * @return the content, null if the object does not exist
+     */
+    public String getString(String objectName) {
+        String physicalKey = this.physicalKey(objectName);
+        try {
+            return this.s3Client.getObjectAsString(this.awsSettings.bucket(), physicalKey);
+        } catch (AmazonS3Exception e) {
+            if (!isNotFound(e)) {
+                throw e;
+            }
+        }
+        if (this.isLegacyFallbackEnabled(objectName, physicalKey)) {
+            try {
+                return this.s3Client.getObjectAsString(this.awsSettings.bucket(), objectName);
+            } catch (AmazonS3Exception e) {
+                if (!isNotFound(e)) {
+                    throw e;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Lists one batch of physical keys from the bucket.
+     *
+     * @param continuationToken the continuation token of the previous batch, null for the first one
+     * @param maxKeys           the batch size
+     * @return the listing
+     */
+    public ListObjectsV2Result listObjects(String continuationToken, int maxKeys) {
+        ListObjectsV2Request request = new ListObjectsV2Request()
+                .withBucketName(this.awsSettings.bucket())
+                .withMaxKeys(maxKeys)
+                .withContinuationToken(continuationToken);
+        return this.s3Client.listObjectsV2(request);
+    }
+
+    /**
+     * Whether the stored key does not match the configured layout, i.e. it is a flat key that has to be moved
+     * under its shard.
+     *
+     * @param storedKey the key as listed from the bucket
+     * @return true if the key has to be migrated
+     */
+    public boolean requiresMigration(String storedKey) {
+        if (this.storageSettings.keyLayout() == StorageKeyLayout.FLAT) {
+            return false;
+        }
+        int separatorIndex = storedKey.indexOf('/');
+        if (separatorIndex == this.storageSettings.shardLength()
+                && this.physicalKey(storedKey.substring(separatorIndex + 1)).equals(storedKey)) {
+            return false;
+        }
+        return !this.physicalKey(storedKey).equals(storedKey);
+    }
+
+    /**
+     * Copies a flat object to its key in the configured layout and removes the flat object. The copy keeps the
+     * object metadata, so content type, encoding and content hash survive the move. An object already written under
+     * the new key is newer than the flat one and is kept, only the flat object is removed then.
+     *
+     * @param logicalKey the flat key
+     */
+    public void migrateKey(String logicalKey) {
+        String physicalKey = this.physicalKey(logicalKey);
+        if (this.s3Client.doesObjectExist(this.awsSettings.bucket(), physicalKey)) {
+            log.debug("S3Utils(migrateKey) -> Object {} already exists, removing the flat object {}", physicalKey, logicalKey);
+        } else {
+            this.s3Client.copyObject(this.awsSettings.bucket(), logicalKey, this.awsSettings.bucket(), physicalKey);
+            log.debug("S3Utils(migrateKey) -> Object {} has been moved to {}", logicalKey, physicalKey);
+        }
+        this.s3Client.deleteObject(this.awsSettings.bucket(), logicalKey);
+        this.migratedKeys.put(physicalKey, Boolean.TRUE);
+    }
+
+    /**
+     * Removes the flat object of a key just written in the configured layout, so a later migration or read fallback
+     * never brings back the stale flat content.
+     */
+    private void removeLegacyKey(String objectName) {
+        String physicalKey = this.physicalKey(objectName);
+        if (!this.isLegacyFallbackEnabled(objectName, physicalKey)) {
+            return;
+        }
+        this.s3Client.deleteObject(this.awsSettings.bucket(), objectName);
+        this.migratedKeys.put(physicalKey, Boolean.TRUE);
+    }
+
+    private boolean isMigrated(String physicalKey) {
+        if (this.migratedKeys.containsKey(physicalKey)) {
+            return true;
+        }
+        boolean migrated = this.s3Client.doesObjectExist(this.awsSettings.bucket(), physicalKey);
+        if (migrated) {
+            this.migratedKeys.put(physicalKey, Boolean.TRUE);
+        }
+        return migrated;
+    }
+
+    private String physicalKey(String logicalKey) {
+        for (String prefix : this.storageSettings.unshardedPrefixes()) {
+            if (logicalKey.startsWith(prefix)) {
+                return logicalKey;
+            }
+        }
+        return this.storageSettings.keyLayout().toPhysicalKey(logicalKey, this.storageSettings.shardLength());
+    }
+
+    private boolean isLegacyFallbackEnabled(String logicalKey, String physicalKey) {
+        return this.storageSettings.legacyFallback() && !logicalKey.equals(physicalKey);
+    }
+
+    private static boolean isNotFound(AmazonS3Exception e) {
+        return e.getStatusCode() == HttpStatus.NOT_FOUND.value();
+    }
+}
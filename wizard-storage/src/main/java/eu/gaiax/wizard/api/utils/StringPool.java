@@ -33,6 +33,36 @@ public class StringPool {
      */
     public static final String JOB_TYPE_CREATE_PARTICIPANT = "JOB_TYPE_CREATE_PARTICIPANT";
 
+    /**
+     * The constant JOB_TYPE_MIGRATE_STORAGE_KEYS.
+     */
+    public static final String JOB_TYPE_MIGRATE_STORAGE_KEYS = "JOB_TYPE_MIGRATE_STORAGE_KEYS";
+
+    /**
+     * The constant JOB_TYPE_RENEW_WILDCARD_CERTIFICATE.
+     */
+    public static final String JOB_TYPE_RENEW_WILDCARD_CERTIFICATE = "JOB_TYPE_RENEW_WILDCARD_CERTIFICATE";
+
+    /**
+     * The constant JOB_TYPE_SCAN_CERTIFICATE_RENEWALS.
+     */
+    public static final String JOB_TYPE_SCAN_CERTIFICATE_RENEWALS = "JOB_TYPE_SCAN_CERTIFICATE_RENEWALS";
+
+    /**
+     * The constant JOB_TYPE_RENEW_CERTIFICATE.
+     */
+    public static final String JOB_TYPE_RENEW_CERTIFICATE = "JOB_TYPE_RENEW_CERTIFICATE";
+
+    /**
+     * The constant JOB_TYPE_BULK_ONBOARDING.
+     */
+    public static final String JOB_TYPE_BULK_ONBOARDING = "JOB_TYPE_BULK_ONBOARDING";
+
+    /**
+     * The constant JOB_TYPE_PROVISION_USER.
+     */
+    public static final String JOB_TYPE_PROVISION_USER = "JOB_TYPE_PROVISION_USER";
+
     /**
      * The constant ID.
      */
@@ -46,6 +76,14 @@ public class StringPool {
      * The constant JOB_TYPE.
      */
     public static final String JOB_TYPE = "JOB_TYPE";
+    /**
+     * The constant STEP_DATA.
+     */
+    public static final String STEP_DATA = "stepData";
+    /**
+     * The constant WAITS.
+     */
+    public static final String WAITS = "waits";
 
     /**
      * The constant VERIFIABLE_CREDENTIAL.
@@ -168,6 +206,14 @@ public class StringPool {
 
     public static final String PARTICIPANT_JSON = "participant.json";
 
+    public static final String X509_CERTIFICATE_CHAIN = "x509CertificateChain.pem";
+
+    /**
+     * Prefix of the objects mapping a participant domain to its participant id, used to resolve /.well-known
+     * files without a database lookup.
+     */
+    public static final String HOSTED_DOMAIN_PREFIX = "domains/";
+
     public static final String IS_VALID = "isValid";
     public static final String ISSUER = "issuer";
     public static final String ISSUANCE_DATE = "issuanceDate";
@@ -198,6 +244,8 @@ public class StringPool {
 
     public static final String DELETE = "DELETE";
 
+    public static final String UPSERT = "UPSERT";
+
     private StringPool() {
     }
 }
@@ -17,8 +17,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.smartsensesolutions.java.commons.specification.SpecificationUtil;
 import eu.gaiax.wizard.api.model.setting.AWSSettings;
+import eu.gaiax.wizard.core.service.job.QuartzMetricsListener;
 import org.hibernate.validator.messageinterpolation.ResourceBundleMessageInterpolator;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.quartz.SchedulerFactoryBeanCustomizer;
 import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -72,6 +74,20 @@ public class ApplicationConfig implements WebMvcConfigurer {
         return objectMapper;
     }
 
+    /**
+     * Registers the metrics listener for all triggers and jobs of the scheduler.
+     *
+     * @param quartzMetricsListener the quartz metrics listener
+     * @return the scheduler factory bean customizer
+     */
+    @Bean
+    public SchedulerFactoryBeanCustomizer quartzMetricsCustomizer(QuartzMetricsListener quartzMetricsListener) {
+        return schedulerFactoryBean -> {
+            schedulerFactoryBean.setGlobalJobListeners(quartzMetricsListener);
+            schedulerFactoryBean.setGlobalTriggerListeners(quartzMetricsListener);
+        };
+    }
+
     /**
      * Message source message source.
      *
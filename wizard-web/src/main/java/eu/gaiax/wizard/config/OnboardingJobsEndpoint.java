@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2023 | smartSense
+ */
+
+package eu.gaiax.wizard.config;
+
+import eu.gaiax.wizard.api.model.OnboardingJobsDto;
+import eu.gaiax.wizard.core.service.job.QuartzMonitorService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint {@code /actuator/onboardingjobs} listing the onboarding steps in flight and pending in the
+ * cluster together with the Quartz backlog per job type.
+ */
+@Component
+@Endpoint(id = "onboardingjobs")
+@RequiredArgsConstructor
+public class OnboardingJobsEndpoint {
+
+    private static final int DEFAULT_LIMIT = 100;
+
+    private final QuartzMonitorService quartzMonitorService;
+
+    @ReadOperation
+    public OnboardingJobsDto onboardingJobs(@Nullable Integer limit) {
+        return this.quartzMonitorService.getOnboardingJobs(limit == null || limit < 1 ? DEFAULT_LIMIT : limit);
+    }
+}
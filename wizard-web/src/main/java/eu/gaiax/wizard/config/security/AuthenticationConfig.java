@@ -16,6 +16,7 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
+import static eu.gaiax.wizard.api.utils.RoleConstant.ADMIN_ROLE;
 import static eu.gaiax.wizard.api.utils.RoleConstant.PARTICIPANT_ROLE;
 import static eu.gaiax.wizard.utils.WizardRestConstant.*;
 
@@ -40,6 +41,8 @@ public class AuthenticationConfig {
                         .requestMatchers("/certificate/**").permitAll()
                         .requestMatchers("/.well-known/**").permitAll()
                         .requestMatchers("/public/**").permitAll()
+                        // before the participant file pattern, which would match every two segment path
+                        .requestMatchers("/onboarding/**").hasRole(ADMIN_ROLE)
                         .requestMatchers(PARTICIPANT_JSON).permitAll()
                         .requestMatchers(ONBOARD_PARTICIPANT, PARTICIPANT_ROOT + "/**").hasRole(PARTICIPANT_ROLE)
                         .requestMatchers(SERVICE_OFFER).hasRole(PARTICIPANT_ROLE)
@@ -1,7 +1,10 @@
 package eu.gaiax.wizard.controller;
 
 import eu.gaiax.wizard.api.exception.ForbiddenAccessException;
+import eu.gaiax.wizard.api.model.HostedDocument;
+import eu.gaiax.wizard.api.utils.HostedDocumentUtils;
 import eu.gaiax.wizard.api.utils.StringPool;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -24,4 +27,12 @@ public abstract class BaseController {
             throw new ForbiddenAccessException("access.not.allowed");
         }
     }
+
+    public ResponseEntity<byte[]> hostedDocumentResponse(HostedDocument hostedDocument, String cacheControl) {
+        return HostedDocumentUtils.toResponseEntity(hostedDocument, cacheControl);
+    }
+
+    public boolean isGzipAccepted(String acceptEncoding) {
+        return HostedDocumentUtils.isGzipAccepted(acceptEncoding);
+    }
 }
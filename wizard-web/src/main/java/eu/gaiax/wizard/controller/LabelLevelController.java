@@ -1,25 +1,23 @@
 package eu.gaiax.wizard.controller;
 
-import eu.gaiax.wizard.api.exception.BadDataException;
 import eu.gaiax.wizard.api.model.CommonResponse;
-import eu.gaiax.wizard.api.model.LabelLevelFileTypeEnum;
 import eu.gaiax.wizard.api.model.service_offer.LabelLevelFileUpload;
 import eu.gaiax.wizard.api.model.service_offer.LabelLevelRequest;
+import eu.gaiax.wizard.api.model.service_offer.LabelLevelUploadUrlRequest;
+import eu.gaiax.wizard.api.model.service_offer.LabelLevelUploadUrlResponse;
+import eu.gaiax.wizard.core.service.service_offer.LabelLevelFileService;
 import eu.gaiax.wizard.core.service.service_offer.ServiceLabelLevelService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.web.bind.annotation.ModelAttribute;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
+import java.util.UUID;
 
-import static eu.gaiax.wizard.utils.WizardRestConstant.LABEL_LEVEL;
-import static eu.gaiax.wizard.utils.WizardRestConstant.LABEL_LEVEL_FILE_UPLOAD;
+import static eu.gaiax.wizard.utils.WizardRestConstant.*;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 import static org.springframework.http.MediaType.MULTIPART_FORM_DATA_VALUE;
 
@@ -27,6 +25,7 @@ import static org.springframework.http.MediaType.MULTIPART_FORM_DATA_VALUE;
 @RequiredArgsConstructor
 public class LabelLevelController extends BaseController {
     private final ServiceLabelLevelService labelLevelService;
+    private final LabelLevelFileService labelLevelFileService;
 
     @Operation(summary = "Create Label-Level VC")
     @io.swagger.v3.oas.annotations.parameters.RequestBody(content = {
@@ -66,14 +65,22 @@ public class LabelLevelController extends BaseController {
         return CommonResponse.of(this.labelLevelService.createLabelLevelVc(labelLevelRequest, null, null));
     }
 
+    @Operation(summary = "Upload label level file through the application, deprecated in favour of the presigned upload url")
+    @Deprecated
     @PostMapping(path = LABEL_LEVEL_FILE_UPLOAD, consumes = MULTIPART_FORM_DATA_VALUE, produces = APPLICATION_JSON_VALUE)
     public CommonResponse<Object> uploadLabelLevelFile(@Valid @ModelAttribute LabelLevelFileUpload labelLevelFileUpload) throws IOException {
-        try {
-            LabelLevelFileTypeEnum.valueOf(labelLevelFileUpload.fileType());
-        } catch (Exception e) {
-            throw new BadDataException("invalid.label.level.file");
-        }
+        return CommonResponse.of(this.labelLevelFileService.uploadFile(labelLevelFileUpload));
+    }
+
+    @Operation(summary = "Get a presigned url to upload a label level file directly to the storage")
+    @PostMapping(path = LABEL_LEVEL_FILE_UPLOAD_URL, consumes = APPLICATION_JSON_VALUE, produces = APPLICATION_JSON_VALUE)
+    public CommonResponse<LabelLevelUploadUrlResponse> createLabelLevelFileUploadUrl(@Valid @RequestBody LabelLevelUploadUrlRequest labelLevelUploadUrlRequest) {
+        return CommonResponse.of(this.labelLevelFileService.createUploadUrl(labelLevelUploadUrlRequest));
+    }
 
-        return CommonResponse.of(this.labelLevelService.uploadLabelLevelFile(labelLevelFileUpload));
+    @Operation(summary = "Confirm a label level file uploaded with a presigned url")
+    @PostMapping(path = LABEL_LEVEL_FILE_UPLOAD_COMPLETE, produces = APPLICATION_JSON_VALUE)
+    public CommonResponse<Object> completeLabelLevelFileUpload(@PathVariable("uploadId") UUID uploadId) throws IOException {
+        return CommonResponse.of(this.labelLevelFileService.completeUpload(uploadId));
     }
 }
@@ -4,13 +4,14 @@ import eu.gaiax.wizard.api.model.*;
 import eu.gaiax.wizard.api.model.request.ParticipantCreationRequest;
 import eu.gaiax.wizard.api.model.request.ParticipantRegisterRequest;
 import eu.gaiax.wizard.api.model.request.ParticipantValidatorRequest;
+import eu.gaiax.wizard.api.model.setting.HostingSettings;
 import eu.gaiax.wizard.api.utils.StringPool;
 import eu.gaiax.wizard.api.utils.Validate;
-import eu.gaiax.wizard.core.service.domain.DomainService;
-import eu.gaiax.wizard.core.service.k8s.K8SService;
+import eu.gaiax.wizard.core.service.onboarding.OnboardingHistoryService;
+import eu.gaiax.wizard.core.service.onboarding.OnboardingProgressService;
+import eu.gaiax.wizard.core.service.onboarding.OnboardingWorkflowService;
+import eu.gaiax.wizard.core.service.participant.BulkOnboardingService;
 import eu.gaiax.wizard.core.service.participant.ParticipantService;
-import eu.gaiax.wizard.core.service.signer.SignerService;
-import eu.gaiax.wizard.core.service.ssl.CertificateService;
 import eu.gaiax.wizard.dao.entity.participant.Participant;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -21,30 +22,40 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.security.Principal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
 import static eu.gaiax.wizard.api.utils.StringPool.RESPONSE_MESSAGE;
 import static eu.gaiax.wizard.utils.WizardRestConstant.*;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
 import static org.springframework.http.MediaType.MULTIPART_FORM_DATA_VALUE;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE;
 
 @RestController
 @RequiredArgsConstructor
 public class ParticipantController extends BaseController {
     
     private final ParticipantService participantService;
-    private final DomainService domainService;
-    private final CertificateService certificateService;
-    private final K8SService k8SService;
-    private final SignerService signerService;
+    private final OnboardingWorkflowService onboardingWorkflowService;
+    private final OnboardingHistoryService onboardingHistoryService;
+    private final OnboardingProgressService onboardingProgressService;
+    private final BulkOnboardingService bulkOnboardingService;
     private final MessageSource messageSource;
+    private final HostingSettings hostingSettings;
     
     @Operation(
             summary = "Check for user existence",
@@ -364,9 +375,11 @@ public class ParticipantController extends BaseController {
                     }
             )
     })
-    @GetMapping(path = WELL_KNOWN, produces = APPLICATION_JSON_VALUE)
-    public String getWellKnownFiles(@PathVariable(name = "fileName") String fileName, @RequestHeader(name = HttpHeaders.HOST) String host) throws IOException {
-        return this.participantService.getWellKnownFiles(host, fileName);
+    @GetMapping(path = WELL_KNOWN)
+    public ResponseEntity<byte[]> getWellKnownFiles(@PathVariable(name = "fileName") String fileName, @RequestHeader(name = HttpHeaders.HOST) String host,
+                                                    @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) throws IOException {
+        HostedDocument hostedDocument = this.participantService.getWellKnownFiles(host, fileName, this.isGzipAccepted(acceptEncoding));
+        return this.hostedDocumentResponse(hostedDocument, this.hostingSettings.cacheControlFor(fileName));
     }
     
     
@@ -569,9 +582,11 @@ public class ParticipantController extends BaseController {
                     }
             )
     })
-    @GetMapping(path = PARTICIPANT_JSON, produces = APPLICATION_JSON_VALUE)
-    public String getLegalParticipantJson(@PathVariable(name = "participantId") String participantId, @PathVariable("fileName") String fileName) throws IOException {
-        return this.participantService.getLegalParticipantOrDidJson(participantId, fileName);
+    @GetMapping(path = PARTICIPANT_JSON)
+    public ResponseEntity<byte[]> getLegalParticipantJson(@PathVariable(name = "participantId") String participantId, @PathVariable("fileName") String fileName,
+                                                          @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) throws IOException {
+        HostedDocument hostedDocument = this.participantService.getLegalParticipantOrDidJson(participantId, fileName, this.isGzipAccepted(acceptEncoding));
+        return this.hostedDocumentResponse(hostedDocument, this.hostingSettings.cacheControlFor(fileName));
     }
     
     @Operation(summary = "Resume onboarding process from sub domain creation, role Admin, (only used for manual step in case of failure)")
@@ -610,7 +625,7 @@ public class ParticipantController extends BaseController {
     })
     @GetMapping(path = PARTICIPANT_SUBDOMAIN, produces = APPLICATION_JSON_VALUE)
     public CommonResponse<Map<String, String>> createSubDomain(@PathVariable(name = "participantId") String participantId) {
-        this.domainService.createSubDomain(UUID.fromString(participantId));
+        this.onboardingWorkflowService.resume(UUID.fromString(participantId), OnboardingStep.SUB_DOMAIN);
         return CommonResponse.of(Map.of(RESPONSE_MESSAGE, "Subdomain creation started"));
     }
     
@@ -668,7 +683,7 @@ public class ParticipantController extends BaseController {
         Participant participant = this.participantService.get(UUID.fromString(participantId));
         Validate.isTrue(participant.getStatus() != RegistrationStatus.CERTIFICATE_CREATION_FAILED.getStatus()).launch("Status is not certification creation failed");
         participant = this.participantService.changeStatus(UUID.fromString(participantId), RegistrationStatus.CERTIFICATE_CREATION_IN_PROCESS.getStatus());
-        this.certificateService.createSSLCertificate(UUID.fromString(participantId), null);
+        this.onboardingWorkflowService.resume(UUID.fromString(participantId), OnboardingStep.CERTIFICATE);
         return CommonResponse.of(participant);
     }
     
@@ -709,7 +724,7 @@ public class ParticipantController extends BaseController {
     })
     @GetMapping(path = PARTICIPANT_INGRESS, produces = APPLICATION_JSON_VALUE)
     public CommonResponse<Map<String, String>> createIngress(@PathVariable(name = "participantId") String participantId) {
-        this.k8SService.createIngress(UUID.fromString(participantId));
+        this.onboardingWorkflowService.resume(UUID.fromString(participantId), OnboardingStep.INGRESS);
         return CommonResponse.of(Map.of(RESPONSE_MESSAGE, "Ingress creation started"));
     }
     
@@ -749,7 +764,7 @@ public class ParticipantController extends BaseController {
     })
     @GetMapping(path = PARTICIPANT_DID, produces = APPLICATION_JSON_VALUE)
     public CommonResponse<Map<String, String>> createDid(@PathVariable(name = "participantId") String participantId) {
-        this.signerService.createDid(UUID.fromString(participantId));
+        this.onboardingWorkflowService.resume(UUID.fromString(participantId), OnboardingStep.DID);
         return CommonResponse.of(Map.of(RESPONSE_MESSAGE, "did creation started"));
     }
     
@@ -789,9 +804,126 @@ public class ParticipantController extends BaseController {
     })
     @GetMapping(path = CREATE_PARTICIPANT, produces = APPLICATION_JSON_VALUE)
     public CommonResponse<Map<String, String>> createParticipantJson(@PathVariable(name = "participantId") String participantId) {
-        this.signerService.createSignedLegalParticipant(UUID.fromString(participantId));
+        this.onboardingWorkflowService.resume(UUID.fromString(participantId), OnboardingStep.PARTICIPANT_JSON);
         return CommonResponse.of(Map.of(RESPONSE_MESSAGE, "participant json creation started"));
     }
+
+    @Operation(summary = "Onboarding processes that failed after all retries, role = admin, (resume them with the manual step endpoints)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Dead letters fetched successfully.",
+                    content = {
+                            @Content(examples = {
+                                    @ExampleObject(name = "Success response.", value = """
+                                            {
+                                              "status": 200,
+                                              "payload": {
+                                                "content": [
+                                                  {
+                                                    "participantId": "b1ab279c-9a77-4528-89b1-abfa6a8ce56a",
+                                                    "step": "INGRESS",
+                                                    "attempts": 3,
+                                                    "lastError": "INGRESS_CREATION_FAILED",
+                                                    "failedAt": "2023-08-18T10:17:48.993+00:00"
+                                                  }
+                                                ],
+                                                "pageable": {
+                                                  "pageSize": 20,
+                                                  "totalPages": 1,
+                                                  "pageNumber": 0,
+                                                  "numberOfElements": 1,
+                                                  "totalElements": 1
+                                                }
+                                              }
+                                            }""")
+                            })
+                    })
+    })
+    @GetMapping(path = ONBOARDING_DEAD_LETTERS, produces = APPLICATION_JSON_VALUE)
+    public CommonResponse<PageResponse<OnboardingDeadLetterDto>> getOnboardingDeadLetters(@RequestParam(name = "page", defaultValue = "0") int page,
+                                                                                          @RequestParam(name = "size", defaultValue = "20") int size) {
+        return CommonResponse.of(this.onboardingWorkflowService.getDeadLetters(page, size));
+    }
+
+    @Operation(summary = "Duration percentiles of the completed onboarding steps per step and day in milliseconds, role = admin")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Step latency fetched successfully.",
+                    content = {
+                            @Content(examples = {
+                                    @ExampleObject(name = "Success response.", value = """
+                                            {
+                                              "status": 200,
+                                              "payload": [
+                                                {
+                                                  "step": "CERTIFICATE",
+                                                  "day": "2023-08-18",
+                                                  "count": 42,
+                                                  "p50": 61250.0,
+                                                  "p95": 184320.5,
+                                                  "p99": 301200.0
+                                                }
+                                              ]
+                                            }""")
+                            })
+                    }),
+            @ApiResponse(responseCode = "400", description = "The start date is after the end date.")
+    })
+    @GetMapping(path = ONBOARDING_STEP_LATENCY, produces = APPLICATION_JSON_VALUE)
+    public CommonResponse<List<OnboardingStepLatencyInterface>> getOnboardingStepLatency(@RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                                        @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to == null ? LocalDate.now(ZoneOffset.UTC) : to;
+        return CommonResponse.of(this.onboardingHistoryService.getStepLatency(from == null ? end.minusDays(30) : from, end));
+    }
+
+    @Operation(summary = "Register many participants at once, role = admin. One participant per line as application/x-ndjson in the format of the register request, " +
+            "or as text/csv with the header email,legalName,shortName,entityType,ownDid,store,acceptedTnC,credential where the credential is JSON. " +
+            "The rows are registered in the background, poll the job for the result of every row.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Rows accepted.",
+                    content = {
+                            @Content(examples = {
+                                    @ExampleObject(name = "Success response.", value = """
+                                            {
+                                              "status": 200,
+                                              "payload": {
+                                                "jobId": "6b2b6c36-cd0a-4b4e-9c59-0c1b2b4e6d0f",
+                                                "state": "PENDING",
+                                                "total": 2,
+                                                "registered": 0,
+                                                "failed": 1,
+                                                "createdAt": "2023-08-18T10:17:48.993+00:00",
+                                                "updatedAt": "2023-08-18T10:17:48.993+00:00",
+                                                "rows": [
+                                                  {
+                                                    "row": 1,
+                                                    "email": "admin@member.eu",
+                                                    "status": "PENDING",
+                                                    "participantId": null,
+                                                    "message": null
+                                                  },
+                                                  {
+                                                    "row": 2,
+                                                    "email": null,
+                                                    "status": "FAILED",
+                                                    "participantId": null,
+                                                    "message": "The row could not be read. Unexpected end-of-input"
+                                                  }
+                                                ]
+                                              }
+                                            }""")
+                            })
+                    }),
+            @ApiResponse(responseCode = "400", description = "Unsupported content type, invalid CSV header or too many rows.")
+    })
+    @PostMapping(path = ONBOARDING_BULK, consumes = {APPLICATION_NDJSON_VALUE, BulkOnboardingService.TEXT_CSV_VALUE}, produces = APPLICATION_JSON_VALUE)
+    public CommonResponse<BulkOnboardingJobDto> submitBulkOnboarding(@RequestHeader(name = HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) {
+        return CommonResponse.of(this.bulkOnboardingService.submit(contentType, body));
+    }
+
+    @Operation(summary = "State of a bulk onboarding and the result of every row, role = admin")
+    @GetMapping(path = ONBOARDING_BULK_JOB, produces = APPLICATION_JSON_VALUE)
+    public CommonResponse<BulkOnboardingJobDto> getBulkOnboarding(@PathVariable(name = "jobId") String jobId) {
+        return CommonResponse.of(this.bulkOnboardingService.getJob(UUID.fromString(jobId)));
+    }
     
     @Operation(
             summary = "Participant config",
@@ -869,9 +1001,9 @@ public class ParticipantController extends BaseController {
             description = "This endpoint updates participant's profile image."
     )
     @PutMapping(value = PARTICIPANT_PROFILE_IMAGE, consumes = MULTIPART_FORM_DATA_VALUE)
-    public CommonResponse<Map<String, Object>> updateParticipantProfileImage(@PathVariable(StringPool.PARTICIPANT_ID) String participantId,
-                                                                             @Valid @ModelAttribute FileUploadRequest fileUploadRequest) {
-        return CommonResponse.of("imageUrl", this.participantService.updateParticipantProfileImage(participantId, fileUploadRequest.file()), this.messageSource.getMessage("profile.image.updated", null, LocaleContextHolder.getLocale()));
+    public CommonResponse<ProfileImageUploadDto> updateParticipantProfileImage(@PathVariable(StringPool.PARTICIPANT_ID) String participantId,
+                                                                               @Valid @ModelAttribute FileUploadRequest fileUploadRequest) {
+        return CommonResponse.of(this.participantService.updateParticipantProfileImage(participantId, fileUploadRequest.file()), this.messageSource.getMessage("profile.image.updated", null, LocaleContextHolder.getLocale()));
     }
     
     @Operation(
@@ -899,4 +1031,27 @@ public class ParticipantController extends BaseController {
         this.validateParticipantId(participantId, principal);
         return CommonResponse.of(this.participantService.exportParticipantAndKey(participantId));
     }
+
+    @Operation(
+            summary = "Onboarding progress",
+            description = "This endpoint streams the onboarding progress of the participant as server-sent events named 'progress'. The current progress is sent right away, the stream is completed once the onboarding is completed."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Progress stream opened.",
+                    content = {
+                            @Content(examples = {
+                                    @ExampleObject(name = "Progress event", value = """
+                                            event:progress
+                                            data:{"participantId":"3c7b4b3e-9b8e-4a4e-8d6e-0b7b7b7b7b7b","step":"CERTIFICATE","state":"WAITING","status":12,"legalParticipantUrl":null,"timestamp":1692345600000}
+                                            """)
+                            })
+                    }),
+            @ApiResponse(responseCode = "403", description = "User does not have access to this API."),
+            @ApiResponse(responseCode = "404", description = "Participant not found.")
+    })
+    @GetMapping(path = PARTICIPANT_ONBOARDING_PROGRESS, produces = TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter getOnboardingProgress(@PathVariable(name = StringPool.PARTICIPANT_ID) String participantId, Principal principal) {
+        this.validateParticipantId(participantId, principal);
+        return this.onboardingProgressService.subscribe(UUID.fromString(participantId));
+    }
 }
@@ -31,9 +31,13 @@ public class WizardRestConstant {
 
     public static final String PARTICIPANT_PROFILE_IMAGE = "/participant/{participantId}/profile-image";
 
+    public static final String PARTICIPANT_ONBOARDING_PROGRESS = "/participant/{participantId}/onboarding/progress";
+
     public static final String SERVICE_OFFER = "/service-offer";
     public static final String LABEL_LEVEL = "/public/label-level";
     public static final String LABEL_LEVEL_FILE_UPLOAD = "/public/label-level/file";
+    public static final String LABEL_LEVEL_FILE_UPLOAD_URL = "/public/label-level/file/upload-url";
+    public static final String LABEL_LEVEL_FILE_UPLOAD_COMPLETE = "/public/label-level/file/{uploadId}/complete";
     public static final String LABEL_LEVEL_FILE_DOWNLOAD = "label-level/file/{fileName}/**";
 
     public static final String PUBLIC_SERVICE_OFFER = "/public/service-offer";
@@ -73,4 +77,12 @@ public class WizardRestConstant {
 
     public static final String CREATE_PARTICIPANT = "/participant/{participantId}";
 
+    public static final String ONBOARDING_DEAD_LETTERS = "/onboarding/dead-letters";
+
+    public static final String ONBOARDING_STEP_LATENCY = "/onboarding/step-latency";
+
+    public static final String ONBOARDING_BULK = "/onboarding/bulk";
+
+    public static final String ONBOARDING_BULK_JOB = "/onboarding/bulk/{jobId}";
+
 }
@@ -53,4 +53,87 @@ ALTER TABLE participant RENAME COLUMN own_cert TO key_stored;
 ALTER TABLE credential ADD CONSTRAINT vc_url_type_unique UNIQUE ("vc_url","type");
 
 --changeset Neha:9
-ALTER TABLE participant ADD profile_image varchar(100) NULL;
\ No newline at end of file
+ALTER TABLE participant ADD profile_image varchar(100) NULL;
+
+--changeset Neha:10
+ALTER TABLE participant ALTER COLUMN profile_image TYPE varchar(255) USING profile_image::varchar;
+ALTER TABLE participant ADD profile_image_status varchar(20) NULL;
+
+--changeset Neha:11
+CREATE TABLE onboarding_workflow (
+    id UUID PRIMARY KEY NOT NULL DEFAULT uuid_generate_v4(),
+    participant_id UUID NOT NULL,
+    step varchar(50) NOT NULL,
+    state varchar(20) NOT NULL,
+    waits INTEGER NOT NULL DEFAULT 0,
+    next_run_at timestamp(6) NULL,
+    last_error TEXT NULL,
+    created_at timestamp(6) NULL,
+    updated_at timestamp(6) NULL,
+    CONSTRAINT onboarding_workflow_participant_unique UNIQUE (participant_id),
+    CONSTRAINT fk_onboarding_workflow_participant_id FOREIGN KEY (participant_id) REFERENCES participant(id)
+);
+CREATE INDEX onboarding_workflow_state_idx ON onboarding_workflow (state, updated_at);
+
+--changeset Neha:12
+ALTER TABLE onboarding_workflow ADD step_data TEXT NULL;
+
+--changeset Neha:13
+ALTER TABLE onboarding_workflow ADD attempts INTEGER NOT NULL DEFAULT 0;
+
+--changeset Neha:14
+ALTER TABLE onboarding_workflow ADD step_started_at timestamp(6) NULL;
+CREATE TABLE onboarding_step_history (
+    id UUID PRIMARY KEY NOT NULL DEFAULT uuid_generate_v4(),
+    participant_id UUID NOT NULL,
+    step varchar(50) NOT NULL,
+    outcome varchar(20) NOT NULL,
+    status INTEGER NOT NULL,
+    attempt INTEGER NOT NULL,
+    waits INTEGER NOT NULL,
+    started_at timestamp(6) NOT NULL,
+    ended_at timestamp(6) NOT NULL,
+    duration_ms BIGINT NOT NULL,
+    error_code varchar(255) NULL,
+    created_at timestamp(6) NULL,
+    updated_at timestamp(6) NULL,
+    CONSTRAINT fk_onboarding_step_history_participant_id FOREIGN KEY (participant_id) REFERENCES participant(id)
+);
+CREATE INDEX onboarding_step_history_ended_at_idx ON onboarding_step_history (ended_at, step);
+CREATE INDEX onboarding_step_history_participant_idx ON onboarding_step_history (participant_id);
+
+--changeset Neha:15
+CREATE TABLE bulk_onboarding_job (
+    id UUID PRIMARY KEY NOT NULL DEFAULT uuid_generate_v4(),
+    state varchar(20) NOT NULL,
+    total INTEGER NOT NULL DEFAULT 0,
+    registered INTEGER NOT NULL DEFAULT 0,
+    failed INTEGER NOT NULL DEFAULT 0,
+    created_at timestamp(6) NULL,
+    updated_at timestamp(6) NULL
+);
+CREATE TABLE bulk_onboarding_row (
+    id UUID PRIMARY KEY NOT NULL DEFAULT uuid_generate_v4(),
+    job_id UUID NOT NULL,
+    row_number INTEGER NOT NULL,
+    email varchar(255) NULL,
+    payload TEXT NULL,
+    status varchar(20) NOT NULL,
+    participant_id UUID NULL,
+    message TEXT NULL,
+    created_at timestamp(6) NULL,
+    updated_at timestamp(6) NULL,
+    CONSTRAINT fk_bulk_onboarding_row_job_id FOREIGN KEY (job_id) REFERENCES bulk_onboarding_job(id)
+);
+CREATE INDEX bulk_onboarding_row_job_idx ON bulk_onboarding_row (job_id, status, row_number);
+
+--changeset Neha:16
+ALTER TABLE participant ADD user_provisioned Boolean NOT NULL DEFAULT true;
+CREATE INDEX participant_user_not_provisioned_idx ON participant (updated_at) WHERE user_provisioned = false;
+
+--changeset Neha:17
+ALTER TABLE onboarding_step_history ALTER COLUMN started_at TYPE timestamptz(6), ALTER COLUMN ended_at TYPE timestamptz(6);
+
+--changeset Neha:18
+ALTER TABLE participant ADD certificate_expiry timestamptz(6) NULL;
+CREATE INDEX participant_certificate_expiry_idx ON participant (certificate_expiry);
@@ -74,4 +74,18 @@ ALTER TABLE service_offer ALTER COLUMN name TYPE varchar(255) USING name::varcha
 
 --changeset Neha:8
 ALTER TABLE service_offer ALTER COLUMN name TYPE text USING name::text;
-ALTER TABLE service_offer ALTER COLUMN description TYPE text USING description::text;
\ No newline at end of file
+ALTER TABLE service_offer ALTER COLUMN description TYPE text USING description::text;
+
+--changeset Neha:9
+ALTER TABLE label_level_upload_files ALTER COLUMN participant_id DROP NOT NULL;
+ALTER TABLE label_level_upload_files ALTER COLUMN service_offer_id DROP NOT NULL;
+ALTER TABLE label_level_upload_files ALTER COLUMN file_path TYPE varchar(500) USING file_path::varchar;
+ALTER TABLE label_level_upload_files ADD file_name varchar(255) NULL;
+ALTER TABLE label_level_upload_files ADD content_type varchar(100) NULL;
+ALTER TABLE label_level_upload_files ADD size bigint NULL;
+ALTER TABLE label_level_upload_files ADD status varchar(20) NULL;
+CREATE INDEX idx_label_level_upload_files_status ON label_level_upload_files(status, created_at);
+
+--changeset Neha:10
+ALTER TABLE label_level_upload_files ADD content_hash varchar(64) NULL;
+CREATE INDEX idx_label_level_upload_files_content_hash ON label_level_upload_files(content_hash, status);
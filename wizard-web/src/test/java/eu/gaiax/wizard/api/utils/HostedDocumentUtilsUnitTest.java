@@ -0,0 +1,45 @@
+package eu.gaiax.wizard.api.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HostedDocumentUtilsUnitTest {
+
+    @Test
+    void testIsGzipAccepted() {
+        assertThat(HostedDocumentUtils.isGzipAccepted("gzip")).isTrue();
+        assertThat(HostedDocumentUtils.isGzipAccepted("GZIP")).isTrue();
+        assertThat(HostedDocumentUtils.isGzipAccepted("x-gzip")).isTrue();
+        assertThat(HostedDocumentUtils.isGzipAccepted("br, gzip;q=0.5")).isTrue();
+        assertThat(HostedDocumentUtils.isGzipAccepted("gzip; q=0.001")).isTrue();
+        assertThat(HostedDocumentUtils.isGzipAccepted("gzip;q=0.5;foo=bar")).isTrue();
+        assertThat(HostedDocumentUtils.isGzipAccepted("*")).isTrue();
+    }
+
+    @Test
+    void testIsGzipAccepted_refused() {
+        assertThat(HostedDocumentUtils.isGzipAccepted(null)).isFalse();
+        assertThat(HostedDocumentUtils.isGzipAccepted(" ")).isFalse();
+        assertThat(HostedDocumentUtils.isGzipAccepted("gzip;q=0")).isFalse();
+        assertThat(HostedDocumentUtils.isGzipAccepted("gzip;Q=0.000")).isFalse();
+        assertThat(HostedDocumentUtils.isGzipAccepted("*;q=0")).isFalse();
+        assertThat(HostedDocumentUtils.isGzipAccepted("br, deflate")).isFalse();
+        assertThat(HostedDocumentUtils.isGzipAccepted("identity")).isFalse();
+    }
+
+    @Test
+    void testIsGzipAccepted_explicitCodingBeatsWildcard() {
+        assertThat(HostedDocumentUtils.isGzipAccepted("gzip;q=0, *;q=1")).isFalse();
+        assertThat(HostedDocumentUtils.isGzipAccepted("*;q=1, gzip;q=0")).isFalse();
+        assertThat(HostedDocumentUtils.isGzipAccepted("*;q=0, gzip")).isTrue();
+        assertThat(HostedDocumentUtils.isGzipAccepted("gzip;q=0.2, *;q=0")).isTrue();
+    }
+
+    @Test
+    void testIsGzipAccepted_malformedQualityIgnored() {
+        assertThat(HostedDocumentUtils.isGzipAccepted("gzip;q=abc")).isFalse();
+        assertThat(HostedDocumentUtils.isGzipAccepted("gzip;q=2, *;q=0.5")).isTrue();
+        assertThat(HostedDocumentUtils.isGzipAccepted("gzip;q=1.5, *;q=0")).isFalse();
+    }
+}
@@ -0,0 +1,142 @@
+package eu.gaiax.wizard.api.utils;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import eu.gaiax.wizard.api.model.StorageKeyLayout;
+import eu.gaiax.wizard.api.model.setting.AWSSettings;
+import eu.gaiax.wizard.api.model.setting.StorageSettings;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.File;
+import java.net.URL;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class S3UtilsUnitTest {
+
+    private static final String BUCKET = "bucket";
+
+    @Mock
+    private AmazonS3 s3Client;
+    private S3Utils s3Utils;
+    private final String logicalKey = UUID.randomUUID() + "/did.json";
+
+    @BeforeEach
+    void setUp() {
+        AWSSettings awsSettings = new AWSSettings(BUCKET, null, null, null, null, null, null, null);
+        StorageSettings storageSettings = new StorageSettings(StorageKeyLayout.HASH_SHARDED, 4, List.of("public/"), true, false, null, null);
+        this.s3Utils = new S3Utils(this.s3Client, awsSettings, storageSettings);
+    }
+
+    @Test
+    void testUploadFile_hashSharded() {
+        File file = new File("did.json");
+        this.s3Utils.uploadFile(this.logicalKey, file);
+
+        ArgumentCaptor<String> keyCaptor = ArgumentCaptor.forClass(String.class);
+        verify(this.s3Client).putObject(eq(BUCKET), keyCaptor.capture(), eq(file));
+        assertThat(keyCaptor.getValue())
+                .matches("[0-9a-f]{4}/.*")
+                .endsWith("/" + this.logicalKey)
+                .isEqualTo(StorageKeyLayout.HASH_SHARDED.toPhysicalKey(this.logicalKey, 4));
+    }
+
+    @Test
+    void testGetObjectUrl_unshardedPrefix() throws Exception {
+        doReturn(new URL("https://bucket.s3/public/label-level/file.pdf")).when(this.s3Client).getUrl(BUCKET, "public/label-level/file.pdf");
+        assertThat(this.s3Utils.getObject("public/label-level/file.pdf")).isEqualTo("https://bucket.s3/public/label-level/file.pdf");
+    }
+
+    @Test
+    void testRequiresMigration() {
+        String physicalKey = StorageKeyLayout.HASH_SHARDED.toPhysicalKey(this.logicalKey, 4);
+        assertThat(this.s3Utils.requiresMigration(this.logicalKey)).isTrue();
+        assertThat(this.s3Utils.requiresMigration(physicalKey)).isFalse();
+        assertThat(this.s3Utils.requiresMigration("public/label-level/file.pdf")).isFalse();
+    }
+
+    @Test
+    void testGetObject_legacyFallback() {
+        AmazonS3Exception notFound = new AmazonS3Exception("Not Found");
+        notFound.setStatusCode(404);
+        doThrow(notFound).doReturn(null).when(this.s3Client).getObject(any(GetObjectRequest.class), any(File.class));
+
+        this.s3Utils.getObject(this.logicalKey, UUID.randomUUID() + ".json");
+
+        ArgumentCaptor<GetObjectRequest> requestCaptor = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(this.s3Client, times(2)).getObject(requestCaptor.capture(), any(File.class));
+        assertThat(requestCaptor.getAllValues().get(0).getKey()).isEqualTo(StorageKeyLayout.HASH_SHARDED.toPhysicalKey(this.logicalKey, 4));
+        assertThat(requestCaptor.getAllValues().get(1).getKey()).isEqualTo(this.logicalKey);
+    }
+
+    @Test
+    void testMigrateKey() {
+        this.s3Utils.migrateKey(this.logicalKey);
+
+        verify(this.s3Client).copyObject(BUCKET, this.logicalKey, BUCKET, StorageKeyLayout.HASH_SHARDED.toPhysicalKey(this.logicalKey, 4));
+        verify(this.s3Client).deleteObject(BUCKET, this.logicalKey);
+    }
+
+    @Test
+    void testMigrateKey_keepsNewerObject() {
+        String physicalKey = StorageKeyLayout.HASH_SHARDED.toPhysicalKey(this.logicalKey, 4);
+        doReturn(true).when(this.s3Client).doesObjectExist(BUCKET, physicalKey);
+
+        this.s3Utils.migrateKey(this.logicalKey);
+
+        verify(this.s3Client, never()).copyObject(anyString(), anyString(), anyString(), anyString());
+        verify(this.s3Client).deleteObject(BUCKET, this.logicalKey);
+    }
+
+    @Test
+    void testUploadFile_removesLegacyKey() {
+        this.s3Utils.uploadFile(this.logicalKey, new File("did.json"));
+
+        verify(this.s3Client).deleteObject(BUCKET, this.logicalKey);
+    }
+
+    @Test
+    void testUploadFile_unshardedPrefixKeepsKey() {
+        this.s3Utils.uploadFile("public/label-level/file.pdf", new File("file.pdf"));
+
+        verify(this.s3Client, never()).deleteObject(anyString(), anyString());
+    }
+
+    @Test
+    void testGetPreSignedUrl_cachesMigratedKey() throws Exception {
+        String physicalKey = StorageKeyLayout.HASH_SHARDED.toPhysicalKey(this.logicalKey, 4);
+        doReturn(true).when(this.s3Client).doesObjectExist(BUCKET, physicalKey);
+        doReturn(new URL("https://bucket.s3/" + physicalKey)).when(this.s3Client).generatePresignedUrl(eq(BUCKET), eq(physicalKey), any(Date.class));
+
+        this.s3Utils.getPreSignedUrl(this.logicalKey);
+        assertThat(this.s3Utils.getPreSignedUrl(this.logicalKey)).isEqualTo("https://bucket.s3/" + physicalKey);
+
+        verify(this.s3Client, times(1)).doesObjectExist(BUCKET, physicalKey);
+    }
+
+    @Test
+    void testGetPreSignedUrl_notMigratedFallsBackAndChecksAgain() throws Exception {
+        String physicalKey = StorageKeyLayout.HASH_SHARDED.toPhysicalKey(this.logicalKey, 4);
+        doReturn(false).when(this.s3Client).doesObjectExist(BUCKET, physicalKey);
+        doReturn(new URL("https://bucket.s3/" + this.logicalKey)).when(this.s3Client).generatePresignedUrl(eq(BUCKET), eq(this.logicalKey), any(Date.class));
+
+        this.s3Utils.getPreSignedUrl(this.logicalKey);
+        assertThat(this.s3Utils.getPreSignedUrl(this.logicalKey)).isEqualTo("https://bucket.s3/" + this.logicalKey);
+
+        verify(this.s3Client, times(2)).doesObjectExist(BUCKET, physicalKey);
+    }
+}
@@ -0,0 +1,88 @@
+package eu.gaiax.wizard.core.service.domain;
+
+import eu.gaiax.wizard.api.model.setting.DnsSettings;
+import eu.gaiax.wizard.api.utils.StringPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DnsChangeBatcherUnitTest {
+
+    private RecordingDnsProvider dnsProvider;
+    private DnsChangeBatcher dnsChangeBatcher;
+
+    @BeforeEach
+    void setUp() {
+        this.dnsProvider = new RecordingDnsProvider();
+        this.dnsChangeBatcher = new DnsChangeBatcher(this.dnsProvider, new DnsSettings("in-memory", Duration.ofMillis(300), 5, Duration.ofHours(1)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.dnsChangeBatcher.destroy();
+    }
+
+    @Test
+    void testSubmit_concurrentChangesInOneBatch() throws Exception {
+        List<CompletableFuture<String>> changeIds = IntStream.range(0, 3)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> this.dnsChangeBatcher.submit(DnsRecordChange.txt(StringPool.CREATE, "_acme-challenge.participant" + i, "value" + i)).join()))
+                .toList();
+
+        Set<String> ids = Set.copyOf(changeIds.stream().map(CompletableFuture::join).toList());
+
+        assertThat(ids).hasSize(1);
+        assertThat(this.dnsProvider.getSubmissions()).hasSize(1);
+        assertThat(this.dnsProvider.getSubmissions().get(0)).hasSize(3);
+        assertThat(this.dnsProvider.getValues(DnsRecordChange.TYPE_TXT, "_acme-challenge.participant1")).containsExactly("value1");
+    }
+
+    @Test
+    void testSubmit_fullBatchSubmittedRightAway() {
+        List<CompletableFuture<String>> changeIds = IntStream.range(0, 7)
+                .mapToObj(i -> this.dnsChangeBatcher.submit(DnsRecordChange.a("participant" + i, "0.0.0.0")))
+                .toList();
+
+        changeIds.forEach(CompletableFuture::join);
+
+        assertThat(this.dnsProvider.getSubmissions()).extracting(List::size).containsExactly(5, 2);
+    }
+
+    @Test
+    void testSubmit_invalidChangeFailsAlone() {
+        this.dnsChangeBatcher.submit(DnsRecordChange.a("participant", "0.0.0.0")).join();
+
+        CompletableFuture<String> valid = this.dnsChangeBatcher.submit(DnsRecordChange.a("other", "0.0.0.0"));
+        CompletableFuture<String> invalid = this.dnsChangeBatcher.submit(DnsRecordChange.a("participant", "0.0.0.0"));
+
+        assertThat(valid.join()).isNotNull();
+        assertThatThrownBy(invalid::get).isInstanceOf(ExecutionException.class).hasCauseInstanceOf(InvalidDnsChangeException.class);
+        assertThat(this.dnsProvider.getValues(DnsRecordChange.TYPE_A, "other")).containsExactly("0.0.0.0");
+    }
+
+    @Test
+    void testAwaitInSync() throws Exception {
+        this.dnsProvider.setAutoSync(false);
+        String changeId = this.dnsChangeBatcher.submit(DnsRecordChange.txt(StringPool.CREATE, "_acme-challenge.participant", "value")).join();
+        CompletableFuture<Void> inSync = this.dnsChangeBatcher.awaitInSync(changeId);
+
+        this.dnsChangeBatcher.checkInSync();
+        assertThat(inSync).isNotDone();
+        assertThat(this.dnsChangeBatcher.isInSync(changeId)).isFalse();
+
+        this.dnsProvider.syncAll();
+        this.dnsChangeBatcher.checkInSync();
+        inSync.get(1, TimeUnit.SECONDS);
+        assertThat(this.dnsChangeBatcher.isInSync(changeId)).isTrue();
+    }
+}
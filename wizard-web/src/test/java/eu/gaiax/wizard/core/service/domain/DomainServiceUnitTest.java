@@ -1,13 +1,11 @@
 package eu.gaiax.wizard.core.service.domain;
 
 import com.amazonaws.services.route53.AmazonRoute53;
-import com.amazonaws.services.route53.model.ChangeInfo;
-import com.amazonaws.services.route53.model.ChangeResourceRecordSetsResult;
-import com.amazonaws.services.route53.model.ChangeStatus;
-import com.amazonaws.services.route53.model.GetChangeResult;
+import com.amazonaws.services.route53.model.*;
+import eu.gaiax.wizard.api.model.RegistrationStatus;
 import eu.gaiax.wizard.api.model.setting.AWSSettings;
+import eu.gaiax.wizard.api.model.setting.DnsSettings;
 import eu.gaiax.wizard.api.utils.StringPool;
-import eu.gaiax.wizard.core.service.job.ScheduleService;
 import eu.gaiax.wizard.dao.entity.participant.Participant;
 import eu.gaiax.wizard.dao.repository.participant.ParticipantRepository;
 import eu.gaiax.wizard.util.constant.TestConstant;
@@ -15,14 +13,15 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.quartz.SchedulerException;
 
-import java.util.Date;
-import java.util.Optional;
-import java.util.UUID;
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -34,23 +33,25 @@ class DomainServiceUnitTest {
     private DomainService domainService;
 
     private AWSSettings awsSettings;
+    private DnsChangeBatcher dnsChangeBatcher;
     @Mock
     private AmazonRoute53 amazonRoute53;
     @Mock
     private ParticipantRepository participantRepository;
-    @Mock
-    private ScheduleService scheduleService;
 
     private final String randomUUID = UUID.randomUUID().toString();
 
     @BeforeEach
     void setUp() {
         this.awsSettings = new AWSSettings(null, null, null, null, this.randomUUID, "0.0.0.0", null, null);
-        this.domainService = spy(new DomainService(this.awsSettings, this.amazonRoute53, this.participantRepository, this.scheduleService));
+        Route53DnsProvider dnsProvider = new Route53DnsProvider(this.awsSettings, this.amazonRoute53);
+        this.dnsChangeBatcher = new DnsChangeBatcher(dnsProvider, new DnsSettings(null, Duration.ofMillis(10), null, Duration.ofHours(1)));
+        this.domainService = spy(new DomainService(this.awsSettings, this.dnsChangeBatcher, dnsProvider, this.participantRepository));
     }
 
     @AfterEach
     void tearDown() {
+        this.dnsChangeBatcher.destroy();
         this.domainService = null;
         this.awsSettings = null;
     }
@@ -60,8 +61,44 @@ class DomainServiceUnitTest {
         ChangeResourceRecordSetsResult changeResourceRecordSetsResult = new ChangeResourceRecordSetsResult();
         changeResourceRecordSetsResult.setChangeInfo(new ChangeInfo(this.randomUUID, ChangeStatus.INSYNC, new Date()));
         doReturn(changeResourceRecordSetsResult).when(this.amazonRoute53).changeResourceRecordSets(any());
+        doReturn(this.txtRecordSets("other", this.randomUUID)).when(this.amazonRoute53).listResourceRecordSets(any());
 
         assertDoesNotThrow(() -> this.domainService.updateTxtRecords(this.randomUUID, this.randomUUID, StringPool.DELETE));
+        assertThat(this.submittedChanges(1)).containsExactly("DELETE other," + this.randomUUID, "CREATE other");
+    }
+
+    @Test
+    void testUpdateTxtRecordForSSLCertificate_deleteLastValue() {
+        doReturn(new ChangeResourceRecordSetsResult().withChangeInfo(new ChangeInfo(this.randomUUID, ChangeStatus.PENDING, new Date())))
+                .when(this.amazonRoute53).changeResourceRecordSets(any());
+        doReturn(this.txtRecordSets(this.randomUUID)).when(this.amazonRoute53).listResourceRecordSets(any());
+
+        this.domainService.updateTxtRecords(this.randomUUID, this.randomUUID, StringPool.DELETE);
+
+        assertThat(this.submittedChanges(1)).containsExactly("DELETE " + this.randomUUID);
+    }
+
+    @Test
+    void testUpdateTxtRecordForSSLCertificate_upsertKeepsOtherChallenges() {
+        doReturn(new ChangeResourceRecordSetsResult().withChangeInfo(new ChangeInfo(this.randomUUID, ChangeStatus.PENDING, new Date())))
+                .when(this.amazonRoute53).changeResourceRecordSets(any());
+        doReturn(this.txtRecordSets("earlier")).when(this.amazonRoute53).listResourceRecordSets(any());
+
+        this.domainService.updateTxtRecords(this.randomUUID, List.of("first", "second"), StringPool.UPSERT);
+
+        assertThat(this.submittedChanges(1)).containsExactly("DELETE earlier", "CREATE earlier,first,second");
+    }
+
+    @Test
+    void testUpdateTxtRecordForSSLCertificate_recordChangedConcurrently() {
+        doThrow(new InvalidChangeBatchException("record set changed"))
+                .doReturn(new ChangeResourceRecordSetsResult().withChangeInfo(new ChangeInfo(this.randomUUID, ChangeStatus.PENDING, new Date())))
+                .when(this.amazonRoute53).changeResourceRecordSets(any());
+        doReturn(this.txtRecordSets("earlier"), this.txtRecordSets("earlier", "concurrent"))
+                .when(this.amazonRoute53).listResourceRecordSets(any());
+
+        assertThat(this.domainService.updateTxtRecords(this.randomUUID, this.randomUUID, StringPool.CREATE)).isEqualTo(this.randomUUID);
+        assertThat(this.submittedChanges(2)).containsExactly("DELETE earlier,concurrent", "CREATE earlier,concurrent," + this.randomUUID);
     }
 
     @Test
@@ -69,13 +106,29 @@ class DomainServiceUnitTest {
         ChangeResourceRecordSetsResult changeResourceRecordSetsResult = new ChangeResourceRecordSetsResult()
                 .withChangeInfo(new ChangeInfo(this.randomUUID, ChangeStatus.PENDING, new Date()));
         doReturn(changeResourceRecordSetsResult).when(this.amazonRoute53).changeResourceRecordSets(any());
+        doReturn(this.txtRecordSets()).when(this.amazonRoute53).listResourceRecordSets(any());
+
+        assertThat(this.domainService.updateTxtRecords(this.randomUUID, this.randomUUID, StringPool.CREATE)).isEqualTo(this.randomUUID);
+        assertThat(this.submittedChanges(1)).containsExactly("CREATE " + this.randomUUID);
+        verify(this.amazonRoute53, never()).getChange(any());
+    }
+
+    @Test
+    void testIsChangeInSync() {
         doReturn(new GetChangeResult().withChangeInfo(new ChangeInfo(this.randomUUID, ChangeStatus.INSYNC, new Date()))).when(this.amazonRoute53).getChange(any());
 
-        assertDoesNotThrow(() -> this.domainService.updateTxtRecords(this.randomUUID, this.randomUUID, StringPool.CREATE));
+        assertThat(this.domainService.isChangeInSync(this.randomUUID)).isTrue();
     }
 
     @Test
-    void testCreateSubDomain() throws SchedulerException {
+    void testIsChangeInSync_pending() {
+        doReturn(new GetChangeResult().withChangeInfo(new ChangeInfo(this.randomUUID, ChangeStatus.PENDING, new Date()))).when(this.amazonRoute53).getChange(any());
+
+        assertThat(this.domainService.isChangeInSync(this.randomUUID)).isFalse();
+    }
+
+    @Test
+    void testCreateSubDomain() {
         Participant participant = this.generateMockParticipant();
         doReturn(Optional.of(participant)).when(this.participantRepository).findById(UUID.fromString(this.randomUUID));
         doReturn(participant).when(this.participantRepository).save(any());
@@ -83,9 +136,34 @@ class DomainServiceUnitTest {
         ChangeResourceRecordSetsResult changeResourceRecordSetsResult = new ChangeResourceRecordSetsResult()
                 .withChangeInfo(new ChangeInfo(this.randomUUID, ChangeStatus.PENDING, new Date()));
         doReturn(changeResourceRecordSetsResult).when(this.amazonRoute53).changeResourceRecordSets(any());
-        doNothing().when(this.scheduleService).createJob(anyString(), anyString(), anyInt());
 
         assertDoesNotThrow(() -> this.domainService.createSubDomain(UUID.fromString(this.randomUUID)));
+        assertThat(participant.getStatus()).isEqualTo(RegistrationStatus.DOMAIN_CREATED.getStatus());
+    }
+
+    /**
+     * The TXT record as Route53 lists it, with quoted values and the name with a trailing dot.
+     */
+    private ListResourceRecordSetsResult txtRecordSets(String... values) {
+        if (values.length == 0) {
+            return new ListResourceRecordSetsResult();
+        }
+        return new ListResourceRecordSetsResult().withResourceRecordSets(new ResourceRecordSet(this.randomUUID + ".", RRType.TXT)
+                .withTTL(300L)
+                .withResourceRecords(Arrays.stream(values).map(value -> new ResourceRecord("\"" + value + "\"")).toList()));
+    }
+
+    /**
+     * The changes of the last submitted batch as action and values.
+     */
+    private List<String> submittedChanges(int submissions) {
+        ArgumentCaptor<ChangeResourceRecordSetsRequest> captor = ArgumentCaptor.forClass(ChangeResourceRecordSetsRequest.class);
+        verify(this.amazonRoute53, times(submissions)).changeResourceRecordSets(captor.capture());
+        return captor.getValue().getChangeBatch().getChanges().stream()
+                .map(change -> change.getAction() + " " + change.getResourceRecordSet().getResourceRecords().stream()
+                        .map(resourceRecord -> resourceRecord.getValue().replace("\"", ""))
+                        .collect(Collectors.joining(",")))
+                .toList();
     }
 
     private Participant generateMockParticipant() {
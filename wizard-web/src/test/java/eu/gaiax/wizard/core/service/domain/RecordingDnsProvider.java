@@ -0,0 +1,43 @@
+package eu.gaiax.wizard.core.service.domain;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * {@link InMemoryDnsProvider} that records the submitted batches and can hold changes back from getting in sync.
+ */
+class RecordingDnsProvider extends InMemoryDnsProvider {
+
+    private final List<List<DnsRecordChange>> submissions = new CopyOnWriteArrayList<>();
+    private final Set<String> unsynced = ConcurrentHashMap.newKeySet();
+    private volatile boolean autoSync = true;
+
+    @Override
+    public String submit(List<DnsRecordChange> batch) {
+        String changeId = super.submit(batch);
+        this.submissions.add(List.copyOf(batch));
+        if (!this.autoSync) {
+            this.unsynced.add(changeId);
+        }
+        return changeId;
+    }
+
+    @Override
+    public boolean isInSync(String changeId) {
+        return !this.unsynced.contains(changeId) && super.isInSync(changeId);
+    }
+
+    List<List<DnsRecordChange>> getSubmissions() {
+        return this.submissions;
+    }
+
+    void setAutoSync(boolean autoSync) {
+        this.autoSync = autoSync;
+    }
+
+    void syncAll() {
+        this.unsynced.clear();
+    }
+}
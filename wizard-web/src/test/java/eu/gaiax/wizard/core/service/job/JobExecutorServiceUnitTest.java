@@ -0,0 +1,104 @@
+package eu.gaiax.wizard.core.service.job;
+
+import eu.gaiax.wizard.api.model.setting.JobExecutorSettings;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+
+@ExtendWith(MockitoExtension.class)
+class JobExecutorServiceUnitTest {
+
+    private static final String CERTIFICATE = "JOB_TYPE_CREATE_CERTIFICATE";
+    private static final String DID = "JOB_TYPE_CREATE_DID";
+
+    @Mock
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+    private SimpleMeterRegistry meterRegistry;
+    private JobExecutorService jobExecutorService;
+
+    @BeforeEach
+    void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        doReturn(this.meterRegistry).when(this.meterRegistryProvider).getIfAvailable();
+        this.jobExecutorService = new JobExecutorService(new JobExecutorSettings(false, 1, 1, Map.of(CERTIFICATE, 3)), this.meterRegistryProvider);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.jobExecutorService.destroy();
+    }
+
+    @Test
+    void testExecute_ownExecutorPerJobType() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(2);
+        AtomicReference<String> certificateThread = new AtomicReference<>();
+        AtomicReference<String> didThread = new AtomicReference<>();
+
+        this.jobExecutorService.execute(CERTIFICATE, () -> {
+            certificateThread.set(Thread.currentThread().getName());
+            done.countDown();
+        });
+        this.jobExecutorService.execute(DID, () -> {
+            didThread.set(Thread.currentThread().getName());
+            done.countDown();
+        });
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(certificateThread.get()).startsWith("job-create-certificate-");
+        assertThat(didThread.get()).startsWith("job-create-did-");
+        assertThat(this.jobExecutorService.getExecutor(CERTIFICATE).getMaximumPoolSize()).isEqualTo(3);
+        assertThat(this.jobExecutorService.getExecutor(DID).getMaximumPoolSize()).isEqualTo(1);
+    }
+
+    @Test
+    void testExecute_queueFullRunsOnCaller() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Thread> overflowThread = new AtomicReference<>();
+
+        this.jobExecutorService.execute(DID, () -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        this.jobExecutorService.execute(DID, () -> {
+        });
+        this.jobExecutorService.execute(DID, () -> overflowThread.set(Thread.currentThread()));
+
+        assertThat(overflowThread.get()).isSameAs(Thread.currentThread());
+        assertThat(this.meterRegistry.get("wizard.job.queue.depth").tag("jobType", DID).gauge().value()).isEqualTo(1);
+        assertThat(this.meterRegistry.get("wizard.job.saturation").tag("jobType", DID).gauge().value()).isEqualTo(1);
+        assertThat(this.meterRegistry.get("wizard.job.caller.runs").tag("jobType", DID).counter().count()).isEqualTo(1);
+        release.countDown();
+    }
+
+    @Test
+    void testExecute_failingJobDoesNotStopExecutor() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+
+        this.jobExecutorService.execute(DID, () -> {
+            throw new IllegalStateException("failed");
+        });
+        this.jobExecutorService.execute(DID, done::countDown);
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+}
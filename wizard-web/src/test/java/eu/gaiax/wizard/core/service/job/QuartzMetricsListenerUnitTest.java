@@ -0,0 +1,83 @@
+package eu.gaiax.wizard.core.service.job;
+
+import eu.gaiax.wizard.api.utils.StringPool;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.quartz.*;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+
+@ExtendWith(MockitoExtension.class)
+class QuartzMetricsListenerUnitTest {
+
+    private static final String CERTIFICATE = StringPool.JOB_TYPE_CREATE_CERTIFICATE;
+
+    @Mock
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+    @Mock
+    private JobExecutionContext context;
+    @Mock
+    private Trigger trigger;
+    private SimpleMeterRegistry meterRegistry;
+    private QuartzMetricsListener quartzMetricsListener;
+
+    @BeforeEach
+    void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        doReturn(this.meterRegistry).when(this.meterRegistryProvider).getIfAvailable();
+        this.quartzMetricsListener = new QuartzMetricsListener(this.meterRegistryProvider);
+    }
+
+    @Test
+    void testTriggerFired() {
+        long now = System.currentTimeMillis();
+        doReturn(new Date(now - 2000)).when(this.context).getScheduledFireTime();
+        doReturn(new Date(now)).when(this.context).getFireTime();
+        doReturn(new JobDataMap(Map.of(StringPool.JOB_TYPE, CERTIFICATE))).when(this.context).getMergedJobDataMap();
+        doReturn(TriggerKey.triggerKey("trigger", CERTIFICATE)).when(this.trigger).getKey();
+
+        this.quartzMetricsListener.triggerFired(this.trigger, this.context);
+
+        Timer lag = this.meterRegistry.get("wizard.quartz.trigger.lag").tag("jobType", CERTIFICATE).timer();
+        assertThat(lag.count()).isEqualTo(1);
+        assertThat(lag.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(2000);
+        assertThat(this.quartzMetricsListener.vetoJobExecution(this.trigger, this.context)).isFalse();
+    }
+
+    @Test
+    void testTriggerMisfired() {
+        doReturn(new JobDataMap()).when(this.trigger).getJobDataMap();
+        doReturn(TriggerKey.triggerKey("trigger", CERTIFICATE)).when(this.trigger).getKey();
+
+        this.quartzMetricsListener.triggerMisfired(this.trigger);
+
+        assertThat(this.meterRegistry.get("wizard.quartz.trigger.misfires").tag("jobType", CERTIFICATE).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testJobWasExecuted() {
+        doReturn(new JobDataMap(Map.of(StringPool.JOB_TYPE, CERTIFICATE))).when(this.context).getMergedJobDataMap();
+        doReturn(this.trigger).when(this.context).getTrigger();
+        doReturn(TriggerKey.triggerKey("trigger", CERTIFICATE)).when(this.trigger).getKey();
+        doReturn(15L).when(this.context).getJobRunTime();
+
+        this.quartzMetricsListener.jobWasExecuted(this.context, null);
+        this.quartzMetricsListener.jobWasExecuted(this.context, new JobExecutionException("failed"));
+
+        assertThat(this.meterRegistry.get("wizard.quartz.job.duration").tag("outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(this.meterRegistry.get("wizard.quartz.job.duration").tag("outcome", "failure").timer().count()).isEqualTo(1);
+        assertThat(this.meterRegistry.get("wizard.quartz.job.failures").tag("jobType", CERTIFICATE).counter().count()).isEqualTo(1);
+    }
+}
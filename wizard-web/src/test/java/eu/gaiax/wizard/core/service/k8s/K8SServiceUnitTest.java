@@ -0,0 +1,158 @@
+package eu.gaiax.wizard.core.service.k8s;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import eu.gaiax.wizard.api.model.IngressMode;
+import eu.gaiax.wizard.api.model.RegistrationStatus;
+import eu.gaiax.wizard.api.model.setting.K8SSettings;
+import eu.gaiax.wizard.api.model.setting.WildcardSettings;
+import eu.gaiax.wizard.api.vault.Vault;
+import eu.gaiax.wizard.dao.entity.participant.Participant;
+import eu.gaiax.wizard.dao.repository.participant.ParticipantRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Runs the ingress creation against a local stand-in for the kubernetes api server.
+ */
+@ExtendWith(MockitoExtension.class)
+class K8SServiceUnitTest {
+
+    private static final String INGRESSES = "/apis/networking.k8s.io/v1/namespaces/default/ingresses";
+    private static final String NOT_FOUND = """
+            {"apiVersion":"v1","kind":"Status","status":"Failure","reason":"NotFound","code":404}""";
+
+    @Mock
+    private ParticipantRepository participantRepository;
+    @Mock
+    private Vault vault;
+
+    private HttpServer server;
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final Map<String, String> ingresses = new ConcurrentHashMap<>();
+    private volatile int failWith;
+
+    private K8SService k8SService;
+    private final Participant participant = new Participant();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext(INGRESSES, this::handle);
+        this.server.start();
+        this.k8SService = new K8SService(this.participantRepository, this.vault,
+                new K8SSettings("http://localhost:" + this.server.getAddress().getPort(), "token", "wizard", "issuer", "hosting",
+                        IngressMode.CONSOLIDATED, 4, "participants", null),
+                new WildcardSettings(true, null, null, null, null));
+        this.participant.setId(UUID.randomUUID());
+        this.participant.setDomain("acme.wizard.example.eu");
+        doReturn(Optional.of(this.participant)).when(this.participantRepository).findById(this.participant.getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.server.stop(0);
+    }
+
+    @Test
+    void testCreateIngress_createsSharedIngress() {
+        this.k8SService.createIngress(this.participant.getId());
+
+        String name = this.k8SService.sharedIngressName(this.participant.getDomain());
+        assertThat(name).startsWith("participants-");
+        assertThat(this.requests).hasSize(2);
+        assertThat(this.requests.get(0)).startsWith("GET " + INGRESSES + "/" + name);
+        assertThat(this.requests.get(1)).startsWith("POST " + INGRESSES).contains("\"name\":\"" + name + "\"")
+                .contains("acme.wizard.example.eu").contains("wildcard-tls");
+        assertThat(this.participant.getStatus()).isEqualTo(RegistrationStatus.INGRESS_CREATED.getStatus());
+        verifyNoInteractions(this.vault);
+    }
+
+    @Test
+    void testCreateIngress_addsHostToSharedIngress() {
+        String name = this.k8SService.sharedIngressName(this.participant.getDomain());
+        this.ingresses.put(name, this.ingressJson(name, "other.wizard.example.eu"));
+
+        this.k8SService.createIngress(this.participant.getId());
+
+        assertThat(this.requests).hasSize(2);
+        assertThat(this.requests.get(1)).startsWith("PATCH " + INGRESSES + "/" + name + " application/json-patch+json")
+                .contains("/spec/rules/-").contains("/spec/tls/-").contains("acme.wizard.example.eu");
+        assertThat(this.participant.getStatus()).isEqualTo(RegistrationStatus.INGRESS_CREATED.getStatus());
+    }
+
+    @Test
+    void testCreateIngress_hostAlreadyRouted() {
+        String name = this.k8SService.sharedIngressName(this.participant.getDomain());
+        this.ingresses.put(name, this.ingressJson(name, this.participant.getDomain()));
+
+        this.k8SService.createIngress(this.participant.getId());
+
+        assertThat(this.requests).hasSize(1);
+        assertThat(this.participant.getStatus()).isEqualTo(RegistrationStatus.INGRESS_CREATED.getStatus());
+    }
+
+    @Test
+    void testCreateIngress_apiServerError() {
+        this.failWith = 500;
+
+        this.k8SService.createIngress(this.participant.getId());
+
+        assertThat(this.participant.getStatus()).isEqualTo(RegistrationStatus.INGRESS_CREATION_FAILED.getStatus());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        this.requests.add(method + " " + path + " " + exchange.getRequestHeaders().getFirst("Content-Type") + " " + body);
+        String name = path.substring(path.lastIndexOf('/') + 1);
+
+        int status;
+        String response;
+        if (this.failWith > 0) {
+            status = this.failWith;
+            response = "{}";
+        } else if ("POST".equals(method)) {
+            status = 201;
+            response = body;
+        } else if (this.ingresses.containsKey(name)) {
+            status = 200;
+            response = this.ingresses.get(name);
+        } else {
+            status = 404;
+            response = NOT_FOUND;
+        }
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private String ingressJson(String name, String host) {
+        return """
+                {"apiVersion":"networking.k8s.io/v1","kind":"Ingress","metadata":{"name":"%s","namespace":"default"},
+                "spec":{"rules":[{"host":"%s"}],"tls":[{"hosts":["%s"],"secretName":"wildcard-tls"}]}}""".formatted(name, host, host);
+    }
+}
@@ -0,0 +1,102 @@
+package eu.gaiax.wizard.core.service.keycloak;
+
+import eu.gaiax.wizard.api.model.setting.KeycloakSettings;
+import jakarta.ws.rs.core.Response;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.admin.client.resource.UserResource;
+import org.keycloak.admin.client.resource.UsersResource;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KeycloakServiceUnitTest {
+
+    private static final String EMAIL = "info@acme.eu";
+
+    @Mock
+    private Keycloak keycloak;
+    @Mock
+    private RealmResource realmResource;
+    @Mock
+    private UsersResource usersResource;
+    @Mock
+    private UserResource userResource;
+
+    private KeycloakService keycloakService;
+
+    @BeforeEach
+    void setUp() {
+        KeycloakSettings settings = new KeycloakSettings(null, "gaia-x", "wizard", null, 300, "https://wizard.eu", "wizard-public", null, null, null, Duration.ofMinutes(1));
+        this.keycloakService = new KeycloakService(settings, this.keycloak);
+        doReturn(this.realmResource).when(this.keycloak).realm("gaia-x");
+        doReturn(this.usersResource).when(this.realmResource).users();
+    }
+
+    @Test
+    void testGetKeycloakUserIdByEmail_cached() {
+        doReturn(List.of(user("user-1"))).when(this.usersResource).searchByEmail(EMAIL, true);
+
+        assertThat(this.keycloakService.getKeycloakUserIdByEmail(EMAIL)).isEqualTo("user-1");
+        assertThat(this.keycloakService.getKeycloakUserIdByEmail(EMAIL)).isEqualTo("user-1");
+
+        verify(this.usersResource, times(1)).searchByEmail(EMAIL, true);
+    }
+
+    @Test
+    void testGetKeycloakUserIdByEmail_unknownNotCached() {
+        doReturn(List.of()).when(this.usersResource).searchByEmail(EMAIL, true);
+
+        assertThat(this.keycloakService.getKeycloakUserIdByEmail(EMAIL)).isNull();
+        assertThat(this.keycloakService.getKeycloakUserIdByEmail(EMAIL)).isNull();
+
+        verify(this.usersResource, times(2)).searchByEmail(EMAIL, true);
+    }
+
+    @Test
+    void testGetKeycloakUserByEmail_notShared() {
+        doReturn(List.of(user("user-1"))).when(this.usersResource).searchByEmail(EMAIL, true);
+        this.keycloakService.getKeycloakUserIdByEmail(EMAIL);
+
+        this.keycloakService.getKeycloakUserByEmail(EMAIL).setId("changed");
+
+        assertThat(this.keycloakService.getKeycloakUserIdByEmail(EMAIL)).isEqualTo("user-1");
+    }
+
+    @Test
+    void testAddUser_invalidatesCachedUser() {
+        doReturn(List.of(user("user-1")), List.of(user("user-2"))).when(this.usersResource).searchByEmail(EMAIL, true);
+        doReturn(Response.noContent().build()).when(this.usersResource).delete("user-1");
+        doReturn(Response.status(201).build()).when(this.usersResource).create(any());
+        doReturn(this.userResource).when(this.usersResource).get(anyString());
+
+        assertThat(this.keycloakService.getKeycloakUserIdByEmail(EMAIL)).isEqualTo("user-1");
+        this.keycloakService.addUser("participant-1", "Acme", EMAIL);
+        this.keycloakService.sendRequiredActionsEmail(EMAIL);
+
+        verify(this.usersResource).delete("user-1");
+        verify(this.usersResource).get("user-2");
+        verify(this.userResource).executeActionsEmail(eq("wizard-public"), eq("https://wizard.eu"), anyInt(), any());
+    }
+
+    private static UserRepresentation user(String id) {
+        UserRepresentation userRepresentation = new UserRepresentation();
+        userRepresentation.setId(id);
+        userRepresentation.setEmail(EMAIL);
+        return userRepresentation;
+    }
+}
@@ -0,0 +1,95 @@
+package eu.gaiax.wizard.core.service.onboarding;
+
+import eu.gaiax.wizard.api.exception.BadDataException;
+import eu.gaiax.wizard.api.model.OnboardingStep;
+import eu.gaiax.wizard.api.model.OnboardingStepOutcome;
+import eu.gaiax.wizard.api.model.RegistrationStatus;
+import eu.gaiax.wizard.dao.entity.participant.OnboardingStepHistory;
+import eu.gaiax.wizard.dao.entity.participant.OnboardingWorkflow;
+import eu.gaiax.wizard.dao.repository.participant.OnboardingStepHistoryRepository;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OnboardingHistoryServiceUnitTest {
+
+    @Mock
+    private OnboardingStepHistoryRepository onboardingStepHistoryRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private OnboardingHistoryService onboardingHistoryService;
+
+    @BeforeEach
+    void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.onboardingHistoryService = new OnboardingHistoryService(this.onboardingStepHistoryRepository, this.meterRegistry);
+    }
+
+    @Test
+    void testRecord() {
+        OnboardingWorkflow workflow = OnboardingWorkflow.builder()
+                .participantId(UUID.randomUUID())
+                .step(OnboardingStep.CERTIFICATE)
+                .waits(4)
+                .attempts(1)
+                .stepStartedAt(new Date(System.currentTimeMillis() - 60_000))
+                .build();
+
+        this.onboardingHistoryService.record(workflow, OnboardingStepOutcome.COMPLETED, RegistrationStatus.CERTIFICATE_CREATED.getStatus(), null);
+
+        ArgumentCaptor<OnboardingStepHistory> history = ArgumentCaptor.forClass(OnboardingStepHistory.class);
+        verify(this.onboardingStepHistoryRepository).save(history.capture());
+        assertThat(history.getValue().getParticipantId()).isEqualTo(workflow.getParticipantId());
+        assertThat(history.getValue().getAttempt()).isEqualTo(2);
+        assertThat(history.getValue().getWaits()).isEqualTo(4);
+        assertThat(history.getValue().getDurationMs()).isGreaterThanOrEqualTo(60_000);
+        Timer timer = this.meterRegistry.get("wizard.onboarding.step.duration").tag("step", "CERTIFICATE").tag("outcome", "COMPLETED").timer();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(timer.totalTime(TimeUnit.SECONDS)).isGreaterThanOrEqualTo(60);
+    }
+
+    @Test
+    void testRecord_historyNotSaved() {
+        OnboardingWorkflow workflow = OnboardingWorkflow.builder().participantId(UUID.randomUUID()).step(OnboardingStep.INGRESS).build();
+        doThrow(new IllegalStateException("database down")).when(this.onboardingStepHistoryRepository).save(any());
+
+        this.onboardingHistoryService.record(workflow, OnboardingStepOutcome.FAILED, RegistrationStatus.INGRESS_CREATION_FAILED.getStatus(), "INGRESS_CREATION_FAILED");
+
+        assertThat(this.meterRegistry.get("wizard.onboarding.step.duration").tag("outcome", "FAILED").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testGetStepLatency() {
+        doReturn(List.of()).when(this.onboardingStepHistoryRepository).getStepLatency(any(), any());
+
+        assertThat(this.onboardingHistoryService.getStepLatency(LocalDate.of(2023, 8, 1), LocalDate.of(2023, 8, 31))).isEmpty();
+
+        verify(this.onboardingStepHistoryRepository).getStepLatency(Date.from(Instant.parse("2023-08-01T00:00:00Z")), Date.from(Instant.parse("2023-09-01T00:00:00Z")));
+    }
+
+    @Test
+    void testGetStepLatency_invalidRange() {
+        LocalDate from = LocalDate.of(2023, 8, 31);
+        LocalDate to = LocalDate.of(2023, 8, 1);
+
+        assertThatThrownBy(() -> this.onboardingHistoryService.getStepLatency(from, to)).isInstanceOf(BadDataException.class);
+        verifyNoInteractions(this.onboardingStepHistoryRepository);
+    }
+}
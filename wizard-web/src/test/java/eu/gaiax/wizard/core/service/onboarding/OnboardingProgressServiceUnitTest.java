@@ -0,0 +1,120 @@
+package eu.gaiax.wizard.core.service.onboarding;
+
+import eu.gaiax.wizard.api.exception.EntityNotFoundException;
+import eu.gaiax.wizard.api.model.OnboardingProgress;
+import eu.gaiax.wizard.api.model.OnboardingStep;
+import eu.gaiax.wizard.api.model.OnboardingWorkflowState;
+import eu.gaiax.wizard.api.model.RegistrationStatus;
+import eu.gaiax.wizard.api.model.setting.OnboardingProgressSettings;
+import eu.gaiax.wizard.core.service.credential.CredentialService;
+import eu.gaiax.wizard.dao.entity.Credential;
+import eu.gaiax.wizard.dao.entity.participant.OnboardingWorkflow;
+import eu.gaiax.wizard.dao.entity.participant.Participant;
+import eu.gaiax.wizard.dao.repository.participant.OnboardingWorkflowRepository;
+import eu.gaiax.wizard.dao.repository.participant.ParticipantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OnboardingProgressServiceUnitTest {
+
+    @Mock
+    private ParticipantRepository participantRepository;
+    @Mock
+    private OnboardingWorkflowRepository onboardingWorkflowRepository;
+    @Mock
+    private CredentialService credentialService;
+    @Mock
+    private OnboardingProgressBus onboardingProgressBus;
+    private OnboardingProgressService onboardingProgressService;
+    private final UUID participantId = UUID.randomUUID();
+    private final Participant participant = new Participant();
+
+    @BeforeEach
+    void setUp() {
+        this.onboardingProgressService = new OnboardingProgressService(this.participantRepository, this.onboardingWorkflowRepository,
+                this.credentialService, this.onboardingProgressBus, new OnboardingProgressSettings(null, null, null));
+        this.participant.setId(this.participantId);
+    }
+
+    @Test
+    void testPublish() {
+        this.participant.setStatus(RegistrationStatus.CERTIFICATE_CREATION_IN_PROCESS.getStatus());
+        doReturn(Optional.of(this.participant)).when(this.participantRepository).findById(this.participantId);
+        doReturn(OnboardingWorkflow.builder().participantId(this.participantId).step(OnboardingStep.CERTIFICATE).state(OnboardingWorkflowState.WAITING).build())
+                .when(this.onboardingWorkflowRepository).getByParticipantId(this.participantId);
+
+        this.onboardingProgressService.publish(this.participantId);
+
+        ArgumentCaptor<OnboardingProgress> progress = ArgumentCaptor.forClass(OnboardingProgress.class);
+        verify(this.onboardingProgressBus).publish(progress.capture());
+        assertThat(progress.getValue().participantId()).isEqualTo(this.participantId);
+        assertThat(progress.getValue().step()).isEqualTo(OnboardingStep.CERTIFICATE);
+        assertThat(progress.getValue().state()).isEqualTo(OnboardingWorkflowState.WAITING);
+        assertThat(progress.getValue().status()).isEqualTo(RegistrationStatus.CERTIFICATE_CREATION_IN_PROCESS.getStatus());
+        assertThat(progress.getValue().legalParticipantUrl()).isNull();
+        verifyNoInteractions(this.credentialService);
+    }
+
+    @Test
+    void testPublish_legalParticipantUrl() {
+        this.participant.setStatus(RegistrationStatus.PARTICIPANT_JSON_CREATED.getStatus());
+        doReturn(Optional.of(this.participant)).when(this.participantRepository).findById(this.participantId);
+        doReturn(OnboardingWorkflow.builder().participantId(this.participantId).step(OnboardingStep.PARTICIPANT_JSON).state(OnboardingWorkflowState.COMPLETED).build())
+                .when(this.onboardingWorkflowRepository).getByParticipantId(this.participantId);
+        Credential credential = new Credential();
+        credential.setVcUrl("https://example.com/participant.json");
+        doReturn(credential).when(this.credentialService).getLegalParticipantCredential(this.participantId);
+
+        this.onboardingProgressService.publish(this.participantId);
+
+        ArgumentCaptor<OnboardingProgress> progress = ArgumentCaptor.forClass(OnboardingProgress.class);
+        verify(this.onboardingProgressBus).publish(progress.capture());
+        assertThat(progress.getValue().legalParticipantUrl()).isEqualTo("https://example.com/participant.json");
+    }
+
+    @Test
+    void testPublish_neverFails() {
+        doReturn(Optional.empty()).when(this.participantRepository).findById(this.participantId);
+
+        this.onboardingProgressService.publish(this.participantId);
+
+        verify(this.onboardingProgressBus, never()).publish(any());
+    }
+
+    @Test
+    void testSubscribe_participantNotFound() {
+        doReturn(Optional.empty()).when(this.participantRepository).findById(this.participantId);
+
+        assertThatThrownBy(() -> this.onboardingProgressService.subscribe(this.participantId)).isInstanceOf(EntityNotFoundException.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDelivery_onlyToSubscribers() {
+        ArgumentCaptor<Consumer<OnboardingProgress>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(this.onboardingProgressBus).addListener(listener.capture());
+        doReturn(Optional.of(this.participant)).when(this.participantRepository).findById(this.participantId);
+
+        this.onboardingProgressService.subscribe(this.participantId);
+
+        // progress of unknown participants and of subscribers is delivered without errors
+        listener.getValue().accept(new OnboardingProgress(UUID.randomUUID(), OnboardingStep.DID, OnboardingWorkflowState.RUNNING, 0, null, new Date()));
+        listener.getValue().accept(new OnboardingProgress(this.participantId, OnboardingStep.DID, OnboardingWorkflowState.RUNNING, 0, null, new Date()));
+        this.onboardingProgressService.heartbeat();
+    }
+}
@@ -0,0 +1,56 @@
+package eu.gaiax.wizard.core.service.onboarding;
+
+import com.amazonaws.AmazonServiceException;
+import eu.gaiax.wizard.api.exception.BadDataException;
+import eu.gaiax.wizard.api.model.OnboardingStep;
+import eu.gaiax.wizard.api.model.setting.OnboardingRetrySettings;
+import eu.gaiax.wizard.core.service.domain.InvalidDnsChangeException;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OnboardingRetryPolicyUnitTest {
+
+    private final OnboardingRetryPolicy onboardingRetryPolicy = new OnboardingRetryPolicy(new OnboardingRetrySettings(3, Duration.ofSeconds(10),
+            Duration.ofSeconds(60), 0.5, Map.of(OnboardingStep.CERTIFICATE, 5)));
+
+    @Test
+    void testCanRetry() {
+        assertThat(this.onboardingRetryPolicy.canRetry(OnboardingStep.SUB_DOMAIN, 2)).isTrue();
+        assertThat(this.onboardingRetryPolicy.canRetry(OnboardingStep.SUB_DOMAIN, 3)).isFalse();
+        assertThat(this.onboardingRetryPolicy.canRetry(OnboardingStep.CERTIFICATE, 4)).isTrue();
+    }
+
+    @Test
+    void testBackoff() {
+        for (int i = 0; i < 20; i++) {
+            assertThat(this.onboardingRetryPolicy.backoff(1)).isBetween(Duration.ofSeconds(5), Duration.ofSeconds(10));
+            assertThat(this.onboardingRetryPolicy.backoff(2)).isBetween(Duration.ofSeconds(10), Duration.ofSeconds(20));
+            assertThat(this.onboardingRetryPolicy.backoff(10)).isBetween(Duration.ofSeconds(30), Duration.ofSeconds(60));
+        }
+    }
+
+    @Test
+    void testIsRetryable() {
+        AmazonServiceException throttled = new AmazonServiceException("Rate exceeded");
+        throttled.setStatusCode(400);
+        throttled.setErrorCode("Throttling");
+        AmazonServiceException invalidChange = new AmazonServiceException("Invalid change batch");
+        invalidChange.setStatusCode(400);
+        invalidChange.setErrorCode("InvalidChangeBatch");
+
+        assertThat(this.onboardingRetryPolicy.isRetryable(null)).isTrue();
+        assertThat(this.onboardingRetryPolicy.isRetryable(new IOException("connection reset"))).isTrue();
+        assertThat(this.onboardingRetryPolicy.isRetryable(throttled)).isTrue();
+        assertThat(this.onboardingRetryPolicy.isRetryable(WebClientResponseException.create(503, "Service Unavailable", null, null, null))).isTrue();
+        assertThat(this.onboardingRetryPolicy.isRetryable(invalidChange)).isFalse();
+        assertThat(this.onboardingRetryPolicy.isRetryable(new InvalidDnsChangeException("record exists", null))).isFalse();
+        assertThat(this.onboardingRetryPolicy.isRetryable(WebClientResponseException.create(422, "Unprocessable Entity", null, null, null))).isFalse();
+        assertThat(this.onboardingRetryPolicy.isRetryable(new IllegalStateException(new BadDataException("invalid.domain")))).isFalse();
+    }
+}
@@ -0,0 +1,353 @@
+package eu.gaiax.wizard.core.service.onboarding;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.gaiax.wizard.api.exception.BadDataException;
+import eu.gaiax.wizard.api.exception.ConflictException;
+import eu.gaiax.wizard.api.model.OnboardingDeadLetterDto;
+import eu.gaiax.wizard.api.model.OnboardingStep;
+import eu.gaiax.wizard.api.model.OnboardingStepOutcome;
+import eu.gaiax.wizard.api.model.OnboardingWorkflowState;
+import eu.gaiax.wizard.api.model.PageResponse;
+import eu.gaiax.wizard.api.model.RegistrationStatus;
+import eu.gaiax.wizard.api.model.setting.OnboardingRetrySettings;
+import eu.gaiax.wizard.api.model.setting.OnboardingSettings;
+import eu.gaiax.wizard.core.service.domain.DomainService;
+import eu.gaiax.wizard.core.service.job.JobExecutorService;
+import eu.gaiax.wizard.core.service.job.ScheduleService;
+import eu.gaiax.wizard.core.service.k8s.K8SService;
+import eu.gaiax.wizard.core.service.signer.SignerService;
+import eu.gaiax.wizard.core.service.ssl.CertificateService;
+import eu.gaiax.wizard.core.service.ssl.WildcardCertificateService;
+import eu.gaiax.wizard.dao.entity.participant.OnboardingWorkflow;
+import eu.gaiax.wizard.dao.entity.participant.Participant;
+import eu.gaiax.wizard.dao.repository.participant.OnboardingWorkflowRepository;
+import eu.gaiax.wizard.dao.repository.participant.ParticipantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Stubber;
+import org.quartz.SchedulerException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OnboardingWorkflowServiceUnitTest {
+
+    @Mock
+    private OnboardingWorkflowRepository onboardingWorkflowRepository;
+    @Mock
+    private ParticipantRepository participantRepository;
+    @Mock
+    private DomainService domainService;
+    @Mock
+    private CertificateService certificateService;
+    @Mock
+    private K8SService k8SService;
+    @Mock
+    private WildcardCertificateService wildcardCertificateService;
+    @Mock
+    private SignerService signerService;
+    @Mock
+    private ScheduleService scheduleService;
+    @Mock
+    private JobExecutorService jobExecutorService;
+    @Mock
+    private OnboardingHistoryService onboardingHistoryService;
+    @Mock
+    private OnboardingProgressService onboardingProgressService;
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    private OnboardingWorkflowService onboardingWorkflowService;
+
+    private final UUID participantId = UUID.randomUUID();
+    private final Participant participant = new Participant();
+    private OnboardingWorkflow workflow;
+
+    @BeforeEach
+    void setUp() {
+        this.onboardingWorkflowService = new OnboardingWorkflowService(this.onboardingWorkflowRepository, this.participantRepository, this.domainService,
+                this.certificateService, this.wildcardCertificateService, this.k8SService, this.signerService, this.scheduleService, this.jobExecutorService,
+                new OnboardingRetryPolicy(new OnboardingRetrySettings(2, Duration.ofMinutes(1), Duration.ofMinutes(10), 0.0, null)), this.onboardingHistoryService, this.onboardingProgressService,
+                new OnboardingSettings(Duration.ofSeconds(30), Duration.ofMinutes(5), 2, Duration.ofMinutes(15), false), this.applicationEventPublisher,
+                new ObjectMapper());
+        this.participant.setId(this.participantId);
+        this.workflow = OnboardingWorkflow.builder()
+                .participantId(this.participantId)
+                .step(OnboardingStep.SUB_DOMAIN)
+                .state(OnboardingWorkflowState.RUNNING)
+                .build();
+    }
+
+    @Test
+    void testRun_chainsAllSteps() {
+        this.stubClaim();
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(this.jobExecutorService).execute(any(), any());
+        this.completeWith(RegistrationStatus.DOMAIN_CREATED).when(this.domainService).createSubDomain(this.participantId);
+        this.completeWith(RegistrationStatus.CERTIFICATE_CREATED).when(this.certificateService).createSSLCertificate(eq(this.participantId), any(OnboardingStepContext.class));
+        this.completeWith(RegistrationStatus.INGRESS_CREATED).when(this.k8SService).createIngress(this.participantId);
+        this.completeWith(RegistrationStatus.DID_JSON_CREATED).when(this.signerService).createDid(this.participantId);
+        this.completeWith(RegistrationStatus.PARTICIPANT_JSON_CREATED).when(this.signerService).createSignedLegalParticipant(this.participantId);
+
+        this.onboardingWorkflowService.run(this.participantId, OnboardingStep.SUB_DOMAIN);
+
+        assertThat(this.workflow.getState()).isEqualTo(OnboardingWorkflowState.COMPLETED);
+        assertThat(this.workflow.getStep()).isEqualTo(OnboardingStep.PARTICIPANT_JSON);
+        assertThat(this.workflow.getStepStartedAt()).isNull();
+        verify(this.onboardingHistoryService, times(5)).record(eq(this.workflow), eq(OnboardingStepOutcome.COMPLETED), anyInt(), isNull());
+        // entry status and outcome of every step
+        verify(this.onboardingProgressService, times(10)).publish(this.participantId);
+        verifyNoInteractions(this.scheduleService);
+        verify(this.participantRepository).updateStatus(this.participantId, RegistrationStatus.CERTIFICATE_CREATION_IN_PROCESS.getStatus());
+    }
+
+    @Test
+    void testRun_handsNextStepToItsExecutor() {
+        this.stubClaim();
+        this.completeWith(RegistrationStatus.DOMAIN_CREATED).when(this.domainService).createSubDomain(this.participantId);
+
+        this.onboardingWorkflowService.run(this.participantId, OnboardingStep.SUB_DOMAIN);
+
+        assertThat(this.workflow.getState()).isEqualTo(OnboardingWorkflowState.PENDING);
+        assertThat(this.workflow.getStep()).isEqualTo(OnboardingStep.CERTIFICATE);
+        verify(this.jobExecutorService).execute(eq(OnboardingStep.CERTIFICATE.getJobType()), any(Runnable.class));
+        verifyNoInteractions(this.certificateService);
+    }
+
+    @Test
+    void testRun_stepWaits() throws SchedulerException {
+        this.workflow.setStep(OnboardingStep.DID);
+        this.stubClaim();
+        this.completeWith(RegistrationStatus.INGRESS_CREATED).when(this.signerService).createDid(this.participantId);
+
+        this.onboardingWorkflowService.run(this.participantId, OnboardingStep.DID);
+
+        assertThat(this.workflow.getState()).isEqualTo(OnboardingWorkflowState.WAITING);
+        assertThat(this.workflow.getWaits()).isEqualTo(1);
+        assertThat(this.workflow.getStepStartedAt()).isNotNull();
+        verifyNoInteractions(this.onboardingHistoryService);
+        verify(this.scheduleService).createJob(this.participantId.toString(), OnboardingStep.DID.getJobType(), Duration.ofSeconds(30));
+        verify(this.signerService, never()).createSignedLegalParticipant(any(UUID.class));
+    }
+
+    @Test
+    void testRun_stepWaitsWithBackoffAndKeepsStepData() throws SchedulerException {
+        this.workflow.setStep(OnboardingStep.CERTIFICATE);
+        this.workflow.setWaits(1);
+        this.workflow.setStepData("{\"phase\":\"DNS_PROPAGATION\"}");
+        this.stubClaim();
+        doAnswer(invocation -> {
+            OnboardingStepContext context = invocation.getArgument(1);
+            assertThat(context.get("phase")).isEqualTo("DNS_PROPAGATION");
+            context.put("phase", "CHALLENGE");
+            return null;
+        }).when(this.certificateService).createSSLCertificate(eq(this.participantId), any(OnboardingStepContext.class));
+
+        this.onboardingWorkflowService.run(this.participantId, OnboardingStep.CERTIFICATE);
+
+        assertThat(this.workflow.getWaits()).isEqualTo(2);
+        assertThat(this.workflow.getStepData()).isEqualTo("{\"phase\":\"CHALLENGE\"}");
+        verify(this.scheduleService).createJob(this.participantId.toString(), OnboardingStep.CERTIFICATE.getJobType(), Duration.ofSeconds(60));
+        verify(this.participantRepository, never()).updateStatus(any(UUID.class), anyInt());
+    }
+
+    @Test
+    void testRun_stepAsksForRetryAfter() throws SchedulerException {
+        this.workflow.setStep(OnboardingStep.CERTIFICATE);
+        this.stubClaim();
+        doAnswer(invocation -> {
+            OnboardingStepContext context = invocation.getArgument(1);
+            context.setRetryAfter(Duration.ofSeconds(3));
+            return null;
+        }).when(this.certificateService).createSSLCertificate(eq(this.participantId), any(OnboardingStepContext.class));
+
+        this.onboardingWorkflowService.run(this.participantId, OnboardingStep.CERTIFICATE);
+
+        assertThat(this.workflow.getState()).isEqualTo(OnboardingWorkflowState.WAITING);
+        verify(this.scheduleService).createJob(this.participantId.toString(), OnboardingStep.CERTIFICATE.getJobType(), Duration.ofSeconds(3));
+    }
+
+    @Test
+    void testRun_waitsExhausted() {
+        this.workflow.setStep(OnboardingStep.DID);
+        this.workflow.setWaits(2);
+        this.workflow.setAttempts(1);
+        this.stubClaim();
+        this.completeWith(RegistrationStatus.INGRESS_CREATED).when(this.signerService).createDid(this.participantId);
+
+        this.onboardingWorkflowService.run(this.participantId, OnboardingStep.DID);
+
+        assertThat(this.workflow.getState()).isEqualTo(OnboardingWorkflowState.FAILED);
+        verify(this.participantRepository).updateStatus(this.participantId, RegistrationStatus.DID_JSON_CREATION_FAILED.getStatus());
+        verifyNoInteractions(this.scheduleService);
+    }
+
+    @Test
+    void testRun_stepFailsAndIsRetried() throws SchedulerException {
+        this.workflow.setWaits(3);
+        this.workflow.setStepData("{\"phase\":\"ORDER\"}");
+        this.stubClaim();
+        this.completeWith(RegistrationStatus.DOMAIN_CREATION_FAILED).when(this.domainService).createSubDomain(this.participantId);
+
+        this.onboardingWorkflowService.run(this.participantId, OnboardingStep.SUB_DOMAIN);
+
+        assertThat(this.workflow.getState()).isEqualTo(OnboardingWorkflowState.WAITING);
+        assertThat(this.workflow.getAttempts()).isEqualTo(1);
+        assertThat(this.workflow.getWaits()).isZero();
+        assertThat(this.workflow.getStepData()).isNull();
+        assertThat(this.workflow.getLastError()).isEqualTo(RegistrationStatus.DOMAIN_CREATION_FAILED.name());
+        assertThat(this.workflow.getStepStartedAt()).isNull();
+        verify(this.onboardingHistoryService).record(this.workflow, OnboardingStepOutcome.RETRIED, RegistrationStatus.DOMAIN_CREATION_FAILED.getStatus(),
+                RegistrationStatus.DOMAIN_CREATION_FAILED.name());
+        verify(this.scheduleService).createJob(this.participantId.toString(), OnboardingStep.SUB_DOMAIN.getJobType(), Duration.ofMinutes(1));
+        verifyNoInteractions(this.certificateService);
+    }
+
+    @Test
+    void testRun_stepFailsRetriesExhausted() {
+        this.workflow.setAttempts(1);
+        this.stubClaim();
+        this.completeWith(RegistrationStatus.DOMAIN_CREATION_FAILED).when(this.domainService).createSubDomain(this.participantId);
+
+        this.onboardingWorkflowService.run(this.participantId, OnboardingStep.SUB_DOMAIN);
+
+        assertThat(this.workflow.getState()).isEqualTo(OnboardingWorkflowState.FAILED);
+        assertThat(this.workflow.getAttempts()).isEqualTo(2);
+        verify(this.onboardingHistoryService).record(this.workflow, OnboardingStepOutcome.FAILED, RegistrationStatus.DOMAIN_CREATION_FAILED.getStatus(),
+                RegistrationStatus.DOMAIN_CREATION_FAILED.name());
+        assertThat(this.workflow.getLastError()).isEqualTo(RegistrationStatus.DOMAIN_CREATION_FAILED.name());
+        verifyNoInteractions(this.certificateService, this.scheduleService);
+    }
+
+    @Test
+    void testRun_permanentErrorNotRetried() {
+        this.stubClaim();
+        doThrow(new BadDataException("invalid.domain")).when(this.domainService).createSubDomain(this.participantId);
+
+        this.onboardingWorkflowService.run(this.participantId, OnboardingStep.SUB_DOMAIN);
+
+        assertThat(this.workflow.getState()).isEqualTo(OnboardingWorkflowState.FAILED);
+        verify(this.participantRepository).updateStatus(this.participantId, RegistrationStatus.DOMAIN_CREATION_FAILED.getStatus());
+        verifyNoInteractions(this.scheduleService);
+    }
+
+    @Test
+    void testRun_wildcardSubDomain() {
+        this.stubClaim();
+        doReturn(true).when(this.wildcardCertificateService).isEnabled();
+        lenient().doAnswer(invocation -> {
+            this.participant.setStatus(RegistrationStatus.DOMAIN_CREATED.getStatus());
+            return 1;
+        }).when(this.participantRepository).updateStatus(this.participantId, RegistrationStatus.DOMAIN_CREATED.getStatus());
+
+        this.onboardingWorkflowService.run(this.participantId, OnboardingStep.SUB_DOMAIN);
+
+        assertThat(this.workflow.getStep()).isEqualTo(OnboardingStep.CERTIFICATE);
+        assertThat(this.workflow.getState()).isEqualTo(OnboardingWorkflowState.PENDING);
+        verifyNoInteractions(this.domainService);
+        verify(this.jobExecutorService).execute(eq(OnboardingStep.CERTIFICATE.getJobType()), any());
+    }
+
+    @Test
+    void testRun_sharedWildcardKey() throws IOException {
+        this.workflow.setStep(OnboardingStep.CERTIFICATE);
+        this.stubClaim();
+        doReturn(true).when(this.wildcardCertificateService).isSharedKey();
+        this.completeWith(RegistrationStatus.CERTIFICATE_CREATED).when(this.wildcardCertificateService).assignCertificate(this.participantId);
+
+        this.onboardingWorkflowService.run(this.participantId, OnboardingStep.CERTIFICATE);
+
+        assertThat(this.workflow.getStep()).isEqualTo(OnboardingStep.INGRESS);
+        verifyNoInteractions(this.certificateService);
+    }
+
+    @Test
+    void testRun_ownCertificateWithoutSharedWildcardKey() throws IOException {
+        this.workflow.setStep(OnboardingStep.CERTIFICATE);
+        this.stubClaim();
+        this.completeWith(RegistrationStatus.CERTIFICATE_CREATED).when(this.certificateService).createSSLCertificate(eq(this.participantId), any(OnboardingStepContext.class));
+
+        this.onboardingWorkflowService.run(this.participantId, OnboardingStep.CERTIFICATE);
+
+        assertThat(this.workflow.getStep()).isEqualTo(OnboardingStep.INGRESS);
+        verify(this.wildcardCertificateService, never()).assignCertificate(any());
+    }
+
+    @Test
+    void testRun_notClaimed() {
+        doReturn(0).when(this.onboardingWorkflowRepository).claim(eq(this.participantId), eq(OnboardingStep.SUB_DOMAIN), any(), any(), any());
+
+        this.onboardingWorkflowService.run(this.participantId, OnboardingStep.SUB_DOMAIN);
+
+        verifyNoInteractions(this.domainService);
+    }
+
+    @Test
+    void testResume_alreadyRunning() {
+        this.workflow.setUpdatedAt(new Date());
+        doReturn(this.workflow).when(this.onboardingWorkflowRepository).getByParticipantId(this.participantId);
+
+        assertThatThrownBy(() -> this.onboardingWorkflowService.resume(this.participantId, OnboardingStep.DID)).isInstanceOf(ConflictException.class);
+        verifyNoInteractions(this.applicationEventPublisher);
+    }
+
+    @Test
+    void testResume() {
+        this.workflow.setState(OnboardingWorkflowState.FAILED);
+        doReturn(this.workflow).when(this.onboardingWorkflowRepository).getByParticipantId(this.participantId);
+
+        this.onboardingWorkflowService.resume(this.participantId, OnboardingStep.INGRESS);
+
+        assertThat(this.workflow.getState()).isEqualTo(OnboardingWorkflowState.PENDING);
+        assertThat(this.workflow.getStep()).isEqualTo(OnboardingStep.INGRESS);
+        verify(this.onboardingWorkflowRepository).save(this.workflow);
+        verify(this.applicationEventPublisher).publishEvent(new OnboardingStepRequestedEvent(this.participantId, OnboardingStep.INGRESS));
+    }
+
+    @Test
+    void testGetDeadLetters() {
+        this.workflow.setState(OnboardingWorkflowState.FAILED);
+        this.workflow.setAttempts(2);
+        this.workflow.setLastError(RegistrationStatus.INGRESS_CREATION_FAILED.name());
+        doReturn(new PageImpl<>(List.of(this.workflow))).when(this.onboardingWorkflowRepository).findAllByState(eq(OnboardingWorkflowState.FAILED), any(Pageable.class));
+
+        PageResponse<OnboardingDeadLetterDto> deadLetters = this.onboardingWorkflowService.getDeadLetters(0, 10);
+
+        assertThat(deadLetters.getContent()).containsExactly(new OnboardingDeadLetterDto(this.participantId, OnboardingStep.SUB_DOMAIN, 2,
+                RegistrationStatus.INGRESS_CREATION_FAILED.name(), null));
+    }
+
+    private void stubClaim() {
+        doAnswer(invocation -> invocation.getArgument(1) == this.workflow.getStep() ? 1 : 0)
+                .when(this.onboardingWorkflowRepository).claim(eq(this.participantId), any(), any(), any(), any());
+        doReturn(this.workflow).when(this.onboardingWorkflowRepository).getByParticipantId(this.participantId);
+        lenient().doAnswer(invocation -> invocation.getArgument(0)).when(this.onboardingWorkflowRepository).save(any(OnboardingWorkflow.class));
+        lenient().doReturn(Optional.of(this.participant)).when(this.participantRepository).findById(this.participantId);
+    }
+
+    private Stubber completeWith(RegistrationStatus status) {
+        return doAnswer(invocation -> {
+            this.participant.setStatus(status.getStatus());
+            return null;
+        });
+    }
+}
@@ -0,0 +1,315 @@
+package eu.gaiax.wizard.core.service.participant;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.gaiax.wizard.api.exception.BadDataException;
+import eu.gaiax.wizard.api.model.BulkOnboardingJobDto;
+import eu.gaiax.wizard.api.model.BulkOnboardingJobState;
+import eu.gaiax.wizard.api.model.BulkOnboardingRowDto;
+import eu.gaiax.wizard.api.model.BulkOnboardingRowStatus;
+import eu.gaiax.wizard.api.model.request.ParticipantOnboardRequest;
+import eu.gaiax.wizard.api.model.request.ParticipantRegisterRequest;
+import eu.gaiax.wizard.api.model.setting.BulkOnboardingSettings;
+import eu.gaiax.wizard.api.model.setting.OnboardingSettings;
+import eu.gaiax.wizard.api.utils.StringPool;
+import eu.gaiax.wizard.core.service.job.ScheduleService;
+import eu.gaiax.wizard.core.service.keycloak.KeycloakService;
+import eu.gaiax.wizard.core.service.onboarding.OnboardingWorkflowService;
+import eu.gaiax.wizard.dao.entity.participant.BulkOnboardingJob;
+import eu.gaiax.wizard.dao.entity.participant.BulkOnboardingRow;
+import eu.gaiax.wizard.dao.entity.participant.Participant;
+import eu.gaiax.wizard.dao.repository.participant.BulkOnboardingJobRepository;
+import eu.gaiax.wizard.dao.repository.participant.BulkOnboardingRowRepository;
+import eu.gaiax.wizard.dao.repository.participant.ParticipantRepository;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.support.StaticMessageSource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkOnboardingServiceUnitTest {
+
+    @Mock
+    private ParticipantService participantService;
+    @Mock
+    private ParticipantRepository participantRepository;
+    @Mock
+    private BulkOnboardingJobRepository bulkOnboardingJobRepository;
+    @Mock
+    private BulkOnboardingRowRepository bulkOnboardingRowRepository;
+    @Mock
+    private KeycloakService keycloakService;
+    @Mock
+    private OnboardingWorkflowService onboardingWorkflowService;
+    @Mock
+    private RegistrationStatusCache registrationStatusCache;
+    @Mock
+    private ScheduleService scheduleService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private Validator validator;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final BulkOnboardingJob job = BulkOnboardingJob.builder().state(BulkOnboardingJobState.PENDING).build();
+    private BulkOnboardingService bulkOnboardingService;
+
+    @BeforeEach
+    void setUp() {
+        this.job.setId(UUID.randomUUID());
+        this.bulkOnboardingService = new BulkOnboardingService(new BulkOnboardingSettings(null, 2, null), new OnboardingSettings(null, null, null, null, null),
+                this.participantService, this.participantRepository, this.bulkOnboardingJobRepository, this.bulkOnboardingRowRepository, this.keycloakService,
+                this.onboardingWorkflowService, this.registrationStatusCache, this.scheduleService, new TransactionTemplate(this.transactionManager),
+                this.validator, this.mapper, new StaticMessageSource());
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.bulkOnboardingService.destroy();
+    }
+
+    @Test
+    void testSubmit_csv() throws Exception {
+        String csv = """
+                email,legalName,shortName,ownDid,acceptedTnC,credential\r
+                a@member.eu,"Member A, Inc.",membera,false,true,"{""legalParticipant"":{""credentialSubject"":{}}}"\r
+                \r
+                b@member.eu,Member B,memberb,true,true,"{""legalParticipant"":
+                {}}"
+                """;
+        List<BulkOnboardingRow> saved = new ArrayList<>();
+        List<BulkOnboardingJob> savedJob = new ArrayList<>();
+        doAnswer(invocation -> {
+            BulkOnboardingJob saving = invocation.getArgument(0);
+            saving.setId(this.job.getId());
+            savedJob.add(saving);
+            return saving;
+        }).when(this.bulkOnboardingJobRepository).save(any());
+        doAnswer(invocation -> {
+            invocation.<List<BulkOnboardingRow>>getArgument(0).forEach(saved::add);
+            return saved;
+        }).when(this.bulkOnboardingRowRepository).saveAll(any());
+        doAnswer(invocation -> {
+            // the rows are read before the job is created
+            assertThat(savedJob).isEmpty();
+            return null;
+        }).when(this.transactionManager).getTransaction(any());
+        doAnswer(invocation -> Optional.of(savedJob.get(savedJob.size() - 1))).when(this.bulkOnboardingJobRepository).findById(this.job.getId());
+        doReturn(saved).when(this.bulkOnboardingRowRepository).findAllByJobIdOrderByRowNumber(this.job.getId());
+
+        BulkOnboardingJobDto result = this.bulkOnboardingService.submit("text/csv", new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.jobId()).isEqualTo(this.job.getId());
+        assertThat(result.total()).isEqualTo(2);
+        assertThat(saved).extracting(BulkOnboardingRow::getJobId).containsOnly(this.job.getId());
+        assertThat(result.rows()).extracting(BulkOnboardingRowDto::email).containsExactly("a@member.eu", "b@member.eu");
+        ParticipantRegisterRequest first = this.mapper.readValue(saved.get(0).getPayload(), ParticipantRegisterRequest.class);
+        assertThat(first.onboardRequest().legalName()).isEqualTo("Member A, Inc.");
+        assertThat(first.onboardRequest().credential()).containsKey("legalParticipant");
+        assertThat(first.onboardRequest().acceptedTnC()).isTrue();
+        assertThat(this.mapper.readValue(saved.get(1).getPayload(), ParticipantRegisterRequest.class).onboardRequest().ownDid()).isTrue();
+        verify(this.scheduleService).createJob(this.job.getId().toString(), StringPool.JOB_TYPE_BULK_ONBOARDING, Duration.ZERO);
+    }
+
+    @Test
+    void testSubmit_unsupportedContentType() {
+        ByteArrayInputStream body = new ByteArrayInputStream(new byte[0]);
+
+        assertThatThrownBy(() -> this.bulkOnboardingService.submit("application/json", body)).isInstanceOf(BadDataException.class);
+        verifyNoInteractions(this.bulkOnboardingJobRepository, this.scheduleService);
+    }
+
+    @Test
+    void testProcess() throws Exception {
+        BulkOnboardingRow onboarding = this.row(1, "a@member.eu", "Member A", "membera", false);
+        BulkOnboardingRow duplicate = this.row(2, "b@member.eu", "Member B", "memberb", false);
+        BulkOnboardingRow ownDid = this.row(3, "c@member.eu", "Member C", "memberc", true);
+        Participant existing = Participant.builder().email("b@member.eu").legalName("Other").shortName("other").build();
+        this.mockClaim(List.of(onboarding, duplicate, ownDid));
+        doReturn(List.of(existing)).when(this.participantRepository).findAllByEmailInOrLegalNameInOrShortNameIn(any(), any(), any());
+        this.mockInsert();
+        doReturn(Set.of()).when(this.keycloakService).createParticipantUsers(any());
+
+        this.bulkOnboardingService.process(this.job.getId());
+
+        assertThat(onboarding.getStatus()).isEqualTo(BulkOnboardingRowStatus.ONBOARDING);
+        assertThat(duplicate.getStatus()).isEqualTo(BulkOnboardingRowStatus.FAILED);
+        assertThat(duplicate.getMessage()).isEqualTo("participant.already.registered");
+        assertThat(ownDid.getStatus()).isEqualTo(BulkOnboardingRowStatus.REGISTERED);
+        verify(this.onboardingWorkflowService).start(onboarding.getParticipantId());
+        verify(this.onboardingWorkflowService, never()).start(ownDid.getParticipantId());
+        verify(this.registrationStatusCache).evict("c@member.eu");
+        verify(this.bulkOnboardingJobRepository).updateProgress(eq(this.job.getId()), eq(2), eq(1), any());
+        assertThat(this.job.getState()).isEqualTo(BulkOnboardingJobState.COMPLETED);
+    }
+
+    @Test
+    void testProcess_rejectedRowDoesNotReserveValues() throws Exception {
+        BulkOnboardingRow first = this.row(1, "a@member.eu", "Member A", "membera", true);
+        BulkOnboardingRow sameLegalName = this.row(2, "b@member.eu", "Member A", "memberb", true);
+        BulkOnboardingRow sameEmail = this.row(3, "b@member.eu", "Member C", "memberc", true);
+        this.mockClaim(List.of(first, sameLegalName, sameEmail));
+        doReturn(List.of()).when(this.participantRepository).findAllByEmailInOrLegalNameInOrShortNameIn(any(), any(), any());
+        this.mockInsert();
+        doReturn(Set.of()).when(this.keycloakService).createParticipantUsers(any());
+
+        this.bulkOnboardingService.process(this.job.getId());
+
+        assertThat(first.getStatus()).isEqualTo(BulkOnboardingRowStatus.REGISTERED);
+        assertThat(sameLegalName.getStatus()).isEqualTo(BulkOnboardingRowStatus.FAILED);
+        assertThat(sameLegalName.getMessage()).isEqualTo("legal.name.already.registered");
+        assertThat(sameEmail.getStatus()).isEqualTo(BulkOnboardingRowStatus.REGISTERED);
+    }
+
+    @Test
+    void testProcess_batchInsertFails() throws Exception {
+        BulkOnboardingRow first = this.row(1, "a@member.eu", "Member A", "membera", true);
+        BulkOnboardingRow taken = this.row(2, "b@member.eu", "Member B", "memberb", true);
+        this.mockClaim(List.of(first, taken));
+        doReturn(List.of()).when(this.participantRepository).findAllByEmailInOrLegalNameInOrShortNameIn(any(), any(), any());
+        this.mockNewParticipant();
+        doThrow(violation("duplicate key value violates unique constraint \"short_name_unique\"")).when(this.participantRepository).saveAll(any());
+        doAnswer(invocation -> {
+            Participant participant = invocation.getArgument(0);
+            if (participant.getEmail().equals("b@member.eu")) {
+                throw violation("duplicate key value violates unique constraint \"short_name_unique\"");
+            }
+            participant.setId(UUID.randomUUID());
+            return participant;
+        }).when(this.participantRepository).save(any());
+        doReturn(Set.of()).when(this.keycloakService).createParticipantUsers(any());
+
+        this.bulkOnboardingService.process(this.job.getId());
+
+        assertThat(first.getStatus()).isEqualTo(BulkOnboardingRowStatus.REGISTERED);
+        assertThat(first.getParticipantId()).isNotNull();
+        assertThat(taken.getStatus()).isEqualTo(BulkOnboardingRowStatus.FAILED);
+        assertThat(taken.getMessage()).isEqualTo("short.name.already.registered");
+        assertThat(taken.getParticipantId()).isNull();
+        verify(this.bulkOnboardingRowRepository).save(first);
+    }
+
+    @Test
+    void testProcess_batchFailsAfterInsert() throws Exception {
+        BulkOnboardingRow first = this.row(1, "a@member.eu", "Member A", "membera", false);
+        BulkOnboardingRow second = this.row(2, "b@member.eu", "Member B", "memberb", false);
+        this.mockClaim(List.of(first, second));
+        doReturn(List.of()).when(this.participantRepository).findAllByEmailInOrLegalNameInOrShortNameIn(any(), any(), any());
+        this.mockInsert();
+        doReturn(Set.of()).when(this.keycloakService).createParticipantUsers(any());
+        doThrow(new IllegalStateException("connection lost")).when(this.participantRepository).markUserProvisioned(any());
+
+        this.bulkOnboardingService.process(this.job.getId());
+
+        assertThat(first.getStatus()).isEqualTo(BulkOnboardingRowStatus.REGISTERED);
+        assertThat(first.getParticipantId()).isNotNull();
+        assertThat(second.getStatus()).isEqualTo(BulkOnboardingRowStatus.REGISTERED);
+        verifyNoInteractions(this.onboardingWorkflowService);
+        verify(this.bulkOnboardingRowRepository, times(2)).saveAll(List.of(first, second));
+    }
+
+    @Test
+    void testProcess_keycloakBatchFails() throws Exception {
+        BulkOnboardingRow first = this.row(1, "a@member.eu", "Member A", "membera", true);
+        BulkOnboardingRow second = this.row(2, "b@member.eu", "Member B", "memberb", true);
+        this.mockClaim(List.of(first, second));
+        doReturn(List.of()).when(this.participantRepository).findAllByEmailInOrLegalNameInOrShortNameIn(any(), any(), any());
+        this.mockInsert();
+        doThrow(new IllegalStateException("partial import failed")).when(this.keycloakService).createParticipantUsers(any());
+        lenient().doThrow(new BadDataException("keycloak.create.user.failed")).when(this.keycloakService).createParticipantUser(any(), eq("Member B"), eq("b@member.eu"));
+
+        this.bulkOnboardingService.process(this.job.getId());
+
+        assertThat(first.getStatus()).isEqualTo(BulkOnboardingRowStatus.REGISTERED);
+        assertThat(second.getStatus()).isEqualTo(BulkOnboardingRowStatus.FAILED);
+        assertThat(second.getMessage()).isEqualTo("keycloak.create.user.failed");
+        verify(this.keycloakService).createParticipantUser(first.getParticipantId().toString(), "Member A", "a@member.eu");
+        verify(this.participantRepository).deleteById(any());
+        verify(this.bulkOnboardingRowRepository).save(second);
+        assertThat(second.getParticipantId()).isNull();
+    }
+
+    @Test
+    void testProcess_notClaimed() {
+        doReturn(0).when(this.bulkOnboardingJobRepository).claim(eq(this.job.getId()), any(), any());
+
+        this.bulkOnboardingService.process(this.job.getId());
+
+        verifyNoInteractions(this.bulkOnboardingRowRepository, this.participantService);
+    }
+
+    @Test
+    void testReadCsvRecord() throws Exception {
+        StringReader reader = new StringReader("a,\"b,\"\"c\"\"\nd\",e\r\n\nlast");
+
+        assertThat(BulkOnboardingService.readCsvRecord(reader)).containsExactly("a", "b,\"c\"\nd", "e");
+        assertThat(BulkOnboardingService.readCsvRecord(reader)).containsExactly("");
+        assertThat(BulkOnboardingService.readCsvRecord(reader)).containsExactly("last");
+        assertThat(BulkOnboardingService.readCsvRecord(reader)).isNull();
+    }
+
+    private void mockClaim(List<BulkOnboardingRow> rows) {
+        doReturn(1).when(this.bulkOnboardingJobRepository).claim(eq(this.job.getId()), any(), any());
+        doReturn(Optional.of(this.job)).when(this.bulkOnboardingJobRepository).findById(this.job.getId());
+        doReturn(rows, List.of()).when(this.bulkOnboardingRowRepository).findAllByJobIdAndStatus(eq(this.job.getId()), eq(BulkOnboardingRowStatus.PENDING), any());
+        doAnswer(invocation -> invocation.getArgument(0)).when(this.bulkOnboardingJobRepository).save(any());
+        doAnswer(invocation -> (long) rows.stream().filter(row -> invocation.<Collection<BulkOnboardingRowStatus>>getArgument(1).contains(row.getStatus())).count())
+                .when(this.bulkOnboardingRowRepository).countByJobIdAndStatusIn(eq(this.job.getId()), any());
+    }
+
+    private void mockInsert() {
+        this.mockNewParticipant();
+        doAnswer(invocation -> {
+            List<Participant> participants = invocation.getArgument(0);
+            participants.forEach(participant -> participant.setId(UUID.randomUUID()));
+            return participants;
+        }).when(this.participantRepository).saveAll(any());
+    }
+
+    private void mockNewParticipant() {
+        doAnswer(invocation -> {
+            ParticipantRegisterRequest request = invocation.getArgument(0);
+            return Participant.builder()
+                    .email(request.email())
+                    .legalName(request.onboardRequest().legalName())
+                    .shortName(request.onboardRequest().shortName())
+                    .ownDidSolution(request.onboardRequest().ownDid())
+                    .build();
+        }).when(this.participantService).newParticipant(any(), any());
+    }
+
+    private static DataIntegrityViolationException violation(String message) {
+        return new DataIntegrityViolationException("could not execute statement", new SQLException(message));
+    }
+
+    private BulkOnboardingRow row(int rowNumber, String email, String legalName, String shortName, boolean ownDid) throws Exception {
+        ParticipantRegisterRequest request = new ParticipantRegisterRequest(email, new ParticipantOnboardRequest(legalName, shortName, null,
+                Map.of("legalParticipant", Map.of()), ownDid, false, true));
+        return BulkOnboardingRow.builder()
+                .jobId(this.job.getId())
+                .rowNumber(rowNumber)
+                .email(email)
+                .payload(this.mapper.writeValueAsString(request))
+                .status(BulkOnboardingRowStatus.PENDING)
+                .build();
+    }
+}
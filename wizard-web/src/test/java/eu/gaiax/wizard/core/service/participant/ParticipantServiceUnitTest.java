@@ -0,0 +1,110 @@
+package eu.gaiax.wizard.core.service.participant;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.gaiax.wizard.api.exception.BadDataException;
+import eu.gaiax.wizard.api.model.request.ParticipantOnboardRequest;
+import eu.gaiax.wizard.api.model.request.ParticipantRegisterRequest;
+import eu.gaiax.wizard.dao.entity.participant.Participant;
+import eu.gaiax.wizard.dao.repository.participant.ParticipantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ParticipantServiceUnitTest {
+
+    @Mock
+    private ParticipantRepository participantRepository;
+    @Mock
+    private ParticipantUserService participantUserService;
+    @Mock
+    private RegistrationStatusCache registrationStatusCache;
+
+    private ParticipantService participantService;
+    private final ParticipantRegisterRequest request = new ParticipantRegisterRequest("Info@Acme.eu",
+            new ParticipantOnboardRequest("Acme", "Acme", null, Map.of("legalParticipant", Map.of()), true, false, true));
+
+    @BeforeEach
+    void setUp() {
+        this.participantService = new ParticipantService(this.participantRepository, null, null, null, null, null, null, null, null, null,
+                this.registrationStatusCache, this.participantUserService, new ObjectMapper(), null, null);
+    }
+
+    @Test
+    void testRegisterParticipant() {
+        doReturn(List.of()).when(this.participantRepository).findAllByEmailOrLegalNameOrShortName("info@acme.eu", "Acme", "acme");
+        doAnswer(invocation -> {
+            Participant participant = invocation.getArgument(0);
+            participant.setId(UUID.randomUUID());
+            return participant;
+        }).when(this.participantRepository).saveAndFlush(any());
+
+        Participant participant = this.participantService.registerParticipant(this.request);
+
+        assertThat(participant.isUserProvisioned()).isFalse();
+        verify(this.participantRepository, times(1)).findAllByEmailOrLegalNameOrShortName(any(), any(), any());
+        verify(this.participantUserService).scheduleProvisioning(participant.getId());
+        verify(this.registrationStatusCache).evict("info@acme.eu");
+    }
+
+    @Test
+    void testRegisterParticipant_duplicates() {
+        this.assertDuplicate(Participant.builder().email("INFO@acme.eu").legalName("Other").shortName("other").build(), "participant.already.registered");
+        this.assertDuplicate(Participant.builder().email("info@other.eu").legalName("Acme").shortName("other").build(), "legal.name.already.registered");
+        this.assertDuplicate(Participant.builder().email("info@other.eu").legalName("Other").shortName("acme").build(), "short.name.already.registered");
+        verify(this.participantRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(this.participantUserService);
+    }
+
+    @Test
+    void testRegisterParticipant_racingRegistration() {
+        doReturn(List.of()).when(this.participantRepository).findAllByEmailOrLegalNameOrShortName("info@acme.eu", "Acme", "acme");
+        doThrow(violation("duplicate key value violates unique constraint \"legal_name_unique\"")).when(this.participantRepository).saveAndFlush(any());
+
+        assertThatThrownBy(() -> this.participantService.registerParticipant(this.request))
+                .isInstanceOf(BadDataException.class)
+                .hasMessage("legal.name.already.registered");
+        verifyNoInteractions(this.participantUserService);
+    }
+
+    @Test
+    void testNewParticipant_userNotProvisioned() {
+        assertThat(this.participantService.newParticipant(this.request, null).isUserProvisioned()).isFalse();
+        assertThat(Participant.builder().build().isUserProvisioned()).isTrue();
+    }
+
+    @Test
+    void testUniqueConstraintMessage() {
+        assertThat(ParticipantService.uniqueConstraintMessage(violation("duplicate key value violates unique constraint \"short_name_unique\"")))
+                .isEqualTo("short.name.already.registered");
+        assertThat(ParticipantService.uniqueConstraintMessage(violation("duplicate key value violates unique constraint \"legal_name_unique\"")))
+                .isEqualTo("legal.name.already.registered");
+        assertThat(ParticipantService.uniqueConstraintMessage(violation("duplicate key value violates unique constraint \"email_unique\"")))
+                .isEqualTo("participant.already.registered");
+    }
+
+    private void assertDuplicate(Participant existing, String message) {
+        doReturn(List.of(existing)).when(this.participantRepository).findAllByEmailOrLegalNameOrShortName("info@acme.eu", "Acme", "acme");
+
+        assertThatThrownBy(() -> this.participantService.registerParticipant(this.request))
+                .isInstanceOf(BadDataException.class)
+                .hasMessage(message);
+    }
+
+    private static DataIntegrityViolationException violation(String message) {
+        return new DataIntegrityViolationException("could not execute statement", new SQLException(message));
+    }
+}
@@ -0,0 +1,115 @@
+package eu.gaiax.wizard.core.service.participant;
+
+import eu.gaiax.wizard.api.exception.BadDataException;
+import eu.gaiax.wizard.api.model.setting.OnboardingSettings;
+import eu.gaiax.wizard.api.utils.StringPool;
+import eu.gaiax.wizard.core.service.job.ScheduleService;
+import eu.gaiax.wizard.core.service.keycloak.KeycloakService;
+import eu.gaiax.wizard.dao.entity.participant.Participant;
+import eu.gaiax.wizard.dao.repository.participant.ParticipantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.quartz.SchedulerException;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ParticipantUserServiceUnitTest {
+
+    @Mock
+    private ParticipantRepository participantRepository;
+    @Mock
+    private KeycloakService keycloakService;
+    @Mock
+    private ScheduleService scheduleService;
+    @Mock
+    private RegistrationStatusCache registrationStatusCache;
+
+    private ParticipantUserService participantUserService;
+    private final Participant participant = Participant.builder().email("info@acme.eu").legalName("Acme").userProvisioned(false).build();
+
+    @BeforeEach
+    void setUp() {
+        this.participantUserService = new ParticipantUserService(this.participantRepository, this.keycloakService, this.scheduleService,
+                this.registrationStatusCache, new OnboardingSettings(null, null, null, null, null));
+        this.participant.setId(UUID.randomUUID());
+    }
+
+    @Test
+    void testProvision() {
+        doReturn(Optional.of(this.participant)).when(this.participantRepository).findById(this.participant.getId());
+
+        assertThat(this.participantUserService.provision(this.participant.getId())).isTrue();
+
+        verify(this.keycloakService).createParticipantUser(this.participant.getId().toString(), "Acme", "info@acme.eu");
+        verify(this.participantRepository).markUserProvisioned(List.of(this.participant.getId()));
+        verify(this.registrationStatusCache).evict("info@acme.eu");
+    }
+
+    @Test
+    void testProvision_alreadyProvisioned() {
+        this.participant.setUserProvisioned(true);
+        doReturn(Optional.of(this.participant)).when(this.participantRepository).findById(this.participant.getId());
+
+        assertThat(this.participantUserService.provision(this.participant.getId())).isTrue();
+
+        verifyNoInteractions(this.keycloakService);
+        verify(this.participantRepository, never()).markUserProvisioned(any());
+    }
+
+    @Test
+    void testProvision_keycloakFails() {
+        doReturn(Optional.of(this.participant)).when(this.participantRepository).findById(this.participant.getId());
+        doThrow(new BadDataException("keycloak.create.user.failed")).when(this.keycloakService).createParticipantUser(any(), any(), any());
+
+        assertThat(this.participantUserService.provision(this.participant.getId())).isFalse();
+
+        verify(this.participantRepository, never()).markUserProvisioned(any());
+        verifyNoInteractions(this.registrationStatusCache);
+    }
+
+    @Test
+    void testScheduleProvisioning() throws SchedulerException {
+        this.participantUserService.scheduleProvisioning(this.participant.getId());
+
+        verify(this.scheduleService).createJob(this.participant.getId().toString(), StringPool.JOB_TYPE_PROVISION_USER, Duration.ZERO);
+    }
+
+    @Test
+    void testRecoverUnprovisionedUsers_schedulesClaimedOnly() throws SchedulerException {
+        Participant other = Participant.builder().email("info@other.eu").build();
+        other.setId(UUID.randomUUID());
+        doReturn(List.of(this.participant, other)).when(this.participantRepository).findAllByUserProvisionedFalseAndUpdatedAtBefore(any());
+        doReturn(1).when(this.participantRepository).claimUserProvisioning(eq(this.participant.getId()), any(), any());
+        doReturn(0).when(this.participantRepository).claimUserProvisioning(eq(other.getId()), any(), any());
+
+        this.participantUserService.recoverUnprovisionedUsers();
+
+        verify(this.scheduleService).createJob(this.participant.getId().toString(), StringPool.JOB_TYPE_PROVISION_USER, Duration.ZERO);
+        verify(this.scheduleService, never()).createJob(eq(other.getId().toString()), any(), any());
+    }
+
+    @Test
+    void testRecoverUnprovisionedUsers_usesStalePeriod() {
+        doReturn(List.of()).when(this.participantRepository).findAllByUserProvisionedFalseAndUpdatedAtBefore(any());
+        long before = System.currentTimeMillis();
+
+        this.participantUserService.recoverUnprovisionedUsers();
+
+        verify(this.participantRepository).findAllByUserProvisionedFalseAndUpdatedAtBefore(argThat((Date staleBefore) ->
+                staleBefore.getTime() <= before - Duration.ofMinutes(15).toMillis() + 1000
+                        && staleBefore.getTime() >= before - Duration.ofMinutes(15).toMillis()));
+    }
+}
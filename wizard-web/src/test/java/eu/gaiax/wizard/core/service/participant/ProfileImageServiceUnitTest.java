@@ -0,0 +1,129 @@
+package eu.gaiax.wizard.core.service.participant;
+
+import eu.gaiax.wizard.api.model.ProfileImageStatus;
+import eu.gaiax.wizard.api.model.setting.ProfileImageSettings;
+import eu.gaiax.wizard.api.utils.S3Utils;
+import eu.gaiax.wizard.dao.entity.participant.Participant;
+import eu.gaiax.wizard.dao.repository.participant.ParticipantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProfileImageServiceUnitTest {
+
+    @Mock
+    private S3Utils s3Utils;
+    @Mock
+    private ParticipantRepository participantRepository;
+
+    private ProfileImageService profileImageService;
+
+    private final UUID participantId = UUID.randomUUID();
+    private final String directory = "participant/" + this.participantId + "/1700000000000/";
+
+    @BeforeEach
+    void setUp() {
+        ProfileImageSettings settings = new ProfileImageSettings(400, Map.of("small", 64), 0.8f, "small", 1_000_000L);
+        this.profileImageService = new ProfileImageService(this.s3Utils, this.participantRepository, settings);
+    }
+
+    @Test
+    void testProcessProfileImage() throws IOException {
+        File source = this.createImage(800, 600);
+        doReturn(1).when(this.participantRepository).updateProfileImage(this.participantId, this.directory + "source.png", this.directory + "original.jpg", ProfileImageStatus.READY);
+
+        this.profileImageService.processProfileImage(this.participantId, this.directory + "source.png", source);
+
+        ArgumentCaptor<byte[]> contentCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(this.s3Utils).uploadBytes(eq(this.directory + "original.jpg"), contentCaptor.capture(), eq("image/jpeg"));
+        verify(this.s3Utils).uploadBytes(eq(this.directory + "small.jpg"), contentCaptor.capture(), eq("image/jpeg"));
+        BufferedImage original = ImageIO.read(new ByteArrayInputStream(contentCaptor.getAllValues().get(0)));
+        BufferedImage small = ImageIO.read(new ByteArrayInputStream(contentCaptor.getAllValues().get(1)));
+        assertThat(original.getWidth()).isEqualTo(400);
+        assertThat(original.getHeight()).isEqualTo(300);
+        assertThat(small.getWidth()).isEqualTo(64);
+        assertThat(small.getHeight()).isEqualTo(48);
+        verify(this.s3Utils).deleteFile(this.directory + "source.png");
+        assertThat(source).doesNotExist();
+    }
+
+    @Test
+    void testGetProfileImageKey() {
+        assertThat(this.profileImageService.getProfileImageKey(this.directory + "source.png")).isEqualTo(this.directory + "small.jpg");
+        ProfileImageService withoutDerivative = new ProfileImageService(this.s3Utils, this.participantRepository,
+                new ProfileImageSettings(400, Map.of("small", 64), 0.8f, "medium", 1_000_000L));
+        assertThat(withoutDerivative.getProfileImageKey(this.directory + "source.png")).isEqualTo(this.directory + "original.jpg");
+    }
+
+    @Test
+    void testProcessProfileImage_replacedMeanwhile() throws IOException {
+        File source = this.createImage(100, 100);
+        doReturn(0).when(this.participantRepository).updateProfileImage(any(), anyString(), anyString(), any());
+
+        this.profileImageService.processProfileImage(this.participantId, this.directory + "source.png", source);
+
+        verify(this.s3Utils).deleteFile(this.directory + "original.jpg");
+        verify(this.s3Utils).deleteFile(this.directory + "small.jpg");
+        verify(this.s3Utils).deleteFile(this.directory + "source.png");
+    }
+
+    @Test
+    void testProcessProfileImage_invalidImage() throws IOException {
+        File source = File.createTempFile("profile", ".png");
+        Files.writeString(source.toPath(), "not an image");
+
+        this.profileImageService.processProfileImage(this.participantId, this.directory + "source.png", source);
+
+        verify(this.s3Utils, never()).uploadBytes(anyString(), any(), anyString());
+        verify(this.participantRepository).updateProfileImage(this.participantId, this.directory + "source.png", null, ProfileImageStatus.FAILED);
+        assertThat(ProfileImageService.isImage(source)).isFalse();
+    }
+
+    @Test
+    void testProcessProfileImage_tooManyPixels() throws IOException {
+        File source = this.createImage(1001, 1000);
+
+        this.profileImageService.processProfileImage(this.participantId, this.directory + "source.png", source);
+
+        verify(this.s3Utils, never()).uploadBytes(anyString(), any(), anyString());
+        verify(this.participantRepository).updateProfileImage(this.participantId, this.directory + "source.png", null, ProfileImageStatus.FAILED);
+        verify(this.s3Utils).deleteFile(this.directory + "source.png");
+    }
+
+    @Test
+    void testGetProfileImageUrls() {
+        Participant participant = new Participant();
+        participant.setProfileImage(this.directory + "original.jpg");
+        participant.setProfileImageStatus(ProfileImageStatus.READY);
+        doReturn("small-url").when(this.s3Utils).getPreSignedUrl(this.directory + "small.jpg");
+        doReturn("original-url").when(this.s3Utils).getPreSignedUrl(this.directory + "original.jpg");
+
+        assertThat(this.profileImageService.getProfileImageUrls(participant))
+                .containsEntry("small", "small-url")
+                .containsEntry("original", "original-url");
+    }
+
+    private File createImage(int width, int height) throws IOException {
+        File file = File.createTempFile("profile", ".png");
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), "png", file);
+        assertThat(ProfileImageService.isImage(file)).isTrue();
+        return file;
+    }
+}
@@ -0,0 +1,75 @@
+package eu.gaiax.wizard.core.service.participant;
+
+import eu.gaiax.wizard.api.model.CheckParticipantRegisteredResponse;
+import eu.gaiax.wizard.api.model.setting.RegistrationCheckSettings;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RegistrationStatusCacheUnitTest {
+
+    private static final String EMAIL = "participant@example.com";
+
+    @Test
+    void testGet_deviceConfiguredIsCached() {
+        RegistrationStatusCache cache = new RegistrationStatusCache(new RegistrationCheckSettings(Duration.ofMinutes(1), Duration.ZERO, 10L));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(EMAIL, email -> this.load(loads, true));
+        CheckParticipantRegisteredResponse status = cache.get(EMAIL, email -> this.load(loads, true));
+
+        assertThat(status.deviceConfigured()).isTrue();
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void testGet_deviceNotConfiguredIsReloaded() {
+        RegistrationStatusCache cache = new RegistrationStatusCache(new RegistrationCheckSettings(Duration.ofMinutes(1), Duration.ZERO, 10L));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(EMAIL, email -> this.load(loads, false));
+        CheckParticipantRegisteredResponse status = cache.get(EMAIL, email -> this.load(loads, true));
+
+        assertThat(status.deviceConfigured()).isTrue();
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void testEvict() {
+        RegistrationStatusCache cache = new RegistrationStatusCache(new RegistrationCheckSettings(Duration.ofMinutes(1), Duration.ofMinutes(1), 10L));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(EMAIL, email -> this.load(loads, false));
+        cache.evict(EMAIL);
+        cache.get(EMAIL, email -> this.load(loads, false));
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void testEvict_ignoresCase() {
+        RegistrationStatusCache cache = new RegistrationStatusCache(new RegistrationCheckSettings(Duration.ofMinutes(1), Duration.ofMinutes(1), 10L));
+        AtomicInteger loads = new AtomicInteger();
+        List<String> loadedEmails = new ArrayList<>();
+
+        cache.get("Participant@Example.com", email -> {
+            loadedEmails.add(email);
+            return this.load(loads, false);
+        });
+        cache.evict(EMAIL);
+        cache.get("PARTICIPANT@example.com", email -> this.load(loads, false));
+
+        assertThat(loads).hasValue(2);
+        assertThat(loadedEmails).containsExactly(EMAIL);
+    }
+
+    private CheckParticipantRegisteredResponse load(AtomicInteger loads, boolean deviceConfigured) {
+        loads.incrementAndGet();
+        return new CheckParticipantRegisteredResponse(true, deviceConfigured);
+    }
+}
@@ -1,6 +1,6 @@
 package eu.gaiax.wizard.core.service.participant;
 
-import eu.gaiax.wizard.vault.Vault;
+import eu.gaiax.wizard.api.vault.Vault;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,7 +15,9 @@ import java.util.UUID;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 class VaultServiceUnitTest {
@@ -70,5 +72,19 @@ class VaultServiceUnitTest {
         assertThat(participantSecretDataMap).isNull();
     }
     
+    @Test
+    void testStoreAcmeAccount_new() {
+        doReturn(null).when(this.vault).get(VaultService.ACME_ACCOUNT_SECRET);
+        this.vaultService.storeAcmeAccount("key", "acme://letsencrypt.org", "https://acme/account/1");
+        verify(this.vault).put(VaultService.ACME_ACCOUNT_SECRET, Map.of(VaultService.ACME_ACCOUNT_KEY, "key",
+                VaultService.ACME_ACCOUNT_PROVIDER, "acme://letsencrypt.org", VaultService.ACME_ACCOUNT_URL, "https://acme/account/1"));
+    }
     
-}
\ No newline at end of file
+    @Test
+    void testStoreAcmeAccount_existing() {
+        doReturn(Map.of(VaultService.ACME_ACCOUNT_KEY, "key")).when(this.vault).get(VaultService.ACME_ACCOUNT_SECRET);
+        this.vaultService.storeAcmeAccount("key", "acme://letsencrypt.org/staging", "https://acme/account/2");
+        verify(this.vault).patch(eq(VaultService.ACME_ACCOUNT_SECRET), eq(Map.of(VaultService.ACME_ACCOUNT_KEY, "key",
+                VaultService.ACME_ACCOUNT_PROVIDER, "acme://letsencrypt.org/staging", VaultService.ACME_ACCOUNT_URL, "https://acme/account/2")));
+    }
+}
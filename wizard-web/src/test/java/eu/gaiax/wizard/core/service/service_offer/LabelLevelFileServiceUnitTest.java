@@ -0,0 +1,246 @@
+package eu.gaiax.wizard.core.service.service_offer;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import eu.gaiax.wizard.api.exception.BadDataException;
+import eu.gaiax.wizard.api.model.LabelLevelFileStatus;
+import eu.gaiax.wizard.api.model.LabelLevelFileTypeEnum;
+import eu.gaiax.wizard.api.model.service_offer.LabelLevelFileUpload;
+import eu.gaiax.wizard.api.model.service_offer.LabelLevelUploadUrlRequest;
+import eu.gaiax.wizard.api.model.service_offer.LabelLevelUploadUrlResponse;
+import eu.gaiax.wizard.api.model.setting.LabelLevelUploadSettings;
+import eu.gaiax.wizard.api.utils.CommonUtils;
+import eu.gaiax.wizard.api.utils.S3Utils;
+import eu.gaiax.wizard.dao.entity.service_offer.LabelLevelFiles;
+import eu.gaiax.wizard.dao.repository.service_offer.LabelLevelFilesRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LabelLevelFileServiceUnitTest {
+
+    @Mock
+    private S3Utils s3Utils;
+    @Mock
+    private LabelLevelFilesRepository labelLevelFilesRepository;
+
+    private LabelLevelFileService labelLevelFileService;
+
+    private final UUID uploadId = UUID.randomUUID();
+    private final String contentHash = CommonUtils.sha256Hex("evidence".getBytes());
+
+    @BeforeEach
+    void setUp() {
+        LabelLevelUploadSettings settings = new LabelLevelUploadSettings(DataSize.ofMegabytes(1), Duration.ofMinutes(5), List.of("application/pdf"));
+        this.labelLevelFileService = new LabelLevelFileService(this.s3Utils, this.labelLevelFilesRepository, settings);
+    }
+
+    @Test
+    void testCreateUploadUrl() {
+        doReturn("https://bucket.s3/upload").when(this.s3Utils).generatePresignedPutUrl(eq("label-level-uploads/" + this.uploadId), eq("application/pdf"), eq(100L), anyString(), any());
+        this.stubSave();
+
+        LabelLevelUploadUrlResponse response = this.labelLevelFileService.createUploadUrl(new LabelLevelUploadUrlRequest("evidence.pdf", LabelLevelFileTypeEnum.PDF.name(), "application/pdf", 100L, this.contentHash.toUpperCase()));
+
+        assertThat(response.uploadId()).isEqualTo(this.uploadId);
+        assertThat(response.uploadUrl()).isEqualTo("https://bucket.s3/upload");
+        assertThat(response.headers()).containsEntry("Content-Length", "100").containsKey(S3Utils.CHECKSUM_SHA256_HEADER);
+        ArgumentCaptor<LabelLevelFiles> fileCaptor = ArgumentCaptor.forClass(LabelLevelFiles.class);
+        verify(this.labelLevelFilesRepository).save(fileCaptor.capture());
+        assertThat(fileCaptor.getValue().getStatus()).isEqualTo(LabelLevelFileStatus.PENDING);
+        assertThat(fileCaptor.getValue().getContentHash()).isEqualTo(this.contentHash);
+        assertThat(fileCaptor.getValue().getFilePath()).isEqualTo("public/label-level/" + this.contentHash);
+    }
+
+    @Test
+    void testCreateUploadUrl_knownHashStillRequiresUpload() {
+        doReturn("https://bucket.s3/upload").when(this.s3Utils).generatePresignedPutUrl(anyString(), anyString(), anyLong(), anyString(), any());
+        this.stubSave();
+
+        LabelLevelUploadUrlResponse response = this.labelLevelFileService.createUploadUrl(new LabelLevelUploadUrlRequest("evidence.pdf", LabelLevelFileTypeEnum.PDF.name(), "application/pdf", 100L, this.contentHash));
+
+        assertThat(response.uploadUrl()).isEqualTo("https://bucket.s3/upload");
+        verify(this.labelLevelFilesRepository, never()).existsByContentHashAndStatus(anyString(), any());
+    }
+
+    @Test
+    void testUploadFile() throws IOException {
+        byte[] content = "testFile.pdf".getBytes();
+        String hash = CommonUtils.sha256Hex(content);
+        MultipartFile mockFile = Mockito.mock(MultipartFile.class);
+        doReturn("testFile.pdf").when(mockFile).getOriginalFilename();
+        doReturn((long) content.length).when(mockFile).getSize();
+        doReturn("application/pdf").when(mockFile).getContentType();
+        doReturn(new ByteArrayInputStream(content)).when(mockFile).getInputStream();
+        doReturn(false).when(this.labelLevelFilesRepository).existsByContentHashAndStatus(hash, LabelLevelFileStatus.UPLOADED);
+        doReturn("https://bucket.s3/public/label-level/" + hash).when(this.s3Utils).getObject("public/label-level/" + hash);
+        this.stubSave();
+
+        String filePath = this.labelLevelFileService.uploadFile(new LabelLevelFileUpload(mockFile, LabelLevelFileTypeEnum.PDF.name()));
+
+        assertThat(filePath).isEqualTo("https://bucket.s3/public/label-level/" + hash);
+        verify(this.s3Utils).uploadFile(eq("public/label-level/" + hash), any(File.class), eq("application/pdf"));
+    }
+
+    @Test
+    void testUploadFile_duplicate() throws IOException {
+        byte[] content = "testFile.pdf".getBytes();
+        String hash = CommonUtils.sha256Hex(content);
+        MultipartFile mockFile = Mockito.mock(MultipartFile.class);
+        doReturn("testFile.pdf").when(mockFile).getOriginalFilename();
+        doReturn((long) content.length).when(mockFile).getSize();
+        doReturn("application/pdf").when(mockFile).getContentType();
+        doReturn(new ByteArrayInputStream(content)).when(mockFile).getInputStream();
+        doReturn(true).when(this.labelLevelFilesRepository).existsByContentHashAndStatus(hash, LabelLevelFileStatus.UPLOADED);
+        doReturn("https://bucket.s3/public/label-level/" + hash).when(this.s3Utils).getObject("public/label-level/" + hash);
+        this.stubSave();
+
+        this.labelLevelFileService.uploadFile(new LabelLevelFileUpload(mockFile, LabelLevelFileTypeEnum.PDF.name()));
+
+        verify(this.s3Utils, never()).uploadFile(anyString(), any(File.class), anyString());
+    }
+
+    @Test
+    void testCreateUploadUrl_sizeExceeded() {
+        LabelLevelUploadUrlRequest request = new LabelLevelUploadUrlRequest("evidence.pdf", LabelLevelFileTypeEnum.PDF.name(), "application/pdf", DataSize.ofMegabytes(2).toBytes(), this.contentHash);
+        assertThatThrownBy(() -> this.labelLevelFileService.createUploadUrl(request)).isInstanceOf(BadDataException.class);
+        verifyNoInteractions(this.s3Utils);
+    }
+
+    @Test
+    void testCreateUploadUrl_contentTypeNotAllowed() {
+        LabelLevelUploadUrlRequest request = new LabelLevelUploadUrlRequest("evidence.exe", LabelLevelFileTypeEnum.PDF.name(), "application/x-msdownload", 100L, this.contentHash);
+        assertThatThrownBy(() -> this.labelLevelFileService.createUploadUrl(request)).isInstanceOf(BadDataException.class);
+        verifyNoInteractions(this.s3Utils);
+    }
+
+    @Test
+    void testCompleteUpload() throws IOException {
+        LabelLevelFiles file = this.pendingFile();
+        doReturn(Optional.of(file)).when(this.labelLevelFilesRepository).findById(this.uploadId);
+        doReturn(this.metadata(100L, "application/pdf")).when(this.s3Utils).getObjectMetadata(this.uploadKey());
+        doReturn(this.contentHash).when(this.s3Utils).getContentHash(this.uploadKey());
+        doReturn(false).when(this.labelLevelFilesRepository).existsByContentHashAndStatus(this.contentHash, LabelLevelFileStatus.UPLOADED);
+        doReturn("https://bucket.s3/" + file.getFilePath()).when(this.s3Utils).getObject(file.getFilePath());
+
+        assertThat(this.labelLevelFileService.completeUpload(this.uploadId)).isEqualTo("https://bucket.s3/" + file.getFilePath());
+        assertThat(file.getStatus()).isEqualTo(LabelLevelFileStatus.UPLOADED);
+        verify(this.s3Utils).copyFile(this.uploadKey(), file.getFilePath());
+        verify(this.s3Utils).deleteFile(this.uploadKey());
+    }
+
+    @Test
+    void testCompleteUpload_duplicateAfterVerification() throws IOException {
+        LabelLevelFiles file = this.pendingFile();
+        doReturn(Optional.of(file)).when(this.labelLevelFilesRepository).findById(this.uploadId);
+        doReturn(this.metadata(100L, "application/pdf")).when(this.s3Utils).getObjectMetadata(this.uploadKey());
+        doReturn(this.contentHash).when(this.s3Utils).getContentHash(this.uploadKey());
+        doReturn(true).when(this.labelLevelFilesRepository).existsByContentHashAndStatus(this.contentHash, LabelLevelFileStatus.UPLOADED);
+
+        this.labelLevelFileService.completeUpload(this.uploadId);
+
+        assertThat(file.getStatus()).isEqualTo(LabelLevelFileStatus.UPLOADED);
+        verify(this.s3Utils, never()).copyFile(anyString(), anyString());
+        verify(this.s3Utils).deleteFile(this.uploadKey());
+    }
+
+    @Test
+    void testCompleteUpload_mismatch() {
+        LabelLevelFiles file = this.pendingFile();
+        doReturn(Optional.of(file)).when(this.labelLevelFilesRepository).findById(this.uploadId);
+        doReturn(this.metadata(5_000L, "application/pdf")).when(this.s3Utils).getObjectMetadata(this.uploadKey());
+
+        assertThatThrownBy(() -> this.labelLevelFileService.completeUpload(this.uploadId)).isInstanceOf(BadDataException.class);
+        verify(this.s3Utils).deleteFile(this.uploadKey());
+        verify(this.s3Utils, never()).deleteFile(file.getFilePath());
+        assertThat(file.getStatus()).isEqualTo(LabelLevelFileStatus.REJECTED);
+    }
+
+    @Test
+    void testCompleteUpload_hashMismatch() throws IOException {
+        LabelLevelFiles file = this.pendingFile();
+        doReturn(Optional.of(file)).when(this.labelLevelFilesRepository).findById(this.uploadId);
+        doReturn(this.metadata(100L, "application/pdf")).when(this.s3Utils).getObjectMetadata(this.uploadKey());
+        doReturn(CommonUtils.sha256Hex("other".getBytes())).when(this.s3Utils).getContentHash(this.uploadKey());
+
+        assertThatThrownBy(() -> this.labelLevelFileService.completeUpload(this.uploadId)).isInstanceOf(BadDataException.class);
+        verify(this.s3Utils).deleteFile(this.uploadKey());
+        verify(this.s3Utils, never()).copyFile(anyString(), anyString());
+        assertThat(file.getStatus()).isEqualTo(LabelLevelFileStatus.REJECTED);
+    }
+
+    @Test
+    void testCompleteUpload_notUploaded() {
+        LabelLevelFiles file = this.pendingFile();
+        doReturn(Optional.of(file)).when(this.labelLevelFilesRepository).findById(this.uploadId);
+        doReturn(null).when(this.s3Utils).getObjectMetadata(this.uploadKey());
+
+        assertThatThrownBy(() -> this.labelLevelFileService.completeUpload(this.uploadId)).isInstanceOf(BadDataException.class);
+        assertThat(file.getStatus()).isEqualTo(LabelLevelFileStatus.PENDING);
+    }
+
+    @Test
+    void testPurgeStaleUploads_onlyClaimedRows() {
+        LabelLevelFiles claimed = this.pendingFile();
+        LabelLevelFiles purgedElsewhere = this.pendingFile();
+        purgedElsewhere.setId(UUID.randomUUID());
+        doReturn(List.of(claimed, purgedElsewhere)).when(this.labelLevelFilesRepository).findAllByStatusAndCreatedAtBefore(eq(LabelLevelFileStatus.PENDING), any());
+        doReturn(1).when(this.labelLevelFilesRepository).deleteByIdAndStatus(claimed.getId(), LabelLevelFileStatus.PENDING);
+        doReturn(0).when(this.labelLevelFilesRepository).deleteByIdAndStatus(purgedElsewhere.getId(), LabelLevelFileStatus.PENDING);
+
+        this.labelLevelFileService.purgeStaleUploads();
+
+        verify(this.s3Utils).deleteFile(this.uploadKey());
+        verify(this.s3Utils, times(1)).deleteFile(anyString());
+    }
+
+    private void stubSave() {
+        doAnswer(invocation -> {
+            LabelLevelFiles file = invocation.getArgument(0);
+            file.setId(this.uploadId);
+            return file;
+        }).when(this.labelLevelFilesRepository).save(any(LabelLevelFiles.class));
+    }
+
+    private String uploadKey() {
+        return "label-level-uploads/" + this.uploadId;
+    }
+
+    private LabelLevelFiles pendingFile() {
+        LabelLevelFiles file = LabelLevelFiles.builder()
+                .filePath("public/label-level/" + this.contentHash)
+                .contentHash(this.contentHash)
+                .contentType("application/pdf")
+                .size(100L)
+                .status(LabelLevelFileStatus.PENDING)
+                .build();
+        file.setId(this.uploadId);
+        return file;
+    }
+
+    private ObjectMetadata metadata(long contentLength, String contentType) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(contentLength);
+        metadata.setContentType(contentType);
+        return metadata;
+    }
+}
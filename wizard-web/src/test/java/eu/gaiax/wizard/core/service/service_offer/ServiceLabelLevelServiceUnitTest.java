@@ -1,11 +1,8 @@
 package eu.gaiax.wizard.core.service.service_offer;
 
-import eu.gaiax.wizard.api.model.LabelLevelFileTypeEnum;
 import eu.gaiax.wizard.api.model.did.ServiceEndpointConfig;
-import eu.gaiax.wizard.api.model.service_offer.LabelLevelFileUpload;
 import eu.gaiax.wizard.api.model.service_offer.LabelLevelRequest;
 import eu.gaiax.wizard.api.model.setting.ContextConfig;
-import eu.gaiax.wizard.api.utils.S3Utils;
 import eu.gaiax.wizard.core.service.credential.CredentialService;
 import eu.gaiax.wizard.core.service.signer.SignerService;
 import eu.gaiax.wizard.dao.entity.Credential;
@@ -18,11 +15,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
-import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -35,8 +29,6 @@ import static org.mockito.Mockito.doReturn;
 @ExtendWith(MockitoExtension.class)
 class ServiceLabelLevelServiceUnitTest {
 
-    @Mock
-    private S3Utils s3Utils;
     @Mock
     private SignerService signerService;
     @Mock
@@ -54,7 +46,7 @@ class ServiceLabelLevelServiceUnitTest {
     void setUp() {
         ContextConfig contextConfig = new ContextConfig(null, null, null, List.of("https://www.w3.org/2018/credentials/v1,https://w3id.org/security/suites/jws-2020/v1", "https://registry.lab.gaia-x.eu/development/api/trusted-shape-registry/v1/shapes/jsonld/trustframework#"), null, null, null);
         ServiceEndpointConfig serviceEndpointConfig = new ServiceEndpointConfig(this.randomUUID, this.randomUUID, this.randomUUID);
-        this.serviceLabelLevelService = new ServiceLabelLevelService(this.s3Utils, contextConfig, this.signerService, this.credentialService, null, this.serviceLabelLevelRepository, serviceEndpointConfig);
+        this.serviceLabelLevelService = new ServiceLabelLevelService(contextConfig, this.signerService, this.credentialService, null, this.serviceLabelLevelRepository, serviceEndpointConfig);
         this.participant = new Participant();
         this.participant.setId(UUID.fromString(this.randomUUID));
         this.participant.setOwnDidSolution(false);
@@ -96,17 +88,4 @@ class ServiceLabelLevelServiceUnitTest {
         ServiceLabelLevel actualServiceLabelLevel = this.serviceLabelLevelService.saveServiceLabelLevelLink(this.randomUUID, this.randomUUID, this.participant, serviceOffer);
         assertThat(actualServiceLabelLevel.getServiceOffer().getName()).isEqualTo(serviceOffer.getName());
     }
-
-    @Test
-    void testUploadLabelLevelFile() throws IOException {
-        MultipartFile mockFile = Mockito.mock(MultipartFile.class);
-        doReturn("testFile.pdf").when(mockFile).getOriginalFilename();
-        doReturn("testFile.pdf".getBytes()).when(mockFile).getBytes();
-
-        doNothing().when(this.s3Utils).uploadFile(anyString(), any());
-        doReturn(this.randomUUID).when(this.s3Utils).getObject(anyString());
-
-        String filePath = this.serviceLabelLevelService.uploadLabelLevelFile(new LabelLevelFileUpload(mockFile, LabelLevelFileTypeEnum.PDF.name()));
-        assertThat(filePath).isEqualTo(this.randomUUID);
-    }
-}
\ No newline at end of file
+}
@@ -15,7 +15,6 @@ import eu.gaiax.wizard.api.model.setting.ContextConfig;
 import eu.gaiax.wizard.api.utils.S3Utils;
 import eu.gaiax.wizard.core.service.InvokeService;
 import eu.gaiax.wizard.core.service.credential.CredentialService;
-import eu.gaiax.wizard.core.service.job.ScheduleService;
 import eu.gaiax.wizard.dao.entity.Credential;
 import eu.gaiax.wizard.dao.entity.participant.Participant;
 import eu.gaiax.wizard.dao.repository.participant.ParticipantRepository;
@@ -28,7 +27,6 @@ import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.quartz.SchedulerException;
 import org.springframework.boot.test.system.CapturedOutput;
 import org.springframework.boot.test.system.OutputCaptureExtension;
 import org.springframework.context.MessageSource;
@@ -59,8 +57,6 @@ class SignerServiceUnitTest {
     @Mock
     private S3Utils s3Utils;
     private ObjectMapper objectMapper;
-    @Mock
-    private ScheduleService scheduleService;
 
     @Mock
     private MessageSource messageSource;
@@ -87,7 +83,7 @@ class SignerServiceUnitTest {
         );
         ServiceEndpointConfig serviceEndpointConfig = new ServiceEndpointConfig(this.randomUUID, this.randomUUID, this.randomUUID);
         this.signerService = Mockito.spy(new SignerService(this.contextConfig, this.credentialService, this.participantRepository, this.signerClient,
-                this.s3Utils, this.objectMapper, this.scheduleService, serviceEndpointConfig, this.messageSource, List.of("integrityCheck", "holderSignature", "complianceSignature", "complianceCheck"), "http://localhost/", this.randomUUID));
+                this.s3Utils, this.objectMapper, serviceEndpointConfig, this.messageSource, List.of("integrityCheck", "holderSignature", "complianceSignature", "complianceCheck"), "http://localhost/", this.randomUUID));
     }
 
     private ObjectMapper configureObjectMapper() {
@@ -139,7 +135,7 @@ class SignerServiceUnitTest {
 
         doReturn(null).when(this.credentialService).createCredential(anyString(), anyString(), anyString(), nullable(String.class), any());
         doReturn(this.participant).when(this.participantRepository).save(any());
-        doNothing().when(this.s3Utils).uploadFile(anyString(), any());
+        doNothing().when(this.s3Utils).uploadHostedFile(anyString(), any());
 
         assertDoesNotThrow(() -> this.signerService.createSignedLegalParticipant(this.participant, this.randomUUID, this.randomUUID, this.randomUUID, true));
     }
@@ -167,7 +163,7 @@ class SignerServiceUnitTest {
     }
 
     @Test
-    void testCreateDid_exception(CapturedOutput output) throws SchedulerException {
+    void testCreateDid_exception(CapturedOutput output) {
         doReturn(Optional.of(this.participant)).when(this.participantRepository).findById(any());
         doThrow(new BadDataException()).when(this.signerClient).createDid(any());
 
@@ -179,10 +175,9 @@ class SignerServiceUnitTest {
     }
 
     @Test
-    void testCreateDid_withCertificate(CapturedOutput output) throws SchedulerException {
+    void testCreateDid_withCertificate(CapturedOutput output) {
         doReturn(Optional.of(this.participant)).when(this.participantRepository).findById(any());
-        doNothing().when(this.s3Utils).uploadFile(anyString(), any());
-        doNothing().when(this.scheduleService).createJob(anyString(), anyString(), anyInt());
+        doNothing().when(this.s3Utils).uploadHostedFile(anyString(), any());
 
         Map<String, Object> vcMap = new HashMap<>();
         vcMap.put(DATA, Map.of("did", this.randomUUID));
@@ -196,17 +191,16 @@ class SignerServiceUnitTest {
     }
 
     @Test
-    void testCreateDid_withoutCertificate(CapturedOutput output) throws SchedulerException {
+    void testCreateDid_withoutCertificate(CapturedOutput output) {
         doReturn(Optional.of(this.participant)).when(this.participantRepository).findById(any());
-        doNothing().when(this.scheduleService).createJob(anyString(), anyString(), anyInt());
         doReturn(false).when(this.signerService).fetchX509Certificate(anyString());
 
         assertDoesNotThrow(() -> this.signerService.createDid(UUID.fromString(this.randomUUID)));
-        assertThat(output).contains("DID creation cron has been scheduled.");
+        assertThat(output).contains("did creation has to wait");
     }
 
     @Test
-    void testCreateDid_fetchCertificateException(CapturedOutput output) throws SchedulerException {
+    void testCreateDid_fetchCertificateException(CapturedOutput output) {
         doReturn(Optional.of(this.participant)).when(this.participantRepository).findById(any());
 
         try (MockedStatic<InvokeService> invokeServiceMockedStatic = Mockito.mockStatic(InvokeService.class)) {
@@ -218,7 +212,7 @@ class SignerServiceUnitTest {
 
     @Test
     void testSignResource() {
-        doNothing().when(this.s3Utils).uploadFile(anyString(), any());
+        doNothing().when(this.s3Utils).uploadHostedFile(anyString(), any());
 
         Map<String, Object> signerResponse = new HashMap<>();
         signerResponse.put(DATA, Map.of(COMPLETE_SD, Map.of(this.randomUUID, this.randomUUID)));
@@ -242,7 +236,7 @@ class SignerServiceUnitTest {
 
     @Test
     void testSignLabelLevel_200() {
-        doNothing().when(this.s3Utils).uploadFile(anyString(), any());
+        doNothing().when(this.s3Utils).uploadHostedFile(anyString(), any());
 
         Map<String, Object> signerResponse = new HashMap<>();
         signerResponse.put(DATA, Map.of("selfDescriptionCredential", Map.of(this.randomUUID, this.randomUUID)));
@@ -310,7 +304,7 @@ class SignerServiceUnitTest {
 
     @Test
     void testSignService() {
-        doNothing().when(this.s3Utils).uploadFile(anyString(), any());
+        doNothing().when(this.s3Utils).uploadHostedFile(anyString(), any());
 
         Map<String, Object> serviceOfferVc = new HashMap<>();
         serviceOfferVc.put(COMPLETE_SD, new HashMap<>());
@@ -340,7 +334,7 @@ class SignerServiceUnitTest {
 
     @Test
     void testAddServiceEndpoint() throws IOException {
-        doNothing().when(this.s3Utils).uploadFile(anyString(), any());
+        doNothing().when(this.s3Utils).uploadHostedFile(anyString(), any());
         doReturn(this.generateMockDidFile()).when(this.s3Utils).getObject(anyString(), anyString());
 
         assertDoesNotThrow(() -> this.signerService.addServiceEndpoint(UUID.fromString(this.randomUUID), this.randomUUID, this.randomUUID, this.randomUUID));
@@ -0,0 +1,156 @@
+package eu.gaiax.wizard.core.service.ssl;
+
+import eu.gaiax.wizard.core.service.participant.VaultService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockedConstruction;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.shredzone.acme4j.AccountBuilder;
+import org.shredzone.acme4j.Login;
+import org.shredzone.acme4j.util.KeyPairUtils;
+
+import java.io.StringWriter;
+import java.net.URL;
+import java.security.KeyPair;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static eu.gaiax.wizard.core.service.participant.VaultService.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AcmeAccountServiceUnitTest {
+
+    private static final String PROVIDER = "acme://letsencrypt.org/staging";
+    private static final String ACCOUNT_URL = "https://acme-staging-v02.api.letsencrypt.org/acme/acct/1";
+    private static final String OTHER_ACCOUNT_URL = "https://acme-staging-v02.api.letsencrypt.org/acme/acct/2";
+
+    private static KeyPair storedKeyPair;
+    private static String storedKey;
+
+    @Mock
+    private VaultService vaultService;
+
+    private AcmeAccountService acmeAccountService;
+
+    @BeforeAll
+    static void createKeyPair() throws Exception {
+        storedKeyPair = KeyPairUtils.createKeyPair(2048);
+        StringWriter pem = new StringWriter();
+        KeyPairUtils.writeKeyPair(storedKeyPair, pem);
+        storedKey = pem.toString();
+    }
+
+    @BeforeEach
+    void setUp() {
+        this.acmeAccountService = new AcmeAccountService(this.vaultService, PROVIDER);
+    }
+
+    @Test
+    void testGetLogin_storedAccount() throws Exception {
+        doReturn(account(storedKey, PROVIDER, ACCOUNT_URL)).when(this.vaultService).getAcmeAccount();
+
+        try (MockedConstruction<AccountBuilder> accountBuilders = mockConstruction(AccountBuilder.class)) {
+            Login login = this.acmeAccountService.getLogin();
+
+            assertThat(login.getAccountLocation()).isEqualTo(new URL(ACCOUNT_URL));
+            assertThat(login.getKeyPair().getPublic()).isEqualTo(storedKeyPair.getPublic());
+            assertThat(this.acmeAccountService.getLogin()).isSameAs(login);
+            assertThat(accountBuilders.constructed()).isEmpty();
+        }
+        verify(this.vaultService, times(1)).getAcmeAccount();
+        verify(this.vaultService, never()).storeAcmeAccount(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void testGetLogin_createsSharedAccount() throws Exception {
+        AtomicReference<Map<String, Object>> vault = new AtomicReference<>();
+        doAnswer(invocation -> vault.get()).when(this.vaultService).getAcmeAccount();
+        doAnswer(invocation -> {
+            vault.set(account(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2)));
+            return null;
+        }).when(this.vaultService).storeAcmeAccount(anyString(), anyString(), anyString());
+        Login registered = registeredLogin(ACCOUNT_URL);
+
+        try (MockedConstruction<AccountBuilder> accountBuilders = mockAccountBuilder(registered)) {
+            assertThat(this.acmeAccountService.getLogin()).isSameAs(registered);
+            assertThat(accountBuilders.constructed()).hasSize(1);
+        }
+        ArgumentCaptor<String> keyCaptor = ArgumentCaptor.forClass(String.class);
+        verify(this.vaultService).storeAcmeAccount(keyCaptor.capture(), eq(PROVIDER), eq(ACCOUNT_URL));
+        assertThat(keyCaptor.getValue()).contains("PRIVATE KEY");
+    }
+
+    @Test
+    void testGetLogin_anotherNodeRegisteredFirst() throws Exception {
+        // empty when this node looks first, the other node's account once this node stored its own
+        doReturn(null, account(storedKey, PROVIDER, OTHER_ACCOUNT_URL)).when(this.vaultService).getAcmeAccount();
+
+        try (MockedConstruction<AccountBuilder> ignored = mockAccountBuilder(registeredLogin(ACCOUNT_URL))) {
+            Login login = this.acmeAccountService.getLogin();
+
+            assertThat(login.getAccountLocation()).isEqualTo(new URL(OTHER_ACCOUNT_URL));
+            assertThat(login.getKeyPair().getPublic()).isEqualTo(storedKeyPair.getPublic());
+        }
+    }
+
+    @Test
+    void testGetLogin_otherProviderReusesStoredKey() throws Exception {
+        AtomicReference<Map<String, Object>> vault = new AtomicReference<>(account(storedKey, "acme://letsencrypt.org", ACCOUNT_URL));
+        doAnswer(invocation -> vault.get()).when(this.vaultService).getAcmeAccount();
+        doAnswer(invocation -> {
+            vault.set(account(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2)));
+            return null;
+        }).when(this.vaultService).storeAcmeAccount(anyString(), anyString(), anyString());
+        Login registered = registeredLogin(OTHER_ACCOUNT_URL);
+
+        try (MockedConstruction<AccountBuilder> accountBuilders = mockAccountBuilder(registered)) {
+            assertThat(this.acmeAccountService.getLogin()).isSameAs(registered);
+
+            ArgumentCaptor<KeyPair> keyPairCaptor = ArgumentCaptor.forClass(KeyPair.class);
+            verify(accountBuilders.constructed().get(0)).useKeyPair(keyPairCaptor.capture());
+            assertThat(keyPairCaptor.getValue().getPublic()).isEqualTo(storedKeyPair.getPublic());
+        }
+        verify(this.vaultService).storeAcmeAccount(storedKey, PROVIDER, OTHER_ACCOUNT_URL);
+    }
+
+    @Test
+    void testReset_readsAccountAgain() throws Exception {
+        doReturn(account(storedKey, PROVIDER, ACCOUNT_URL), account(storedKey, PROVIDER, OTHER_ACCOUNT_URL)).when(this.vaultService).getAcmeAccount();
+
+        assertThat(this.acmeAccountService.getLogin().getAccountLocation()).isEqualTo(new URL(ACCOUNT_URL));
+        this.acmeAccountService.reset();
+
+        assertThat(this.acmeAccountService.getLogin().getAccountLocation()).isEqualTo(new URL(OTHER_ACCOUNT_URL));
+    }
+
+    private static MockedConstruction<AccountBuilder> mockAccountBuilder(Login registered) {
+        return mockConstruction(AccountBuilder.class, (accountBuilder, context) -> {
+            doReturn(accountBuilder).when(accountBuilder).agreeToTermsOfService();
+            doReturn(accountBuilder).when(accountBuilder).useKeyPair(any());
+            doReturn(registered).when(accountBuilder).createLogin(any());
+        });
+    }
+
+    private static Login registeredLogin(String accountUrl) throws Exception {
+        Login login = mock(Login.class);
+        doReturn(new URL(accountUrl)).when(login).getAccountLocation();
+        return login;
+    }
+
+    private static Map<String, Object> account(String key, String provider, String accountUrl) {
+        Map<String, Object> account = new HashMap<>();
+        account.put(ACME_ACCOUNT_KEY, key);
+        account.put(ACME_ACCOUNT_PROVIDER, provider);
+        account.put(ACME_ACCOUNT_URL, accountUrl);
+        return account;
+    }
+}
@@ -0,0 +1,211 @@
+package eu.gaiax.wizard.core.service.ssl;
+
+import eu.gaiax.wizard.api.model.setting.OnboardingSettings;
+import eu.gaiax.wizard.api.model.setting.RenewalSettings;
+import eu.gaiax.wizard.api.utils.StringPool;
+import eu.gaiax.wizard.core.service.job.ScheduleService;
+import eu.gaiax.wizard.core.service.onboarding.OnboardingStepContext;
+import eu.gaiax.wizard.core.service.participant.VaultService;
+import eu.gaiax.wizard.dao.entity.participant.Participant;
+import eu.gaiax.wizard.dao.repository.participant.ParticipantRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.shredzone.acme4j.exception.AcmeException;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CertificateRenewalServiceUnitTest {
+
+    @Mock
+    private CertificateService certificateService;
+    @Mock
+    private VaultService vaultService;
+    @Mock
+    private ParticipantRepository participantRepository;
+    @Mock
+    private ScheduleService scheduleService;
+    @Mock
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CertificateRenewalService certificateRenewalService;
+    private Instant expiry;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        doReturn(this.meterRegistry).when(this.meterRegistryProvider).getIfAvailable();
+        // the test chain expires in years, renew before is chosen so that its renewal is due within 5 days
+        this.expiry = CertificateService.getExpiry(CertificateService.ISRG_ROOT_X1);
+        Duration renewBefore = Duration.between(Instant.now(), this.expiry).minus(Duration.ofDays(5));
+        this.certificateRenewalService = new CertificateRenewalService(new RenewalSettings(true, renewBefore, Duration.ofDays(14), null, 1),
+                new OnboardingSettings(Duration.ofMillis(1), null, 3, null, null), this.certificateService, this.vaultService,
+                this.participantRepository, this.scheduleService, this.meterRegistryProvider);
+    }
+
+    @Test
+    void testScan_staggersRenewals() throws Exception {
+        List<Participant> participants = new ArrayList<>();
+        Map<String, Map<String, Object>> secrets = new HashMap<>();
+        for (int i = 0; i < 4; i++) {
+            Participant participant = this.participant();
+            participants.add(participant);
+            secrets.put(participant.getId().toString(), Map.of(VaultService.CERTIFICATE_CHAIN, CertificateService.ISRG_ROOT_X1, participant.getId() + ".key", "key"));
+        }
+        Participant shared = this.participant();
+        participants.add(shared);
+        secrets.put(shared.getId().toString(), Map.of(VaultService.CERTIFICATE_CHAIN, CertificateService.ISRG_ROOT_X1, VaultService.SHARED_KEY, "true"));
+        Participant withoutCertificate = this.participant();
+        participants.add(withoutCertificate);
+
+        Instant alreadyScheduled = Instant.now().plus(Duration.ofDays(2));
+        doReturn(participants).when(this.participantRepository).findAllByDomainIsNotNull();
+        doReturn(secrets).when(this.vaultService).getParticipantsSecretData(any());
+        doReturn(List.of(Date.from(alreadyScheduled))).when(this.scheduleService).getNextFireTimes(StringPool.JOB_TYPE_RENEW_CERTIFICATE);
+        doReturn(true).when(this.scheduleService).createRenewalJob(any(), any());
+
+        Instant before = Instant.now();
+        this.certificateRenewalService.scan();
+
+        ArgumentCaptor<UUID> ids = ArgumentCaptor.forClass(UUID.class);
+        ArgumentCaptor<Date> startAt = ArgumentCaptor.forClass(Date.class);
+        verify(this.scheduleService, times(4)).createRenewalJob(ids.capture(), startAt.capture());
+        assertThat(ids.getAllValues()).doesNotContain(shared.getId(), withoutCertificate.getId());
+
+        List<Instant> slots = new ArrayList<>(startAt.getAllValues().stream().map(Date::toInstant).toList());
+        slots.add(alreadyScheduled);
+        Collections.sort(slots);
+        assertThat(slots.get(0)).isAfterOrEqualTo(before.truncatedTo(ChronoUnit.MILLIS));
+        for (int i = 1; i < slots.size(); i++) {
+            assertThat(Duration.between(slots.get(i - 1), slots.get(i))).isGreaterThanOrEqualTo(Duration.ofHours(1));
+        }
+        verify(this.participantRepository, times(4)).updateCertificateExpiry(any(), eq(Date.from(this.expiry)));
+    }
+
+    @Test
+    void testScan_expiryAlreadyStored() throws Exception {
+        Participant participant = this.participant();
+        participant.setCertificateExpiry(Date.from(this.expiry));
+        doReturn(List.of(participant)).when(this.participantRepository).findAllByDomainIsNotNull();
+        doReturn(Map.of(participant.getId().toString(), Map.of(VaultService.CERTIFICATE_CHAIN, CertificateService.ISRG_ROOT_X1, participant.getId() + ".key", "key")))
+                .when(this.vaultService).getParticipantsSecretData(any());
+        doReturn(List.of()).when(this.scheduleService).getNextFireTimes(StringPool.JOB_TYPE_RENEW_CERTIFICATE);
+        doReturn(false).when(this.scheduleService).createRenewalJob(eq(participant.getId()), any());
+
+        this.certificateRenewalService.scan();
+
+        verify(this.participantRepository, never()).updateCertificateExpiry(any(), any());
+    }
+
+    @Test
+    void testGauges_readPersistedData() throws Exception {
+        Instant now = Instant.now();
+        doReturn(4L).when(this.participantRepository).countByCertificateExpiryBefore(any());
+        doReturn(Date.from(this.expiry)).when(this.participantRepository).findEarliestCertificateExpiry();
+        doReturn(5).when(this.scheduleService).countJobs(StringPool.JOB_TYPE_RENEW_CERTIFICATE);
+
+        assertThat(this.meterRegistry.get("wizard.certificate.renewals.upcoming").tag("within", "1d").gauge().value()).isEqualTo(4);
+        assertThat(this.meterRegistry.get("wizard.certificate.renewals.scheduled").gauge().value()).isEqualTo(5);
+        assertThat(this.meterRegistry.get("wizard.certificate.earliest.expiry").gauge().value())
+                .isCloseTo(Duration.between(now, this.expiry).toSeconds(), offset(60.0));
+        // read once per refresh
+        this.meterRegistry.get("wizard.certificate.renewals.scheduled").gauge().value();
+        verify(this.scheduleService, times(1)).countJobs(StringPool.JOB_TYPE_RENEW_CERTIFICATE);
+        verifyNoInteractions(this.vaultService);
+    }
+
+    @Test
+    void testNextFreeSlot() {
+        Instant now = Instant.now();
+        List<Instant> taken = List.of(now, now.plusSeconds(3600), now.plusSeconds(20000));
+        Duration spacing = Duration.ofHours(1);
+
+        assertThat(CertificateRenewalService.nextFreeSlot(taken, now.plusSeconds(60), spacing)).isEqualTo(now.plusSeconds(7200));
+        assertThat(CertificateRenewalService.nextFreeSlot(taken, now.plusSeconds(7200), spacing)).isEqualTo(now.plusSeconds(7200));
+        assertThat(CertificateRenewalService.nextFreeSlot(taken, now.plusSeconds(18000), spacing)).isEqualTo(now.plusSeconds(23600));
+        assertThat(CertificateRenewalService.nextFreeSlot(taken, now.plusSeconds(30000), spacing)).isEqualTo(now.plusSeconds(30000));
+    }
+
+    @Test
+    void testRenew() throws Exception {
+        UUID participantId = UUID.randomUUID();
+        doReturn(true).when(this.certificateService).renewSSLCertificate(eq(participantId), any(OnboardingStepContext.class));
+
+        this.certificateRenewalService.renew(participantId, new OnboardingStepContext(null, 0));
+
+        verify(this.scheduleService, never()).continueRenewalJob(any(), any(), anyInt(), any());
+        assertThat(this.meterRegistry.get("wizard.certificate.renewals").tag("outcome", "renewed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testRenew_waitsWithBackoff() throws Exception {
+        UUID participantId = UUID.randomUUID();
+        doAnswer(invocation -> {
+            invocation.<OnboardingStepContext>getArgument(1).put("phase", "DNS_PROPAGATION");
+            return false;
+        }).when(this.certificateService).renewSSLCertificate(eq(participantId), any(OnboardingStepContext.class));
+
+        this.certificateRenewalService.renew(participantId, new OnboardingStepContext(null, 2));
+
+        verify(this.scheduleService).continueRenewalJob(eq(participantId), eq(Map.of("phase", "DNS_PROPAGATION")), eq(3), eq(Duration.ofMillis(4)));
+        assertThat(this.meterRegistry.find("wizard.certificate.renewals").counter()).isNull();
+    }
+
+    @Test
+    void testRenew_retryAfter() throws Exception {
+        UUID participantId = UUID.randomUUID();
+        doAnswer(invocation -> {
+            invocation.<OnboardingStepContext>getArgument(1).setRetryAfter(Duration.ofSeconds(30));
+            return false;
+        }).when(this.certificateService).renewSSLCertificate(eq(participantId), any(OnboardingStepContext.class));
+
+        this.certificateRenewalService.renew(participantId, new OnboardingStepContext(null, 0));
+
+        verify(this.scheduleService).continueRenewalJob(eq(participantId), any(), eq(1), eq(Duration.ofSeconds(30)));
+    }
+
+    @Test
+    void testRenew_waitsExhausted() throws Exception {
+        UUID participantId = UUID.randomUUID();
+        doReturn(false).when(this.certificateService).renewSSLCertificate(eq(participantId), any(OnboardingStepContext.class));
+
+        this.certificateRenewalService.renew(participantId, new OnboardingStepContext(null, 3));
+
+        verify(this.scheduleService, never()).continueRenewalJob(any(), any(), anyInt(), any());
+        assertThat(this.meterRegistry.get("wizard.certificate.renewals").tag("outcome", "failed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testRenew_failed() throws Exception {
+        UUID participantId = UUID.randomUUID();
+        doThrow(new AcmeException("order.failed")).when(this.certificateService).renewSSLCertificate(eq(participantId), any(OnboardingStepContext.class));
+
+        this.certificateRenewalService.renew(participantId, new OnboardingStepContext(null, 0));
+
+        assertThat(this.meterRegistry.get("wizard.certificate.renewals").tag("outcome", "failed").counter().count()).isEqualTo(1);
+    }
+
+    private Participant participant() {
+        Participant participant = new Participant();
+        participant.setId(UUID.randomUUID());
+        participant.setDomain(participant.getId() + ".wizard.example.eu");
+        return participant;
+    }
+}
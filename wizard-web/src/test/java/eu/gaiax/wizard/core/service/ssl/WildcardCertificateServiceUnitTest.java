@@ -0,0 +1,219 @@
+package eu.gaiax.wizard.core.service.ssl;
+
+import eu.gaiax.wizard.api.model.RegistrationStatus;
+import eu.gaiax.wizard.api.model.setting.OnboardingSettings;
+import eu.gaiax.wizard.api.model.setting.WildcardSettings;
+import eu.gaiax.wizard.api.utils.StringPool;
+import eu.gaiax.wizard.core.service.domain.DomainService;
+import eu.gaiax.wizard.core.service.hosting.HostedArtifactService;
+import eu.gaiax.wizard.core.service.job.ScheduleService;
+import eu.gaiax.wizard.core.service.k8s.K8SService;
+import eu.gaiax.wizard.core.service.onboarding.OnboardingStepContext;
+import eu.gaiax.wizard.core.service.participant.VaultService;
+import eu.gaiax.wizard.dao.entity.participant.Participant;
+import eu.gaiax.wizard.dao.repository.participant.ParticipantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.quartz.SchedulerException;
+import org.shredzone.acme4j.*;
+import org.shredzone.acme4j.challenge.Dns01Challenge;
+
+import java.io.IOException;
+import java.net.URL;
+import java.security.cert.CertificateException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WildcardCertificateServiceUnitTest {
+
+    private static final String DOMAIN = "wizard.example.eu";
+    private static final String TXT_NAME = "_acme-challenge." + DOMAIN;
+    private static final String ACCOUNT_URL = "https://acme.example.eu/acct/1";
+
+    @Mock
+    private DomainService domainService;
+    @Mock
+    private VaultService vaultService;
+    @Mock
+    private AcmeAccountService acmeAccountService;
+    @Mock
+    private K8SService k8SService;
+    @Mock
+    private HostedArtifactService hostedArtifactService;
+    @Mock
+    private ParticipantRepository participantRepository;
+    @Mock
+    private ScheduleService scheduleService;
+    @Mock
+    private Login login;
+    @Mock
+    private Account account;
+    @Mock
+    private OrderBuilder orderBuilder;
+    @Mock
+    private Order order;
+    @Mock
+    private Authorization authorization;
+    @Mock
+    private Dns01Challenge challenge;
+
+    private final OnboardingSettings onboardingSettings = new OnboardingSettings(Duration.ofSeconds(5), Duration.ofMinutes(5), 3, null, null);
+    private WildcardCertificateService wildcardCertificateService;
+
+    private final Participant participant = new Participant();
+
+    @BeforeEach
+    void setUp() {
+        this.wildcardCertificateService = this.create(true, Duration.ofDays(30));
+        this.participant.setId(UUID.randomUUID());
+        this.participant.setDomain("acme." + DOMAIN);
+        this.participant.setStatus(RegistrationStatus.CERTIFICATE_CREATION_IN_PROCESS.getStatus());
+    }
+
+    @Test
+    void testAssignCertificate() throws IOException {
+        doReturn(Optional.of(this.participant)).when(this.participantRepository).findById(this.participant.getId());
+        doReturn(Map.of(VaultService.CERTIFICATE_CHAIN, "chain", VaultService.PKCS8_KEY, "pkcs8")).when(this.vaultService).getWildcardCertificate();
+
+        this.wildcardCertificateService.assignCertificate(this.participant.getId());
+
+        verify(this.vaultService).storeSharedCertificate(this.participant.getId().toString(), "chain", "pkcs8");
+        verify(this.hostedArtifactService).publishCertificateChain(this.participant.getId(), "chain");
+        verify(this.hostedArtifactService).publishDomain(this.participant.getDomain(), this.participant.getId());
+        verify(this.participantRepository).save(this.participant);
+        assertThat(this.participant.getStatus()).isEqualTo(RegistrationStatus.CERTIFICATE_CREATED.getStatus());
+        assertThat(this.participant.isKeyStored()).isTrue();
+    }
+
+    @Test
+    void testAssignCertificate_notIssuedYet() throws IOException {
+        doReturn(Optional.of(this.participant)).when(this.participantRepository).findById(this.participant.getId());
+        doReturn(null).when(this.vaultService).getWildcardCertificate();
+
+        this.wildcardCertificateService.assignCertificate(this.participant.getId());
+
+        verify(this.participantRepository, never()).save(any());
+        verifyNoInteractions(this.hostedArtifactService);
+        assertThat(this.participant.getStatus()).isEqualTo(RegistrationStatus.CERTIFICATE_CREATION_IN_PROCESS.getStatus());
+    }
+
+    @Test
+    void testRenew_notDue() {
+        doReturn(Map.of(VaultService.CERTIFICATE_CHAIN, CertificateService.ISRG_ROOT_X1, VaultService.DOMAIN_KEY, "key")).when(this.vaultService).getWildcardCertificate();
+
+        this.wildcardCertificateService.renew(new OnboardingStepContext(null, 0));
+
+        verify(this.domainService).upsertWildcardRecord(DOMAIN);
+        verifyNoInteractions(this.acmeAccountService, this.k8SService, this.hostedArtifactService);
+    }
+
+    @Test
+    void testRenew_alreadyInProgress() throws SchedulerException {
+        doReturn(true).when(this.scheduleService).isWildcardRenewalInProgress();
+
+        this.wildcardCertificateService.renew(new OnboardingStepContext(null, 0));
+
+        verify(this.domainService).upsertWildcardRecord(DOMAIN);
+        verifyNoInteractions(this.vaultService, this.acmeAccountService);
+    }
+
+    @Test
+    void testRenew_disabled() {
+        this.create(false, Duration.ofDays(30)).renew(new OnboardingStepContext(null, 0));
+
+        verifyNoInteractions(this.domainService, this.vaultService, this.acmeAccountService);
+    }
+
+    @Test
+    void testRenew_placesOrderAndContinuesLater() throws Exception {
+        doReturn(this.login).when(this.acmeAccountService).getLogin();
+        doReturn(this.account).when(this.login).getAccount();
+        doReturn(new URL(ACCOUNT_URL)).when(this.login).getAccountLocation();
+        doReturn(this.orderBuilder).when(this.account).newOrder();
+        doReturn(this.orderBuilder).when(this.orderBuilder).domains("*." + DOMAIN, DOMAIN);
+        doReturn(this.order).when(this.orderBuilder).create();
+        doReturn(new URL("https://acme.example.eu/order/1")).when(this.order).getLocation();
+        doReturn(List.of(this.authorization)).when(this.order).getAuthorizations();
+        doReturn(Status.PENDING).when(this.authorization).getStatus();
+        doReturn(this.challenge).when(this.authorization).findChallenge(Dns01Challenge.TYPE);
+        doReturn(Identifier.dns(DOMAIN)).when(this.authorization).getIdentifier();
+        doReturn(new URL("https://acme.example.eu/authz/1")).when(this.authorization).getLocation();
+        doReturn("digest").when(this.challenge).getDigest();
+        doReturn("change-1").when(this.domainService).updateTxtRecords(TXT_NAME, List.of("digest"), StringPool.UPSERT);
+
+        this.wildcardCertificateService.renew(new OnboardingStepContext(null, 0));
+
+        verify(this.vaultService).storeWildcardKey(anyString());
+        verify(this.scheduleService).continueWildcardRenewalJob(argThat(data -> "DNS_PROPAGATION".equals(data.get("phase"))
+                && "change-1".equals(data.get("txtChange"))), eq(1), eq(Duration.ofSeconds(5)));
+        verifyNoInteractions(this.k8SService);
+    }
+
+    @Test
+    void testRenew_waitsForDnsPropagationWithBackoff() throws Exception {
+        doReturn(this.login).when(this.acmeAccountService).getLogin();
+        doReturn(new URL(ACCOUNT_URL)).when(this.login).getAccountLocation();
+        doReturn(false).when(this.domainService).isChangeInSync("change-1");
+
+        this.wildcardCertificateService.renew(new OnboardingStepContext(this.waitingForDns(), 2));
+
+        verify(this.scheduleService).continueWildcardRenewalJob(any(), eq(3), eq(Duration.ofSeconds(20)));
+        verify(this.domainService, never()).upsertWildcardRecord(any());
+        verify(this.domainService, never()).updateTxtRecords(any(), anyList(), any());
+    }
+
+    @Test
+    void testRenew_waitsExhausted() throws Exception {
+        doReturn(this.login).when(this.acmeAccountService).getLogin();
+        doReturn(new URL(ACCOUNT_URL)).when(this.login).getAccountLocation();
+        doReturn(false).when(this.domainService).isChangeInSync("change-1");
+
+        this.wildcardCertificateService.renew(new OnboardingStepContext(this.waitingForDns(), 3));
+
+        verify(this.domainService).updateTxtRecords(TXT_NAME, List.of("digest"), StringPool.DELETE);
+        verify(this.scheduleService, never()).continueWildcardRenewalJob(any(), anyInt(), any());
+    }
+
+    @Test
+    void testScheduleRenewal_sharedKeyIgnoredWhenDisabled() throws SchedulerException {
+        WildcardCertificateService service = new WildcardCertificateService(new WildcardSettings(false, null, null, null, true), this.onboardingSettings,
+                this.domainService, this.vaultService, this.acmeAccountService, this.k8SService, this.hostedArtifactService, this.participantRepository,
+                this.scheduleService, DOMAIN);
+
+        service.scheduleRenewal();
+
+        assertThat(service.isSharedKey()).isFalse();
+        verify(this.scheduleService, never()).createWildcardRenewalJob(any());
+    }
+
+    @Test
+    void testIsDue() throws CertificateException {
+        Map<String, Object> certificate = Map.of(VaultService.CERTIFICATE_CHAIN, CertificateService.ISRG_ROOT_X1, VaultService.DOMAIN_KEY, "key");
+
+        assertThat(this.wildcardCertificateService.isDue(null)).isTrue();
+        assertThat(this.wildcardCertificateService.isDue(Map.of(VaultService.CERTIFICATE_CHAIN, CertificateService.ISRG_ROOT_X1))).isTrue();
+        assertThat(this.wildcardCertificateService.isDue(certificate)).isFalse();
+        assertThat(this.create(true, Duration.ofDays(365 * 100)).isDue(certificate)).isTrue();
+    }
+
+    private Map<String, String> waitingForDns() {
+        return Map.of("phase", "DNS_PROPAGATION", "account", ACCOUNT_URL, "order", "https://acme.example.eu/order/1",
+                "authorizations", "https://acme.example.eu/authz/1", "txtName", TXT_NAME, "txtValues", "digest", "txtChange", "change-1");
+    }
+
+    private WildcardCertificateService create(boolean enabled, Duration renewBefore) {
+        return new WildcardCertificateService(new WildcardSettings(enabled, renewBefore, null, null, null), this.onboardingSettings, this.domainService,
+                this.vaultService, this.acmeAccountService, this.k8SService, this.hostedArtifactService, this.participantRepository, this.scheduleService, DOMAIN);
+    }
+}
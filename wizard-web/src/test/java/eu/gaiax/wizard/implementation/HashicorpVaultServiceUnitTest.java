@@ -0,0 +1,80 @@
+package eu.gaiax.wizard.implementation;
+
+import eu.gaiax.wizard.api.exception.VaultException;
+import eu.gaiax.wizard.model.VaultPathConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.vault.core.VaultKeyValueOperations;
+import org.springframework.vault.core.VaultKeyValueOperationsSupport;
+import org.springframework.vault.core.VaultTemplate;
+import org.springframework.vault.support.VaultResponse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HashicorpVaultServiceUnitTest {
+
+    @Mock
+    private VaultTemplate template;
+    @Mock
+    private VaultKeyValueOperations keyValueOperations;
+
+    private HashicorpVaultService hashicorpVaultService;
+
+    @BeforeEach
+    void setUp() {
+        doReturn(this.keyValueOperations).when(this.template).opsForKeyValue("secret", VaultKeyValueOperationsSupport.KeyValueBackend.KV_2);
+        this.hashicorpVaultService = new HashicorpVaultService(new VaultPathConfiguration("secret", 2), this.template);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.hashicorpVaultService.destroy();
+    }
+
+    @Test
+    void testGetMany_readsInParallel() {
+        CountDownLatch bothReading = new CountDownLatch(2);
+        doAnswer(invocation -> {
+            bothReading.countDown();
+            // only completes if the second read runs at the same time
+            assertThat(bothReading.await(5, TimeUnit.SECONDS)).isTrue();
+            VaultResponse response = new VaultResponse();
+            response.setData(Map.of("pkcs8.key", invocation.getArgument(0)));
+            return response;
+        }).when(this.keyValueOperations).get(anyString());
+
+        Map<String, Map<String, Object>> secrets = this.hashicorpVaultService.getMany(List.of("first", "second"));
+
+        assertThat(secrets).containsOnlyKeys("first", "second");
+        assertThat(secrets.get("second")).containsEntry("pkcs8.key", "second");
+    }
+
+    @Test
+    void testGetMany_missingLeftOut() {
+        doReturn(null).when(this.keyValueOperations).get("missing");
+
+        assertThat(this.hashicorpVaultService.getMany(List.of("missing"))).isEmpty();
+    }
+
+    @Test
+    void testPutMany_failurePropagated() {
+        doThrow(new IllegalStateException("sealed")).when(this.keyValueOperations).put("second", Map.of("b", "2"));
+
+        assertThatThrownBy(() -> this.hashicorpVaultService.putMany(Map.of("first", Map.of("a", "1"), "second", Map.of("b", "2"))))
+                .isInstanceOf(VaultException.class);
+        verify(this.keyValueOperations).put("first", Map.of("a", "1"));
+    }
+}
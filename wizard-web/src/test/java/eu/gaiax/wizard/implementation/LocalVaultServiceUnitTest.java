@@ -0,0 +1,78 @@
+package eu.gaiax.wizard.implementation;
+
+import eu.gaiax.wizard.api.exception.VaultException;
+import eu.gaiax.wizard.model.LocalVaultSettings;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalVaultServiceUnitTest {
+
+    @TempDir
+    Path directory;
+    private LocalVaultService localVaultService;
+
+    @BeforeEach
+    void setUp() {
+        String masterKey = Base64.getEncoder().encodeToString(new byte[32]);
+        this.localVaultService = new LocalVaultService(new LocalVaultSettings(this.directory.toString(), masterKey));
+    }
+
+    @Test
+    void testPutAndGet() throws Exception {
+        this.localVaultService.put("participant", Map.of("pkcs8.key", "secret"));
+
+        assertThat(this.localVaultService.get("participant")).containsEntry("pkcs8.key", "secret");
+        try (var files = Files.list(this.directory)) {
+            List<Path> stored = files.toList();
+            assertThat(stored).hasSize(1);
+            assertThat(new String(Files.readAllBytes(stored.get(0)), StandardCharsets.ISO_8859_1)).doesNotContain("secret");
+        }
+    }
+
+    @Test
+    void testGet_missing() {
+        assertThat(this.localVaultService.get("unknown")).isNull();
+    }
+
+    @Test
+    void testPatch() {
+        assertThat(this.localVaultService.patch("participant", Map.of("pkcs8.key", "secret"))).isFalse();
+
+        this.localVaultService.put("participant", Map.of("x509CertificateChain.pem", "chain"));
+        assertThat(this.localVaultService.patch("participant", Map.of("pkcs8.key", "secret"))).isTrue();
+
+        assertThat(this.localVaultService.get("participant"))
+                .containsEntry("x509CertificateChain.pem", "chain")
+                .containsEntry("pkcs8.key", "secret");
+    }
+
+    @Test
+    void testGetMany() {
+        this.localVaultService.putMany(Map.of("first", Map.of("key", "1"), "second", Map.of("key", "2")));
+
+        assertThat(this.localVaultService.getMany(List.of("first", "second", "third")))
+                .containsOnlyKeys("first", "second");
+    }
+
+    @Test
+    void testGet_swappedFile() throws Exception {
+        this.localVaultService.put("first", Map.of("key", "1"));
+        this.localVaultService.put("second", Map.of("key", "2"));
+        Path first = this.directory.resolve(Base64.getUrlEncoder().withoutPadding().encodeToString("first".getBytes(StandardCharsets.UTF_8)) + ".secret");
+        Path second = this.directory.resolve(Base64.getUrlEncoder().withoutPadding().encodeToString("second".getBytes(StandardCharsets.UTF_8)) + ".secret");
+        Files.write(first, Files.readAllBytes(second));
+
+        assertThatThrownBy(() -> this.localVaultService.get("first")).isInstanceOf(VaultException.class);
+    }
+}
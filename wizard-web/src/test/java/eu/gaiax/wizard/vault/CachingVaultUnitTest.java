@@ -0,0 +1,102 @@
+package eu.gaiax.wizard.vault;
+
+import eu.gaiax.wizard.api.vault.Vault;
+import eu.gaiax.wizard.model.VaultCacheSettings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingVaultUnitTest {
+
+    private static final String SECRET_NAME = "participant";
+
+    @Mock
+    private Vault delegate;
+    private SimpleMeterRegistry meterRegistry;
+    private CachingVault cachingVault;
+
+    @BeforeEach
+    void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.cachingVault = new CachingVault(this.delegate, new VaultCacheSettings(true, Duration.ofMinutes(1), 10L), this.meterRegistry);
+    }
+
+    @Test
+    void testGet_cached() {
+        doReturn(Map.of("pkcs8.key", "secret")).when(this.delegate).get(SECRET_NAME);
+
+        assertThat(this.cachingVault.get(SECRET_NAME)).containsEntry("pkcs8.key", "secret");
+        assertThat(this.cachingVault.get(SECRET_NAME)).containsEntry("pkcs8.key", "secret");
+
+        verify(this.delegate, times(1)).get(SECRET_NAME);
+        assertThat(this.meterRegistry.get("cache.gets").tag("cache", "vault.secrets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testGet_missingNotCached() {
+        doReturn(null).when(this.delegate).get(SECRET_NAME);
+
+        assertThat(this.cachingVault.get(SECRET_NAME)).isNull();
+        assertThat(this.cachingVault.get(SECRET_NAME)).isNull();
+
+        verify(this.delegate, times(2)).get(SECRET_NAME);
+    }
+
+    @Test
+    void testPatch_invalidates() {
+        doReturn(Map.of("pkcs8.key", "secret")).doReturn(Map.of("pkcs8.key", "rotated")).when(this.delegate).get(SECRET_NAME);
+        doReturn(true).when(this.delegate).patch(SECRET_NAME, Map.of("pkcs8.key", "rotated"));
+
+        this.cachingVault.get(SECRET_NAME);
+        this.cachingVault.patch(SECRET_NAME, Map.of("pkcs8.key", "rotated"));
+
+        assertThat(this.cachingVault.get(SECRET_NAME)).containsEntry("pkcs8.key", "rotated");
+        verify(this.delegate, times(2)).get(SECRET_NAME);
+    }
+
+    @Test
+    void testPut_invalidates() {
+        doReturn(Map.of("pkcs8.key", "secret")).when(this.delegate).get(SECRET_NAME);
+
+        this.cachingVault.get(SECRET_NAME);
+        this.cachingVault.put(SECRET_NAME, Map.of("pkcs8.key", "secret"));
+        this.cachingVault.get(SECRET_NAME);
+
+        verify(this.delegate, times(2)).get(SECRET_NAME);
+    }
+
+    @Test
+    void testGetMany_writtenWhileLoadingNotCached() {
+        doAnswer(invocation -> {
+            // written by another thread while the bulk load runs
+            this.cachingVault.put(SECRET_NAME, Map.of("pkcs8.key", "rotated"));
+            return Map.of(SECRET_NAME, Map.of("pkcs8.key", "secret"));
+        }).when(this.delegate).getMany(List.of(SECRET_NAME));
+        doReturn(Map.of("pkcs8.key", "rotated")).when(this.delegate).get(SECRET_NAME);
+
+        this.cachingVault.getMany(List.of(SECRET_NAME));
+
+        assertThat(this.cachingVault.get(SECRET_NAME)).containsEntry("pkcs8.key", "rotated");
+    }
+
+    @Test
+    void testGetMany_cached() {
+        doReturn(Map.of(SECRET_NAME, Map.of("pkcs8.key", "secret"))).when(this.delegate).getMany(List.of(SECRET_NAME));
+
+        this.cachingVault.getMany(List.of(SECRET_NAME));
+
+        assertThat(this.cachingVault.get(SECRET_NAME)).containsEntry("pkcs8.key", "secret");
+        verify(this.delegate, never()).get(SECRET_NAME);
+    }
+}
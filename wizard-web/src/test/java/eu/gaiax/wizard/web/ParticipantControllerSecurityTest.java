@@ -0,0 +1,115 @@
+package eu.gaiax.wizard.web;
+
+import eu.gaiax.wizard.api.model.BulkOnboardingJobDto;
+import eu.gaiax.wizard.api.model.BulkOnboardingJobState;
+import eu.gaiax.wizard.api.model.setting.HostingSettings;
+import eu.gaiax.wizard.config.security.AuthenticationConfig;
+import eu.gaiax.wizard.config.security.model.SecurityConfigProperties;
+import eu.gaiax.wizard.controller.ParticipantController;
+import eu.gaiax.wizard.core.service.onboarding.OnboardingHistoryService;
+import eu.gaiax.wizard.core.service.onboarding.OnboardingProgressService;
+import eu.gaiax.wizard.core.service.onboarding.OnboardingWorkflowService;
+import eu.gaiax.wizard.core.service.participant.BulkOnboardingService;
+import eu.gaiax.wizard.core.service.participant.ParticipantService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static eu.gaiax.wizard.api.utils.RoleConstant.ADMIN_ROLE;
+import static eu.gaiax.wizard.api.utils.RoleConstant.PARTICIPANT_ROLE;
+import static eu.gaiax.wizard.utils.WizardRestConstant.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The onboarding admin endpoints are two segment paths, which the public participant file pattern would match as well.
+ */
+@WebMvcTest(controllers = ParticipantController.class, properties = "wizard.security.client-id=wizard")
+class ParticipantControllerSecurityTest {
+
+    private static final String ADMIN_TOKEN = "admin";
+    private static final String PARTICIPANT_TOKEN = "participant";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @MockBean
+    private JwtDecoder jwtDecoder;
+    @MockBean
+    private ParticipantService participantService;
+    @MockBean
+    private OnboardingWorkflowService onboardingWorkflowService;
+    @MockBean
+    private OnboardingHistoryService onboardingHistoryService;
+    @MockBean
+    private OnboardingProgressService onboardingProgressService;
+    @MockBean
+    private BulkOnboardingService bulkOnboardingService;
+    @MockBean
+    private HostingSettings hostingSettings;
+
+    @BeforeEach
+    void setUp() {
+        doReturn(jwt(ADMIN_TOKEN, ADMIN_ROLE)).when(this.jwtDecoder).decode(ADMIN_TOKEN);
+        doReturn(jwt(PARTICIPANT_TOKEN, PARTICIPANT_ROLE)).when(this.jwtDecoder).decode(PARTICIPANT_TOKEN);
+    }
+
+    @Test
+    void testOnboardingEndpoints_anonymousRejected() throws Exception {
+        this.mockMvc.perform(get(ONBOARDING_DEAD_LETTERS)).andExpect(status().isUnauthorized());
+        this.mockMvc.perform(get(ONBOARDING_STEP_LATENCY)).andExpect(status().isUnauthorized());
+        this.mockMvc.perform(get(ONBOARDING_BULK_JOB, UUID.randomUUID())).andExpect(status().isUnauthorized());
+        this.mockMvc.perform(post(ONBOARDING_BULK).contentType("application/x-ndjson").content("{}")).andExpect(status().isUnauthorized());
+
+        verifyNoInteractions(this.onboardingWorkflowService, this.onboardingHistoryService, this.bulkOnboardingService);
+    }
+
+    @Test
+    void testOnboardingEndpoints_participantForbidden() throws Exception {
+        this.mockMvc.perform(get(ONBOARDING_DEAD_LETTERS).header(HttpHeaders.AUTHORIZATION, "Bearer " + PARTICIPANT_TOKEN))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(this.onboardingWorkflowService);
+    }
+
+    @Test
+    void testBulkOnboardingStatus_admin() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        doReturn(new BulkOnboardingJobDto(jobId, BulkOnboardingJobState.PENDING, 1, 0, 0, new Date(), new Date(), List.of()))
+                .when(this.bulkOnboardingService).getJob(jobId);
+
+        this.mockMvc.perform(get(ONBOARDING_BULK_JOB, jobId).header(HttpHeaders.AUTHORIZATION, "Bearer " + ADMIN_TOKEN))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.payload.jobId").value(jobId.toString()));
+    }
+
+    private static Jwt jwt(String token, String role) {
+        return Jwt.withTokenValue(token)
+                .header("alg", "none")
+                .subject(token)
+                .claim("resource_access", Map.of("wizard", Map.of("roles", List.of(role))))
+                .build();
+    }
+
+    @SpringBootConfiguration
+    @EnableConfigurationProperties(SecurityConfigProperties.class)
+    @Import({ParticipantController.class, AuthenticationConfig.class})
+    static class TestConfiguration {
+    }
+}
@@ -34,6 +34,7 @@ import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.context.MessageSource;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
@@ -41,12 +42,15 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.transaction.BeforeTransaction;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
+import java.util.zip.GZIPInputStream;
 
 import static eu.gaiax.wizard.api.utils.StringPool.*;
 import static eu.gaiax.wizard.util.constant.TestConstant.*;
@@ -215,8 +219,24 @@ class ParticipantControllerTest {
         this.initiate_onboarding_participant_own_did_200();
         Participant participant = this.participantRepository.findAll().get(0);
         
-        String legalParticipantJson = this.participantController.getLegalParticipantJson(participant.getId().toString(), "participant.json");
-        assertThat(legalParticipantJson).isEqualTo(this.mapper.writeValueAsString(Map.of(this.randomUUID, this.randomUUID)));
+        ResponseEntity<byte[]> legalParticipantJson = this.participantController.getLegalParticipantJson(participant.getId().toString(), "participant.json", null);
+        assertThat(new String(legalParticipantJson.getBody(), StandardCharsets.UTF_8)).isEqualTo(this.mapper.writeValueAsString(Map.of(this.randomUUID, this.randomUUID)));
+        assertThat(legalParticipantJson.getHeaders().getETag()).isNotBlank();
+        assertThat(legalParticipantJson.getHeaders().getCacheControl()).isNotBlank();
+    }
+    
+    @Test
+    void get_legal_participant_gzip_200() throws IOException {
+        this.initiate_onboarding_participant_own_did_200();
+        Participant participant = this.participantRepository.findAll().get(0);
+        
+        ResponseEntity<byte[]> identity = this.participantController.getLegalParticipantJson(participant.getId().toString(), "participant.json", null);
+        ResponseEntity<byte[]> gzip = this.participantController.getLegalParticipantJson(participant.getId().toString(), "participant.json", "gzip, deflate, br");
+        assertThat(gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gzip.getHeaders().getETag()).isNotEqualTo(identity.getHeaders().getETag());
+        try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(gzip.getBody()))) {
+            assertThat(inputStream.readAllBytes()).isEqualTo(identity.getBody());
+        }
     }
     
     @Test
@@ -225,7 +245,7 @@ class ParticipantControllerTest {
         Participant participant = this.participantRepository.findAll().get(0);
         String participantId = participant.getId().toString();
         String domain = participant.getDomain();
-        assertThrows(EntityNotFoundException.class, () -> this.participantController.getWellKnownFiles(participantId + ".key", domain));
+        assertThrows(EntityNotFoundException.class, () -> this.participantController.getWellKnownFiles(participantId + ".key", domain, null));
     }
     
     @Test
@@ -236,8 +256,8 @@ class ParticipantControllerTest {
         
         doReturn(Map.of("x509CertificateChain.pem", this.randomUUID)).when(this.vaultService).getParticipantSecretData(anyString());
         
-        String wellKnownFile = this.participantController.getWellKnownFiles("x509CertificateChain.pem", participant.getDomain());
-        assertThat(wellKnownFile).isEqualTo(this.randomUUID);
+        ResponseEntity<byte[]> wellKnownFile = this.participantController.getWellKnownFiles("x509CertificateChain.pem", participant.getDomain(), null);
+        assertThat(new String(wellKnownFile.getBody(), StandardCharsets.UTF_8)).isEqualTo(this.randomUUID);
     }
     
     @Test
@@ -287,8 +307,10 @@ class ParticipantControllerTest {
         this.initiate_onboarding_participant_own_did_200();
         Participant participant = this.participantRepository.findAll().get(0);
         
-        CommonResponse<Map<String, Object>> participantImageUploadResponse = this.participantController.updateParticipantProfileImage(participant.getId().toString(), HelperService.getValidUpdateProfileImageRequest());
-        assertThat(participantImageUploadResponse.getPayload().get("imageUrl")).isNotNull();
+        CommonResponse<ProfileImageUploadDto> participantImageUploadResponse = this.participantController.updateParticipantProfileImage(participant.getId().toString(), HelperService.getValidUpdateProfileImageRequest());
+        assertThat(participantImageUploadResponse.getPayload().status()).isEqualTo(ProfileImageStatus.PROCESSING);
+        assertThat(participantImageUploadResponse.getPayload().profileImage()).endsWith("/medium.jpg");
+        assertThat(participantImageUploadResponse.getPayload().imageUrl()).isNotNull();
     }
     
     @Test
@@ -298,8 +320,10 @@ class ParticipantControllerTest {
         this.participantController.updateParticipantProfileImage(participant.getId().toString(), HelperService.getValidUpdateProfileImageRequest());
 
 //       Update picture with deleting existing picture
-        CommonResponse<Map<String, Object>> participantImageUploadResponse = this.participantController.updateParticipantProfileImage(participant.getId().toString(), HelperService.getValidUpdateProfileImageRequest());
-        assertThat(participantImageUploadResponse.getPayload().get("imageUrl")).isNotNull();
+        CommonResponse<ProfileImageUploadDto> participantImageUploadResponse = this.participantController.updateParticipantProfileImage(participant.getId().toString(), HelperService.getValidUpdateProfileImageRequest());
+        assertThat(participantImageUploadResponse.getPayload().status()).isEqualTo(ProfileImageStatus.PROCESSING);
+        assertThat(participantImageUploadResponse.getPayload().profileImage()).endsWith("/medium.jpg");
+        assertThat(participantImageUploadResponse.getPayload().imageUrl()).isNotNull();
     }
     
     @Test